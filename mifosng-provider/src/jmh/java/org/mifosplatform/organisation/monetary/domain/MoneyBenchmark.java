@@ -0,0 +1,99 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.organisation.monetary.domain;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the {@link Money} operations used on every installment by the
+ * schedule generators and repayment processors.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class MoneyBenchmark {
+
+    private static final int NUMBER_OF_AMOUNTS = 100;
+
+    @Param({ "0", "2" })
+    private int digitsAfterDecimal;
+
+    @Param({ "", "50" })
+    private String inMultiplesOf;
+
+    private MonetaryCurrency currency;
+    private Money principal;
+    private Money installment;
+    private BigDecimal rate;
+    private List<Money> amounts;
+
+    @Setup
+    public void setUp() {
+        final Integer multiplesOf = this.inMultiplesOf.isEmpty() ? null : Integer.valueOf(this.inMultiplesOf);
+        this.currency = new MonetaryCurrency("USD", this.digitsAfterDecimal, multiplesOf);
+        this.principal = Money.of(this.currency, new BigDecimal("123456.789"));
+        this.installment = Money.of(this.currency, new BigDecimal("1029.47"));
+        this.rate = new BigDecimal("0.0198765");
+        this.amounts = new ArrayList<>(NUMBER_OF_AMOUNTS);
+        for (int i = 1; i <= NUMBER_OF_AMOUNTS; i++) {
+            this.amounts.add(Money.of(this.currency, BigDecimal.valueOf(i * 37L, 2)));
+        }
+    }
+
+    @Benchmark
+    public Money of() {
+        return Money.of(this.currency, new BigDecimal("98765.4321"));
+    }
+
+    @Benchmark
+    public Money plus() {
+        return this.principal.plus(this.installment);
+    }
+
+    @Benchmark
+    public Money minus() {
+        return this.principal.minus(this.installment);
+    }
+
+    @Benchmark
+    public Money multipliedBy() {
+        return this.principal.multipliedBy(this.rate);
+    }
+
+    @Benchmark
+    public Money dividedBy() {
+        return this.principal.dividedBy(12L, RoundingMode.HALF_EVEN);
+    }
+
+    @Benchmark
+    public Money total() {
+        return Money.total(this.amounts);
+    }
+
+    @Benchmark
+    public boolean isGreaterThan() {
+        return this.principal.isGreaterThan(this.installment);
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.calendar.service;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import net.fortuna.ical4j.model.Date;
+import net.fortuna.ical4j.model.DateList;
+import net.fortuna.ical4j.model.DateTime;
+import net.fortuna.ical4j.model.Recur;
+import net.fortuna.ical4j.model.ValidationException;
+import net.fortuna.ical4j.model.parameter.Value;
+import net.fortuna.ical4j.model.property.RRule;
+
+import org.joda.time.LocalDate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the {@link CalendarUtils} calls made for every installment of a
+ * loan linked to a meeting calendar with the previous implementation, which
+ * parsed the rule on every call and always iterated with ical4j.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class CalendarUtilsBenchmark {
+
+    private static final int NUMBER_OF_DATES = 52;
+
+    static {
+        System.setProperty("net.fortuna.ical4j.timezone.date.floating", "true");
+    }
+
+    @Param({ "FREQ=WEEKLY;INTERVAL=1;BYDAY=TU", "FREQ=MONTHLY;INTERVAL=1", "FREQ=MONTHLY;INTERVAL=1;BYDAY=2TU" })
+    private String recurrence;
+
+    private LocalDate seedDate;
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    @Setup
+    public void setUp() {
+        this.seedDate = new LocalDate(2015, 1, 6);
+        this.startDate = new LocalDate(2016, 3, 17);
+        this.endDate = this.startDate.plusYears(5);
+    }
+
+    @Benchmark
+    public LocalDate nextRecurringDate() {
+        return CalendarUtils.getNextRecurringDate(this.recurrence, this.seedDate, this.startDate);
+    }
+
+    @Benchmark
+    public LocalDate nextRecurringDateParsedEachCall() {
+        final Recur recur = parse(this.recurrence);
+        final Date nextDate = recur.getNextDate(formattedDate(this.seedDate), new DateTime(this.startDate.toDate()));
+        return nextDate == null ? null : new LocalDate(nextDate);
+    }
+
+    @Benchmark
+    public Collection<LocalDate> recurringDates() {
+        return CalendarUtils.getRecurringDates(this.recurrence, this.seedDate, this.startDate, this.endDate, NUMBER_OF_DATES);
+    }
+
+    @Benchmark
+    public Collection<LocalDate> recurringDatesParsedEachCall() {
+        final Recur recur = parse(this.recurrence);
+        final DateList dates = recur.getDates(formattedDate(this.seedDate), new DateTime(this.startDate.toDate()), new DateTime(
+                this.endDate.toDate()), new Value(Value.DATE.getValue()), NUMBER_OF_DATES);
+        final Collection<LocalDate> recurringDates = new ArrayList<>();
+        for (@SuppressWarnings("rawtypes")
+        final Iterator iterator = dates.iterator(); iterator.hasNext();) {
+            recurringDates.add(new LocalDate(iterator.next()));
+        }
+        return recurringDates;
+    }
+
+    @Benchmark
+    public boolean validRecurringDate() {
+        return CalendarUtils.isValidRedurringDate(this.recurrence, this.seedDate, this.startDate);
+    }
+
+    private static Recur parse(final String recurrence) {
+        try {
+            final RRule rrule = new RRule(recurrence);
+            rrule.validate();
+            return rrule.getRecur();
+        } catch (final ParseException | ValidationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Date formattedDate(final LocalDate date) {
+        try {
+            return new Date(new SimpleDateFormat("yyyy-MM-dd").format(date.toDate()), "yyyy-MM-dd");
+        } catch (final ParseException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
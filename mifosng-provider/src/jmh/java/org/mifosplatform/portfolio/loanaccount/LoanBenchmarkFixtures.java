@@ -0,0 +1,104 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.joda.time.LocalDate;
+import org.joda.time.LocalDateTime;
+import org.mifosplatform.organisation.holiday.domain.Holiday;
+import org.mifosplatform.organisation.monetary.domain.ApplicationCurrency;
+import org.mifosplatform.organisation.monetary.domain.MonetaryCurrency;
+import org.mifosplatform.organisation.monetary.domain.Money;
+import org.mifosplatform.organisation.office.domain.Office;
+import org.mifosplatform.organisation.workingdays.domain.WorkingDays;
+import org.mifosplatform.portfolio.loanaccount.data.HolidayDetailDTO;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanRepaymentScheduleInstallment;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanTransaction;
+import org.mifosplatform.portfolio.paymentdetail.domain.PaymentDetail;
+import org.mifosplatform.useradministration.domain.AppUser;
+import org.springframework.beans.BeanUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Shared, database free fixtures for the loan benchmarks.
+ */
+public class LoanBenchmarkFixtures {
+
+    public static final String CURRENCY_CODE = "USD";
+    public static final int DIGITS_AFTER_DECIMAL = 2;
+
+    private static final String ALL_DAYS_WORKING = "FREQ=WEEKLY;INTERVAL=1;BYDAY=MO,TU,WE,TH,FR,SA,SU";
+    private static final Integer SAME_DAY_RESCHEDULING = Integer.valueOf(1);
+
+    public static MonetaryCurrency usDollars() {
+        return new MonetaryCurrencyBuilder().withCode(CURRENCY_CODE).withDigitsAfterDecimal(DIGITS_AFTER_DECIMAL).build();
+    }
+
+    /**
+     * {@link ApplicationCurrency} is only ever loaded from the database, so
+     * its fields are populated reflectively here.
+     */
+    public static ApplicationCurrency usDollarsApplicationCurrency() {
+        final ApplicationCurrency currency = BeanUtils.instantiateClass(ApplicationCurrency.class);
+        ReflectionTestUtils.setField(currency, "code", CURRENCY_CODE);
+        ReflectionTestUtils.setField(currency, "name", "US Dollar");
+        ReflectionTestUtils.setField(currency, "decimalPlaces", DIGITS_AFTER_DECIMAL);
+        ReflectionTestUtils.setField(currency, "nameCode", "currency.USD");
+        ReflectionTestUtils.setField(currency, "displaySymbol", "$");
+        return currency;
+    }
+
+    /**
+     * Holidays disabled and every day a working day, so that schedule
+     * generation cost is not dominated by date adjustments.
+     */
+    public static HolidayDetailDTO noHolidaysAllWorkingDays() {
+        final WorkingDays workingDays = new WorkingDays(ALL_DAYS_WORKING, SAME_DAY_RESCHEDULING) {};
+        return new HolidayDetailDTO(false, new ArrayList<Holiday>(), workingDays);
+    }
+
+    /**
+     * @return a weekly schedule of <code>numberOfInstallments</code> equal
+     *         installments starting one week after <code>disbursementDate</code>
+     */
+    public static List<LoanRepaymentScheduleInstallment> weeklySchedule(final LocalDate disbursementDate, final int numberOfInstallments,
+            final MonetaryCurrency currency) {
+        final List<LoanRepaymentScheduleInstallment> installments = new ArrayList<>(numberOfInstallments);
+        for (int number = 1; number <= numberOfInstallments; number++) {
+            installments.add(new LoanRepaymentScheduleInstallmentBuilder(currency).withInstallmentNumber(number)
+                    .withDueDate(disbursementDate.plusWeeks(number)).withPrincipal("1000.00").withInterest("120.00").build());
+        }
+        return installments;
+    }
+
+    /**
+     * @return one on time repayment per installment for the first
+     *         <code>numberOfRepayments</code> installments, each paying
+     *         <code>amount</code>
+     */
+    public static List<LoanTransaction> weeklyRepayments(final LocalDate disbursementDate, final int numberOfRepayments,
+            final Money amount) {
+        final Office office = null;
+        final PaymentDetail paymentDetail = null;
+        final String externalId = null;
+        final AppUser appUser = null;
+        final LocalDateTime createdDate = new LocalDateTime();
+
+        final List<LoanTransaction> transactions = new ArrayList<>(numberOfRepayments);
+        for (int number = 1; number <= numberOfRepayments; number++) {
+            transactions.add(LoanTransaction.repayment(office, amount, paymentDetail, disbursementDate.plusWeeks(number), externalId,
+                    createdDate, appUser));
+        }
+        return transactions;
+    }
+
+    public static Money money(final MonetaryCurrency currency, final String amount) {
+        return Money.of(currency, new BigDecimal(amount));
+    }
+}
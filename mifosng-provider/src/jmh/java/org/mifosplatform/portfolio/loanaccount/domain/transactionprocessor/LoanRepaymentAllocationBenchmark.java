@@ -0,0 +1,89 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.LocalDate;
+import org.mifosplatform.organisation.monetary.domain.MonetaryCurrency;
+import org.mifosplatform.portfolio.loanaccount.LoanBenchmarkFixtures;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanCharge;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanRepaymentScheduleInstallment;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanTransaction;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.MifosStyleLoanRepaymentScheduleTransactionProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the two ways a new repayment is applied to a loan that already has
+ * <code>existingRepayments</code> on its books: the append only path used by
+ * <code>Loan</code> when the repayment is the latest, and the full replay
+ * used for back dated repayments.
+ *
+ * Equivalence of the two paths is covered by
+ * <code>LoanRepaymentAllocationEquivalenceTest</code>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class LoanRepaymentAllocationBenchmark {
+
+    @Param({ "12", "52", "260" })
+    private int existingRepayments;
+
+    private final LocalDate disbursementDate = new LocalDate(2015, 1, 5);
+    private final MonetaryCurrency currency = LoanBenchmarkFixtures.usDollars();
+    private final LoanRepaymentScheduleTransactionProcessor processor = new MifosStyleLoanRepaymentScheduleTransactionProcessor();
+    private final Set<LoanCharge> charges = new HashSet<>();
+
+    private List<LoanRepaymentScheduleInstallment> installments;
+    private List<LoanTransaction> transactions;
+    private LoanTransaction newRepayment;
+
+    @Setup(Level.Invocation)
+    public void setUpLoanWithRepayments() {
+        final int numberOfInstallments = this.existingRepayments + 1;
+        this.installments = LoanBenchmarkFixtures.weeklySchedule(this.disbursementDate, numberOfInstallments, this.currency);
+        this.transactions = LoanBenchmarkFixtures.weeklyRepayments(this.disbursementDate, numberOfInstallments,
+                LoanBenchmarkFixtures.money(this.currency, "1120.00"));
+        this.newRepayment = this.transactions.remove(this.existingRepayments);
+
+        final LocalDate recalculateChargesFrom = null;
+        this.processor.handleTransaction(this.disbursementDate, this.transactions, this.currency, this.installments, this.charges,
+                recalculateChargesFrom);
+        this.transactions.add(this.newRepayment);
+    }
+
+    @Benchmark
+    public LoanTransaction appendOnly() {
+        this.processor.handleTransaction(this.newRepayment, this.currency, this.installments, this.charges);
+        this.newRepayment.adjustInterestComponent(this.currency);
+        return this.newRepayment;
+    }
+
+    @Benchmark
+    public ChangedTransactionDetail fullReplay() {
+        final LocalDate recalculateChargesFrom = null;
+        return this.processor.handleTransaction(this.disbursementDate, this.transactions, this.currency, this.installments,
+                this.charges, recalculateChargesFrom);
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.LocalDate;
+import org.mifosplatform.organisation.monetary.domain.MonetaryCurrency;
+import org.mifosplatform.portfolio.loanaccount.LoanBenchmarkFixtures;
+import org.mifosplatform.portfolio.loanaccount.domain.ChangedTransactionDetail;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanCharge;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanRepaymentScheduleInstallment;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanTransaction;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.CreocoreLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.EarlyPaymentLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.HeavensFamilyLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.InterestPrincipalPenaltyFeesOrderLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.MifosStyleLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.PrincipalInterestPenaltyFeesOrderLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.RBILoanRepaymentScheduleTransactionProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a full replay of a loan's repayments through each
+ * {@link LoanRepaymentScheduleTransactionProcessor}, as done whenever a
+ * transaction is adjusted or back dated.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class LoanRepaymentScheduleTransactionProcessorBenchmark {
+
+    @Param({ "mifos-standard-strategy", "rbi-india-strategy", "heavensfamily-strategy", "early-repayment-strategy", "creocore-strategy",
+            "principal-interest-penalties-fees-order-strategy", "interest-principal-penalties-fees-order-strategy" })
+    private String strategy;
+
+    @Param({ "12", "52", "260" })
+    private int numberOfInstallments;
+
+    private final LocalDate disbursementDate = new LocalDate(2015, 1, 5);
+    private final MonetaryCurrency currency = LoanBenchmarkFixtures.usDollars();
+
+    private LoanRepaymentScheduleTransactionProcessor processor;
+    private List<LoanRepaymentScheduleInstallment> installments;
+    private List<LoanTransaction> transactions;
+
+    @Setup
+    public void setUpProcessor() {
+        this.processor = processorFor(this.strategy);
+    }
+
+    /**
+     * Transactions carry their derived portions once processed, so a fresh
+     * set is needed for every replay.
+     */
+    @Setup(Level.Invocation)
+    public void setUpLoan() {
+        this.installments = LoanBenchmarkFixtures.weeklySchedule(this.disbursementDate, this.numberOfInstallments, this.currency);
+        this.transactions = LoanBenchmarkFixtures.weeklyRepayments(this.disbursementDate, this.numberOfInstallments,
+                LoanBenchmarkFixtures.money(this.currency, "1120.00"));
+    }
+
+    @Benchmark
+    public ChangedTransactionDetail replayRepayments() {
+        final LocalDate recalculateChargesFrom = null;
+        return this.processor.handleTransaction(this.disbursementDate, this.transactions, this.currency, this.installments,
+                new HashSet<LoanCharge>(), recalculateChargesFrom);
+    }
+
+    private static LoanRepaymentScheduleTransactionProcessor processorFor(final String strategy) {
+        switch (strategy) {
+            case "mifos-standard-strategy":
+                return new MifosStyleLoanRepaymentScheduleTransactionProcessor();
+            case "rbi-india-strategy":
+                return new RBILoanRepaymentScheduleTransactionProcessor();
+            case "heavensfamily-strategy":
+                return new HeavensFamilyLoanRepaymentScheduleTransactionProcessor();
+            case "early-repayment-strategy":
+                return new EarlyPaymentLoanRepaymentScheduleTransactionProcessor();
+            case "creocore-strategy":
+                return new CreocoreLoanRepaymentScheduleTransactionProcessor();
+            case "principal-interest-penalties-fees-order-strategy":
+                return new PrincipalInterestPenaltyFeesOrderLoanRepaymentScheduleTransactionProcessor();
+            case "interest-principal-penalties-fees-order-strategy":
+                return new InterestPrincipalPenaltyFeesOrderLoanRepaymentScheduleTransactionProcessor();
+            default:
+                throw new IllegalArgumentException("Unknown transaction processing strategy: " + strategy);
+        }
+    }
+}
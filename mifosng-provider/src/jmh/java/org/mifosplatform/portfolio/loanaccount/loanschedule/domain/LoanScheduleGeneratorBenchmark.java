@@ -0,0 +1,125 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount.loanschedule.domain;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.LocalDate;
+import org.mifosplatform.organisation.monetary.domain.ApplicationCurrency;
+import org.mifosplatform.organisation.monetary.domain.MonetaryCurrency;
+import org.mifosplatform.organisation.monetary.domain.Money;
+import org.mifosplatform.portfolio.common.domain.DayOfWeekType;
+import org.mifosplatform.portfolio.common.domain.DaysInMonthType;
+import org.mifosplatform.portfolio.common.domain.DaysInYearType;
+import org.mifosplatform.portfolio.common.domain.PeriodFrequencyType;
+import org.mifosplatform.portfolio.loanaccount.LoanBenchmarkFixtures;
+import org.mifosplatform.portfolio.loanaccount.data.DisbursementData;
+import org.mifosplatform.portfolio.loanaccount.data.HolidayDetailDTO;
+import org.mifosplatform.portfolio.loanaccount.data.LoanTermVariationsData;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanCharge;
+import org.mifosplatform.portfolio.loanproduct.domain.AmortizationMethod;
+import org.mifosplatform.portfolio.loanproduct.domain.InterestCalculationPeriodMethod;
+import org.mifosplatform.portfolio.loanproduct.domain.InterestMethod;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link LoanScheduleGenerator#generate} for the declining balance
+ * and flat interest generators over weekly schedules of increasing length,
+ * for single and multi-tranche loans, with and without interest
+ * recalculation enabled on the terms.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class LoanScheduleGeneratorBenchmark {
+
+    private static final int NUMBER_OF_TRANCHES = 3;
+
+    @Param({ "12", "52", "104", "260" })
+    private int numberOfRepayments;
+
+    @Param({ "DECLINING_BALANCE", "FLAT" })
+    private InterestMethod interestMethod;
+
+    @Param({ "false", "true" })
+    private boolean multiTranche;
+
+    @Param({ "false", "true" })
+    private boolean interestRecalculationEnabled;
+
+    private final MathContext mc = new MathContext(8, RoundingMode.HALF_EVEN);
+    private final LocalDate expectedDisbursementDate = new LocalDate(2015, 1, 5);
+    private final BigDecimal principal = new BigDecimal("90000");
+
+    private LoanScheduleGenerator generator;
+    private ApplicationCurrency applicationCurrency;
+    private MonetaryCurrency currency;
+    private HolidayDetailDTO holidayDetailDTO;
+
+    @Setup
+    public void setUp() {
+        this.generator = new DefaultLoanScheduleGeneratorFactory().create(this.interestMethod);
+        this.applicationCurrency = LoanBenchmarkFixtures.usDollarsApplicationCurrency();
+        this.currency = LoanBenchmarkFixtures.usDollars();
+        this.holidayDetailDTO = LoanBenchmarkFixtures.noHolidaysAllWorkingDays();
+    }
+
+    @Benchmark
+    public LoanScheduleModel generate() {
+        // terms are mutated during generation so are assembled per invocation
+        return this.generator.generate(this.mc, loanApplicationTerms(), new HashSet<LoanCharge>(), this.holidayDetailDTO);
+    }
+
+    private LoanApplicationTerms loanApplicationTerms() {
+        final Integer nthDay = null;
+        final DayOfWeekType weekDayType = null;
+        final LocalDate repaymentsStartingFromDate = null;
+        final LocalDate calculatedRepaymentsStartingFromDate = null;
+        final LocalDate interestChargedFromDate = null;
+        final Integer noGrace = null;
+        final BigDecimal emiAmount = null;
+
+        final List<DisbursementData> disbursementDatas = new ArrayList<>();
+        BigDecimal maxOutstandingBalance = null;
+        if (this.multiTranche) {
+            final BigDecimal trancheAmount = this.principal.divide(BigDecimal.valueOf(NUMBER_OF_TRANCHES));
+            final int weeksBetweenTranches = Math.max(1, this.numberOfRepayments / (2 * NUMBER_OF_TRANCHES));
+            for (int tranche = 0; tranche < NUMBER_OF_TRANCHES; tranche++) {
+                final LocalDate trancheDate = this.expectedDisbursementDate.plusWeeks(tranche * weeksBetweenTranches);
+                disbursementDatas.add(new DisbursementData(null, trancheDate, null, trancheAmount, trancheAmount));
+            }
+            maxOutstandingBalance = this.principal;
+        }
+
+        return LoanApplicationTerms.assembleFrom(this.applicationCurrency, this.numberOfRepayments, PeriodFrequencyType.WEEKS,
+                this.numberOfRepayments, 1, PeriodFrequencyType.WEEKS, nthDay, weekDayType, AmortizationMethod.EQUAL_INSTALLMENTS,
+                this.interestMethod, new BigDecimal("24"), PeriodFrequencyType.YEARS, new BigDecimal("24"),
+                InterestCalculationPeriodMethod.SAME_AS_REPAYMENT_PERIOD, Money.of(this.currency, this.principal),
+                this.expectedDisbursementDate, repaymentsStartingFromDate, calculatedRepaymentsStartingFromDate, noGrace, noGrace,
+                noGrace, interestChargedFromDate, Money.zero(this.currency), this.multiTranche, emiAmount, disbursementDatas,
+                maxOutstandingBalance, new ArrayList<LoanTermVariationsData>(), noGrace, DaysInMonthType.ACTUAL, DaysInYearType.ACTUAL,
+                this.interestRecalculationEnabled);
+    }
+}
@@ -6,8 +6,10 @@
 package org.mifosplatform.accounting.journalentry.api;
 
 import org.apache.commons.lang.StringUtils;
+import org.mifosplatform.accounting.journalentry.data.GLAccountBalanceData;
 import org.mifosplatform.accounting.journalentry.data.JournalEntryAssociationParametersData;
 import org.mifosplatform.accounting.journalentry.data.JournalEntryData;
+import org.mifosplatform.accounting.journalentry.service.GLDailyBalanceReadPlatformService;
 import org.mifosplatform.accounting.journalentry.service.JournalEntryReadPlatformService;
 import org.mifosplatform.commands.domain.CommandWrapper;
 import org.mifosplatform.commands.service.CommandWrapperBuilder;
@@ -20,11 +22,13 @@ import org.mifosplatform.infrastructure.core.serialization.DefaultToApiJsonSeria
 import org.mifosplatform.infrastructure.core.service.Page;
 import org.mifosplatform.infrastructure.core.service.SearchParameters;
 import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext;
+import org.mifosplatform.useradministration.domain.AppUser;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
 import javax.ws.rs.Consumes;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
@@ -36,6 +40,7 @@ import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.UriInfo;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.Set;
@@ -50,6 +55,9 @@ public class JournalEntriesApiResource {
 			"manualEntry", "entityType", "entityId", "createdByUserId", "createdDate", "createdByUserName", "comments", "reversed",
 			"referenceNumber", "currency", "opening"));
 
+	private static final Set<String> BALANCE_RESPONSE_DATA_PARAMETERS = new HashSet<>(Arrays.asList("glAccountId", "glAccountName",
+			"glAccountCode", "glAccountType", "currencyCode", "debits", "credits", "closingBalance"));
+
 	private final String resourceNameForPermission = "JOURNALENTRY";
 
 	private final JournalEntryReadPlatformService journalEntryReadPlatformService;
@@ -57,18 +65,24 @@ public class JournalEntriesApiResource {
 	private final ApiRequestParameterHelper apiRequestParameterHelper;
 	private final PlatformSecurityContext context;
 	private final PortfolioCommandSourceWritePlatformService commandsSourceWritePlatformService;
+	private final GLDailyBalanceReadPlatformService glDailyBalanceReadPlatformService;
+	private final DefaultToApiJsonSerializer<GLAccountBalanceData> balanceApiJsonSerializerService;
 
 	@Autowired
 	public JournalEntriesApiResource(final PlatformSecurityContext context,
 	                                 final JournalEntryReadPlatformService journalEntryReadPlatformService,
 	                                 final DefaultToApiJsonSerializer<JournalEntryData> toApiJsonSerializer,
 	                                 final ApiRequestParameterHelper apiRequestParameterHelper,
-	                                 final PortfolioCommandSourceWritePlatformService commandsSourceWritePlatformService) {
+	                                 final PortfolioCommandSourceWritePlatformService commandsSourceWritePlatformService,
+	                                 final GLDailyBalanceReadPlatformService glDailyBalanceReadPlatformService,
+	                                 final DefaultToApiJsonSerializer<GLAccountBalanceData> balanceApiJsonSerializerService) {
 		this.context = context;
 		this.apiRequestParameterHelper = apiRequestParameterHelper;
 		this.commandsSourceWritePlatformService = commandsSourceWritePlatformService;
 		this.apiJsonSerializerService = toApiJsonSerializer;
 		this.journalEntryReadPlatformService = journalEntryReadPlatformService;
+		this.glDailyBalanceReadPlatformService = glDailyBalanceReadPlatformService;
+		this.balanceApiJsonSerializerService = balanceApiJsonSerializerService;
 	}
 
 	@GET
@@ -105,6 +119,35 @@ public class JournalEntriesApiResource {
 		return this.apiJsonSerializerService.serialize(settings, glJournalEntries, RESPONSE_DATA_PARAMETERS);
 	}
 
+	@GET
+	@Path("balances")
+	@Consumes({MediaType.APPLICATION_JSON})
+	@Produces({MediaType.APPLICATION_JSON})
+	public String retrieveBalances(@Context final UriInfo uriInfo, @QueryParam("officeId") final Long officeId,
+	                               @QueryParam("includeSubOffices") @DefaultValue("true") final boolean includeSubOffices,
+	                               @QueryParam("asOn") final DateParam asOnDateParam, @QueryParam("fromDate") final DateParam fromDateParam,
+	                               @QueryParam("currencyCode") final String currencyCode,
+	                               @QueryParam("locale") final String locale, @QueryParam("dateFormat") final String dateFormat) {
+
+		final AppUser currentUser = this.context.authenticatedUser();
+		currentUser.validateHasReadPermission(this.resourceNameForPermission);
+
+		final Long balanceOfficeId = officeId == null ? currentUser.getOffice().getId() : officeId;
+		Date asOnDate = new Date();
+		if (asOnDateParam != null) {
+			asOnDate = asOnDateParam.getDate("asOn", dateFormat, locale);
+		}
+		Date fromDate = null;
+		if (fromDateParam != null) {
+			fromDate = fromDateParam.getDate("fromDate", dateFormat, locale);
+		}
+
+		final Collection<GLAccountBalanceData> balances = this.glDailyBalanceReadPlatformService.retrieveBalances(balanceOfficeId,
+				includeSubOffices, asOnDate, fromDate, currencyCode);
+		final ApiRequestJsonSerializationSettings settings = this.apiRequestParameterHelper.process(uriInfo.getQueryParameters());
+		return this.balanceApiJsonSerializerService.serialize(settings, balances, BALANCE_RESPONSE_DATA_PARAMETERS);
+	}
+
 	@GET
 	@Path("{journalEntryId}")
 	@Consumes({MediaType.APPLICATION_JSON})
@@ -132,6 +175,10 @@ public class JournalEntriesApiResource {
 			final CommandWrapper commandRequest = new CommandWrapperBuilder().updateRunningBalanceForJournalEntry()
 					.withJson(jsonRequestBody).build();
 			result = this.commandsSourceWritePlatformService.logCommandSource(commandRequest);
+		} else if (is(commandParam, "rebuildDailyBalances")) {
+			final CommandWrapper commandRequest = new CommandWrapperBuilder().rebuildDailyBalancesForJournalEntry()
+					.withJson(jsonRequestBody).build();
+			result = this.commandsSourceWritePlatformService.logCommandSource(commandRequest);
 		} else {
 			final CommandWrapper commandRequest = new CommandWrapperBuilder().createJournalEntry().withJson(jsonRequestBody).build();
 			result = this.commandsSourceWritePlatformService.logCommandSource(commandRequest);
@@ -0,0 +1,40 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.accounting.journalentry.data;
+
+import java.math.BigDecimal;
+
+import org.mifosplatform.infrastructure.core.data.EnumOptionData;
+
+/**
+ * Immutable data object representing the balance of a GL account, for an
+ * office and its sub offices, as on a date.
+ */
+@SuppressWarnings("unused")
+public class GLAccountBalanceData {
+
+    private final Long glAccountId;
+    private final String glAccountName;
+    private final String glAccountCode;
+    private final EnumOptionData glAccountType;
+    private final String currencyCode;
+    private final BigDecimal debits;
+    private final BigDecimal credits;
+    private final BigDecimal closingBalance;
+
+    public GLAccountBalanceData(final Long glAccountId, final String glAccountName, final String glAccountCode,
+            final EnumOptionData glAccountType, final String currencyCode, final BigDecimal debits, final BigDecimal credits,
+            final BigDecimal closingBalance) {
+        this.glAccountId = glAccountId;
+        this.glAccountName = glAccountName;
+        this.glAccountCode = glAccountCode;
+        this.glAccountType = glAccountType;
+        this.currencyCode = currencyCode;
+        this.debits = debits;
+        this.credits = credits;
+        this.closingBalance = closingBalance;
+    }
+}
@@ -270,4 +270,24 @@ public class JournalEntry extends AbstractAuditableCustom<AppUser, Long> {
         return profit;
     }
 
+    public boolean isManualEntry() {
+        return this.manualEntry;
+    }
+
+    public boolean isReversed() {
+        return this.reversed;
+    }
+
+    public String getDescription() {
+        return this.description;
+    }
+
+    public Integer getEntityType() {
+        return this.entityType;
+    }
+
+    public Long getEntityId() {
+        return this.entityId;
+    }
+
 }
\ No newline at end of file
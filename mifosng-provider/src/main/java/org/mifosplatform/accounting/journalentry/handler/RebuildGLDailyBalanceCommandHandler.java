@@ -0,0 +1,30 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.accounting.journalentry.handler;
+
+import org.mifosplatform.accounting.journalentry.service.GLDailyBalanceWritePlatformService;
+import org.mifosplatform.commands.handler.NewCommandSourceHandler;
+import org.mifosplatform.infrastructure.core.api.JsonCommand;
+import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+@Service
+public class RebuildGLDailyBalanceCommandHandler implements NewCommandSourceHandler {
+
+    private final GLDailyBalanceWritePlatformService glDailyBalanceWritePlatformService;
+
+    @Autowired
+    public RebuildGLDailyBalanceCommandHandler(final GLDailyBalanceWritePlatformService glDailyBalanceWritePlatformService) {
+        this.glDailyBalanceWritePlatformService = glDailyBalanceWritePlatformService;
+    }
+
+    @Override
+    public CommandProcessingResult processCommand(@SuppressWarnings("unused") final JsonCommand command) {
+        return this.glDailyBalanceWritePlatformService.rebuildDailyBalances();
+    }
+
+}
@@ -6,8 +6,11 @@
 package org.mifosplatform.accounting.journalentry.service;
 
 import java.math.BigDecimal;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.Deque;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -23,6 +26,7 @@ import org.mifosplatform.accounting.common.AccountingConstants.FINANCIAL_ACTIVIT
 import org.mifosplatform.accounting.financialactivityaccount.domain.FinancialActivityAccount;
 import org.mifosplatform.accounting.financialactivityaccount.domain.FinancialActivityAccountRepositoryWrapper;
 import org.mifosplatform.accounting.glaccount.domain.GLAccount;
+import org.mifosplatform.accounting.glaccount.domain.GLAccountRepository;
 import org.mifosplatform.accounting.journalentry.data.ChargePaymentDTO;
 import org.mifosplatform.accounting.journalentry.data.LoanDTO;
 import org.mifosplatform.accounting.journalentry.data.LoanTransactionDTO;
@@ -34,9 +38,8 @@ import org.mifosplatform.accounting.journalentry.domain.JournalEntryType;
 import org.mifosplatform.accounting.journalentry.exception.JournalEntryInvalidException;
 import org.mifosplatform.accounting.journalentry.exception.JournalEntryInvalidException.GL_JOURNAL_ENTRY_INVALID_REASON;
 import org.mifosplatform.accounting.producttoaccountmapping.domain.PortfolioProductType;
-import org.mifosplatform.accounting.producttoaccountmapping.domain.ProductToGLAccountMapping;
-import org.mifosplatform.accounting.producttoaccountmapping.domain.ProductToGLAccountMappingRepository;
 import org.mifosplatform.accounting.producttoaccountmapping.exception.ProductToGLAccountMappingNotFoundException;
+import org.mifosplatform.accounting.producttoaccountmapping.service.ProductToGLAccountMappingCache;
 import org.mifosplatform.infrastructure.core.exception.PlatformDataIntegrityException;
 import org.mifosplatform.organisation.monetary.data.CurrencyData;
 import org.mifosplatform.organisation.office.domain.Office;
@@ -60,7 +63,10 @@ public class AccountingProcessorHelper {
     public static final String LOAN_TRANSACTION_IDENTIFIER = "L";
     public static final String SAVINGS_TRANSACTION_IDENTIFIER = "S";
     private final JournalEntryRepository glJournalEntryRepository;
-    private final ProductToGLAccountMappingRepository accountMappingRepository;
+    private final ProductToGLAccountMappingCache accountMappingCache;
+    private final GLAccountRepository glAccountRepository;
+    private final JournalEntryBatchWriter journalEntryBatchWriter;
+    private final GLDailyBalanceWritePlatformService glDailyBalanceWritePlatformService;
     private final FinancialActivityAccountRepositoryWrapper financialActivityAccountRepository;
     private final GLClosureRepository closureRepository;
     private final OfficeRepository officeRepository;
@@ -68,21 +74,87 @@ public class AccountingProcessorHelper {
     private final SavingsAccountTransactionRepository savingsAccountTransactionRepository;
     private final AccountTransfersReadPlatformService accountTransfersReadPlatformService;
 
+    /**
+     * Journal entries of the business transactions being posted on the
+     * current thread, innermost last, see {@link #startJournalEntryBatch()}
+     */
+    private final ThreadLocal<Deque<List<JournalEntry>>> pendingJournalEntries = new ThreadLocal<>();
+
     @Autowired
     public AccountingProcessorHelper(final JournalEntryRepository glJournalEntryRepository,
-            final ProductToGLAccountMappingRepository accountMappingRepository, final GLClosureRepository closureRepository,
+            final ProductToGLAccountMappingCache accountMappingCache, final GLClosureRepository closureRepository,
             final OfficeRepository officeRepository, final LoanTransactionRepository loanTransactionRepository,
             final SavingsAccountTransactionRepository savingsAccountTransactionRepository,
             final FinancialActivityAccountRepositoryWrapper financialActivityAccountRepository,
-            final AccountTransfersReadPlatformService accountTransfersReadPlatformService) {
+            final AccountTransfersReadPlatformService accountTransfersReadPlatformService,
+            final GLAccountRepository glAccountRepository, final JournalEntryBatchWriter journalEntryBatchWriter,
+            final GLDailyBalanceWritePlatformService glDailyBalanceWritePlatformService) {
         this.glJournalEntryRepository = glJournalEntryRepository;
-        this.accountMappingRepository = accountMappingRepository;
+        this.accountMappingCache = accountMappingCache;
         this.closureRepository = closureRepository;
         this.officeRepository = officeRepository;
         this.loanTransactionRepository = loanTransactionRepository;
         this.savingsAccountTransactionRepository = savingsAccountTransactionRepository;
         this.financialActivityAccountRepository = financialActivityAccountRepository;
         this.accountTransfersReadPlatformService = accountTransfersReadPlatformService;
+        this.glAccountRepository = glAccountRepository;
+        this.journalEntryBatchWriter = journalEntryBatchWriter;
+        this.glDailyBalanceWritePlatformService = glDailyBalanceWritePlatformService;
+    }
+
+    /**
+     * Collects the journal entries created on this thread, until
+     * {@link #writeJournalEntryBatch()}, instead of saving each one. Batches
+     * nest: a batch started while another is open collects the entries until
+     * it ends, and the outer batch then carries on.
+     */
+    public void startJournalEntryBatch() {
+        Deque<List<JournalEntry>> batches = this.pendingJournalEntries.get();
+        if (batches == null) {
+            batches = new ArrayDeque<>();
+            this.pendingJournalEntries.set(batches);
+        }
+        batches.push(new ArrayList<JournalEntry>());
+    }
+
+    /**
+     * Writes the journal entries collected since the innermost
+     * {@link #startJournalEntryBatch()} in a single batch.
+     */
+    public void writeJournalEntryBatch() {
+        final List<JournalEntry> journalEntries = currentJournalEntryBatch();
+        if (journalEntries != null) {
+            final List<JournalEntry> written = new ArrayList<>(journalEntries);
+            journalEntries.clear();
+            this.journalEntryBatchWriter.write(written);
+        }
+    }
+
+    /**
+     * Ends the innermost batch, dropping any entries it has not written.
+     */
+    public void discardJournalEntryBatch() {
+        final Deque<List<JournalEntry>> batches = this.pendingJournalEntries.get();
+        if (batches == null) { return; }
+        batches.poll();
+        if (batches.isEmpty()) {
+            this.pendingJournalEntries.remove();
+        }
+    }
+
+    private List<JournalEntry> currentJournalEntryBatch() {
+        final Deque<List<JournalEntry>> batches = this.pendingJournalEntries.get();
+        return batches == null ? null : batches.peek();
+    }
+
+    private void saveJournalEntry(final JournalEntry journalEntry) {
+        final List<JournalEntry> journalEntries = currentJournalEntryBatch();
+        if (journalEntries == null) {
+            this.glJournalEntryRepository.saveAndFlush(journalEntry);
+            this.glDailyBalanceWritePlatformService.recordPostings(Arrays.asList(journalEntry));
+        } else {
+            journalEntries.add(journalEntry);
+        }
     }
 
     public LoanDTO populateLoanDtoFromMap(final Map<String, Object> accountingBridgeData, final boolean cashBasedAccountingEnabled,
@@ -570,7 +642,7 @@ public class AccountingProcessorHelper {
         final JournalEntry journalEntry = JournalEntry.createNew(office, paymentDetail, account, currencyCode, modifiedTransactionId,
                 manualEntry, transactionDate, JournalEntryType.CREDIT, amount, description, PortfolioProductType.LOAN.getValue(), loanId, null,
                 loanTransaction, savingsAccountTransaction);
-        this.glJournalEntryRepository.saveAndFlush(journalEntry);
+        saveJournalEntry(journalEntry);
     }
 
     private void createCreditJournalEntryForSavings(final Office office, final String currencyCode, final GLAccount account,
@@ -588,7 +660,7 @@ public class AccountingProcessorHelper {
         final JournalEntry journalEntry = JournalEntry.createNew(office, paymentDetail, account, currencyCode, modifiedTransactionId,
                 manualEntry, transactionDate, JournalEntryType.CREDIT, amount, null, PortfolioProductType.SAVING.getValue(), savingsId,
                 null, loanTransaction, savingsAccountTransaction);
-        this.glJournalEntryRepository.saveAndFlush(journalEntry);
+        saveJournalEntry(journalEntry);
     }
 
     private void createDebitJournalEntryForLoan(final Office office, final String currencyCode, final GLAccount account, final Long loanId,
@@ -607,7 +679,7 @@ public class AccountingProcessorHelper {
         final JournalEntry journalEntry = JournalEntry.createNew(office, paymentDetail, account, currencyCode, modifiedTransactionId,
                 manualEntry, transactionDate, JournalEntryType.DEBIT, amount, description, PortfolioProductType.LOAN.getValue(), loanId, null,
                 loanTransaction, savingsAccountTransaction);
-        this.glJournalEntryRepository.saveAndFlush(journalEntry);
+        saveJournalEntry(journalEntry);
     }
 
     private String getTransactionDescription(final LoanTransaction loanTransaction, final GLAccount account) {
@@ -656,7 +728,7 @@ public class AccountingProcessorHelper {
         final JournalEntry journalEntry = JournalEntry.createNew(office, paymentDetail, account, currencyCode, modifiedTransactionId,
                 manualEntry, transactionDate, JournalEntryType.DEBIT, amount, null, PortfolioProductType.SAVING.getValue(), savingsId,
                 null, loanTransaction, savingsAccountTransaction);
-        this.glJournalEntryRepository.saveAndFlush(journalEntry);
+        saveJournalEntry(journalEntry);
     }
 
     private GLAccount getLinkedGLAccountForLoanProduct(final Long loanProductId, final int accountMappingTypeId, final Long paymentTypeId) {
@@ -666,8 +738,8 @@ public class AccountingProcessorHelper {
                     .findByFinancialActivityTypeWithNotFoundDetection(accountMappingTypeId);
             glAccount = financialActivityAccount.getGlAccount();
         } else {
-            ProductToGLAccountMapping accountMapping = this.accountMappingRepository.findCoreProductToFinAccountMapping(loanProductId,
-                    PortfolioProductType.LOAN.getValue(), accountMappingTypeId);
+            Long glAccountId = this.accountMappingCache.findCoreGLAccountId(loanProductId, PortfolioProductType.LOAN,
+                    accountMappingTypeId);
 
             /****
              * Get more specific mapping for FUND source accounts (based on
@@ -675,24 +747,22 @@ public class AccountingProcessorHelper {
              * same for both cash and accrual accounts
              ***/
             if (accountMappingTypeId == CASH_ACCOUNTS_FOR_LOAN.FUND_SOURCE.getValue()) {
-                final ProductToGLAccountMapping paymentChannelSpecificAccountMapping = this.accountMappingRepository
-                        .findByProductIdAndProductTypeAndFinancialAccountTypeAndPaymentTypeId(loanProductId,
-                                PortfolioProductType.LOAN.getValue(), accountMappingTypeId, paymentTypeId);
-                if (paymentChannelSpecificAccountMapping != null) {
-                    accountMapping = paymentChannelSpecificAccountMapping;
+                final Long paymentChannelSpecificGLAccountId = this.accountMappingCache.findPaymentTypeGLAccountId(loanProductId,
+                        PortfolioProductType.LOAN, accountMappingTypeId, paymentTypeId);
+                if (paymentChannelSpecificGLAccountId != null) {
+                    glAccountId = paymentChannelSpecificGLAccountId;
                 }
             }
 
-            if (accountMapping == null) { throw new ProductToGLAccountMappingNotFoundException(PortfolioProductType.LOAN, loanProductId,
+            if (glAccountId == null) { throw new ProductToGLAccountMappingNotFoundException(PortfolioProductType.LOAN, loanProductId,
                     ACCRUAL_ACCOUNTS_FOR_LOAN.OVERPAYMENT.toString()); }
-            glAccount = accountMapping.getGlAccount();
+            glAccount = this.glAccountRepository.getOne(glAccountId);
         }
         return glAccount;
     }
 
     private GLAccount getLinkedGLAccountForLoanCharges(final Long loanProductId, final int accountMappingTypeId, final Long chargeId) {
-        ProductToGLAccountMapping accountMapping = this.accountMappingRepository.findCoreProductToFinAccountMapping(loanProductId,
-                PortfolioProductType.LOAN.getValue(), accountMappingTypeId);
+        Long glAccountId = this.accountMappingCache.findCoreGLAccountId(loanProductId, PortfolioProductType.LOAN, accountMappingTypeId);
         /*****
          * Get more specific mappings for Charges and penalties (based on the
          * actual charge /penalty coupled with the loan product). Note the
@@ -703,19 +773,20 @@ public class AccountingProcessorHelper {
         // Vishwas TODO: remove this condition as it should always be true
         if (accountMappingTypeId == CASH_ACCOUNTS_FOR_LOAN.INCOME_FROM_FEES.getValue()
                 || accountMappingTypeId == CASH_ACCOUNTS_FOR_LOAN.INCOME_FROM_PENALTIES.getValue()) {
-            final ProductToGLAccountMapping chargeSpecificIncomeAccountMapping = this.accountMappingRepository
-                    .findByProductIdAndProductTypeAndFinancialAccountTypeAndChargeId(loanProductId, PortfolioProductType.LOAN.getValue(),
-                            accountMappingTypeId, chargeId);
-            if (chargeSpecificIncomeAccountMapping != null) {
-                accountMapping = chargeSpecificIncomeAccountMapping;
+            final Long chargeSpecificGLAccountId = this.accountMappingCache.findChargeGLAccountId(loanProductId,
+                    PortfolioProductType.LOAN, accountMappingTypeId, chargeId);
+            if (chargeSpecificGLAccountId != null) {
+                glAccountId = chargeSpecificGLAccountId;
             }
         }
-        return accountMapping.getGlAccount();
+        if (glAccountId == null) { throw new ProductToGLAccountMappingNotFoundException(PortfolioProductType.LOAN, loanProductId,
+                String.valueOf(CASH_ACCOUNTS_FOR_LOAN.fromInt(accountMappingTypeId))); }
+        return this.glAccountRepository.getOne(glAccountId);
     }
 
     private GLAccount getLinkedGLAccountForSavingsCharges(final Long savingsProductId, final int accountMappingTypeId, final Long chargeId) {
-        ProductToGLAccountMapping accountMapping = this.accountMappingRepository.findCoreProductToFinAccountMapping(savingsProductId,
-                PortfolioProductType.SAVING.getValue(), accountMappingTypeId);
+        Long glAccountId = this.accountMappingCache.findCoreGLAccountId(savingsProductId, PortfolioProductType.SAVING,
+                accountMappingTypeId);
         /*****
          * Get more specific mappings for Charges and penalties (based on the
          * actual charge /penalty coupled with the loan product). Note the
@@ -726,14 +797,15 @@ public class AccountingProcessorHelper {
         // Vishwas TODO: remove this condition as it should always be true
         if (accountMappingTypeId == CASH_ACCOUNTS_FOR_SAVINGS.INCOME_FROM_FEES.getValue()
                 || accountMappingTypeId == CASH_ACCOUNTS_FOR_LOAN.INCOME_FROM_PENALTIES.getValue()) {
-            final ProductToGLAccountMapping chargeSpecificIncomeAccountMapping = this.accountMappingRepository
-                    .findByProductIdAndProductTypeAndFinancialAccountTypeAndChargeId(savingsProductId,
-                            PortfolioProductType.SAVING.getValue(), accountMappingTypeId, chargeId);
-            if (chargeSpecificIncomeAccountMapping != null) {
-                accountMapping = chargeSpecificIncomeAccountMapping;
+            final Long chargeSpecificGLAccountId = this.accountMappingCache.findChargeGLAccountId(savingsProductId,
+                    PortfolioProductType.SAVING, accountMappingTypeId, chargeId);
+            if (chargeSpecificGLAccountId != null) {
+                glAccountId = chargeSpecificGLAccountId;
             }
         }
-        return accountMapping.getGlAccount();
+        if (glAccountId == null) { throw new ProductToGLAccountMappingNotFoundException(PortfolioProductType.SAVING, savingsProductId,
+                String.valueOf(CASH_ACCOUNTS_FOR_SAVINGS.fromInt(accountMappingTypeId))); }
+        return this.glAccountRepository.getOne(glAccountId);
     }
 
     private GLAccount getLinkedGLAccountForSavingsProduct(final Long savingsProductId, final int accountMappingTypeId,
@@ -744,22 +816,23 @@ public class AccountingProcessorHelper {
                     .findByFinancialActivityTypeWithNotFoundDetection(accountMappingTypeId);
             glAccount = financialActivityAccount.getGlAccount();
         } else {
-            ProductToGLAccountMapping accountMapping = this.accountMappingRepository.findCoreProductToFinAccountMapping(savingsProductId,
-                    PortfolioProductType.SAVING.getValue(), accountMappingTypeId);
+            Long glAccountId = this.accountMappingCache.findCoreGLAccountId(savingsProductId, PortfolioProductType.SAVING,
+                    accountMappingTypeId);
             /****
              * Get more specific mapping for FUND source accounts (based on
              * payment channels). Note that fund source placeholder ID would be
              * same for both cash and accrual accounts
              ***/
             if (accountMappingTypeId == CASH_ACCOUNTS_FOR_SAVINGS.SAVINGS_REFERENCE.getValue()) {
-                final ProductToGLAccountMapping paymentChannelSpecificAccountMapping = this.accountMappingRepository
-                        .findByProductIdAndProductTypeAndFinancialAccountTypeAndPaymentTypeId(savingsProductId,
-                                PortfolioProductType.SAVING.getValue(), accountMappingTypeId, paymentTypeId);
-                if (paymentChannelSpecificAccountMapping != null) {
-                    accountMapping = paymentChannelSpecificAccountMapping;
+                final Long paymentChannelSpecificGLAccountId = this.accountMappingCache.findPaymentTypeGLAccountId(savingsProductId,
+                        PortfolioProductType.SAVING, accountMappingTypeId, paymentTypeId);
+                if (paymentChannelSpecificGLAccountId != null) {
+                    glAccountId = paymentChannelSpecificGLAccountId;
                 }
             }
-            glAccount = accountMapping.getGlAccount();
+            if (glAccountId == null) { throw new ProductToGLAccountMappingNotFoundException(PortfolioProductType.SAVING, savingsProductId,
+                    String.valueOf(CASH_ACCOUNTS_FOR_SAVINGS.fromInt(accountMappingTypeId))); }
+            glAccount = this.glAccountRepository.getOne(glAccountId);
         }
         return glAccount;
     }
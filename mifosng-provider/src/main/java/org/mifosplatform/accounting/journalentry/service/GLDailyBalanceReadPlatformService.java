@@ -0,0 +1,24 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.accounting.journalentry.service;
+
+import java.util.Collection;
+import java.util.Date;
+
+import org.mifosplatform.accounting.journalentry.data.GLAccountBalanceData;
+
+public interface GLDailyBalanceReadPlatformService {
+
+    /**
+     * @param fromDate
+     *            start of the period whose debits and credits are returned,
+     *            the as on date itself when <code>null</code>
+     * @param currencyCode
+     *            all currencies when <code>null</code>
+     */
+    Collection<GLAccountBalanceData> retrieveBalances(Long officeId, boolean includeSubOffices, Date asOnDate, Date fromDate,
+            String currencyCode);
+}
@@ -0,0 +1,118 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.accounting.journalentry.service;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import org.mifosplatform.accounting.common.AccountingEnumerations;
+import org.mifosplatform.accounting.journalentry.data.GLAccountBalanceData;
+import org.mifosplatform.infrastructure.core.data.EnumOptionData;
+import org.mifosplatform.infrastructure.core.domain.JdbcSupport;
+import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
+import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext;
+import org.mifosplatform.organisation.office.domain.Office;
+import org.mifosplatform.organisation.office.domain.OfficeRepositoryWrapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+@Service
+public class GLDailyBalanceReadPlatformServiceImpl implements GLDailyBalanceReadPlatformService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformSecurityContext context;
+    private final OfficeRepositoryWrapper officeRepository;
+
+    @Autowired
+    public GLDailyBalanceReadPlatformServiceImpl(final RoutingDataSource dataSource, final PlatformSecurityContext context,
+            final OfficeRepositoryWrapper officeRepository) {
+        this(new JdbcTemplate(dataSource), context, officeRepository);
+    }
+
+    GLDailyBalanceReadPlatformServiceImpl(final JdbcTemplate jdbcTemplate, final PlatformSecurityContext context,
+            final OfficeRepositoryWrapper officeRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.context = context;
+        this.officeRepository = officeRepository;
+    }
+
+    private static final class GLAccountBalanceMapper implements RowMapper<GLAccountBalanceData> {
+
+        /**
+         * Every office, account and currency contributes the closing balance
+         * of its last day on or before the as on date.
+         */
+        public String schema(final String officeFilter) {
+            return " gl.id as glAccountId, gl.name as glAccountName, gl.gl_code as glAccountCode, gl.classification_enum as classification, "
+                    + " b.currency_code as currencyCode, "
+                    + " sum(if(b.balance_date >= ?, b.debit_amount, 0)) as debits, "
+                    + " sum(if(b.balance_date >= ?, b.credit_amount, 0)) as credits, "
+                    + " sum(if(b.balance_date = latest.balance_date, b.closing_balance, 0)) as closingBalance "
+                    + " from acc_gl_daily_balance b "
+                    + " join (select lb.office_id, lb.account_id, lb.currency_code, max(lb.balance_date) as balance_date "
+                    + " from acc_gl_daily_balance lb join m_office o on o.id = lb.office_id "
+                    + " where lb.balance_date <= ? and " + officeFilter + " group by lb.office_id, lb.account_id, lb.currency_code) latest "
+                    + " on latest.office_id = b.office_id and latest.account_id = b.account_id and latest.currency_code = b.currency_code "
+                    + " join acc_gl_account gl on gl.id = b.account_id "
+                    + " where b.balance_date <= ? ";
+        }
+
+        @Override
+        public GLAccountBalanceData mapRow(final ResultSet rs, @SuppressWarnings("unused") final int rowNum) throws SQLException {
+            final Long glAccountId = rs.getLong("glAccountId");
+            final String glAccountName = rs.getString("glAccountName");
+            final String glAccountCode = rs.getString("glAccountCode");
+            final Integer classification = JdbcSupport.getInteger(rs, "classification");
+            final EnumOptionData glAccountType = AccountingEnumerations.gLAccountType(classification);
+            final String currencyCode = rs.getString("currencyCode");
+            final BigDecimal debits = rs.getBigDecimal("debits");
+            final BigDecimal credits = rs.getBigDecimal("credits");
+            final BigDecimal closingBalance = rs.getBigDecimal("closingBalance");
+            return new GLAccountBalanceData(glAccountId, glAccountName, glAccountCode, glAccountType, currencyCode, debits, credits,
+                    closingBalance);
+        }
+    }
+
+    @Override
+    public Collection<GLAccountBalanceData> retrieveBalances(final Long officeId, final boolean includeSubOffices, final Date asOnDate,
+            final Date fromDate, final String currencyCode) {
+        final Office office = this.officeRepository.findOneWithNotFoundDetection(officeId);
+        this.context.validateAccessRights(office.getHierarchy());
+
+        final String officeFilter;
+        if (includeSubOffices) {
+            officeFilter = "o.hierarchy like concat((select parent.hierarchy from m_office parent where parent.id = ?), '%')";
+        } else {
+            officeFilter = "o.id = ?";
+        }
+        final java.sql.Date asOn = new java.sql.Date(asOnDate.getTime());
+        final java.sql.Date periodStart = fromDate == null ? asOn : new java.sql.Date(fromDate.getTime());
+
+        final List<Object> params = new ArrayList<>();
+        params.add(periodStart);
+        params.add(periodStart);
+        params.add(asOn);
+        params.add(officeId);
+        params.add(asOn);
+
+        final GLAccountBalanceMapper rm = new GLAccountBalanceMapper();
+        final StringBuilder sql = new StringBuilder("select").append(rm.schema(officeFilter));
+        if (currencyCode != null) {
+            sql.append(" and b.currency_code = ? ");
+            params.add(currencyCode);
+        }
+        sql.append(" group by gl.id, b.currency_code order by gl.gl_code, b.currency_code");
+
+        return this.jdbcTemplate.query(sql.toString(), rm, params.toArray());
+    }
+}
@@ -0,0 +1,25 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.accounting.journalentry.service;
+
+import java.util.Collection;
+
+import org.mifosplatform.accounting.journalentry.domain.JournalEntry;
+import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
+
+/**
+ * Maintains <code>acc_gl_daily_balance</code>, the per day, office, GL account
+ * and currency debits, credits and closing balance (debits less credits) of
+ * the journal.
+ */
+public interface GLDailyBalanceWritePlatformService {
+
+    void recordPostings(Collection<JournalEntry> journalEntries);
+
+    void recordRemovals(Collection<JournalEntry> journalEntries);
+
+    CommandProcessingResult rebuildDailyBalances();
+}
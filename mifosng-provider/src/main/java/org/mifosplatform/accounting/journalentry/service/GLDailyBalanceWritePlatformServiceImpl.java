@@ -0,0 +1,194 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.accounting.journalentry.service;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.mifosplatform.accounting.journalentry.domain.JournalEntry;
+import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
+import org.mifosplatform.infrastructure.core.data.CommandProcessingResultBuilder;
+import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+public class GLDailyBalanceWritePlatformServiceImpl implements GLDailyBalanceWritePlatformService {
+
+    private final static Logger logger = LoggerFactory.getLogger(GLDailyBalanceWritePlatformServiceImpl.class);
+
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    private static final String UPDATE_DAY_SQL = "update acc_gl_daily_balance set debit_amount = debit_amount + ?, "
+            + "credit_amount = credit_amount + ?, closing_balance = closing_balance + ? "
+            + "where office_id = ? and account_id = ? and currency_code = ? and balance_date = ?";
+
+    /*
+     * locks the previous day so a concurrent posting to an earlier day cannot
+     * carry its movement forward past the balance read here
+     */
+    private static final String PREVIOUS_CLOSING_BALANCE_SQL = "select closing_balance from acc_gl_daily_balance "
+            + "where office_id = ? and account_id = ? and currency_code = ? and balance_date < ? order by balance_date desc limit 1 "
+            + "for update";
+
+    private static final String INSERT_DAY_SQL = "insert into acc_gl_daily_balance "
+            + "(office_id, account_id, currency_code, balance_date, debit_amount, credit_amount, closing_balance) "
+            + "values (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String CARRY_FORWARD_SQL = "update acc_gl_daily_balance set closing_balance = closing_balance + ? "
+            + "where office_id = ? and account_id = ? and currency_code = ? and balance_date > ?";
+
+    private static final String REBUILD_DAYS_SQL = "insert into acc_gl_daily_balance "
+            + "(office_id, account_id, currency_code, balance_date, debit_amount, credit_amount) "
+            + "select je.office_id, je.account_id, je.currency_code, je.entry_date, sum(if(je.type_enum = 2, je.amount, 0)), "
+            + "sum(if(je.type_enum = 1, je.amount, 0)) from acc_gl_journal_entry je "
+            + "group by je.office_id, je.account_id, je.currency_code, je.entry_date";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public GLDailyBalanceWritePlatformServiceImpl(final RoutingDataSource dataSource) {
+        this(new JdbcTemplate(dataSource));
+    }
+
+    GLDailyBalanceWritePlatformServiceImpl(final JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void recordPostings(final Collection<JournalEntry> journalEntries) {
+        apply(journalEntries, BigDecimal.ONE);
+    }
+
+    @Override
+    public void recordRemovals(final Collection<JournalEntry> journalEntries) {
+        apply(journalEntries, BigDecimal.ONE.negate());
+    }
+
+    /**
+     * Nets the entries per day, office, account and currency, and applies the
+     * days in key order so that concurrent postings lock rows in the same
+     * order.
+     */
+    private void apply(final Collection<JournalEntry> journalEntries, final BigDecimal sign) {
+        final Map<String, DailyMovement> movements = new TreeMap<>();
+        for (final JournalEntry journalEntry : journalEntries) {
+            final DailyMovement movement = new DailyMovement(journalEntry.getOffice().getId(), journalEntry.getGlAccount().getId(),
+                    journalEntry.getCurrencyCode(), new Date(journalEntry.getTransactionDate().getTime()));
+            DailyMovement existing = movements.get(movement.key());
+            if (existing == null) {
+                existing = movement;
+                movements.put(movement.key(), existing);
+            }
+            final BigDecimal amount = journalEntry.getAmount().multiply(sign);
+            if (journalEntry.isDebitEntry()) {
+                existing.debits = existing.debits.add(amount);
+            } else {
+                existing.credits = existing.credits.add(amount);
+            }
+        }
+
+        for (final DailyMovement movement : movements.values()) {
+            final BigDecimal netMovement = movement.debits.subtract(movement.credits);
+            if (!updateDay(movement, netMovement)) {
+                try {
+                    insertDay(movement, netMovement);
+                } catch (final DuplicateKeyException e) {
+                    // the day was inserted concurrently
+                    updateDay(movement, netMovement);
+                }
+            }
+            this.jdbcTemplate.update(CARRY_FORWARD_SQL, netMovement, movement.officeId, movement.accountId, movement.currencyCode,
+                    movement.date);
+        }
+    }
+
+    private boolean updateDay(final DailyMovement movement, final BigDecimal netMovement) {
+        return this.jdbcTemplate.update(UPDATE_DAY_SQL, movement.debits, movement.credits, netMovement, movement.officeId,
+                movement.accountId, movement.currencyCode, movement.date) > 0;
+    }
+
+    private void insertDay(final DailyMovement movement, final BigDecimal netMovement) {
+        final List<BigDecimal> previous = this.jdbcTemplate.queryForList(PREVIOUS_CLOSING_BALANCE_SQL, BigDecimal.class,
+                movement.officeId, movement.accountId, movement.currencyCode, movement.date);
+        final BigDecimal previousClosingBalance = previous.isEmpty() ? BigDecimal.ZERO : previous.get(0);
+        this.jdbcTemplate.update(INSERT_DAY_SQL, movement.officeId, movement.accountId, movement.currencyCode, movement.date,
+                movement.debits, movement.credits, previousClosingBalance.add(netMovement));
+    }
+
+    @Transactional
+    @Override
+    public CommandProcessingResult rebuildDailyBalances() {
+        this.jdbcTemplate.update("delete from acc_gl_daily_balance");
+        final int days = this.jdbcTemplate.update(REBUILD_DAYS_SQL);
+
+        final List<Object[]> closingBalances = new ArrayList<>(REBUILD_BATCH_SIZE);
+        this.jdbcTemplate.query("select id, office_id, account_id, currency_code, debit_amount, credit_amount "
+                + "from acc_gl_daily_balance order by office_id, account_id, currency_code, balance_date", new RowCallbackHandler() {
+
+            private String currentKey;
+            private BigDecimal closingBalance;
+
+            @Override
+            public void processRow(final ResultSet rs) throws SQLException {
+                final String key = rs.getLong("office_id") + ":" + rs.getLong("account_id") + ":" + rs.getString("currency_code");
+                if (!key.equals(this.currentKey)) {
+                    this.currentKey = key;
+                    this.closingBalance = BigDecimal.ZERO;
+                }
+                this.closingBalance = this.closingBalance.add(rs.getBigDecimal("debit_amount")).subtract(rs.getBigDecimal("credit_amount"));
+                closingBalances.add(new Object[] { this.closingBalance, rs.getLong("id") });
+                if (closingBalances.size() == REBUILD_BATCH_SIZE) {
+                    writeClosingBalances(closingBalances);
+                }
+            }
+        });
+        writeClosingBalances(closingBalances);
+
+        logger.info(days + " daily GL balances rebuilt");
+        return new CommandProcessingResultBuilder().build();
+    }
+
+    private void writeClosingBalances(final List<Object[]> closingBalances) {
+        if (closingBalances.isEmpty()) { return; }
+        this.jdbcTemplate.batchUpdate("update acc_gl_daily_balance set closing_balance = ? where id = ?", closingBalances);
+        closingBalances.clear();
+    }
+
+    private static final class DailyMovement {
+
+        private final Long officeId;
+        private final Long accountId;
+        private final String currencyCode;
+        private final Date date;
+        private BigDecimal debits = BigDecimal.ZERO;
+        private BigDecimal credits = BigDecimal.ZERO;
+
+        DailyMovement(final Long officeId, final Long accountId, final String currencyCode, final Date date) {
+            this.officeId = officeId;
+            this.accountId = accountId;
+            this.currencyCode = currencyCode;
+            this.date = date;
+        }
+
+        String key() {
+            return String.format("%019d:%019d:%s:%s", this.officeId, this.accountId, this.currencyCode, this.date);
+        }
+    }
+}
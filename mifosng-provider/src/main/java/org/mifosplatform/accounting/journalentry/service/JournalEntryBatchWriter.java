@@ -0,0 +1,130 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.accounting.journalentry.service;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+import org.mifosplatform.accounting.journalentry.domain.JournalEntry;
+import org.mifosplatform.accounting.journalentry.domain.JournalEntryRepository;
+import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
+import org.mifosplatform.useradministration.domain.AppUser;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Inserts the journal entries of one business transaction with a single JDBC
+ * batch. Journal entries use identity ids, which keeps Hibernate from
+ * batching their inserts.
+ *
+ * Entries written here are not attached to the persistence context; their
+ * audit columns are filled in as the JPA auditing listener would. The
+ * persistence context is flushed first if a loan or savings transaction they
+ * refer to has no id yet.
+ */
+@Component
+public class JournalEntryBatchWriter {
+
+    private static final String INSERT_SQL = "insert into acc_gl_journal_entry (account_id, office_id, payment_details_id, "
+            + "currency_code, transaction_id, loan_transaction_id, savings_transaction_id, reversed, manual_entry, entry_date, "
+            + "type_enum, amount, exchange_rate, description, entity_type_enum, entity_id, ref_num, unidentified_entry, profit, "
+            + "profit_transaction_id, createdby_id, created_date, lastmodifiedby_id, lastmodified_date) "
+            + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditorAware<AppUser> auditorAware;
+    private final GLDailyBalanceWritePlatformService glDailyBalanceWritePlatformService;
+    private final JournalEntryRepository journalEntryRepository;
+
+    @Autowired
+    public JournalEntryBatchWriter(final RoutingDataSource dataSource, final AuditorAware<AppUser> auditorAware,
+            final GLDailyBalanceWritePlatformService glDailyBalanceWritePlatformService,
+            final JournalEntryRepository journalEntryRepository) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.auditorAware = auditorAware;
+        this.glDailyBalanceWritePlatformService = glDailyBalanceWritePlatformService;
+        this.journalEntryRepository = journalEntryRepository;
+    }
+
+    public void write(final List<JournalEntry> journalEntries) {
+        if (journalEntries.isEmpty()) { return; }
+
+        if (hasUnsavedTransaction(journalEntries)) {
+            this.journalEntryRepository.flush();
+            if (hasUnsavedTransaction(journalEntries)) { throw new IllegalStateException(
+                    "Journal entries refer to a loan or savings transaction that has not been saved"); }
+        }
+
+        final AppUser auditor = this.auditorAware.getCurrentAuditor();
+        final Long auditorId = auditor == null ? null : auditor.getId();
+        final Timestamp now = new Timestamp(System.currentTimeMillis());
+
+        this.jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+
+            @Override
+            public void setValues(final PreparedStatement ps, final int i) throws SQLException {
+                final JournalEntry entry = journalEntries.get(i);
+                int index = 1;
+                ps.setLong(index++, entry.getGlAccount().getId());
+                ps.setLong(index++, entry.getOffice().getId());
+                setNullableLong(ps, index++, entry.getPaymentDetails() == null ? null : entry.getPaymentDetails().getId());
+                ps.setString(index++, entry.getCurrencyCode());
+                ps.setString(index++, entry.getTransactionId());
+                setNullableLong(ps, index++, entry.getLoanTransaction() == null ? null : entry.getLoanTransaction().getId());
+                setNullableLong(ps, index++, entry.getSavingsTransaction() == null ? null : entry.getSavingsTransaction().getId());
+                ps.setBoolean(index++, entry.isReversed());
+                ps.setBoolean(index++, entry.isManualEntry());
+                ps.setDate(index++, new java.sql.Date(entry.getTransactionDate().getTime()));
+                ps.setInt(index++, entry.getType());
+                ps.setBigDecimal(index++, entry.getAmount());
+                ps.setBigDecimal(index++, entry.getExchangeRate());
+                ps.setString(index++, entry.getDescription());
+                if (entry.getEntityType() == null) {
+                    ps.setNull(index++, Types.SMALLINT);
+                } else {
+                    ps.setInt(index++, entry.getEntityType());
+                }
+                setNullableLong(ps, index++, entry.getEntityId());
+                ps.setString(index++, entry.getReferenceNumber());
+                ps.setBoolean(index++, entry.isUnidentifiedEntry());
+                ps.setBoolean(index++, entry.isProfit());
+                ps.setString(index++, entry.getProfitTransactionId());
+                setNullableLong(ps, index++, auditorId);
+                ps.setTimestamp(index++, now);
+                setNullableLong(ps, index++, auditorId);
+                ps.setTimestamp(index++, now);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return journalEntries.size();
+            }
+        });
+        this.glDailyBalanceWritePlatformService.recordPostings(journalEntries);
+    }
+
+    private static boolean hasUnsavedTransaction(final List<JournalEntry> journalEntries) {
+        for (final JournalEntry entry : journalEntries) {
+            if (entry.getLoanTransaction() != null && entry.getLoanTransaction().getId() == null) { return true; }
+            if (entry.getSavingsTransaction() != null && entry.getSavingsTransaction().getId() == null) { return true; }
+        }
+        return false;
+    }
+
+    private static void setNullableLong(final PreparedStatement ps, final int index, final Long value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.BIGINT);
+        } else {
+            ps.setLong(index, value);
+        }
+    }
+}
@@ -80,6 +80,7 @@ public class JournalEntryWritePlatformServiceJpaRepositoryImpl implements Journa
     private final PaymentDetailWritePlatformService paymentDetailWritePlatformService;
     private final LoanTransactionRepository loanTransactionRepository;
     private final JdbcTemplate jdbcTemplate;
+    private final GLDailyBalanceWritePlatformService glDailyBalanceWritePlatformService;
 
     @Autowired
     public JournalEntryWritePlatformServiceJpaRepositoryImpl(final GLClosureRepository glClosureRepository,
@@ -92,7 +93,8 @@ public class JournalEntryWritePlatformServiceJpaRepositoryImpl implements Journa
                                                              final OrganisationCurrencyRepository organisationCurrencyRepo,
                                                              final OrganisationCurrencyRepositoryWrapper organisationCurrencyRepository, final PlatformSecurityContext context,
                                                              final PaymentDetailWritePlatformService paymentDetailWritePlatformService, final RoutingDataSource dataSource,
-                                                             final LoanTransactionRepository loanTransactionRepository) {
+                                                             final LoanTransactionRepository loanTransactionRepository,
+                                                             final GLDailyBalanceWritePlatformService glDailyBalanceWritePlatformService) {
         this.glClosureRepository = glClosureRepository;
         this.officeRepository = officeRepository;
         this.glJournalEntryRepository = glJournalEntryRepository;
@@ -110,6 +112,7 @@ public class JournalEntryWritePlatformServiceJpaRepositoryImpl implements Journa
         this.paymentDetailWritePlatformService = paymentDetailWritePlatformService;
         this.loanTransactionRepository = loanTransactionRepository;
         this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.glDailyBalanceWritePlatformService = glDailyBalanceWritePlatformService;
     }
 
     @Transactional
@@ -469,6 +472,7 @@ public class JournalEntryWritePlatformServiceJpaRepositoryImpl implements Journa
             }
             // save the reversal entry
             this.glJournalEntryRepository.saveAndFlush(reversalJournalEntry);
+            this.glDailyBalanceWritePlatformService.recordPostings(Arrays.asList(reversalJournalEntry));
             journalEntry.setReversed(true);
             journalEntry.setReversalJournalEntry(reversalJournalEntry);
             // save the updated journal entry
@@ -490,6 +494,7 @@ public class JournalEntryWritePlatformServiceJpaRepositoryImpl implements Journa
 	public CommandProcessingResult deleteJournalEntry(Long journalId) {
 		JournalEntry journalEntry = this.glJournalEntryRepository.findById(journalId);
 		List<JournalEntry> journalEntries = this.glJournalEntryRepository.findManualJournalEntriesByTransactionId(journalEntry.getTransactionId());
+		this.glDailyBalanceWritePlatformService.recordRemovals(journalEntries);
 		this.glJournalEntryRepository.delete(journalEntries);
 		return CommandProcessingResult.empty();
 	}
@@ -538,6 +543,7 @@ public class JournalEntryWritePlatformServiceJpaRepositoryImpl implements Journa
             }
             // save the profit entry
             this.glJournalEntryRepository.saveAndFlush(profitJournalEntry);
+            this.glDailyBalanceWritePlatformService.recordPostings(Arrays.asList(profitJournalEntry));
             journalEntry.setProfit(true);
             journalEntry.setProfitTransactionId(profitJournalEntry.getTransactionId());
 
@@ -571,7 +577,13 @@ public class JournalEntryWritePlatformServiceJpaRepositoryImpl implements Journa
                     upfrontAccrualBasedAccountingEnabled, periodicAccrualBasedAccountingEnabled);
             final AccountingProcessorForLoan accountingProcessorForLoan = this.accountingProcessorForLoanFactory
                     .determineProcessor(loanDTO);
-            accountingProcessorForLoan.createJournalEntriesForLoan(loanDTO);
+            this.helper.startJournalEntryBatch();
+            try {
+                accountingProcessorForLoan.createJournalEntriesForLoan(loanDTO);
+                this.helper.writeJournalEntryBatch();
+            } finally {
+                this.helper.discardJournalEntryBatch();
+            }
         }
     }
 
@@ -587,7 +599,13 @@ public class JournalEntryWritePlatformServiceJpaRepositoryImpl implements Journa
                     accrualBasedAccountingEnabled);
             final AccountingProcessorForSavings accountingProcessorForSavings = this.accountingProcessorForSavingsFactory
                     .determineProcessor(savingsDTO);
-            accountingProcessorForSavings.createJournalEntriesForSavings(savingsDTO);
+            this.helper.startJournalEntryBatch();
+            try {
+                accountingProcessorForSavings.createJournalEntriesForSavings(savingsDTO);
+                this.helper.writeJournalEntryBatch();
+            } finally {
+                this.helper.discardJournalEntryBatch();
+            }
         }
 
     }
@@ -664,6 +682,7 @@ public class JournalEntryWritePlatformServiceJpaRepositoryImpl implements Journa
                     manualEntry, transactionDate, type, singleDebitOrCreditEntryCommand.getAmount(), exchangeRate, comments, null, null, referenceNumber,
                     null, null, unidentifiedEntry);
             this.glJournalEntryRepository.saveAndFlush(glJournalEntry);
+            this.glDailyBalanceWritePlatformService.recordPostings(Arrays.asList(glJournalEntry));
         }
     }
 
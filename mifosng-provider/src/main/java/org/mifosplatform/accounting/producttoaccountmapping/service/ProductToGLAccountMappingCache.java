@@ -0,0 +1,185 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.accounting.producttoaccountmapping.service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.mifosplatform.accounting.producttoaccountmapping.domain.PortfolioProductType;
+import org.mifosplatform.accounting.producttoaccountmapping.domain.ProductToGLAccountMapping;
+import org.mifosplatform.accounting.producttoaccountmapping.domain.ProductToGLAccountMappingRepository;
+import org.mifosplatform.infrastructure.cache.service.CacheInvalidationLog;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Per tenant, in memory copy of the product to GL account mappings used when
+ * posting journal entries for loan and savings transactions.
+ *
+ * The mappings of a product are loaded with a single query on first use and
+ * held as GL account ids in an immutable table, until
+ * {@link ProductToGLAccountMappingWritePlatformService} changes them on this
+ * or, through the {@link CacheInvalidationLog}, another node, and for at most
+ * {@value #EXPIRY_MINUTES} minutes. Mappings loaded while an invalidation of
+ * the tenant was made are not kept, as they may predate it.
+ */
+@Component
+public class ProductToGLAccountMappingCache {
+
+    private static final String CACHE_NAME = "productToGLAccountMappings";
+    private static final long EXPIRY_MINUTES = 10;
+
+    private final ProductToGLAccountMappingRepository accountMappingRepository;
+    private final CacheInvalidationLog invalidationLog;
+    private final ConcurrentMap<String, TenantMappings> mappingsByTenant = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ProductToGLAccountMappingCache(final ProductToGLAccountMappingRepository accountMappingRepository,
+            final CacheInvalidationLog invalidationLog) {
+        this.accountMappingRepository = accountMappingRepository;
+        this.invalidationLog = invalidationLog;
+        this.invalidationLog.addListener(new CacheInvalidationLog.Listener() {
+
+            @Override
+            public void invalidated(final String cacheName, final String key, final String tenantIdentifier) {
+                if (!CACHE_NAME.equals(cacheName) || tenantIdentifier == null) { return; }
+                final TenantMappings tenantMappings = ProductToGLAccountMappingCache.this.mappingsByTenant.get(tenantIdentifier);
+                if (tenantMappings == null) { return; }
+                tenantMappings.invalidate(key);
+            }
+        });
+    }
+
+    /**
+     * @return the GL account id mapped to the product for the financial
+     *         account type, ignoring payment type and charge specific
+     *         mappings, or <code>null</code> when there is none
+     */
+    public Long findCoreGLAccountId(final Long productId, final PortfolioProductType productType, final int financialAccountType) {
+        return mappingsOf(productId, productType).core.get(financialAccountType);
+    }
+
+    public Long findPaymentTypeGLAccountId(final Long productId, final PortfolioProductType productType, final int financialAccountType,
+            final Long paymentTypeId) {
+        if (paymentTypeId == null) { return null; }
+        return mappingsOf(productId, productType).byPaymentType.get(financialAccountType + ":" + paymentTypeId);
+    }
+
+    public Long findChargeGLAccountId(final Long productId, final PortfolioProductType productType, final int financialAccountType,
+            final Long chargeId) {
+        if (chargeId == null) { return null; }
+        return mappingsOf(productId, productType).byCharge.get(financialAccountType + ":" + chargeId);
+    }
+
+    /**
+     * Discards the product's mappings for the current tenant, now and again
+     * once the current transaction commits, when other nodes discard theirs.
+     */
+    public void invalidate(final Long productId, final PortfolioProductType productType) {
+        final TenantMappings tenantMappings = tenantMappings();
+        final String key = keyFor(productId, productType);
+        tenantMappings.invalidate(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+                @Override
+                public void afterCommit() {
+                    tenantMappings.invalidate(key);
+                }
+            });
+        }
+        this.invalidationLog.publish(CACHE_NAME, key, ThreadLocalContextUtil.getTenant().getTenantIdentifier());
+    }
+
+    private ProductGLAccounts mappingsOf(final Long productId, final PortfolioProductType productType) {
+        final TenantMappings tenantMappings = tenantMappings();
+        final String key = keyFor(productId, productType);
+        ProductGLAccounts mappings = tenantMappings.mappings.get(key);
+        if (mappings == null || mappings.isExpired()) {
+            final long generation = tenantMappings.generation.get();
+            mappings = new ProductGLAccounts(this.accountMappingRepository.findByProductIdAndProductType(productId, productType.getValue()));
+            tenantMappings.mappings.put(key, mappings);
+            // an invalidation made meanwhile may have been removed before the put
+            if (tenantMappings.generation.get() != generation) {
+                tenantMappings.mappings.remove(key, mappings);
+            }
+        }
+        return mappings;
+    }
+
+    private TenantMappings tenantMappings() {
+        final String tenantIdentifier = ThreadLocalContextUtil.getTenant().getTenantIdentifier();
+        return this.mappingsByTenant.computeIfAbsent(tenantIdentifier, k -> new TenantMappings());
+    }
+
+    private static String keyFor(final Long productId, final PortfolioProductType productType) {
+        return productType.getValue() + ":" + productId;
+    }
+
+    private static final class TenantMappings {
+
+        private final ConcurrentMap<String, ProductGLAccounts> mappings = new ConcurrentHashMap<>();
+        private final AtomicLong generation = new AtomicLong();
+
+        /**
+         * @param key
+         *            the product's key, or null for all products
+         */
+        void invalidate(final String key) {
+            this.generation.incrementAndGet();
+            if (key == null) {
+                this.mappings.clear();
+            } else {
+                this.mappings.remove(key);
+            }
+        }
+    }
+
+    private static final class ProductGLAccounts {
+
+        private final long loadedAt = System.currentTimeMillis();
+        private final Map<Integer, Long> core;
+        private final Map<String, Long> byPaymentType;
+        private final Map<String, Long> byCharge;
+
+        ProductGLAccounts(final List<ProductToGLAccountMapping> mappings) {
+            final Map<Integer, Long> core = new HashMap<>();
+            final Map<String, Long> byPaymentType = new HashMap<>();
+            final Map<String, Long> byCharge = new HashMap<>();
+            for (final ProductToGLAccountMapping mapping : mappings) {
+                if (mapping.getGlAccount() == null) {
+                    continue;
+                }
+                final Long glAccountId = mapping.getGlAccount().getId();
+                final int financialAccountType = mapping.getFinancialAccountType();
+                if (mapping.getPaymentType() != null) {
+                    byPaymentType.put(financialAccountType + ":" + mapping.getPaymentType().getId(), glAccountId);
+                } else if (mapping.getCharge() != null) {
+                    byCharge.put(financialAccountType + ":" + mapping.getCharge().getId(), glAccountId);
+                } else {
+                    core.put(financialAccountType, glAccountId);
+                }
+            }
+            this.core = ImmutableMap.copyOf(core);
+            this.byPaymentType = ImmutableMap.copyOf(byPaymentType);
+            this.byCharge = ImmutableMap.copyOf(byCharge);
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() - this.loadedAt > TimeUnit.MINUTES.toMillis(EXPIRY_MINUTES);
+        }
+    }
+}
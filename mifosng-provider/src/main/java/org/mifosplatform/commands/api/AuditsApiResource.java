@@ -87,12 +87,12 @@ public class AuditsApiResource {
 
         if (parameters.isPaged()) {
             final Page<AuditData> auditEntries = this.auditReadPlatformService.retrievePaginatedAuditEntries(extraCriteria,
-                    settings.isIncludeJson(), parameters);
+                    settings.isIncludeJson(), parameters, makerDateTimeFrom, makerDateTimeTo);
             return this.toApiJsonSerializer.serialize(settings, auditEntries, this.RESPONSE_DATA_PARAMETERS);
         }
 
         final Collection<AuditData> auditEntries = this.auditReadPlatformService.retrieveAuditEntries(extraCriteria,
-                settings.isIncludeJson());
+                settings.isIncludeJson(), makerDateTimeFrom, makerDateTimeTo);
 
         return this.toApiJsonSerializer.serialize(settings, auditEntries, this.RESPONSE_DATA_PARAMETERS);
     }
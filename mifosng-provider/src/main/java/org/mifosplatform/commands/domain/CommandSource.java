@@ -240,4 +240,16 @@ public class CommandSource extends AbstractPersistable<Long> {
         this.transactionId = transactionId;
     }
 
+    /**
+     * @return the column values of this entry in the insert order used by
+     *         {@link org.mifosplatform.commands.service.CommandSourceAuditWriter}
+     */
+    public Object[] toInsertParameters() {
+        final Long makerId = this.maker == null ? null : this.maker.getId();
+        final Long checkerId = this.checker == null ? null : this.checker.getId();
+        return new Object[] { this.actionName, this.entityName, this.officeId, this.groupId, this.clientId, this.loanId, this.savingsId,
+                this.resourceGetUrl, this.resourceId, this.subresourceId, this.commandAsJson, makerId, this.madeOnDate, checkerId,
+                this.checkedOnDate, this.processingResult, this.productId, this.transactionId };
+    }
+
 }
\ No newline at end of file
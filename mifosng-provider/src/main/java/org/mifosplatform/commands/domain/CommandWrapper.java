@@ -338,6 +338,10 @@ public class CommandWrapper {
         return this.actionName.equalsIgnoreCase("UPDATERUNNINGBALANCE") && this.entityName.equalsIgnoreCase("JOURNALENTRY");
     }
 
+    public boolean isRebuildDailyBalances() {
+        return this.actionName.equalsIgnoreCase("REBUILDDAILYBALANCE") && this.entityName.equalsIgnoreCase("JOURNALENTRY");
+    }
+
     public boolean isFundResource() {
         return this.entityName.equalsIgnoreCase("FUND");
     }
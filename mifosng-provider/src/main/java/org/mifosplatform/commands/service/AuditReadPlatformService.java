@@ -16,8 +16,13 @@ public interface AuditReadPlatformService {
 
     Collection<AuditData> retrieveAuditEntries(String extraCriteria, boolean includeJson);
 
+    Collection<AuditData> retrieveAuditEntries(String extraCriteria, boolean includeJson, String makerDateTimeFrom, String makerDateTimeTo);
+
     Page<AuditData> retrievePaginatedAuditEntries(String extraCriteria, boolean includeJson, PaginationParameters parameters);
 
+    Page<AuditData> retrievePaginatedAuditEntries(String extraCriteria, boolean includeJson, PaginationParameters parameters,
+            String makerDateTimeFrom, String makerDateTimeTo);
+
     Collection<AuditData> retrieveAllEntriesToBeChecked(String extraCriteria, boolean includeJson);
 
     AuditData retrieveAuditEntry(Long auditId);
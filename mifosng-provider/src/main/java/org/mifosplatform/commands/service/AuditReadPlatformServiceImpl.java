@@ -8,6 +8,7 @@ package org.mifosplatform.commands.service;
 import java.lang.reflect.Type;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
@@ -20,6 +21,7 @@ import org.joda.time.DateTime;
 import org.mifosplatform.commands.data.AuditData;
 import org.mifosplatform.commands.data.AuditSearchData;
 import org.mifosplatform.commands.data.ProcessingResultLookup;
+import org.mifosplatform.infrastructure.core.api.ApiParameterHelper;
 import org.mifosplatform.infrastructure.core.data.PaginationParameters;
 import org.mifosplatform.infrastructure.core.data.PaginationParametersDataValidator;
 import org.mifosplatform.infrastructure.core.domain.JdbcSupport;
@@ -30,6 +32,7 @@ import org.mifosplatform.infrastructure.core.service.PaginationHelper;
 import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
 import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext;
 import org.mifosplatform.organisation.office.data.OfficeData;
+import org.mifosplatform.organisation.office.domain.Office;
 import org.mifosplatform.organisation.office.service.OfficeReadPlatformService;
 import org.mifosplatform.organisation.staff.data.StaffData;
 import org.mifosplatform.organisation.staff.service.StaffReadPlatformService;
@@ -50,6 +53,7 @@ import org.mifosplatform.useradministration.service.AppUserReadPlatformService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Service;
@@ -66,6 +70,9 @@ public class AuditReadPlatformServiceImpl implements AuditReadPlatformService {
             "subresourceId", "madeOnDate", "checkedOnDate", "officeName", "groupName", "clientName", "loanAccountNo", "savingsAccountNo",
             "clientId", "loanId"));
 
+    private static final String HOT_AUDIT_TABLE = "m_portfolio_command_source";
+    private static final String ARCHIVE_AUDIT_TABLE = "m_portfolio_command_source_archive";
+
     private final JdbcTemplate jdbcTemplate;
     private final PlatformSecurityContext context;
     private final FromJsonHelper fromApiJsonHelper;
@@ -102,7 +109,11 @@ public class AuditReadPlatformServiceImpl implements AuditReadPlatformService {
 
     private static final class AuditMapper implements RowMapper<AuditData> {
 
-        public String schema(final boolean includeJson, final String hierarchy) {
+        public String schema(final boolean includeJson, final Office office) {
+            return schema(includeJson, office, HOT_AUDIT_TABLE);
+        }
+
+        public String schema(final boolean includeJson, final Office office, final String auditSource) {
 
             String commandAsJsonString = "";
             if (includeJson) {
@@ -115,7 +126,7 @@ public class AuditReadPlatformServiceImpl implements AuditReadPlatformService {
                     + "ck.username as checker, aud.checked_on_date as checkedOnDate, ev.enum_message_property as processingResult "
                     + commandAsJsonString + ", "
                     + " o.name as officeName, gl.level_name as groupLevelName, g.display_name as groupName, c.display_name as clientName, "
-                    + " l.account_no as loanAccountNo, s.account_no as savingsAccountNo " + " from m_portfolio_command_source aud "
+                    + " l.account_no as loanAccountNo, s.account_no as savingsAccountNo " + " from " + auditSource + " aud "
                     + " left join m_appuser mk on mk.id = aud.maker_id" + " left join m_appuser ck on ck.id = aud.checker_id"
                     + " left join m_office o on o.id = aud.office_id" + " left join m_group g on g.id = aud.group_id"
                     + " left join m_group_level gl on gl.id = g.level_id" + " left join m_client c on c.id = aud.client_id"
@@ -124,8 +135,8 @@ public class AuditReadPlatformServiceImpl implements AuditReadPlatformService {
 
             // data scoping: head office (hierarchy = ".") can see all audit
             // entries
-            if (!(hierarchy.equals("."))) {
-                partSql += " join m_office o2 on o2.id = aud.office_id and o2.hierarchy like '" + hierarchy + "%' ";
+            if (!(office.getHierarchy().equals("."))) {
+                partSql += " join m_office_closure oc on oc.descendant_id = aud.office_id and oc.ancestor_id = " + office.getId() + " ";
             }
 
             return partSql;
@@ -170,6 +181,12 @@ public class AuditReadPlatformServiceImpl implements AuditReadPlatformService {
 
     @Override
     public Collection<AuditData> retrieveAuditEntries(final String extraCriteria, final boolean includeJson) {
+        return retrieveAuditEntries(extraCriteria, includeJson, null, null);
+    }
+
+    @Override
+    public Collection<AuditData> retrieveAuditEntries(final String extraCriteria, final boolean includeJson,
+            final String makerDateTimeFrom, final String makerDateTimeTo) {
 
         String updatedExtraCriteria = "";
         if (StringUtils.isNotBlank(extraCriteria)) {
@@ -177,16 +194,22 @@ public class AuditReadPlatformServiceImpl implements AuditReadPlatformService {
         }
 
         updatedExtraCriteria += " order by aud.id DESC limit " + PaginationParameters.getCheckedLimit(null);
-        return retrieveEntries("audit", updatedExtraCriteria, includeJson);
+        return retrieveEntries("audit", updatedExtraCriteria, includeJson, auditSource(makerDateTimeFrom, makerDateTimeTo));
     }
 
     @Override
     public Page<AuditData> retrievePaginatedAuditEntries(final String extraCriteria, final boolean includeJson,
             final PaginationParameters parameters) {
+        return retrievePaginatedAuditEntries(extraCriteria, includeJson, parameters, null, null);
+    }
+
+    @Override
+    public Page<AuditData> retrievePaginatedAuditEntries(final String extraCriteria, final boolean includeJson,
+            final PaginationParameters parameters, final String makerDateTimeFrom, final String makerDateTimeTo) {
 
         this.paginationParametersDataValidator.validateParameterValues(parameters, supportedOrderByValues, "audits");
         final AppUser currentUser = this.context.authenticatedUser();
-        final String hierarchy = currentUser.getOffice().getHierarchy();
+        final Office office = currentUser.getOffice();
 
         String updatedExtraCriteria = "";
         if (StringUtils.isNotBlank(extraCriteria)) {
@@ -196,7 +219,7 @@ public class AuditReadPlatformServiceImpl implements AuditReadPlatformService {
         final AuditMapper rm = new AuditMapper();
         final StringBuilder sqlBuilder = new StringBuilder(200);
         sqlBuilder.append("select SQL_CALC_FOUND_ROWS ");
-        sqlBuilder.append(rm.schema(includeJson, hierarchy));
+        sqlBuilder.append(rm.schema(includeJson, office, auditSource(makerDateTimeFrom, makerDateTimeTo)));
         sqlBuilder.append(' ').append(updatedExtraCriteria);
 
         if (parameters.isOrderByRequested()) {
@@ -227,19 +250,21 @@ public class AuditReadPlatformServiceImpl implements AuditReadPlatformService {
 
         updatedExtraCriteria += " order by aud.id";
 
-        return retrieveEntries("makerchecker", updatedExtraCriteria, includeJson);
+        // entries awaiting approval are never archived
+        return retrieveEntries("makerchecker", updatedExtraCriteria, includeJson, HOT_AUDIT_TABLE);
     }
 
-    public Collection<AuditData> retrieveEntries(final String useType, final String extraCriteria, final boolean includeJson) {
+    public Collection<AuditData> retrieveEntries(final String useType, final String extraCriteria, final boolean includeJson,
+            final String auditSource) {
 
         if (!(useType.equals("audit") || useType.equals("makerchecker"))) { throw new PlatformDataIntegrityException(
                 "error.msg.invalid.auditSearchTemplate.useType", "Invalid Audit Search Template UseType: " + useType); }
 
         final AppUser currentUser = this.context.authenticatedUser();
-        final String hierarchy = currentUser.getOffice().getHierarchy();
+        final Office office = currentUser.getOffice();
 
         final AuditMapper rm = new AuditMapper();
-        String sql = "select " + rm.schema(includeJson, hierarchy);
+        String sql = "select " + rm.schema(includeJson, office, auditSource);
 
         Boolean isLimitedChecker = false;
         if (useType.equals("makerchecker")) {
@@ -265,17 +290,59 @@ public class AuditReadPlatformServiceImpl implements AuditReadPlatformService {
     public AuditData retrieveAuditEntry(final Long auditId) {
 
         final AppUser currentUser = this.context.authenticatedUser();
-        final String hierarchy = currentUser.getOffice().getHierarchy();
+        final Office office = currentUser.getOffice();
 
         final AuditMapper rm = new AuditMapper();
 
-        final String sql = "select " + rm.schema(true, hierarchy) + " where aud.id = " + auditId;
+        final String sql = "select " + rm.schema(true, office) + " where aud.id = " + auditId;
 
-        final AuditData auditResult = this.jdbcTemplate.queryForObject(sql, rm, new Object[] {});
+        AuditData auditResult = null;
+        try {
+            auditResult = this.jdbcTemplate.queryForObject(sql, rm, new Object[] {});
+        } catch (final EmptyResultDataAccessException e) {
+            final String archiveSql = "select " + rm.schema(true, office, ARCHIVE_AUDIT_TABLE) + " where aud.id = " + auditId;
+            auditResult = this.jdbcTemplate.queryForObject(archiveSql, rm, new Object[] {});
+        }
 
         return replaceIdsOnAuditData(auditResult);
     }
 
+    /**
+     * Audit entries older than the retention period live in the archive table
+     * (partitioned by year of made_on_date). Undated searches read only the hot
+     * table; searches with a maker date range read both tiers whenever the
+     * archive holds entries within the range, with the range pushed down into
+     * each so only the matching archive partitions are scanned.
+     */
+    private String auditSource(final String makerDateTimeFrom, final String makerDateTimeTo) {
+        final String dateRangeCriteria = dateRangeCriteria(makerDateTimeFrom, makerDateTimeTo);
+        if (dateRangeCriteria.isEmpty()) { return HOT_AUDIT_TABLE; }
+
+        final boolean hasArchivedEntries = this.jdbcTemplate.queryForObject("select exists (select 1 from " + ARCHIVE_AUDIT_TABLE
+                + dateRangeCriteria + ")", Boolean.class);
+        return auditSource(dateRangeCriteria, hasArchivedEntries);
+    }
+
+    static String dateRangeCriteria(final String makerDateTimeFrom, final String makerDateTimeTo) {
+        final List<String> conditions = new ArrayList<>(2);
+        if (StringUtils.isNotBlank(makerDateTimeFrom)) {
+            conditions.add("made_on_date >= " + ApiParameterHelper.sqlEncodeString(makerDateTimeFrom));
+        }
+        if (StringUtils.isNotBlank(makerDateTimeTo)) {
+            conditions.add("made_on_date <= " + ApiParameterHelper.sqlEncodeString(makerDateTimeTo));
+        }
+        if (conditions.isEmpty()) { return ""; }
+        return " where " + StringUtils.join(conditions, " and ");
+    }
+
+    static String auditSource(final String dateRangeCriteria, final boolean hasArchivedEntries) {
+        if (!hasArchivedEntries || dateRangeCriteria.isEmpty()) { return HOT_AUDIT_TABLE; }
+
+        final String columns = CommandSourceArchiveServiceImpl.AUDIT_COLUMNS;
+        return "(select " + columns + " from " + HOT_AUDIT_TABLE + dateRangeCriteria + " union all select " + columns + " from "
+                + ARCHIVE_AUDIT_TABLE + dateRangeCriteria + ")";
+    }
+
     private AuditData replaceIdsOnAuditData(final AuditData auditResult) {
 
         final String auditAsJson = auditResult.getCommandAsJson();
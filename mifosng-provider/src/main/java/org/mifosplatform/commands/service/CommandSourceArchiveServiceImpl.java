@@ -0,0 +1,103 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.commands.service;
+
+import java.util.Date;
+import java.util.List;
+
+import org.joda.time.LocalDate;
+import org.mifosplatform.commands.domain.CommandProcessingResultType;
+import org.mifosplatform.infrastructure.configuration.domain.ConfigurationDomainService;
+import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.infrastructure.jobs.annotation.CronTarget;
+import org.mifosplatform.infrastructure.jobs.service.JobName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Moves audit entries older than the configured retention period
+ * (audit-retention-months) from m_portfolio_command_source to the partitioned,
+ * compressed m_portfolio_command_source_archive table.
+ * 
+ * Rows are moved in id ranges, each range in its own transaction, so the job
+ * never holds long locks on the table commands are appending to. Entries
+ * still awaiting checker approval are never archived.
+ */
+@Service
+public class CommandSourceArchiveServiceImpl implements CommandSourceArchiveService {
+
+    private final static Logger logger = LoggerFactory.getLogger(CommandSourceArchiveServiceImpl.class);
+
+    private static final int ARCHIVE_CHUNK_SIZE = 5000;
+
+    static final String AUDIT_COLUMNS = "id, action_name, entity_name, office_id, group_id, client_id, loan_id, savings_account_id, "
+            + "api_get_url, resource_id, subresource_id, command_as_json, maker_id, made_on_date, checker_id, checked_on_date, "
+            + "processing_result_enum, product_id, transaction_id";
+
+    private static final String ARCHIVABLE_CRITERIA = " made_on_date < ? and processing_result_enum <> ? ";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ConfigurationDomainService configurationDomainService;
+
+    @Autowired
+    public CommandSourceArchiveServiceImpl(final RoutingDataSource dataSource, final TransactionTemplate transactionTemplate,
+            final ConfigurationDomainService configurationDomainService) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = transactionTemplate;
+        this.configurationDomainService = configurationDomainService;
+    }
+
+    @Override
+    @CronTarget(jobName = JobName.ARCHIVE_AUDIT_ENTRIES)
+    public void archiveAuditEntries() {
+        final Integer retentionMonths = this.configurationDomainService.retrieveAuditRetentionMonths();
+        if (retentionMonths == null) {
+            logger.info(ThreadLocalContextUtil.getTenant().getName() + ": audit archiving is disabled");
+            return;
+        }
+
+        final Date cutOff = LocalDate.now().minusMonths(retentionMonths).toDate();
+        final Integer awaitingApproval = CommandProcessingResultType.AWAITING_APPROVAL.getValue();
+
+        long archived = 0;
+        List<Long> chunk = nextChunk(cutOff, awaitingApproval);
+        while (!chunk.isEmpty()) {
+            archived += moveToArchive(chunk.get(0), chunk.get(chunk.size() - 1), cutOff, awaitingApproval);
+            chunk = nextChunk(cutOff, awaitingApproval);
+        }
+
+        logger.info(ThreadLocalContextUtil.getTenant().getName() + ": Audit entries archived: " + archived);
+    }
+
+    private List<Long> nextChunk(final Date cutOff, final Integer awaitingApproval) {
+        final String sql = "select id from m_portfolio_command_source where " + ARCHIVABLE_CRITERIA + " order by id limit "
+                + ARCHIVE_CHUNK_SIZE;
+        return this.jdbcTemplate.queryForList(sql, Long.class, cutOff, awaitingApproval);
+    }
+
+    private int moveToArchive(final Long fromId, final Long toId, final Date cutOff, final Integer awaitingApproval) {
+        return this.transactionTemplate.execute(new TransactionCallback<Integer>() {
+
+            @Override
+            public Integer doInTransaction(@SuppressWarnings("unused") final TransactionStatus status) {
+                final String criteria = " where id between ? and ? and " + ARCHIVABLE_CRITERIA;
+                final Object[] params = new Object[] { fromId, toId, cutOff, awaitingApproval };
+                CommandSourceArchiveServiceImpl.this.jdbcTemplate.update("insert ignore into m_portfolio_command_source_archive ("
+                        + AUDIT_COLUMNS + ") select " + AUDIT_COLUMNS + " from m_portfolio_command_source" + criteria, params);
+                return CommandSourceArchiveServiceImpl.this.jdbcTemplate.update("delete from m_portfolio_command_source" + criteria,
+                        params);
+            }
+        });
+    }
+}
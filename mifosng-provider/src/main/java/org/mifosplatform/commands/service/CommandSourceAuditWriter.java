@@ -0,0 +1,232 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.commands.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.mifosplatform.commands.domain.CommandSource;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Writes processed audit entries (m_portfolio_command_source) off the command
+ * processing path.
+ * 
+ * Entries are queued once the command transaction commits (so rolled back
+ * commands leave no audit trail, as before) and a background thread inserts
+ * them per tenant using JDBC batches. Entries that must be visible
+ * immediately, such as those awaiting checker approval, are still saved
+ * through the repository.
+ *
+ * Each batch is written in its own transaction, so a batch that fails leaves
+ * no rows behind and is retried row by row. Rows that still fail are queued
+ * again for the next flush, up to MAX_WRITE_ATTEMPTS times, after which they
+ * are logged in full and dropped. Entries only held in memory are lost if the
+ * node stops abruptly; those left over on shutdown are logged in full too.
+ */
+@Component
+public class CommandSourceAuditWriter {
+
+    private final static Logger logger = LoggerFactory.getLogger(CommandSourceAuditWriter.class);
+
+    private static final String INSERT_SQL = "insert into m_portfolio_command_source (action_name, entity_name, office_id, group_id, "
+            + "client_id, loan_id, savings_account_id, api_get_url, resource_id, subresource_id, command_as_json, maker_id, "
+            + "made_on_date, checker_id, checked_on_date, processing_result_enum, product_id, transaction_id) "
+            + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final int MAX_BATCH_SIZE = 500;
+    private static final long FLUSH_INTERVAL_IN_MILLIS = 500;
+    private static final int MAX_WRITE_ATTEMPTS = 10;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionOperations transactionTemplate;
+    private final ConcurrentLinkedQueue<PendingAuditEntry> pendingEntries = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService flushExecutor = Executors.newSingleThreadScheduledExecutor();
+
+    @Autowired
+    public CommandSourceAuditWriter(final RoutingDataSource dataSource) {
+        this(new JdbcTemplate(dataSource), new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+    }
+
+    CommandSourceAuditWriter(final JdbcTemplate jdbcTemplate, final TransactionOperations transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @PostConstruct
+    public void startFlushing() {
+        this.flushExecutor.scheduleWithFixedDelay(new Runnable() {
+
+            @Override
+            public void run() {
+                flush();
+            }
+        }, FLUSH_INTERVAL_IN_MILLIS, FLUSH_INTERVAL_IN_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stopFlushing() {
+        this.flushExecutor.shutdown();
+        try {
+            this.flushExecutor.awaitTermination(FLUSH_INTERVAL_IN_MILLIS * 4, TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        for (final PendingAuditEntry entry : this.pendingEntries) {
+            logger.error(entry.tenant.getTenantIdentifier() + ": audit entry not written " + Arrays.toString(entry.parameters));
+        }
+    }
+
+    /**
+     * Queues the entry for insertion after the current transaction commits,
+     * or immediately when there is no transaction.
+     */
+    public void append(final CommandSource commandSource) {
+        append(ThreadLocalContextUtil.getTenant(), commandSource.toInsertParameters());
+    }
+
+    void append(final MifosPlatformTenant tenant, final Object[] insertParameters) {
+        final PendingAuditEntry entry = new PendingAuditEntry(tenant, insertParameters);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+                @Override
+                public void afterCommit() {
+                    CommandSourceAuditWriter.this.pendingEntries.add(entry);
+                }
+            });
+        } else {
+            this.pendingEntries.add(entry);
+        }
+    }
+
+    /*
+     * rows that could not be written are queued again only once the queue has
+     * been drained, so a failing database is retried on the next flush
+     */
+    synchronized void flush() {
+        final List<PendingAuditEntry> failed = new ArrayList<>();
+        List<PendingAuditEntry> drained = drain();
+        while (!drained.isEmpty()) {
+            for (final List<PendingAuditEntry> tenantEntries : groupByTenant(drained).values()) {
+                failed.addAll(write(tenantEntries));
+            }
+            drained = drain();
+        }
+        this.pendingEntries.addAll(failed);
+    }
+
+    int pendingCount() {
+        return this.pendingEntries.size();
+    }
+
+    private List<PendingAuditEntry> drain() {
+        final List<PendingAuditEntry> drained = new ArrayList<>();
+        PendingAuditEntry entry = null;
+        while (drained.size() < MAX_BATCH_SIZE && (entry = this.pendingEntries.poll()) != null) {
+            drained.add(entry);
+        }
+        return drained;
+    }
+
+    private static Map<String, List<PendingAuditEntry>> groupByTenant(final List<PendingAuditEntry> entries) {
+        final Map<String, List<PendingAuditEntry>> entriesByTenant = new LinkedHashMap<>();
+        for (final PendingAuditEntry entry : entries) {
+            final String tenantIdentifier = entry.tenant.getTenantIdentifier();
+            List<PendingAuditEntry> tenantEntries = entriesByTenant.get(tenantIdentifier);
+            if (tenantEntries == null) {
+                tenantEntries = new ArrayList<>();
+                entriesByTenant.put(tenantIdentifier, tenantEntries);
+            }
+            tenantEntries.add(entry);
+        }
+        return entriesByTenant;
+    }
+
+    /**
+     * @return the entries that could not be written
+     */
+    private List<PendingAuditEntry> write(final List<PendingAuditEntry> tenantEntries) {
+        final MifosPlatformTenant tenant = tenantEntries.get(0).tenant;
+        final List<Object[]> batchArgs = new ArrayList<>(tenantEntries.size());
+        for (final PendingAuditEntry entry : tenantEntries) {
+            batchArgs.add(entry.parameters);
+        }
+        try {
+            ThreadLocalContextUtil.setTenant(tenant);
+            this.transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+
+                @Override
+                protected void doInTransactionWithoutResult(@SuppressWarnings("unused") final TransactionStatus status) {
+                    CommandSourceAuditWriter.this.jdbcTemplate.batchUpdate(INSERT_SQL, batchArgs);
+                }
+            });
+            return Collections.emptyList();
+        } catch (final RuntimeException e) {
+            logger.warn(tenant.getTenantIdentifier() + ": failed to write " + batchArgs.size() + " audit entries as a batch", e);
+            return writeEach(tenantEntries);
+        } finally {
+            ThreadLocalContextUtil.clearTenant();
+        }
+    }
+
+    private List<PendingAuditEntry> writeEach(final List<PendingAuditEntry> tenantEntries) {
+        final List<PendingAuditEntry> failed = new ArrayList<>();
+        for (final PendingAuditEntry entry : tenantEntries) {
+            try {
+                this.jdbcTemplate.update(INSERT_SQL, entry.parameters);
+            } catch (final RuntimeException e) {
+                entry.attempts++;
+                if (entry.attempts < MAX_WRITE_ATTEMPTS) {
+                    logger.error(entry.tenant.getTenantIdentifier() + ": failed to write audit entry, queued again", e);
+                    failed.add(entry);
+                } else {
+                    logger.error(entry.tenant.getTenantIdentifier() + ": audit entry not written after " + entry.attempts + " attempts "
+                            + Arrays.toString(entry.parameters), e);
+                }
+            }
+        }
+        return failed;
+    }
+
+    private static final class PendingAuditEntry {
+
+        private final MifosPlatformTenant tenant;
+        private final Object[] parameters;
+        private int attempts;
+
+        PendingAuditEntry(final MifosPlatformTenant tenant, final Object[] parameters) {
+            this.tenant = tenant;
+            this.parameters = parameters;
+        }
+    }
+}
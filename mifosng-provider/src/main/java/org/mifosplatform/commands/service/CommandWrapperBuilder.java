@@ -583,6 +583,13 @@ public class CommandWrapperBuilder {
         return this;
     }
 
+    public CommandWrapperBuilder bulkCreateDatatableEntries(final String datatable) {
+        this.actionName = "CREATE";
+        this.entityName = datatable;
+        this.href = "/datatables/" + datatable + "/bulk";
+        return this;
+    }
+
     private void commonDatatableSettings(final String datatable, final Long apptableId, final Long datatableId) {
 
         this.entityName = datatable;
@@ -1078,6 +1085,14 @@ public class CommandWrapperBuilder {
         return this;
     }
 
+    public CommandWrapperBuilder rebuildDailyBalancesForJournalEntry() {
+        this.actionName = "REBUILDDAILYBALANCE";
+        this.entityName = "JOURNALENTRY";
+        this.entityId = null;
+        this.href = "/journalentries/balances";
+        return this;
+    }
+
     public CommandWrapperBuilder createSavingProduct() {
         this.actionName = "CREATE";
         this.entityName = "SAVINGSPRODUCT";
@@ -14,6 +14,7 @@ import org.mifosplatform.commands.domain.CommandWrapper;
 import org.mifosplatform.commands.exception.RollbackTransactionAsCommandIsNotApprovedByCheckerException;
 import org.mifosplatform.commands.exception.UnsupportedCommandException;
 import org.mifosplatform.commands.handler.NewCommandSourceHandler;
+import org.mifosplatform.infrastructure.cache.service.TenantAwareRegionFactory;
 import org.mifosplatform.infrastructure.configuration.domain.ConfigurationDomainService;
 import org.mifosplatform.infrastructure.core.api.JsonCommand;
 import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
@@ -22,6 +23,7 @@ import org.mifosplatform.infrastructure.core.serialization.ToApiJsonSerializer;
 import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
 import org.mifosplatform.infrastructure.hooks.event.HookEvent;
 import org.mifosplatform.infrastructure.hooks.event.HookEventSource;
+import org.mifosplatform.infrastructure.metrics.service.PlatformMetricsService;
 import org.mifosplatform.infrastructure.security.service.PermissionExpressionService;
 import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext;
 import org.mifosplatform.useradministration.domain.AppUser;
@@ -40,6 +42,9 @@ public class SynchronousCommandProcessingService implements CommandProcessingSer
     private CommandSourceRepository commandSourceRepository;
     private final ConfigurationDomainService configurationDomainService;
     private final PermissionExpressionService permissionExpressionService;
+    private final CommandSourceAuditWriter commandSourceAuditWriter;
+    private final PlatformMetricsService metricsService;
+    private final TenantAwareRegionFactory regionFactory;
 
     @Autowired
     public SynchronousCommandProcessingService(final PlatformSecurityContext context, final ApplicationContext applicationContext,
@@ -47,7 +52,8 @@ public class SynchronousCommandProcessingService implements CommandProcessingSer
             final ToApiJsonSerializer<CommandProcessingResult> toApiResultJsonSerializer,
             final CommandSourceRepository commandSourceRepository,
             final ConfigurationDomainService configurationDomainService,
-            final PermissionExpressionService permissionExpressionService) {
+            final PermissionExpressionService permissionExpressionService, final CommandSourceAuditWriter commandSourceAuditWriter,
+            final PlatformMetricsService metricsService, final TenantAwareRegionFactory regionFactory) {
         this.context = context;
         this.context = context;
         this.applicationContext = applicationContext;
@@ -57,6 +63,9 @@ public class SynchronousCommandProcessingService implements CommandProcessingSer
         this.commandSourceRepository = commandSourceRepository;
         this.configurationDomainService = configurationDomainService;
         this.permissionExpressionService = permissionExpressionService;
+        this.commandSourceAuditWriter = commandSourceAuditWriter;
+        this.metricsService = metricsService;
+        this.regionFactory = regionFactory;
     }
 
     @Transactional
@@ -67,7 +76,16 @@ public class SynchronousCommandProcessingService implements CommandProcessingSer
         final boolean rollbackTransaction = this.configurationDomainService.isMakerCheckerEnabledForTask(wrapper.taskPermissionName());
 
         final NewCommandSourceHandler handler = findCommandHandler(wrapper);
-        final CommandProcessingResult result = handler.processCommand(command);
+        final long handlerStartTime = System.currentTimeMillis();
+        final CommandProcessingResult result;
+        try {
+            result = handler.processCommand(command);
+        } finally {
+            this.metricsService.recordDuration("command." + wrapper.entityName() + "." + wrapper.actionName(), System.currentTimeMillis()
+                    - handlerStartTime);
+        }
+
+        this.regionFactory.invalidate(wrapper.entityName());
 
         final AppUser maker = this.context.authenticatedUser(wrapper);
 
@@ -92,10 +110,6 @@ public class SynchronousCommandProcessingService implements CommandProcessingSer
             commandSourceResult.updateJsonTo(null);
         }
 
-        if (commandSourceResult.hasJson()) {
-            this.commandSourceRepository.save(commandSourceResult);
-        }
-
         if ((rollbackTransaction || result.isRollbackTransaction()) && !isApprovedByChecker) {
             /*
              * JournalEntry will generate a new transactionId every time.
@@ -113,6 +127,16 @@ public class SynchronousCommandProcessingService implements CommandProcessingSer
         }
         result.setRollbackTransaction(null);
 
+        if (commandSourceResult.hasJson()) {
+            if (commandSourceResult.isNew()) {
+                // plain audit entry, written in batches once this transaction
+                // commits
+                this.commandSourceAuditWriter.append(commandSourceResult);
+            } else {
+                this.commandSourceRepository.save(commandSourceResult);
+            }
+        }
+
         publishEvent(wrapper.entityName(), wrapper.actionName(), result);
 
         return result;
@@ -487,6 +511,8 @@ public class SynchronousCommandProcessingService implements CommandProcessingSer
                 handler = this.applicationContext.getBean("moveJournalEntryToProfitCommandHandler", NewCommandSourceHandler.class);
             } else if (wrapper.isUpdateRunningbalance()) {
                 handler = this.applicationContext.getBean("updateRunningBalanceCommandHandler", NewCommandSourceHandler.class);
+            } else if (wrapper.isRebuildDailyBalances()) {
+                handler = this.applicationContext.getBean("rebuildGLDailyBalanceCommandHandler", NewCommandSourceHandler.class);
             } else if (wrapper.isDelete()) {
 				handler = this.applicationContext.getBean("deleteJournalEntryCommandHandler", NewCommandSourceHandler.class);
             } else {
@@ -0,0 +1,59 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.cache.domain;
+
+import java.io.Serializable;
+
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+
+/**
+ * Key of an entry in a second level cache region, qualified by the tenant the
+ * entry was read from: all tenants share one persistence unit, so the same
+ * entity id identifies different rows in different tenant databases.
+ */
+public final class TenantCacheKey implements Serializable {
+
+    private final String tenantIdentifier;
+    private final Object key;
+
+    /**
+     * @return the key qualified by the tenant bound to the current thread, or
+     *         null if no tenant is bound
+     */
+    public static TenantCacheKey of(final Object key) {
+        final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+        if (tenant == null) { return null; }
+        return new TenantCacheKey(tenant.getTenantIdentifier(), key);
+    }
+
+    private TenantCacheKey(final String tenantIdentifier, final Object key) {
+        this.tenantIdentifier = tenantIdentifier;
+        this.key = key;
+    }
+
+    public boolean isOf(final String tenantIdentifier) {
+        return this.tenantIdentifier.equals(tenantIdentifier);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) { return true; }
+        if (!(obj instanceof TenantCacheKey)) { return false; }
+        final TenantCacheKey other = (TenantCacheKey) obj;
+        return this.tenantIdentifier.equals(other.tenantIdentifier) && this.key.equals(other.key);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * this.tenantIdentifier.hashCode() + this.key.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return this.tenantIdentifier + ":" + this.key;
+    }
+}
@@ -0,0 +1,199 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.cache.service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+
+import org.mifosplatform.infrastructure.metrics.service.PlatformMetricsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Log of cache invalidations shared by the nodes of a deployment, kept in the
+ * cache_invalidation table of the tenants database.
+ *
+ * Each node appends the invalidations it makes (once the transaction that
+ * made them completes) and polls for those of the other nodes, which it hands
+ * to the registered {@link Listener}s. A node therefore sees the changes of
+ * another within about {@link #POLL_INTERVAL_SECONDS}. The platform's own in
+ * memory caches use the log whatever the cache type; the Spring caches only
+ * publish through it in multi node mode.
+ *
+ * Ids are re-read for a short while after they are first seen, so that an
+ * invalidation committed after one with a higher id is not missed.
+ */
+@Component
+public class CacheInvalidationLog {
+
+    private final static Logger logger = LoggerFactory.getLogger(CacheInvalidationLog.class);
+
+    public static final int POLL_INTERVAL_SECONDS = 2;
+    private static final int PURGE_AFTER_SECONDS = 600;
+    private static final int ID_OVERLAP = 100;
+    private static final int MAX_KEY_LENGTH = 500;
+
+    public interface Listener {
+
+        /**
+         * @param key
+         *            the key to evict, or null to clear the cache
+         * @param tenantIdentifier
+         *            the tenant the invalidation was made for, if any
+         */
+        void invalidated(String cacheName, String key, String tenantIdentifier);
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformMetricsService metricsService;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("cache-invalidation-%d").setDaemon(true).build());
+    private final NavigableSet<Long> seenIds = new ConcurrentSkipListSet<>();
+    private volatile long startId = -1;
+    private long lastPurge;
+
+    @Autowired
+    public CacheInvalidationLog(@Qualifier("tenantDataSourceJndi") final DataSource dataSource,
+            final PlatformMetricsService metricsService) {
+        this(new JdbcTemplate(dataSource), metricsService);
+    }
+
+    CacheInvalidationLog(final JdbcTemplate jdbcTemplate, final PlatformMetricsService metricsService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.metricsService = metricsService;
+    }
+
+    /*
+     * the table may only be created by the tenants database upgrade, so the
+     * first poll rather than startup reads where the log stands
+     */
+    @PostConstruct
+    public void startPolling() {
+        this.poller.scheduleWithFixedDelay(new Runnable() {
+
+            @Override
+            public void run() {
+                poll();
+            }
+        }, POLL_INTERVAL_SECONDS, POLL_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.poller.shutdownNow();
+    }
+
+    public void addListener(final Listener listener) {
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Logs an invalidation for the other nodes, once the current transaction
+     * (if any) completes.
+     *
+     * @param key
+     *            the key evicted, or null if the cache was cleared
+     */
+    public void publish(final String cacheName, final String key, final String tenantIdentifier) {
+        final String loggedKey = key != null && key.length() > MAX_KEY_LENGTH ? null : key;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+                @Override
+                public void afterCompletion(@SuppressWarnings("unused") final int status) {
+                    append(cacheName, loggedKey, tenantIdentifier);
+                }
+            });
+        } else {
+            append(cacheName, loggedKey, tenantIdentifier);
+        }
+    }
+
+    private void append(final String cacheName, final String key, final String tenantIdentifier) {
+        try {
+            this.jdbcTemplate.update("insert into cache_invalidation (node_id, cache_name, cache_key, tenant_identifier, created_date)"
+                    + " values (?, ?, ?, ?, now())", this.nodeId, cacheName, key, tenantIdentifier);
+            this.metricsService.increment("cache.invalidations.published");
+        } catch (final RuntimeException e) {
+            logger.error("Invalidation of cache " + cacheName + " could not be published, other nodes may serve stale entries", e);
+        }
+    }
+
+    /**
+     * Hands the invalidations of the other nodes logged since the previous
+     * poll (or, on the first poll, since now) to the listeners.
+     */
+    void poll() {
+        try {
+            if (this.startId < 0) {
+                this.startId = this.jdbcTemplate.queryForObject("select coalesce(max(id), 0) from cache_invalidation", Long.class);
+                return;
+            }
+            final long fromId = Math.max(this.startId, highestSeenId() - ID_OVERLAP);
+            this.jdbcTemplate.query("select id, node_id, cache_name, cache_key, tenant_identifier from cache_invalidation"
+                    + " where id > ? order by id", new RowCallbackHandler() {
+
+                @Override
+                public void processRow(final ResultSet rs) throws SQLException {
+                    final long id = rs.getLong("id");
+                    if (id <= CacheInvalidationLog.this.startId || !CacheInvalidationLog.this.seenIds.add(id)) { return; }
+                    if (CacheInvalidationLog.this.nodeId.equals(rs.getString("node_id"))) { return; }
+                    dispatch(rs.getString("cache_name"), rs.getString("cache_key"), rs.getString("tenant_identifier"));
+                }
+            }, fromId);
+            this.seenIds.headSet(highestSeenId() - ID_OVERLAP).clear();
+            purge();
+        } catch (final RuntimeException e) {
+            logger.error("Polling cache invalidations failed", e);
+        }
+    }
+
+    private long highestSeenId() {
+        return this.seenIds.isEmpty() ? this.startId : this.seenIds.last();
+    }
+
+    private void dispatch(final String cacheName, final String key, final String tenantIdentifier) {
+        this.metricsService.increment("cache.invalidations.received");
+        for (final Listener listener : this.listeners) {
+            try {
+                listener.invalidated(cacheName, key, tenantIdentifier);
+            } catch (final RuntimeException e) {
+                logger.error("Invalidation of cache " + cacheName + " could not be applied", e);
+            }
+        }
+    }
+
+    private void purge() {
+        final long now = System.currentTimeMillis();
+        if (now - this.lastPurge < TimeUnit.SECONDS.toMillis(PURGE_AFTER_SECONDS) / 10) { return; }
+        this.lastPurge = now;
+        this.jdbcTemplate.update("delete from cache_invalidation where created_date < date_sub(now(), interval ? second)",
+                PURGE_AFTER_SECONDS);
+    }
+}
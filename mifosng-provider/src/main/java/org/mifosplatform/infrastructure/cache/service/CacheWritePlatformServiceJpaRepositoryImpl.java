@@ -32,8 +32,9 @@ public class CacheWritePlatformServiceJpaRepositoryImpl implements CacheWritePla
     public Map<String, Object> switchToCache(final CacheType toCacheType) {
 
         final boolean ehCacheEnabled = this.configurationDomainService.isEhcacheEnabled();
+        final boolean distributedCacheEnabled = this.configurationDomainService.isDistributedCacheEnabled();
 
-        final Map<String, Object> changes = this.cacheService.switchToCache(ehCacheEnabled, toCacheType);
+        final Map<String, Object> changes = this.cacheService.switchToCache(ehCacheEnabled, distributedCacheEnabled, toCacheType);
 
         if (!changes.isEmpty()) {
             this.configurationDomainService.updateCache(toCacheType);
@@ -0,0 +1,97 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.cache.service;
+
+import java.util.Collection;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.ehcache.EhCacheCacheManager;
+
+/**
+ * {@link CacheManager} for multi node deployments: entries are kept in each
+ * node's ehcache, and every eviction is also published through the
+ * {@link CacheInvalidationLog} so the other nodes drop their copies.
+ */
+public class MultiNodeCacheManager implements CacheManager {
+
+    private final EhCacheCacheManager ehcacheCacheManager;
+    private final CacheInvalidationLog invalidationLog;
+
+    public MultiNodeCacheManager(final EhCacheCacheManager ehcacheCacheManager, final CacheInvalidationLog invalidationLog) {
+        this.ehcacheCacheManager = ehcacheCacheManager;
+        this.invalidationLog = invalidationLog;
+    }
+
+    @Override
+    public Cache getCache(final String name) {
+        final Cache cache = this.ehcacheCacheManager.getCache(name);
+        if (cache == null) { return null; }
+        return new InvalidationPublishingCache(cache, this.invalidationLog);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return this.ehcacheCacheManager.getCacheNames();
+    }
+
+    private static final class InvalidationPublishingCache implements Cache {
+
+        private final Cache delegate;
+        private final CacheInvalidationLog invalidationLog;
+
+        InvalidationPublishingCache(final Cache delegate, final CacheInvalidationLog invalidationLog) {
+            this.delegate = delegate;
+            this.invalidationLog = invalidationLog;
+        }
+
+        @Override
+        public String getName() {
+            return this.delegate.getName();
+        }
+
+        @Override
+        public Object getNativeCache() {
+            return this.delegate.getNativeCache();
+        }
+
+        @Override
+        public ValueWrapper get(final Object key) {
+            return this.delegate.get(key);
+        }
+
+        @Override
+        public <T> T get(final Object key, final Class<T> type) {
+            return this.delegate.get(key, type);
+        }
+
+        @Override
+        public void put(final Object key, final Object value) {
+            this.delegate.put(key, value);
+        }
+
+        @Override
+        public ValueWrapper putIfAbsent(final Object key, final Object value) {
+            return this.delegate.putIfAbsent(key, value);
+        }
+
+        /*
+         * the platform's cache keys are strings; other nodes are told to clear
+         * the whole cache for any other key
+         */
+        @Override
+        public void evict(final Object key) {
+            this.delegate.evict(key);
+            this.invalidationLog.publish(getName(), key instanceof String ? (String) key : null, null);
+        }
+
+        @Override
+        public void clear() {
+            this.delegate.clear();
+            this.invalidationLog.publish(getName(), null, null);
+        }
+    }
+}
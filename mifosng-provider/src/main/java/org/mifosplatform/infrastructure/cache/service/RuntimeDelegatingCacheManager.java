@@ -22,6 +22,8 @@ import org.springframework.cache.ehcache.EhCacheCacheManager;
 import org.springframework.cache.support.NoOpCacheManager;
 import org.springframework.stereotype.Component;
 
+import net.sf.ehcache.Ehcache;
+
 /**
  * At present this implementation of {@link CacheManager} just delegates to the
  * real {@link CacheManager} to use.
@@ -29,18 +31,32 @@ import org.springframework.stereotype.Component;
  * By default it is {@link NoOpCacheManager} but we can change that by checking
  * some persisted configuration in the database on startup and allow user to
  * switch implementation through UI/API
+ *
+ * In multi node mode entries are kept in each node's ehcache and evictions
+ * are exchanged through the {@link CacheInvalidationLog}.
  */
 @Component(value = "runtimeDelegatingCacheManager")
 public class RuntimeDelegatingCacheManager implements CacheManager {
 
     private final EhCacheCacheManager ehcacheCacheManager;
     private final CacheManager noOpCacheManager = new NoOpCacheManager();
-    private CacheManager currentCacheManager;
+    private final MultiNodeCacheManager multiNodeCacheManager;
+    private final CacheInvalidationLog invalidationLog;
+    private volatile CacheManager currentCacheManager;
 
     @Autowired
-    public RuntimeDelegatingCacheManager(final EhCacheCacheManager ehCacheCacheManager) {
+    public RuntimeDelegatingCacheManager(final EhCacheCacheManager ehCacheCacheManager, final CacheInvalidationLog invalidationLog) {
         this.ehcacheCacheManager = ehCacheCacheManager;
+        this.invalidationLog = invalidationLog;
+        this.multiNodeCacheManager = new MultiNodeCacheManager(ehCacheCacheManager, invalidationLog);
         this.currentCacheManager = this.noOpCacheManager;
+        this.invalidationLog.addListener(new CacheInvalidationLog.Listener() {
+
+            @Override
+            public void invalidated(final String cacheName, final String key, @SuppressWarnings("unused") final String tenantIdentifier) {
+                evictFromEhCache(cacheName, key);
+            }
+        });
     }
 
     @Override
@@ -53,33 +69,38 @@ public class RuntimeDelegatingCacheManager implements CacheManager {
         return this.currentCacheManager.getCacheNames();
     }
 
+    /**
+     * @return whether a cache other than {@link NoOpCacheManager} is in use,
+     *         which also switches the JPA second level cache on
+     */
+    public boolean isCachingEnabled() {
+        return this.currentCacheManager != this.noOpCacheManager;
+    }
+
     public Collection<CacheData> retrieveAll() {
 
         final boolean noCacheEnabled = this.currentCacheManager instanceof NoOpCacheManager;
         final boolean ehcacheEnabled = this.currentCacheManager instanceof EhCacheCacheManager;
-
-        // final boolean distributedCacheEnabled = false;
+        final boolean distributedCacheEnabled = this.currentCacheManager instanceof MultiNodeCacheManager;
 
         final EnumOptionData noCacheType = CacheEnumerations.cacheType(CacheType.NO_CACHE);
         final EnumOptionData singleNodeCacheType = CacheEnumerations.cacheType(CacheType.SINGLE_NODE);
-        // final EnumOptionData multiNodeCacheType =
-        // CacheEnumerations.cacheType(CacheType.MULTI_NODE);
+        final EnumOptionData multiNodeCacheType = CacheEnumerations.cacheType(CacheType.MULTI_NODE);
 
         final CacheData noCache = CacheData.instance(noCacheType, noCacheEnabled);
         final CacheData singleNodeCache = CacheData.instance(singleNodeCacheType, ehcacheEnabled);
-        // final CacheData distributedCache =
-        // CacheData.instance(multiNodeCacheType, distributedCacheEnabled);
+        final CacheData distributedCache = CacheData.instance(multiNodeCacheType, distributedCacheEnabled);
 
-        final Collection<CacheData> caches = Arrays.asList(noCache, singleNodeCache);
+        final Collection<CacheData> caches = Arrays.asList(noCache, singleNodeCache, distributedCache);
         return caches;
     }
 
-    public Map<String, Object> switchToCache(final boolean ehcacheEnabled, final CacheType toCacheType) {
+    public Map<String, Object> switchToCache(final boolean ehcacheEnabled, final boolean distributedCacheEnabled,
+            final CacheType toCacheType) {
 
         final Map<String, Object> changes = new HashMap<>();
 
-        final boolean noCacheEnabled = !ehcacheEnabled;
-        final boolean distributedCacheEnabled = !ehcacheEnabled;
+        final boolean noCacheEnabled = !ehcacheEnabled && !distributedCacheEnabled;
 
         switch (toCacheType) {
             case INVALID:
@@ -101,6 +122,11 @@ public class RuntimeDelegatingCacheManager implements CacheManager {
                 if (!distributedCacheEnabled) {
                     changes.put(CacheApiConstants.cacheTypeParameter, toCacheType.getValue());
                 }
+                if (this.currentCacheManager != this.multiNodeCacheManager) {
+                    // entries cached while other nodes were not publishing may be stale
+                    clearEhCache();
+                }
+                this.currentCacheManager = this.multiNodeCacheManager;
             break;
         }
 
@@ -110,4 +136,18 @@ public class RuntimeDelegatingCacheManager implements CacheManager {
     private void clearEhCache() {
         this.ehcacheCacheManager.getCacheManager().clearAll();
     }
+
+    /*
+     * straight on the ehcache, so that invalidations received from other nodes
+     * are not published again
+     */
+    private void evictFromEhCache(final String cacheName, final String key) {
+        final Ehcache cache = this.ehcacheCacheManager.getCacheManager().getEhcache(cacheName);
+        if (cache == null) { return; }
+        if (key == null) {
+            cache.removeAll();
+        } else {
+            cache.remove(key);
+        }
+    }
 }
\ No newline at end of file
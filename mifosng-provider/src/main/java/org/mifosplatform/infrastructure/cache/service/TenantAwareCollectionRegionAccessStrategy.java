@@ -0,0 +1,32 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.cache.service;
+
+import org.hibernate.cache.spi.CollectionRegion;
+import org.hibernate.cache.spi.Region;
+import org.hibernate.cache.spi.access.CollectionRegionAccessStrategy;
+
+class TenantAwareCollectionRegionAccessStrategy extends TenantAwareRegionAccessStrategy<CollectionRegionAccessStrategy> implements
+        CollectionRegionAccessStrategy {
+
+    private final CollectionRegion region;
+
+    TenantAwareCollectionRegionAccessStrategy(final CollectionRegionAccessStrategy delegate, final CollectionRegion region,
+            final TenantAwareRegionFactory regionFactory) {
+        super(delegate, regionFactory, region.getName());
+        this.region = region;
+    }
+
+    @Override
+    public CollectionRegion getRegion() {
+        return this.region;
+    }
+
+    @Override
+    protected Region delegateRegion() {
+        return this.delegate.getRegion();
+    }
+}
@@ -0,0 +1,26 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.cache.service;
+
+import org.hibernate.cache.CacheException;
+import org.hibernate.cache.spi.EntityRegion;
+import org.hibernate.cache.spi.access.AccessType;
+import org.hibernate.cache.spi.access.EntityRegionAccessStrategy;
+
+class TenantAwareEntityRegion extends TenantAwareRegion<EntityRegion> implements EntityRegion {
+
+    TenantAwareEntityRegion(final EntityRegion delegate, final TenantAwareRegionFactory regionFactory) {
+        super(delegate, regionFactory);
+    }
+
+    @Override
+    public EntityRegionAccessStrategy buildAccessStrategy(final AccessType accessType) throws CacheException {
+        final TenantAwareEntityRegionAccessStrategy accessStrategy = new TenantAwareEntityRegionAccessStrategy(
+                this.delegate.buildAccessStrategy(accessType), this, this.regionFactory);
+        this.regionFactory.register(accessStrategy);
+        return accessStrategy;
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.cache.service;
+
+import org.hibernate.cache.CacheException;
+import org.hibernate.cache.spi.EntityRegion;
+import org.hibernate.cache.spi.Region;
+import org.hibernate.cache.spi.access.EntityRegionAccessStrategy;
+import org.hibernate.cache.spi.access.SoftLock;
+import org.mifosplatform.infrastructure.cache.domain.TenantCacheKey;
+
+class TenantAwareEntityRegionAccessStrategy extends TenantAwareRegionAccessStrategy<EntityRegionAccessStrategy> implements
+        EntityRegionAccessStrategy {
+
+    private final EntityRegion region;
+
+    TenantAwareEntityRegionAccessStrategy(final EntityRegionAccessStrategy delegate, final EntityRegion region,
+            final TenantAwareRegionFactory regionFactory) {
+        super(delegate, regionFactory, region.getName());
+        this.region = region;
+    }
+
+    @Override
+    public EntityRegion getRegion() {
+        return this.region;
+    }
+
+    @Override
+    protected Region delegateRegion() {
+        return this.delegate.getRegion();
+    }
+
+    @Override
+    public boolean insert(final Object key, final Object value, final Object version) throws CacheException {
+        if (!isCachingEnabled()) { return false; }
+        final TenantCacheKey tenantKey = TenantCacheKey.of(key);
+        if (tenantKey == null) { return false; }
+        return this.delegate.insert(tenantKey, value, version);
+    }
+
+    @Override
+    public boolean afterInsert(final Object key, final Object value, final Object version) throws CacheException {
+        if (!isCachingEnabled()) { return false; }
+        final TenantCacheKey tenantKey = TenantCacheKey.of(key);
+        if (tenantKey == null) { return false; }
+        return this.delegate.afterInsert(tenantKey, value, version);
+    }
+
+    @Override
+    public boolean update(final Object key, final Object value, final Object currentVersion, final Object previousVersion)
+            throws CacheException {
+        final TenantCacheKey tenantKey = TenantCacheKey.of(key);
+        if (tenantKey == null) { return false; }
+        return this.delegate.update(tenantKey, value, currentVersion, previousVersion);
+    }
+
+    @Override
+    public boolean afterUpdate(final Object key, final Object value, final Object currentVersion, final Object previousVersion,
+            final SoftLock lock) throws CacheException {
+        final TenantCacheKey tenantKey = TenantCacheKey.of(key);
+        if (tenantKey == null) { return false; }
+        return this.delegate.afterUpdate(tenantKey, value, currentVersion, previousVersion, lock);
+    }
+}
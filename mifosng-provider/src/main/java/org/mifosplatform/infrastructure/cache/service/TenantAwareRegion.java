@@ -0,0 +1,86 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.cache.service;
+
+import java.util.Map;
+
+import org.hibernate.cache.CacheException;
+import org.hibernate.cache.spi.CacheDataDescription;
+import org.hibernate.cache.spi.TransactionalDataRegion;
+import org.mifosplatform.infrastructure.cache.domain.TenantCacheKey;
+
+/**
+ * Second level cache region whose entries are keyed by
+ * {@link TenantCacheKey}; access strategies built from it are registered with
+ * the {@link TenantAwareRegionFactory}.
+ */
+abstract class TenantAwareRegion<R extends TransactionalDataRegion> implements TransactionalDataRegion {
+
+    protected final R delegate;
+    protected final TenantAwareRegionFactory regionFactory;
+
+    TenantAwareRegion(final R delegate, final TenantAwareRegionFactory regionFactory) {
+        this.delegate = delegate;
+        this.regionFactory = regionFactory;
+    }
+
+    @Override
+    public String getName() {
+        return this.delegate.getName();
+    }
+
+    @Override
+    public void destroy() throws CacheException {
+        this.delegate.destroy();
+    }
+
+    @Override
+    public boolean contains(final Object key) {
+        final TenantCacheKey tenantKey = TenantCacheKey.of(key);
+        return tenantKey != null && this.delegate.contains(tenantKey);
+    }
+
+    @Override
+    public long getSizeInMemory() {
+        return this.delegate.getSizeInMemory();
+    }
+
+    @Override
+    public long getElementCountInMemory() {
+        return this.delegate.getElementCountInMemory();
+    }
+
+    @Override
+    public long getElementCountOnDisk() {
+        return this.delegate.getElementCountOnDisk();
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Override
+    public Map toMap() {
+        return this.delegate.toMap();
+    }
+
+    @Override
+    public long nextTimestamp() {
+        return this.delegate.nextTimestamp();
+    }
+
+    @Override
+    public int getTimeout() {
+        return this.delegate.getTimeout();
+    }
+
+    @Override
+    public boolean isTransactionAware() {
+        return this.delegate.isTransactionAware();
+    }
+
+    @Override
+    public CacheDataDescription getCacheDataDescription() {
+        return this.delegate.getCacheDataDescription();
+    }
+}
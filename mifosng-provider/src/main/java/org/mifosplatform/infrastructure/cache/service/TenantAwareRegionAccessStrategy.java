@@ -0,0 +1,140 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.cache.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.cache.CacheException;
+import org.hibernate.cache.spi.Region;
+import org.hibernate.cache.spi.access.RegionAccessStrategy;
+import org.hibernate.cache.spi.access.SoftLock;
+import org.mifosplatform.infrastructure.cache.domain.TenantCacheKey;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+
+/**
+ * Access to a second level cache region through {@link TenantCacheKey}s.
+ *
+ * Reads and puts are skipped while caching is switched off (or no tenant is
+ * bound), so nothing is served or stored; locks, updates and evictions still
+ * go through so that entries cached before the switch are kept consistent.
+ *
+ * Rows loaded on read-only requests, which may have been read from a lagging
+ * read replica, are not put in the region.
+ */
+abstract class TenantAwareRegionAccessStrategy<S extends RegionAccessStrategy> implements RegionAccessStrategy {
+
+    protected final S delegate;
+    private final TenantAwareRegionFactory regionFactory;
+    private final String metricPrefix;
+
+    TenantAwareRegionAccessStrategy(final S delegate, final TenantAwareRegionFactory regionFactory, final String regionName) {
+        this.delegate = delegate;
+        this.regionFactory = regionFactory;
+        this.metricPrefix = "cache.secondLevel." + regionName.replaceFirst("^([a-z0-9_]+\\.)+", "");
+    }
+
+    protected abstract Region delegateRegion();
+
+    protected boolean isCachingEnabled() {
+        return this.regionFactory.isCachingEnabled();
+    }
+
+    private boolean mayPutFromLoad() {
+        return isCachingEnabled() && !ThreadLocalContextUtil.isReadOnlyRequest();
+    }
+
+    @Override
+    public Object get(final Object key, final long txTimestamp) throws CacheException {
+        if (!isCachingEnabled()) { return null; }
+        final TenantCacheKey tenantKey = TenantCacheKey.of(key);
+        if (tenantKey == null) { return null; }
+
+        final Object value = this.delegate.get(tenantKey, txTimestamp);
+        this.regionFactory.metricsService().increment(this.metricPrefix + (value == null ? ".misses" : ".hits"));
+        return value;
+    }
+
+    @Override
+    public boolean putFromLoad(final Object key, final Object value, final long txTimestamp, final Object version) throws CacheException {
+        if (!mayPutFromLoad()) { return false; }
+        final TenantCacheKey tenantKey = TenantCacheKey.of(key);
+        if (tenantKey == null) { return false; }
+        return this.delegate.putFromLoad(tenantKey, value, txTimestamp, version);
+    }
+
+    @Override
+    public boolean putFromLoad(final Object key, final Object value, final long txTimestamp, final Object version,
+            final boolean minimalPutOverride) throws CacheException {
+        if (!mayPutFromLoad()) { return false; }
+        final TenantCacheKey tenantKey = TenantCacheKey.of(key);
+        if (tenantKey == null) { return false; }
+        return this.delegate.putFromLoad(tenantKey, value, txTimestamp, version, minimalPutOverride);
+    }
+
+    @Override
+    public SoftLock lockItem(final Object key, final Object version) throws CacheException {
+        final TenantCacheKey tenantKey = TenantCacheKey.of(key);
+        if (tenantKey == null) { return null; }
+        return this.delegate.lockItem(tenantKey, version);
+    }
+
+    @Override
+    public SoftLock lockRegion() throws CacheException {
+        return this.delegate.lockRegion();
+    }
+
+    @Override
+    public void unlockItem(final Object key, final SoftLock lock) throws CacheException {
+        final TenantCacheKey tenantKey = TenantCacheKey.of(key);
+        if (tenantKey != null) {
+            this.delegate.unlockItem(tenantKey, lock);
+        }
+    }
+
+    @Override
+    public void unlockRegion(final SoftLock lock) throws CacheException {
+        this.delegate.unlockRegion(lock);
+    }
+
+    @Override
+    public void remove(final Object key) throws CacheException {
+        final TenantCacheKey tenantKey = TenantCacheKey.of(key);
+        if (tenantKey != null) {
+            this.delegate.remove(tenantKey);
+        }
+    }
+
+    @Override
+    public void removeAll() throws CacheException {
+        this.delegate.removeAll();
+    }
+
+    @Override
+    public void evict(final Object key) throws CacheException {
+        final TenantCacheKey tenantKey = TenantCacheKey.of(key);
+        if (tenantKey != null) {
+            this.delegate.evict(tenantKey);
+        }
+    }
+
+    @Override
+    public void evictAll() throws CacheException {
+        this.delegate.evictAll();
+    }
+
+    /**
+     * Evicts the entries of one tenant, leaving those of the others.
+     */
+    void evictTenant(final String tenantIdentifier) {
+        final List<Object> keys = new ArrayList<>(delegateRegion().toMap().keySet());
+        for (final Object key : keys) {
+            if (key instanceof TenantCacheKey && ((TenantCacheKey) key).isOf(tenantIdentifier)) {
+                this.delegate.evict(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.cache.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.hibernate.cache.CacheException;
+import org.hibernate.cache.ehcache.SingletonEhCacheRegionFactory;
+import org.hibernate.cache.spi.CacheDataDescription;
+import org.hibernate.cache.spi.CollectionRegion;
+import org.hibernate.cache.spi.EntityRegion;
+import org.hibernate.cache.spi.NaturalIdRegion;
+import org.hibernate.cache.spi.QueryResultsRegion;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cache.spi.TimestampsRegion;
+import org.hibernate.cache.spi.access.AccessType;
+import org.hibernate.cfg.Settings;
+import org.mifosplatform.infrastructure.codes.domain.Code;
+import org.mifosplatform.infrastructure.codes.domain.CodeValue;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.infrastructure.metrics.service.PlatformMetricsService;
+import org.mifosplatform.organisation.office.domain.Office;
+import org.mifosplatform.organisation.staff.domain.Staff;
+import org.mifosplatform.portfolio.charge.domain.Charge;
+import org.mifosplatform.portfolio.fund.domain.Fund;
+import org.mifosplatform.portfolio.loanproduct.domain.LoanProduct;
+import org.mifosplatform.portfolio.loanproduct.domain.LoanProductBorrowerCycleVariations;
+import org.mifosplatform.portfolio.savings.domain.SavingsProduct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Hibernate second level cache for read-mostly reference entities, kept in the
+ * regions of the shared ehcache instance configured by ehcache.xml.
+ *
+ * Entries are keyed per tenant and are only served while caching is switched
+ * on through the {@link RuntimeDelegatingCacheManager}. Hits and misses are
+ * counted per region and tenant as cache.secondLevel.&lt;region&gt;.hits and
+ * .misses.
+ *
+ * Hibernate keeps the regions up to date with the changes made through JPA;
+ * {@link #invalidate(String)} evicts the tenant's entries of the entities a
+ * command may also have changed through JDBC. Natural id and query caches are
+ * not tenant aware and are not supported.
+ *
+ * In multi node mode the invalidations are also published through the
+ * {@link CacheInvalidationLog}, so that the other nodes evict the entries
+ * changed on this one.
+ */
+@Component(value = "tenantAwareRegionFactory")
+public class TenantAwareRegionFactory implements RegionFactory {
+
+    private static final String INVALIDATION_PREFIX = "secondLevel.";
+    private static final Map<String, List<Class<?>>> entitiesByCommandEntity = new HashMap<>();
+
+    static {
+        entitiesByCommandEntity.put("OFFICE", Arrays.<Class<?>> asList(Office.class));
+        entitiesByCommandEntity.put("STAFF", Arrays.<Class<?>> asList(Staff.class));
+        entitiesByCommandEntity.put("CHARGE", Arrays.<Class<?>> asList(Charge.class));
+        entitiesByCommandEntity.put("FUND", Arrays.<Class<?>> asList(Fund.class));
+        entitiesByCommandEntity.put("CODE", Arrays.<Class<?>> asList(Code.class, CodeValue.class));
+        entitiesByCommandEntity.put("CODEVALUE", Arrays.<Class<?>> asList(Code.class, CodeValue.class));
+        entitiesByCommandEntity.put("LOANPRODUCT", Arrays.<Class<?>> asList(LoanProduct.class, LoanProductBorrowerCycleVariations.class));
+        entitiesByCommandEntity.put("SAVINGSPRODUCT", Arrays.<Class<?>> asList(SavingsProduct.class));
+        entitiesByCommandEntity.put("FIXEDDEPOSITPRODUCT", Arrays.<Class<?>> asList(SavingsProduct.class));
+        entitiesByCommandEntity.put("RECURRINGDEPOSITPRODUCT", Arrays.<Class<?>> asList(SavingsProduct.class));
+    }
+
+    private final RegionFactory delegate = new SingletonEhCacheRegionFactory();
+    private final RuntimeDelegatingCacheManager cacheManager;
+    private final PlatformMetricsService metricsService;
+    private final CacheInvalidationLog invalidationLog;
+    private final List<TenantAwareRegionAccessStrategy<?>> accessStrategies = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    public TenantAwareRegionFactory(final RuntimeDelegatingCacheManager cacheManager, final PlatformMetricsService metricsService,
+            final CacheInvalidationLog invalidationLog) {
+        this.cacheManager = cacheManager;
+        this.metricsService = metricsService;
+        this.invalidationLog = invalidationLog;
+        this.invalidationLog.addListener(new CacheInvalidationLog.Listener() {
+
+            @Override
+            public void invalidated(final String cacheName, @SuppressWarnings("unused") final String key, final String tenantIdentifier) {
+                if (!cacheName.startsWith(INVALIDATION_PREFIX) || tenantIdentifier == null) { return; }
+                final List<Class<?>> entities = entitiesByCommandEntity.get(cacheName.substring(INVALIDATION_PREFIX.length()));
+                if (entities != null) {
+                    evict(entities, tenantIdentifier);
+                }
+            }
+        });
+    }
+
+    boolean isCachingEnabled() {
+        return this.cacheManager.isCachingEnabled();
+    }
+
+    PlatformMetricsService metricsService() {
+        return this.metricsService;
+    }
+
+    void register(final TenantAwareRegionAccessStrategy<?> accessStrategy) {
+        this.accessStrategies.add(accessStrategy);
+    }
+
+    /**
+     * Evicts the current tenant's cached entities (and their collections)
+     * that commands on the given entity change, now and once the transaction
+     * completes, and on the other nodes.
+     */
+    public void invalidate(final String commandEntityName) {
+        final List<Class<?>> entities = entitiesByCommandEntity.get(commandEntityName);
+        final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+        if (entities == null || tenant == null) { return; }
+
+        final String tenantIdentifier = tenant.getTenantIdentifier();
+        evict(entities, tenantIdentifier);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+                @Override
+                public void afterCompletion(@SuppressWarnings("unused") final int status) {
+                    evict(entities, tenantIdentifier);
+                }
+            });
+        }
+        this.invalidationLog.publish(INVALIDATION_PREFIX + commandEntityName, null, tenantIdentifier);
+    }
+
+    private void evict(final List<Class<?>> entities, final String tenantIdentifier) {
+        for (final TenantAwareRegionAccessStrategy<?> accessStrategy : this.accessStrategies) {
+            final String regionName = accessStrategy.delegateRegion().getName();
+            for (final Class<?> entity : entities) {
+                if (regionName.equals(entity.getName()) || regionName.startsWith(entity.getName() + ".")) {
+                    accessStrategy.evictTenant(tenantIdentifier);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void start(final Settings settings, final Properties properties) throws CacheException {
+        this.delegate.start(settings, properties);
+    }
+
+    @Override
+    public void stop() {
+        this.delegate.stop();
+        this.accessStrategies.clear();
+    }
+
+    @Override
+    public boolean isMinimalPutsEnabledByDefault() {
+        return this.delegate.isMinimalPutsEnabledByDefault();
+    }
+
+    @Override
+    public AccessType getDefaultAccessType() {
+        return this.delegate.getDefaultAccessType();
+    }
+
+    @Override
+    public long nextTimestamp() {
+        return this.delegate.nextTimestamp();
+    }
+
+    @Override
+    public EntityRegion buildEntityRegion(final String regionName, final Properties properties, final CacheDataDescription metadata)
+            throws CacheException {
+        return new TenantAwareEntityRegion(this.delegate.buildEntityRegion(regionName, properties, metadata), this);
+    }
+
+    @Override
+    public CollectionRegion buildCollectionRegion(final String regionName, final Properties properties,
+            final CacheDataDescription metadata) throws CacheException {
+        return new TenantAwareCollectionRegion(this.delegate.buildCollectionRegion(regionName, properties, metadata), this);
+    }
+
+    @Override
+    public NaturalIdRegion buildNaturalIdRegion(final String regionName, @SuppressWarnings("unused") final Properties properties,
+            @SuppressWarnings("unused") final CacheDataDescription metadata) throws CacheException {
+        throw new CacheException("Natural id caching is not supported: " + regionName);
+    }
+
+    @Override
+    public QueryResultsRegion buildQueryResultsRegion(final String regionName, @SuppressWarnings("unused") final Properties properties)
+            throws CacheException {
+        throw new CacheException("Query caching is not supported: " + regionName);
+    }
+
+    @Override
+    public TimestampsRegion buildTimestampsRegion(final String regionName, @SuppressWarnings("unused") final Properties properties)
+            throws CacheException {
+        throw new CacheException("Query caching is not supported: " + regionName);
+    }
+}
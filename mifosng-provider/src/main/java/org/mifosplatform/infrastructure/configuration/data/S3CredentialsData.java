@@ -10,11 +10,13 @@ public class S3CredentialsData {
     private final String bucketName;
     private final String accessKey;
     private final String secretKey;
+    private final String endpoint;
 
-    public S3CredentialsData(final String bucketName, final String accessKey, final String secretKey) {
+    public S3CredentialsData(final String bucketName, final String accessKey, final String secretKey, final String endpoint) {
         this.bucketName = bucketName;
         this.accessKey = accessKey;
         this.secretKey = secretKey;
+        this.endpoint = endpoint;
     }
 
     public String getBucketName() {
@@ -29,4 +31,8 @@ public class S3CredentialsData {
         return this.secretKey;
     }
 
+    public String getEndpoint() {
+        return this.endpoint;
+    }
+
 }
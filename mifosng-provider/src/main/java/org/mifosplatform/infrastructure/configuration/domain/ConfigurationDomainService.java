@@ -25,6 +25,8 @@ public interface ConfigurationDomainService {
 
     boolean isEhcacheEnabled();
 
+    boolean isDistributedCacheEnabled();
+
     void updateCache(CacheType cacheType);
 
     Long retrievePenaltyWaitPeriod();
@@ -47,4 +49,6 @@ public interface ConfigurationDomainService {
 
 	boolean allowPostClosureRepayments();
 
+    Integer retrieveAuditRetentionMonths();
+
 }
\ No newline at end of file
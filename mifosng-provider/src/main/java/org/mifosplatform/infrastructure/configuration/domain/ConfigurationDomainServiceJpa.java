@@ -86,6 +86,11 @@ public class ConfigurationDomainServiceJpa implements ConfigurationDomainService
         return this.cacheTypeRepository.findOne(Long.valueOf(1)).isEhcacheEnabled();
     }
 
+    @Override
+    public boolean isDistributedCacheEnabled() {
+        return this.cacheTypeRepository.findOne(Long.valueOf(1)).isDistributedCacheEnabled();
+    }
+
     @Transactional
     @Override
     public void updateCache(final CacheType cacheType) {
@@ -144,6 +149,11 @@ public class ConfigurationDomainServiceJpa implements ConfigurationDomainService
 		return this.isPropertyEnabled("allow-post-closure-repayments");
 	}
 
+    @Override
+    public Integer retrieveAuditRetentionMonths() {
+        return this.getPropertyValueOrElse("audit-retention-months", null);
+    }
+
 	private boolean isPropertyEnabled(String propertyName) {
 		final GlobalConfigurationProperty property = this.globalConfigurationRepository.findOneByNameWithNotFoundDetection(propertyName);
 		return property.isEnabled();
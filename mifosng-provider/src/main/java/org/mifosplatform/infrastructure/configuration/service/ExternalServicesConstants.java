@@ -10,6 +10,7 @@ public class ExternalServicesConstants {
     public static final String S3_BUCKET_NAME = "s3_bucket_name";
     public static final String S3_ACCESS_KEY = "s3_access_key";
     public static final String S3_SECRET_KEY = "s3_secret_key";
+    public static final String S3_ENDPOINT = "s3_endpoint";
 
     public static final String EMAIL_HOST = "email_host";
     public static final String EMAIL_AUTH_USERNAME = "email_auth_username";
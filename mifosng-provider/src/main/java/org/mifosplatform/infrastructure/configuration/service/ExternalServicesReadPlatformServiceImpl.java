@@ -35,6 +35,7 @@ public class ExternalServicesReadPlatformServiceImpl implements ExternalServices
             String accessKey = null;
             String bucketName = null;
             String secretKey = null;
+            String endpoint = null;
             while (rs.next()) {
                 if (rs.getString("name").equalsIgnoreCase(ExternalServicesConstants.S3_ACCESS_KEY)) {
                     accessKey = rs.getString("value");
@@ -42,16 +43,18 @@ public class ExternalServicesReadPlatformServiceImpl implements ExternalServices
                     bucketName = rs.getString("value");
                 } else if (rs.getString("name").equalsIgnoreCase(ExternalServicesConstants.S3_SECRET_KEY)) {
                     secretKey = rs.getString("value");
+                } else if (rs.getString("name").equalsIgnoreCase(ExternalServicesConstants.S3_ENDPOINT)) {
+                    endpoint = rs.getString("value");
                 }
             }
-            return new S3CredentialsData(bucketName, accessKey, secretKey);
+            return new S3CredentialsData(bucketName, accessKey, secretKey, endpoint);
         }
     }
 
     @Override
     public S3CredentialsData getS3Credentials() {
         final ResultSetExtractor<S3CredentialsData> resultSetExtractor = new S3CredentialsDataExtractor();
-        final String sql = "SELECT es.name, es.value FROM c_external_service es where es.name in('s3_bucket_name','s3_access_key','s3_secret_key')";
+        final String sql = "SELECT es.name, es.value FROM c_external_service es where es.name in('s3_bucket_name','s3_access_key','s3_secret_key','s3_endpoint')";
         final S3CredentialsData s3CredentialsData = this.jdbcTemplate.query(sql, resultSetExtractor, new Object[] {});
         return s3CredentialsData;
     }
@@ -0,0 +1,34 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.core.boot;
+
+import org.mifosplatform.infrastructure.core.service.InProcessApiDispatcher;
+
+import com.sun.jersey.api.core.ResourceConfig;
+import com.sun.jersey.spi.container.WebApplication;
+import com.sun.jersey.spi.spring.container.servlet.SpringServlet;
+
+/**
+ * {@link SpringServlet} that hands its initiated {@link WebApplication} to the
+ * {@link InProcessApiDispatcher}, so that services can call our own API
+ * resources without a loopback HTTP connection.
+ */
+public class InProcessDispatchingSpringServlet extends SpringServlet {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient InProcessApiDispatcher inProcessApiDispatcher;
+
+    public InProcessDispatchingSpringServlet(final InProcessApiDispatcher inProcessApiDispatcher) {
+        this.inProcessApiDispatcher = inProcessApiDispatcher;
+    }
+
+    @Override
+    protected void initiate(final ResourceConfig rc, final WebApplication wa) {
+        super.initiate(rc, wa);
+        this.inProcessApiDispatcher.register(wa);
+    }
+}
@@ -9,6 +9,7 @@ import javax.servlet.Filter;
 import javax.servlet.Servlet;
 
 import org.mifosplatform.infrastructure.core.filters.ResponseCorsFilter;
+import org.mifosplatform.infrastructure.core.service.InProcessApiDispatcher;
 import org.mifosplatform.infrastructure.security.filter.TenantAwareBasicAuthenticationFilter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.embedded.FilterRegistrationBean;
@@ -17,8 +18,6 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.filter.DelegatingFilterProxy;
 
-import com.sun.jersey.spi.spring.container.servlet.SpringServlet;
-
 /**
  * This Configuration replaces what formerly was in web.xml.
  *
@@ -31,6 +30,9 @@ public class WebXmlConfiguration {
     @Autowired
     private TenantAwareBasicAuthenticationFilter basicAuthenticationProcessingFilter;
 
+    @Autowired
+    private InProcessApiDispatcher inProcessApiDispatcher;
+
     @Bean
     public Filter springSecurityFilterChain() {
         return new DelegatingFilterProxy();
@@ -38,7 +40,7 @@ public class WebXmlConfiguration {
 
     @Bean
     public ServletRegistrationBean jersey() {
-        Servlet jerseyServlet = new SpringServlet();
+        Servlet jerseyServlet = new InProcessDispatchingSpringServlet(inProcessApiDispatcher);
         ServletRegistrationBean jerseyServletRegistration = new ServletRegistrationBean();
         jerseyServletRegistration.setServlet(jerseyServlet);
         jerseyServletRegistration.addUrlMappings("/api/v1/*");
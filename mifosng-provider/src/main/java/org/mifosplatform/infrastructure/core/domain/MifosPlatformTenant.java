@@ -5,6 +5,8 @@
  */
 package org.mifosplatform.infrastructure.core.domain;
 
+import org.apache.commons.lang.StringUtils;
+
 public class MifosPlatformTenant {
 
     private final Long id;
@@ -30,13 +32,18 @@ public class MifosPlatformTenant {
     private final int suspectTimeout;
     private final int timeBetweenEvictionRunsMillis;
     private final int minEvictableIdleTimeMillis;
+    private final String readOnlySchemaServer;
+    private final String readOnlySchemaServerPort;
+    private final String readOnlySchemaUsername;
+    private final String readOnlySchemaPassword;
 
     public MifosPlatformTenant(final Long id, final String tenantIdentifier, final String name, final String schemaName,
             final String schemaServer, final String schemaServerPort, final String schemaUsername, final String schemaPassword,
             final String timezoneId, final boolean autoUpdateEnabled, final int initialSize, final boolean testOnBorrow,
             final long validationInterval, final boolean removeAbandoned, final int removeAbandonedTimeout, final boolean logAbandoned,
             final int abandonWhenPercentageFull, final int maxActive, final int minIdle, final int maxIdle, final int suspectTimeout,
-            final int timeBetweenEvictionRunsMillis, final int minEvictableIdleTimeMillis) {
+            final int timeBetweenEvictionRunsMillis, final int minEvictableIdleTimeMillis, final String readOnlySchemaServer,
+            final String readOnlySchemaServerPort, final String readOnlySchemaUsername, final String readOnlySchemaPassword) {
         this.id = id;
         this.tenantIdentifier = tenantIdentifier;
         this.name = name;
@@ -60,6 +67,10 @@ public class MifosPlatformTenant {
         this.suspectTimeout = suspectTimeout;
         this.timeBetweenEvictionRunsMillis = timeBetweenEvictionRunsMillis;
         this.minEvictableIdleTimeMillis = minEvictableIdleTimeMillis;
+        this.readOnlySchemaServer = readOnlySchemaServer;
+        this.readOnlySchemaServerPort = readOnlySchemaServerPort;
+        this.readOnlySchemaUsername = readOnlySchemaUsername;
+        this.readOnlySchemaPassword = readOnlySchemaPassword;
     }
 
     public String databaseURL() {
@@ -68,6 +79,28 @@ public class MifosPlatformTenant {
         return url;
     }
 
+    public boolean hasReadReplica() {
+        return StringUtils.isNotBlank(this.readOnlySchemaServer);
+    }
+
+    /**
+     * URL of the read replica, which holds the tenant's schema under the same
+     * name; its port defaults to the port of the primary.
+     */
+    public String readReplicaDatabaseURL() {
+        final String port = StringUtils.isNotBlank(this.readOnlySchemaServerPort) ? this.readOnlySchemaServerPort : this.schemaServerPort;
+        return new StringBuilder("jdbc:mysql://").append(this.readOnlySchemaServer).append(':').append(port).append('/')
+                .append(this.schemaName).toString();
+    }
+
+    public String getReadReplicaUsername() {
+        return StringUtils.isNotBlank(this.readOnlySchemaUsername) ? this.readOnlySchemaUsername : this.schemaUsername;
+    }
+
+    public String getReadReplicaPassword() {
+        return StringUtils.isNotBlank(this.readOnlySchemaUsername) ? this.readOnlySchemaPassword : this.schemaPassword;
+    }
+
     public int getMaxActive() {
         return this.maxActive;
     }
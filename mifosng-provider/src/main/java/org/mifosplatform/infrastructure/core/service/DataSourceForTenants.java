@@ -29,4 +29,9 @@ public class DataSourceForTenants implements RoutingDataSourceService {
         return this.tenantDataSource;
     }
 
+    @Override
+    public DataSource retrieveReadReplicaDataSource() {
+        return this.tenantDataSource;
+    }
+
 }
@@ -0,0 +1,119 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.core.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+
+import org.springframework.stereotype.Component;
+
+import com.sun.jersey.core.header.InBoundHeaders;
+import com.sun.jersey.spi.container.ContainerRequest;
+import com.sun.jersey.spi.container.ContainerResponse;
+import com.sun.jersey.spi.container.ContainerResponseWriter;
+import com.sun.jersey.spi.container.WebApplication;
+
+/**
+ * Dispatches GET requests straight to the JAX-RS resources of the running
+ * Jersey application, without going through HTTP and the servlet filters.
+ *
+ * The caller is responsible for binding the tenant and the authenticated user
+ * to the current thread. Requests must not be dispatched from a thread that is
+ * itself serving a Jersey request, as Jersey keeps its request context in
+ * thread locals.
+ */
+@Component
+public class InProcessApiDispatcher {
+
+    private volatile WebApplication webApplication;
+
+    /**
+     * Called by the Jersey servlet once its web application is initiated.
+     */
+    public void register(final WebApplication webApplication) {
+        this.webApplication = webApplication;
+    }
+
+    public boolean isAvailable() {
+        return this.webApplication != null;
+    }
+
+    public ApiResponse get(final URI baseUri, final URI requestUri) throws IOException {
+        final WebApplication application = this.webApplication;
+        if (application == null) { throw new IllegalStateException("Jersey web application is not initiated yet."); }
+
+        final InBoundHeaders headers = new InBoundHeaders();
+        headers.add(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON);
+        headers.add(HttpHeaders.ACCEPT, MediaType.TEXT_PLAIN);
+        final ContainerRequest request = new ContainerRequest(application, HttpMethod.GET, baseUri, requestUri, headers,
+                new ByteArrayInputStream(new byte[0]));
+
+        final CapturingResponseWriter writer = new CapturingResponseWriter();
+        application.handleRequest(request, writer);
+        return writer.toApiResponse();
+    }
+
+    public static final class ApiResponse {
+
+        private final int status;
+        private final String contentType;
+        private final String body;
+
+        public ApiResponse(final int status, final String contentType, final String body) {
+            this.status = status;
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        public int getStatus() {
+            return this.status;
+        }
+
+        public boolean isSuccessful() {
+            return this.status >= 200 && this.status < 300;
+        }
+
+        public String getContentType() {
+            return this.contentType;
+        }
+
+        public String getBody() {
+            return this.body;
+        }
+    }
+
+    private static final class CapturingResponseWriter implements ContainerResponseWriter {
+
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        private int status;
+        private String contentType;
+
+        @Override
+        public OutputStream writeStatusAndHeaders(@SuppressWarnings("unused") final long contentLength, final ContainerResponse response) {
+            this.status = response.getStatus();
+            final Object type = response.getHttpHeaders().getFirst(HttpHeaders.CONTENT_TYPE);
+            this.contentType = type == null ? null : type.toString();
+            return this.body;
+        }
+
+        @Override
+        public void finish() {
+            // body is fully buffered
+        }
+
+        ApiResponse toApiResponse() {
+            return new ApiResponse(this.status, this.contentType, new String(this.body.toByteArray(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,28 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.core.service;
+
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+/**
+ * {@link JpaTransactionManager} that tells {@link ReadReplicaRouting} whether
+ * the transaction it begins is read-only while the transaction's connection
+ * is taken, which happens before the read-only flag is published through
+ * {@link org.springframework.transaction.support.TransactionSynchronizationManager}.
+ */
+public class ReadReplicaAwareJpaTransactionManager extends JpaTransactionManager {
+
+    @Override
+    protected void doBegin(final Object transaction, final TransactionDefinition definition) {
+        final Boolean outer = ReadReplicaRouting.beginTransaction(definition.isReadOnly());
+        try {
+            super.doBegin(transaction, definition);
+        } finally {
+            ReadReplicaRouting.transactionBegun(outer);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.core.service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.metrics.service.PlatformMetricsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Decides which API requests of a tenant with a read replica are served from
+ * it: GET requests of the reporting, search and audit resources, and
+ * collection sheet generation.
+ *
+ * A replica lags behind the primary, so once a caller (identified by its
+ * authentication token) has written, its requests stay on the primary for
+ * {@value #PRIMARY_AFTER_WRITE_SECONDS} seconds and it reads its own writes.
+ *
+ * Within a read-only request, connections taken outside a transaction or for
+ * a read-only transaction go to the replica, and those for any other
+ * transaction to the primary. Caches are loaded through
+ * {@link #onPrimary(Supplier)} so they never hold what a lagging replica read.
+ */
+@Component
+public class ReadReplicaRouting {
+
+    public static final String PRIMARY_POOL = "primary";
+    public static final String READ_REPLICA_POOL = "readReplica";
+
+    private static final long PRIMARY_AFTER_WRITE_SECONDS = 60;
+    private static final List<String> READ_ONLY_RESOURCES = Arrays.asList("/runreports", "/search", "/audits");
+    private static final String READ_ONLY_COMMAND = "generateCollectionSheet";
+
+    /*
+     * JpaTransactionManager takes the connection of a transaction before it
+     * publishes the transaction's read-only flag, see
+     * ReadReplicaAwareJpaTransactionManager
+     */
+    private static final ThreadLocal<Boolean> readOnlyTransactionBeginning = new ThreadLocal<>();
+
+    private final PlatformMetricsService metricsService;
+    private final Cache<String, Boolean> recentWriters = CacheBuilder.newBuilder() //
+            .expireAfterWrite(PRIMARY_AFTER_WRITE_SECONDS, TimeUnit.SECONDS) //
+            .maximumSize(100000) //
+            .build();
+
+    @Autowired
+    public ReadReplicaRouting(final PlatformMetricsService metricsService) {
+        this.metricsService = metricsService;
+    }
+
+    /**
+     * Marks the request on this thread as read-only when it can be served from
+     * the tenant's read replica, and remembers callers that write.
+     */
+    public void beginRequest(final String method, final String path, final String command) {
+        final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+        if (tenant == null || !tenant.hasReadReplica()) { return; }
+
+        final String caller = tenant.getTenantIdentifier() + ":" + ThreadLocalContextUtil.getAuthToken();
+        final boolean readOnly = ("GET".equalsIgnoreCase(method) && isReadOnlyResource(path)) || READ_ONLY_COMMAND.equals(command);
+        if (!readOnly) {
+            if (!"GET".equalsIgnoreCase(method)) {
+                this.recentWriters.put(caller, Boolean.TRUE);
+            }
+        } else if (this.recentWriters.getIfPresent(caller) != null) {
+            this.metricsService.increment("datasource.readReplica.pinnedToPrimary");
+        } else {
+            ThreadLocalContextUtil.setReadOnlyRequest();
+        }
+    }
+
+    public void endRequest() {
+        ThreadLocalContextUtil.clearReadOnlyRequest();
+    }
+
+    /**
+     * Connections go to the replica for read-only requests, unless they are
+     * taken for a transaction that is not read-only.
+     */
+    public boolean routeToReadReplica() {
+        if (!ThreadLocalContextUtil.isReadOnlyRequest()) { return false; }
+        final Boolean readOnlyTransaction = readOnlyTransactionBeginning.get();
+        if (readOnlyTransaction != null) {
+            if (!readOnlyTransaction) { return false; }
+        } else if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) { return false; }
+        final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+        return tenant != null && tenant.hasReadReplica();
+    }
+
+    /**
+     * @return what the loader returns, having taken any connection it needs
+     *         outside a transaction from the primary
+     */
+    public static <T> T onPrimary(final Supplier<T> loader) {
+        if (!ThreadLocalContextUtil.isReadOnlyRequest()) { return loader.get(); }
+        ThreadLocalContextUtil.clearReadOnlyRequest();
+        try {
+            return loader.get();
+        } finally {
+            ThreadLocalContextUtil.setReadOnlyRequest();
+        }
+    }
+
+    /**
+     * @return the flag of the transaction being begun by an outer call, if any
+     */
+    static Boolean beginTransaction(final boolean readOnly) {
+        final Boolean outer = readOnlyTransactionBeginning.get();
+        readOnlyTransactionBeginning.set(readOnly);
+        return outer;
+    }
+
+    static void transactionBegun(final Boolean outer) {
+        if (outer == null) {
+            readOnlyTransactionBeginning.remove();
+        } else {
+            readOnlyTransactionBeginning.set(outer);
+        }
+    }
+
+    private static boolean isReadOnlyResource(final String path) {
+        if (path == null) { return false; }
+        for (final String resource : READ_ONLY_RESOURCES) {
+            if (path.equals(resource) || path.startsWith(resource + "/")) { return true; }
+        }
+        return false;
+    }
+}
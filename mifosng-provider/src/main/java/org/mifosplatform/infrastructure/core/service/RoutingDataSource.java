@@ -5,11 +5,16 @@
  */
 package org.mifosplatform.infrastructure.core.service;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.SQLException;
 
 import javax.sql.DataSource;
 
+import org.mifosplatform.infrastructure.metrics.domain.RequestStatistics;
+import org.mifosplatform.infrastructure.metrics.service.DataAccessProfiler;
+import org.mifosplatform.infrastructure.metrics.service.PlatformMetricsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.datasource.AbstractDataSource;
 import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
@@ -19,11 +24,17 @@ import org.springframework.stereotype.Service;
  * Based on springs {@link AbstractRoutingDataSource} idea, this is a
  * {@link DataSource} that routes or delegates to another data source depending
  * on the tenant details passed in the request.
- * 
+ *
  * The tenant details are process earlier and stored in a {@link ThreadLocal}.
- * 
+ *
  * The {@link RoutingDataSourceService} is responsible for returning the
- * appropriate {@link DataSource} for the tenant of this request.
+ * appropriate {@link DataSource} for the tenant of this request. Read-only
+ * requests of a tenant with a read replica are routed to the replica, as
+ * decided by {@link ReadReplicaRouting}.
+ *
+ * While {@link RequestStatistics} are collected for an API request, the
+ * connections handed out count the statements prepared on them, and while the
+ * {@link DataAccessProfiler} is switched on they time the statements executed.
  */
 @Service(value = "routingDataSource")
 public class RoutingDataSource extends AbstractDataSource {
@@ -31,17 +42,55 @@ public class RoutingDataSource extends AbstractDataSource {
     @Autowired
     private RoutingDataSourceServiceFactory dataSourceServiceFactory;
 
+    @Autowired
+    private ReadReplicaRouting readReplicaRouting;
+
+    @Autowired
+    private PlatformMetricsService metricsService;
+
+    @Autowired
+    private DataAccessProfiler dataAccessProfiler;
+
     @Override
     public Connection getConnection() throws SQLException {
-        return determineTargetDataSource().getConnection();
+        final boolean readReplica = this.readReplicaRouting.routeToReadReplica();
+        final long startTime = System.currentTimeMillis();
+        final Connection connection = determineTargetDataSource(readReplica).getConnection();
+        recordConnection(readReplica, startTime);
+        return this.dataAccessProfiler.profile(countingStatements(connection));
     }
 
-    private DataSource determineTargetDataSource() {
-        return this.dataSourceServiceFactory.determineDataSourceService().retrieveDataSource();
+    private DataSource determineTargetDataSource(final boolean readReplica) {
+        final RoutingDataSourceService dataSourceService = this.dataSourceServiceFactory.determineDataSourceService();
+        return readReplica ? dataSourceService.retrieveReadReplicaDataSource() : dataSourceService.retrieveDataSource();
     }
 
     @Override
     public Connection getConnection(final String username, final String password) throws SQLException {
-        return determineTargetDataSource().getConnection(username, password);
+        final boolean readReplica = this.readReplicaRouting.routeToReadReplica();
+        final long startTime = System.currentTimeMillis();
+        final Connection connection = determineTargetDataSource(readReplica).getConnection(username, password);
+        recordConnection(readReplica, startTime);
+        return this.dataAccessProfiler.profile(countingStatements(connection));
+    }
+
+    private void recordConnection(final boolean readReplica, final long startTime) {
+        final String pool = readReplica ? ReadReplicaRouting.READ_REPLICA_POOL : ReadReplicaRouting.PRIMARY_POOL;
+        this.metricsService.recordDuration("datasource." + pool + ".getConnection", System.currentTimeMillis() - startTime);
+    }
+
+    private static Connection countingStatements(final Connection connection) {
+        if (!RequestStatistics.isActive()) { return connection; }
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class },
+                (proxy, method, args) -> {
+                    if (method.getName().startsWith("prepare") || method.getName().equals("createStatement")) {
+                        RequestStatistics.statementPrepared();
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (final InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
     }
-}
\ No newline at end of file
+}
@@ -14,4 +14,10 @@ import javax.sql.DataSource;
 public interface RoutingDataSourceService {
 
     DataSource retrieveDataSource();
+
+    /**
+     * @return the read replica connection pool, or the pool of
+     *         {@link #retrieveDataSource()} where there is no replica
+     */
+    DataSource retrieveReadReplicaDataSource();
 }
\ No newline at end of file
@@ -21,6 +21,8 @@ public class ThreadLocalContextUtil {
     
     private static final ThreadLocal<String> authTokenContext = new ThreadLocal<>();
 
+    private static final ThreadLocal<Boolean> readOnlyRequestContext = new ThreadLocal<>();
+
     public static void setTenant(final MifosPlatformTenant tenant) {
         Assert.notNull(tenant, "tenant cannot be null");
         tenantcontext.set(tenant);
@@ -54,4 +56,20 @@ public class ThreadLocalContextUtil {
         return authTokenContext.get();
     }
 
+    /**
+     * Marks the request on this thread as one that only reads, so that its
+     * connections may be taken from the tenant's read replica.
+     */
+    public static void setReadOnlyRequest() {
+        readOnlyRequestContext.set(Boolean.TRUE);
+    }
+
+    public static boolean isReadOnlyRequest() {
+        return Boolean.TRUE.equals(readOnlyRequestContext.get());
+    }
+
+    public static void clearReadOnlyRequest() {
+        readOnlyRequestContext.remove();
+    }
+
 }
\ No newline at end of file
@@ -29,6 +29,7 @@ import org.springframework.stereotype.Service;
 public class TomcatJdbcDataSourcePerTenantService implements RoutingDataSourceService {
 
     private final Map<Long, DataSource> tenantToDataSourceMap = new HashMap<>(1);
+    private final Map<Long, DataSource> tenantToReadReplicaDataSourceMap = new HashMap<>(1);
     private final DataSource tenantDataSource;
 
     @Autowired
@@ -60,20 +61,41 @@ public class TomcatJdbcDataSourcePerTenantService implements RoutingDataSourceSe
         return tenantDataSource;
     }
 
+    @Override
+    public DataSource retrieveReadReplicaDataSource() {
+
+        final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+        if (tenant == null || !tenant.hasReadReplica()) { return retrieveDataSource(); }
+
+        synchronized (this.tenantToReadReplicaDataSourceMap) {
+            DataSource readReplicaDataSource = this.tenantToReadReplicaDataSourceMap.get(tenant.getId());
+            if (readReplicaDataSource == null) {
+                readReplicaDataSource = createNewDataSourceFor(tenant, tenant.getSchemaName() + "_replica_pool",
+                        tenant.readReplicaDatabaseURL(), tenant.getReadReplicaUsername(), tenant.getReadReplicaPassword());
+                this.tenantToReadReplicaDataSourceMap.put(tenant.getId(), readReplicaDataSource);
+            }
+            return readReplicaDataSource;
+        }
+    }
+
     private DataSource createNewDataSourceFor(final MifosPlatformTenant tenant) {
+        return createNewDataSourceFor(tenant, tenant.getSchemaName() + "_pool", tenant.databaseURL(), tenant.getSchemaUsername(),
+                tenant.getSchemaPassword());
+    }
+
+    private DataSource createNewDataSourceFor(final MifosPlatformTenant tenant, final String poolName, final String jdbcUrl,
+            final String username, final String password) {
         // see
         // http://www.tomcatexpert.com/blog/2010/04/01/configuring-jdbc-pool-high-concurrency
 
 	// see also org.mifosplatform.DataSourceProperties.setMifosDefaults()
 
-        final String jdbcUrl = tenant.databaseURL();
-
         final PoolConfiguration poolConfiguration = new PoolProperties();
         poolConfiguration.setDriverClassName("com.mysql.jdbc.Driver");
-        poolConfiguration.setName(tenant.getSchemaName() + "_pool");
+        poolConfiguration.setName(poolName);
         poolConfiguration.setUrl(jdbcUrl);
-        poolConfiguration.setUsername(tenant.getSchemaUsername());
-        poolConfiguration.setPassword(tenant.getSchemaPassword());
+        poolConfiguration.setUsername(username);
+        poolConfiguration.setPassword(password);
 
         poolConfiguration.setInitialSize(tenant.getInitialSize());
 
@@ -5,6 +5,7 @@
  */
 package org.mifosplatform.infrastructure.dataqueries.api;
 
+import java.io.InputStream;
 import java.util.List;
 
 import javax.ws.rs.Consumes;
@@ -18,6 +19,8 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 
 import org.mifosplatform.commands.domain.CommandWrapper;
@@ -28,7 +31,9 @@ import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
 import org.mifosplatform.infrastructure.core.data.CommandProcessingResultBuilder;
 import org.mifosplatform.infrastructure.core.serialization.ToApiJsonSerializer;
 import org.mifosplatform.infrastructure.dataqueries.data.DatatableData;
+import org.mifosplatform.infrastructure.dataqueries.data.DatatableEntryFormat;
 import org.mifosplatform.infrastructure.dataqueries.data.GenericResultsetData;
+import org.mifosplatform.infrastructure.dataqueries.service.DatatableBulkService;
 import org.mifosplatform.infrastructure.dataqueries.service.GenericDataService;
 import org.mifosplatform.infrastructure.dataqueries.service.ReadWriteNonCoreDataService;
 import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext;
@@ -49,18 +54,21 @@ public class DatatablesApiResource {
     private final ReadWriteNonCoreDataService readWriteNonCoreDataService;
     private final ToApiJsonSerializer<GenericResultsetData> toApiJsonSerializer;
     private final PortfolioCommandSourceWritePlatformService commandsSourceWritePlatformService;
+    private final DatatableBulkService datatableBulkService;
     private final static org.slf4j.Logger logger = LoggerFactory.getLogger(DatatablesApiResource.class);
 
     @Autowired
     public DatatablesApiResource(final PlatformSecurityContext context, final GenericDataService genericDataService,
             final ReadWriteNonCoreDataService readWriteNonCoreDataService,
             final ToApiJsonSerializer<GenericResultsetData> toApiJsonSerializer,
-            final PortfolioCommandSourceWritePlatformService commandsSourceWritePlatformService) {
+            final PortfolioCommandSourceWritePlatformService commandsSourceWritePlatformService,
+            final DatatableBulkService datatableBulkService) {
         this.context = context;
         this.genericDataService = genericDataService;
         this.readWriteNonCoreDataService = readWriteNonCoreDataService;
         this.toApiJsonSerializer = toApiJsonSerializer;
         this.commandsSourceWritePlatformService = commandsSourceWritePlatformService;
+        this.datatableBulkService = datatableBulkService;
     }
 
     @GET
@@ -149,6 +157,45 @@ public class DatatablesApiResource {
         return this.toApiJsonSerializer.serializePretty(prettyPrint, result);
     }
 
+    @POST
+    @Path("{datatable}/bulk")
+    @Consumes({ "text/csv" })
+    @Produces({ MediaType.APPLICATION_JSON })
+    public String importDatatableEntriesFromCsv(@PathParam("datatable") final String datatable,
+            @QueryParam("locale") final String locale, @QueryParam("dateFormat") final String dateFormat, final InputStream entries) {
+
+        final CommandProcessingResult result = this.datatableBulkService.importEntries(datatable, DatatableEntryFormat.CSV, entries,
+                locale, dateFormat);
+
+        return this.toApiJsonSerializer.serialize(result);
+    }
+
+    @POST
+    @Path("{datatable}/bulk")
+    @Consumes({ "application/x-ndjson" })
+    @Produces({ MediaType.APPLICATION_JSON })
+    public String importDatatableEntriesFromJsonLines(@PathParam("datatable") final String datatable, final InputStream entries) {
+
+        final CommandProcessingResult result = this.datatableBulkService.importEntries(datatable, DatatableEntryFormat.JSON_LINES,
+                entries, null, null);
+
+        return this.toApiJsonSerializer.serialize(result);
+    }
+
+    @GET
+    @Path("{datatable}/export")
+    @Produces({ "text/csv", "application/x-ndjson" })
+    public Response exportDatatableEntries(@PathParam("datatable") final String datatable, @QueryParam("officeId") final Long officeId,
+            @QueryParam("format") final String format) {
+
+        final DatatableEntryFormat entryFormat = DatatableEntryFormat.fromName(format);
+        final StreamingOutput result = this.datatableBulkService.exportEntries(datatable, entryFormat, officeId);
+
+        final String extension = entryFormat == DatatableEntryFormat.CSV ? ".csv" : ".jsonl";
+        return Response.ok().entity(result).type(entryFormat.getMediaType())
+                .header("Content-Disposition", "attachment;filename=" + datatable.replaceAll(" ", "") + extension).build();
+    }
+
     @GET
     @Path("{datatable}/{apptableId}")
     @Consumes({ MediaType.APPLICATION_JSON })
@@ -0,0 +1,31 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.dataqueries.data;
+
+/**
+ * Formats datatable entries are imported and exported in: CSV with a header
+ * row of column names, or JSON lines with one JSON object per entry.
+ */
+public enum DatatableEntryFormat {
+
+    CSV("text/csv"), //
+    JSON_LINES("application/x-ndjson");
+
+    private final String mediaType;
+
+    private DatatableEntryFormat(final String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public String getMediaType() {
+        return this.mediaType;
+    }
+
+    public static DatatableEntryFormat fromName(final String name) {
+        if ("json".equalsIgnoreCase(name) || "jsonl".equalsIgnoreCase(name)) { return JSON_LINES; }
+        return CSV;
+    }
+}
@@ -0,0 +1,40 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.dataqueries.service;
+
+import java.io.InputStream;
+
+import javax.ws.rs.core.StreamingOutput;
+
+import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
+import org.mifosplatform.infrastructure.dataqueries.data.DatatableEntryFormat;
+
+/**
+ * Loads and extracts the entries of a registered datatable in bulk, for data
+ * (survey results, KYC fields) that would otherwise be entered one command at
+ * a time.
+ */
+public interface DatatableBulkService {
+
+    /**
+     * Creates an entry for each record, identified by the application table
+     * foreign key column (e.g. <code>client_id</code>). Records are validated
+     * and written in chunks, each chunk in its own transaction; records that
+     * fail are reported in the result and do not stop the import.
+     * 
+     * @param locale
+     *            and dateFormat apply to records that do not carry their own
+     */
+    CommandProcessingResult importEntries(String datatable, DatatableEntryFormat format, InputStream entries, String locale,
+            String dateFormat);
+
+    /**
+     * @param officeId
+     *            limits the export to entries of the office and the offices
+     *            below it; when null, to the user's office hierarchy
+     */
+    StreamingOutput exportEntries(String datatable, DatatableEntryFormat format, Long officeId);
+}
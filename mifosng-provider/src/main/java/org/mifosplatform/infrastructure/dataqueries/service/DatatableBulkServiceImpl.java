@@ -0,0 +1,618 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.dataqueries.service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.ws.rs.core.StreamingOutput;
+
+import org.apache.commons.lang.BooleanUtils;
+import org.apache.commons.lang.StringUtils;
+import org.mifosplatform.commands.domain.CommandSource;
+import org.mifosplatform.commands.domain.CommandSourceRepository;
+import org.mifosplatform.commands.domain.CommandWrapper;
+import org.mifosplatform.commands.service.CommandWrapperBuilder;
+import org.mifosplatform.infrastructure.configuration.domain.ConfigurationDomainService;
+import org.mifosplatform.infrastructure.core.api.JsonCommand;
+import org.mifosplatform.infrastructure.core.data.ApiParameterError;
+import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
+import org.mifosplatform.infrastructure.core.data.CommandProcessingResultBuilder;
+import org.mifosplatform.infrastructure.core.exception.PlatformApiDataValidationException;
+import org.mifosplatform.infrastructure.core.exception.PlatformDataIntegrityException;
+import org.mifosplatform.infrastructure.core.serialization.FromJsonHelper;
+import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
+import org.mifosplatform.infrastructure.dataqueries.data.DatatableEntryFormat;
+import org.mifosplatform.infrastructure.dataqueries.data.ResultsetColumnHeaderData;
+import org.mifosplatform.infrastructure.security.exception.NoAuthorizationException;
+import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext;
+import org.mifosplatform.organisation.office.exception.OfficeNotFoundException;
+import org.mifosplatform.useradministration.domain.AppUser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.csvreader.CsvReader;
+import com.csvreader.CsvWriter;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * Entries are validated as for single entry creation, against the cached
+ * column metadata, and inserted with JDBC batches. A bulk import is audited
+ * as a single command, as the entries themselves would not fit into the
+ * command audit; it is refused when entries of the datatable are subject to
+ * maker checker, as they could not be approved one by one.
+ */
+@Service
+public class DatatableBulkServiceImpl implements DatatableBulkService {
+
+    private final static Logger logger = LoggerFactory.getLogger(DatatableBulkServiceImpl.class);
+
+    private static final int CHUNK_SIZE = 1000;
+    private static final int MAX_REPORTED_FAILURES = 100;
+
+    private final PlatformSecurityContext context;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final FromJsonHelper fromJsonHelper;
+    private final GenericDataService genericDataService;
+    private final ReadWriteNonCoreDataService readWriteNonCoreDataService;
+    private final CommandSourceRepository commandSourceRepository;
+    private final ConfigurationDomainService configurationDomainService;
+
+    @Autowired
+    public DatatableBulkServiceImpl(final PlatformSecurityContext context, final RoutingDataSource dataSource,
+            final JpaTransactionManager transactionManager, final FromJsonHelper fromJsonHelper,
+            final GenericDataService genericDataService, final ReadWriteNonCoreDataService readWriteNonCoreDataService,
+            final CommandSourceRepository commandSourceRepository, final ConfigurationDomainService configurationDomainService) {
+        this.context = context;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.fromJsonHelper = fromJsonHelper;
+        this.genericDataService = genericDataService;
+        this.readWriteNonCoreDataService = readWriteNonCoreDataService;
+        this.commandSourceRepository = commandSourceRepository;
+        this.configurationDomainService = configurationDomainService;
+    }
+
+    @Override
+    public CommandProcessingResult importEntries(final String datatable, final DatatableEntryFormat format, final InputStream entries,
+            final String locale, final String dateFormat) {
+
+        final AppUser user = this.context.authenticatedUser();
+        final CommandWrapper wrapper = new CommandWrapperBuilder().bulkCreateDatatableEntries(datatable).build();
+        user.validateHasPermissionTo(wrapper.getTaskPermissionName());
+        final boolean makerCheckerEnabled = this.configurationDomainService.isMakerCheckerEnabledForTask(wrapper.getTaskPermissionName());
+        if (makerCheckerEnabled) { throw new PlatformDataIntegrityException("error.msg.datatable.bulk.maker.checker.enabled",
+                "Entries of datatable `" + datatable + "` are subject to maker checker and cannot be imported in bulk", "datatable",
+                datatable); }
+
+        final String appTable = this.readWriteNonCoreDataService.queryForApplicationTableName(datatable);
+        final BulkImport bulkImport = new BulkImport(datatable, appTable, this.genericDataService.fillResultsetColumnHeaders(datatable),
+                user.getOffice().getHierarchy());
+
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(entries, StandardCharsets.UTF_8));
+        try {
+            if (format == DatatableEntryFormat.CSV) {
+                readCsv(reader, bulkImport, locale, dateFormat);
+            } else {
+                readJsonLines(reader, bulkImport);
+            }
+        } catch (final IOException e) {
+            throw new PlatformDataIntegrityException("error.msg.datatable.bulk.read.failed", "Reading entries for datatable `"
+                    + datatable + "` failed after " + bulkImport.records + " records: " + e.getMessage());
+        }
+        importChunk(bulkImport);
+
+        logger.info(datatable + ": " + bulkImport.created + " of " + bulkImport.records + " entries imported");
+
+        final JsonObject summary = new JsonObject();
+        summary.addProperty("format", format.name());
+        summary.addProperty("records", bulkImport.records);
+        summary.addProperty("created", bulkImport.created);
+        summary.addProperty("failed", bulkImport.failed);
+        final String summaryJson = summary.toString();
+        final JsonCommand command = JsonCommand.from(summaryJson, summary, this.fromJsonHelper, wrapper.entityName(), null, null, null,
+                null, null, null, null, wrapper.getHref(), null);
+        final CommandSource commandSource = CommandSource.fullEntryFrom(wrapper, command, user);
+        this.transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+
+            @Override
+            protected void doInTransactionWithoutResult(@SuppressWarnings("unused") final TransactionStatus status) {
+                DatatableBulkServiceImpl.this.commandSourceRepository.save(commandSource);
+            }
+        });
+
+        final Map<String, Object> changes = new LinkedHashMap<>();
+        changes.put("records", bulkImport.records);
+        changes.put("created", bulkImport.created);
+        changes.put("failed", bulkImport.failed);
+        changes.put("failures", bulkImport.failures);
+        changes.put("failuresNotReported", bulkImport.failed - bulkImport.failures.size());
+        return new CommandProcessingResultBuilder().withResourceIdAsString(datatable).with(changes).build();
+    }
+
+    private void readCsv(final BufferedReader reader, final BulkImport bulkImport, final String locale, final String dateFormat)
+            throws IOException {
+        final CsvReader csvReader = new CsvReader(reader);
+        if (!csvReader.readHeaders()) { return; }
+        final String[] headers = csvReader.getHeaders();
+        while (csvReader.readRecord()) {
+            final Map<String, String> values = new HashMap<>();
+            for (int i = 0; i < headers.length; i++) {
+                values.put(headers[i], csvReader.get(i));
+            }
+            if (StringUtils.isNotBlank(locale) && !values.containsKey("locale")) {
+                values.put("locale", locale);
+            }
+            if (StringUtils.isNotBlank(dateFormat) && !values.containsKey("dateFormat")) {
+                values.put("dateFormat", dateFormat);
+            }
+            addRecord(bulkImport, values);
+        }
+    }
+
+    private void readJsonLines(final BufferedReader reader, final BulkImport bulkImport) throws IOException {
+        final Type typeOfMap = new TypeToken<Map<String, String>>() {}.getType();
+        String line = null;
+        while ((line = reader.readLine()) != null) {
+            if (StringUtils.isBlank(line)) {
+                continue;
+            }
+            Map<String, String> values = null;
+            try {
+                values = this.fromJsonHelper.extractDataMap(typeOfMap, line);
+            } catch (final JsonParseException e) {
+                bulkImport.records++;
+                bulkImport.failed(bulkImport.records, "Invalid JSON: " + e.getMessage());
+                continue;
+            }
+            addRecord(bulkImport, values);
+        }
+    }
+
+    private void addRecord(final BulkImport bulkImport, final Map<String, String> values) {
+        bulkImport.records++;
+        bulkImport.chunk.add(new EntryRecord(bulkImport.records, values));
+        if (bulkImport.chunk.size() == CHUNK_SIZE) {
+            importChunk(bulkImport);
+        }
+    }
+
+    private void importChunk(final BulkImport bulkImport) {
+        if (bulkImport.chunk.isEmpty()) { return; }
+
+        final List<ValidEntry> validEntries = new ArrayList<>(bulkImport.chunk.size());
+        for (final EntryRecord record : bulkImport.chunk) {
+            try {
+                final Long appTableId = appTableId(bulkImport, record);
+                final Map<String, String> columns = this.readWriteNonCoreDataService.getAffectedColumns(bulkImport.columnHeaders,
+                        record.values, bulkImport.fkName);
+                validEntries.add(new ValidEntry(record.number, appTableId, columns));
+            } catch (final RuntimeException e) {
+                bulkImport.failed(record.number, failureMessage(e));
+            }
+        }
+        bulkImport.chunk.clear();
+
+        final Set<Long> appTableIdsWithinScope = retrieveAppTableIdsWithinScope(bulkImport, validEntries);
+        final Map<List<String>, List<ValidEntry>> entriesByColumns = new LinkedHashMap<>();
+        for (final ValidEntry entry : validEntries) {
+            if (!appTableIdsWithinScope.contains(entry.appTableId)) {
+                bulkImport.failed(entry.number, bulkImport.appTable + " with identifier " + entry.appTableId
+                        + " does not exist or is not within the user's office hierarchy");
+                continue;
+            }
+            final List<String> columns = entry.columnNames(bulkImport.columnHeaders);
+            List<ValidEntry> entries = entriesByColumns.get(columns);
+            if (entries == null) {
+                entries = new ArrayList<>();
+                entriesByColumns.put(columns, entries);
+            }
+            entries.add(entry);
+        }
+        if (entriesByColumns.isEmpty()) { return; }
+
+        try {
+            this.transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+
+                @Override
+                protected void doInTransactionWithoutResult(@SuppressWarnings("unused") final TransactionStatus status) {
+                    for (final Map.Entry<List<String>, List<ValidEntry>> entries : entriesByColumns.entrySet()) {
+                        final List<Object[]> batchArgs = new ArrayList<>(entries.getValue().size());
+                        for (final ValidEntry entry : entries.getValue()) {
+                            batchArgs.add(insertParameters(bulkImport, entries.getKey(), entry));
+                        }
+                        DatatableBulkServiceImpl.this.jdbcTemplate.batchUpdate(insertSql(bulkImport, entries.getKey()), batchArgs);
+                    }
+                }
+            });
+            for (final List<ValidEntry> entries : entriesByColumns.values()) {
+                bulkImport.created += entries.size();
+            }
+        } catch (final DataAccessException e) {
+            // the chunk is rolled back; insert its entries one by one to find
+            // the failing ones (typically duplicates in one-to-one datatables)
+            for (final Map.Entry<List<String>, List<ValidEntry>> entries : entriesByColumns.entrySet()) {
+                for (final ValidEntry entry : entries.getValue()) {
+                    importEntry(bulkImport, entries.getKey(), entry);
+                }
+            }
+        }
+    }
+
+    private void importEntry(final BulkImport bulkImport, final List<String> columns, final ValidEntry entry) {
+        try {
+            this.transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+
+                @Override
+                protected void doInTransactionWithoutResult(@SuppressWarnings("unused") final TransactionStatus status) {
+                    DatatableBulkServiceImpl.this.jdbcTemplate.update(insertSql(bulkImport, columns),
+                            insertParameters(bulkImport, columns, entry));
+                }
+            });
+            bulkImport.created++;
+        } catch (final DataAccessException e) {
+            final String message = e.getMostSpecificCause().getMessage();
+            if (message != null && message.contains("Duplicate entry")) {
+                bulkImport.failed(entry.number, "An entry already exists for " + bulkImport.appTable + " with identifier "
+                        + entry.appTableId);
+            } else {
+                bulkImport.failed(entry.number, message);
+            }
+        }
+    }
+
+    private static Long appTableId(final BulkImport bulkImport, final EntryRecord record) {
+        final String value = record.values.get(bulkImport.fkName);
+        if (StringUtils.isBlank(value)) { throw new PlatformDataIntegrityException("error.msg.datatable.bulk.missing.apptable.id",
+                "Column " + bulkImport.fkName + " is mandatory"); }
+        try {
+            return Long.valueOf(value.trim());
+        } catch (final NumberFormatException e) {
+            throw new PlatformDataIntegrityException("error.msg.datatable.bulk.invalid.apptable.id", "Column " + bulkImport.fkName
+                    + " has invalid value " + value);
+        }
+    }
+
+    private Set<Long> retrieveAppTableIdsWithinScope(final BulkImport bulkImport, final List<ValidEntry> entries) {
+        final Set<Long> appTableIds = new HashSet<>();
+        for (final ValidEntry entry : entries) {
+            appTableIds.add(entry.appTableId);
+        }
+        if (appTableIds.isEmpty()) { return appTableIds; }
+
+        final String officeSql = appTableOfficeSql(bulkImport.appTable);
+        final String idList = StringUtils.join(appTableIds, ",");
+        if (officeSql == null) { return new HashSet<>(this.jdbcTemplate.queryForList("select p.id from " + bulkImport.appTable
+                + " p where p.id in (" + idList + ")", Long.class)); }
+
+        return new HashSet<>(this.jdbcTemplate.queryForList(officeSql + " where o.hierarchy like ? and x.id in (" + idList + ")",
+                Long.class, bulkImport.hierarchy + "%"));
+    }
+
+    /**
+     * @return selects the ids (<code>x.id</code>) of the application table
+     *         joined to their office (<code>o</code>), or null for product
+     *         tables, which do not belong to an office
+     */
+    private static String appTableOfficeSql(final String appTable) {
+        if (appTable.equalsIgnoreCase("m_client")) { return "select x.id from m_client x join m_office o on o.id = x.office_id"; }
+        if (appTable.equalsIgnoreCase("m_group") || appTable.equalsIgnoreCase("m_center")) { return "select x.id from m_group x "
+                + "join m_office o on o.id = x.office_id"; }
+        if (appTable.equalsIgnoreCase("m_office")) { return "select x.id from m_office x join m_office o on o.id = x.id"; }
+        if (appTable.equalsIgnoreCase("m_loan") || appTable.equalsIgnoreCase("m_savings_account")) { return "select x.id from "
+                + appTable + " x left join m_client c on c.id = x.client_id left join m_group g on g.id = x.group_id "
+                + "join m_office o on o.id = coalesce(c.office_id, g.office_id)"; }
+        return null;
+    }
+
+    private static String insertSql(final BulkImport bulkImport, final List<String> columns) {
+        final StringBuilder sql = new StringBuilder("insert into `").append(bulkImport.datatable).append("` (`")
+                .append(bulkImport.fkName).append("`");
+        for (final String column : columns) {
+            sql.append(", `").append(column).append("`");
+        }
+        sql.append(") values (?");
+        for (int i = 0; i < columns.size(); i++) {
+            sql.append(", ?");
+        }
+        return sql.append(")").toString();
+    }
+
+    private static Object[] insertParameters(final BulkImport bulkImport, final List<String> columns, final ValidEntry entry) {
+        final Object[] parameters = new Object[columns.size() + 1];
+        parameters[0] = entry.appTableId;
+        for (int i = 0; i < columns.size(); i++) {
+            final String value = entry.columns.get(columns.get(i));
+            if (StringUtils.isEmpty(value)) {
+                parameters[i + 1] = null;
+            } else if (bulkImport.bitColumns.contains(columns.get(i))) {
+                parameters[i + 1] = BooleanUtils.toIntegerObject(BooleanUtils.toBooleanObject(value));
+            } else {
+                parameters[i + 1] = value;
+            }
+        }
+        return parameters;
+    }
+
+    private static String failureMessage(final RuntimeException e) {
+        if (e instanceof PlatformApiDataValidationException) {
+            final StringBuilder sb = new StringBuilder();
+            for (final ApiParameterError error : ((PlatformApiDataValidationException) e).getErrors()) {
+                if (sb.length() > 0) {
+                    sb.append(", ");
+                }
+                sb.append(error.getParameterName()).append(": ").append(error.getDefaultUserMessage());
+            }
+            return sb.toString();
+        }
+        if (e instanceof PlatformDataIntegrityException) { return ((PlatformDataIntegrityException) e).getDefaultUserMessage(); }
+        return e.getMessage();
+    }
+
+    @Override
+    public StreamingOutput exportEntries(final String datatable, final DatatableEntryFormat format, final Long officeId) {
+
+        final AppUser user = this.context.authenticatedUser();
+        user.validateHasDatatableReadPermission(datatable);
+
+        final String appTable = this.readWriteNonCoreDataService.queryForApplicationTableName(datatable);
+        final String fkName = appTable.substring(2) + "_id";
+        final List<ResultsetColumnHeaderData> columnHeaders = this.genericDataService.fillResultsetColumnHeaders(datatable);
+
+        final String officeSql = appTableOfficeSql(appTable);
+        String hierarchy = null;
+        if (officeSql != null) {
+            hierarchy = officeId == null ? user.getOffice().getHierarchy() : retrieveOfficeHierarchy(user, officeId);
+        } else if (officeId != null) { throw new PlatformDataIntegrityException("error.msg.datatable.export.office.not.applicable",
+                "Entries of datatable `" + datatable + "` do not belong to an office", "officeId", officeId); }
+
+        final StringBuilder sql = new StringBuilder("select ");
+        for (int i = 0; i < columnHeaders.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append("d.`").append(columnHeaders.get(i).getColumnName()).append("`");
+        }
+        sql.append(" from `").append(datatable).append("` d");
+        if (officeSql != null) {
+            sql.append(" join (").append(officeSql).append(" where o.hierarchy like ?) s on s.id = d.`").append(fkName).append("`");
+        }
+        sql.append(" order by d.`").append(fkName).append("`");
+
+        final String exportSql = sql.toString();
+        final String hierarchyParameter = hierarchy == null ? null : hierarchy + "%";
+        return new StreamingOutput() {
+
+            @Override
+            public void write(final OutputStream output) throws IOException {
+                final Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+                final EntryWriter entryWriter = format == DatatableEntryFormat.CSV ? new CsvEntryWriter(writer, columnHeaders)
+                        : new JsonLinesEntryWriter(writer, columnHeaders);
+                streamEntries(exportSql, hierarchyParameter, entryWriter);
+                entryWriter.close();
+            }
+        };
+    }
+
+    private String retrieveOfficeHierarchy(final AppUser user, final Long officeId) {
+        final List<String> hierarchies = this.jdbcTemplate.queryForList("select o.hierarchy from m_office o where o.id = ?",
+                String.class, officeId);
+        if (hierarchies.isEmpty()) { throw new OfficeNotFoundException(officeId); }
+        final String hierarchy = hierarchies.get(0);
+        if (!hierarchy.startsWith(user.getOffice().getHierarchy())) { throw new NoAuthorizationException(
+                "User has no authority to export entries of office with identifier " + officeId); }
+        return hierarchy;
+    }
+
+    private void streamEntries(final String sql, final String hierarchyParameter, final EntryWriter entryWriter) {
+        this.jdbcTemplate.query(new PreparedStatementCreator() {
+
+            @Override
+            public PreparedStatement createPreparedStatement(final Connection connection) throws SQLException {
+                final PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                        ResultSet.CONCUR_READ_ONLY);
+                // MySQL streams the rows one by one instead of reading the
+                // whole datatable into memory
+                statement.setFetchSize(Integer.MIN_VALUE);
+                if (hierarchyParameter != null) {
+                    statement.setString(1, hierarchyParameter);
+                }
+                return statement;
+            }
+        }, new RowCallbackHandler() {
+
+            @Override
+            public void processRow(final ResultSet rs) throws SQLException {
+                try {
+                    entryWriter.write(rs);
+                } catch (final IOException e) {
+                    throw new SQLException("Writing datatable entries failed", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Writes one entry per row, values in the order of the column headers.
+     */
+    private static abstract class EntryWriter {
+
+        protected final Writer writer;
+        protected final List<ResultsetColumnHeaderData> columnHeaders;
+
+        EntryWriter(final Writer writer, final List<ResultsetColumnHeaderData> columnHeaders) {
+            this.writer = writer;
+            this.columnHeaders = columnHeaders;
+        }
+
+        abstract void write(ResultSet rs) throws SQLException, IOException;
+
+        void close() throws IOException {
+            this.writer.flush();
+        }
+
+        protected String value(final ResultSet rs, final int index) throws SQLException {
+            if ("bit".equalsIgnoreCase(this.columnHeaders.get(index).getColumnType())) {
+                final boolean value = rs.getBoolean(index + 1);
+                return rs.wasNull() ? null : Boolean.toString(value);
+            }
+            return rs.getString(index + 1);
+        }
+    }
+
+    private static final class CsvEntryWriter extends EntryWriter {
+
+        private final CsvWriter csvWriter;
+
+        CsvEntryWriter(final Writer writer, final List<ResultsetColumnHeaderData> columnHeaders) throws IOException {
+            super(writer, columnHeaders);
+            this.csvWriter = new CsvWriter(writer, ',');
+            for (final ResultsetColumnHeaderData columnHeader : columnHeaders) {
+                this.csvWriter.write(columnHeader.getColumnName());
+            }
+            this.csvWriter.endRecord();
+        }
+
+        @Override
+        void write(final ResultSet rs) throws SQLException, IOException {
+            for (int i = 0; i < this.columnHeaders.size(); i++) {
+                final String value = value(rs, i);
+                this.csvWriter.write(value == null ? "" : value);
+            }
+            this.csvWriter.endRecord();
+        }
+
+        @Override
+        void close() throws IOException {
+            this.csvWriter.flush();
+            super.close();
+        }
+    }
+
+    private static final class JsonLinesEntryWriter extends EntryWriter {
+
+        private final Gson gson = new Gson();
+
+        JsonLinesEntryWriter(final Writer writer, final List<ResultsetColumnHeaderData> columnHeaders) {
+            super(writer, columnHeaders);
+        }
+
+        @Override
+        void write(final ResultSet rs) throws SQLException, IOException {
+            final JsonObject entry = new JsonObject();
+            for (int i = 0; i < this.columnHeaders.size(); i++) {
+                entry.addProperty(this.columnHeaders.get(i).getColumnName(), value(rs, i));
+            }
+            this.gson.toJson(entry, this.writer);
+            this.writer.write('\n');
+        }
+    }
+
+    private static final class BulkImport {
+
+        private final String datatable;
+        private final String appTable;
+        private final String fkName;
+        private final List<ResultsetColumnHeaderData> columnHeaders;
+        private final Set<String> bitColumns = new HashSet<>();
+        private final String hierarchy;
+        private final List<EntryRecord> chunk = new ArrayList<>(CHUNK_SIZE);
+        private final List<String> failures = new ArrayList<>();
+        private int records;
+        private int created;
+        private int failed;
+
+        BulkImport(final String datatable, final String appTable, final List<ResultsetColumnHeaderData> columnHeaders,
+                final String hierarchy) {
+            this.datatable = datatable;
+            this.appTable = appTable;
+            this.fkName = appTable.substring(2) + "_id";
+            this.columnHeaders = columnHeaders;
+            for (final ResultsetColumnHeaderData columnHeader : columnHeaders) {
+                if ("bit".equalsIgnoreCase(columnHeader.getColumnType())) {
+                    this.bitColumns.add(columnHeader.getColumnName());
+                }
+            }
+            this.hierarchy = hierarchy;
+        }
+
+        void failed(final int record, final String message) {
+            this.failed++;
+            if (this.failures.size() < MAX_REPORTED_FAILURES) {
+                this.failures.add("Record " + record + ": " + message);
+            }
+        }
+    }
+
+    private static final class EntryRecord {
+
+        private final int number;
+        private final Map<String, String> values;
+
+        EntryRecord(final int number, final Map<String, String> values) {
+            this.number = number;
+            this.values = values;
+        }
+    }
+
+    private static final class ValidEntry {
+
+        private final int number;
+        private final Long appTableId;
+        private final Map<String, String> columns;
+
+        ValidEntry(final int number, final Long appTableId, final Map<String, String> columns) {
+            this.number = number;
+            this.appTableId = appTableId;
+            this.columns = columns;
+        }
+
+        /**
+         * @return the columns given for the entry, in table order
+         */
+        List<String> columnNames(final List<ResultsetColumnHeaderData> columnHeaders) {
+            final List<String> columnNames = new ArrayList<>(this.columns.size());
+            for (final ResultsetColumnHeaderData columnHeader : columnHeaders) {
+                if (this.columns.containsKey(columnHeader.getColumnName())) {
+                    columnNames.add(columnHeader.getColumnName());
+                }
+            }
+            return columnNames;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.dataqueries.service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.mifosplatform.infrastructure.cache.service.CacheInvalidationLog;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.infrastructure.dataqueries.data.ResultsetColumnHeaderData;
+import org.mifosplatform.infrastructure.metrics.service.PlatformMetricsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Holds the schema of the datatables of each tenant: the column headers (with
+ * the allowed code values of code columns), the application table a datatable
+ * is registered against and the names of its foreign key constraints. These
+ * otherwise come from <code>INFORMATION_SCHEMA</code>,
+ * <code>m_code_value</code> and <code>x_registered_table</code> on every
+ * datatable read and write.
+ *
+ * Entries are loaded on first use. Creating, changing, registering or
+ * deleting a datatable, and changing codes or code values, invalidates the
+ * tenant's entries, on the other nodes too through the
+ * {@link CacheInvalidationLog}.
+ */
+@Component
+public class DatatableMetadataCache {
+
+    static final String HIT_METRIC = "datatable.metadata.hit";
+    static final String MISS_METRIC = "datatable.metadata.miss";
+    private static final String CACHE_NAME = "datatableMetadata";
+
+    private final PlatformMetricsService metricsService;
+    private final CacheInvalidationLog invalidationLog;
+    private final ConcurrentMap<String, TenantDatatables> datatablesByTenant = new ConcurrentHashMap<>();
+
+    @Autowired
+    public DatatableMetadataCache(final PlatformMetricsService metricsService, final CacheInvalidationLog invalidationLog) {
+        this.metricsService = metricsService;
+        this.invalidationLog = invalidationLog;
+        this.invalidationLog.addListener(new CacheInvalidationLog.Listener() {
+
+            @Override
+            public void invalidated(final String cacheName, @SuppressWarnings("unused") final String key, final String tenantIdentifier) {
+                if (CACHE_NAME.equals(cacheName) && tenantIdentifier != null) {
+                    DatatableMetadataCache.this.datatablesByTenant.remove(tenantIdentifier);
+                }
+            }
+        });
+    }
+
+    public List<ResultsetColumnHeaderData> getColumnHeaders(final String datatable) {
+        return record(datatables().columnHeaders.get(datatable));
+    }
+
+    /**
+     * @return the column headers as cached, which must not be modified
+     */
+    public List<ResultsetColumnHeaderData> putColumnHeaders(final String datatable, final List<ResultsetColumnHeaderData> columnHeaders) {
+        final List<ResultsetColumnHeaderData> cached = Collections.unmodifiableList(columnHeaders);
+        datatables().columnHeaders.put(datatable, cached);
+        return cached;
+    }
+
+    public String getApplicationTableName(final String datatable) {
+        return record(datatables().applicationTableNames.get(datatable));
+    }
+
+    public void putApplicationTableName(final String datatable, final String applicationTableName) {
+        datatables().applicationTableNames.put(datatable, applicationTableName);
+    }
+
+    public Set<String> getForeignKeyNames(final String datatable) {
+        return record(datatables().foreignKeyNames.get(datatable));
+    }
+
+    public void putForeignKeyNames(final String datatable, final Set<String> foreignKeyNames) {
+        datatables().foreignKeyNames.put(datatable, Collections.unmodifiableSet(foreignKeyNames));
+    }
+
+    /**
+     * Discards the current tenant's entries. When called within a transaction
+     * the entries are discarded again once it completes, so metadata read
+     * concurrently from the old schema is not left behind. This is done on
+     * rollback too, as MySQL does not roll back schema changes. Other nodes
+     * discard theirs once it completes.
+     */
+    public void invalidate() {
+        final String tenantIdentifier = currentTenant();
+        this.datatablesByTenant.remove(tenantIdentifier);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+                @Override
+                public void afterCompletion(@SuppressWarnings("unused") final int status) {
+                    DatatableMetadataCache.this.datatablesByTenant.remove(tenantIdentifier);
+                }
+            });
+        }
+        this.invalidationLog.publish(CACHE_NAME, null, tenantIdentifier);
+    }
+
+    private <T> T record(final T cached) {
+        this.metricsService.increment(cached == null ? MISS_METRIC : HIT_METRIC);
+        return cached;
+    }
+
+    private TenantDatatables datatables() {
+        return this.datatablesByTenant.computeIfAbsent(currentTenant(), k -> new TenantDatatables());
+    }
+
+    private static String currentTenant() {
+        return ThreadLocalContextUtil.getTenant().getTenantIdentifier();
+    }
+
+    private static final class TenantDatatables {
+
+        private final ConcurrentMap<String, List<ResultsetColumnHeaderData>> columnHeaders = new ConcurrentHashMap<>();
+        private final ConcurrentMap<String, String> applicationTableNames = new ConcurrentHashMap<>();
+        private final ConcurrentMap<String, Set<String>> foreignKeyNames = new ConcurrentHashMap<>();
+    }
+}
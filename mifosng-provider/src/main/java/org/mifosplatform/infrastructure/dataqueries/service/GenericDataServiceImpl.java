@@ -6,12 +6,15 @@
 package org.mifosplatform.infrastructure.dataqueries.service;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.sql.DataSource;
 
 import org.joda.time.LocalDate;
 import org.joda.time.LocalDateTime;
+import org.mifosplatform.infrastructure.core.service.ReadReplicaRouting;
 import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
 import org.mifosplatform.infrastructure.dataqueries.data.GenericResultsetData;
 import org.mifosplatform.infrastructure.dataqueries.data.ResultsetColumnHeaderData;
@@ -31,13 +34,14 @@ public class GenericDataServiceImpl implements GenericDataService {
 
     private final JdbcTemplate jdbcTemplate;
     private final DataSource dataSource;
+    private final DatatableMetadataCache datatableMetadataCache;
     private final static Logger logger = LoggerFactory.getLogger(GenericDataServiceImpl.class);
 
     @Autowired
-    public GenericDataServiceImpl(final RoutingDataSource dataSource) {
+    public GenericDataServiceImpl(final RoutingDataSource dataSource, final DatatableMetadataCache datatableMetadataCache) {
         this.dataSource = dataSource;
         this.jdbcTemplate = new JdbcTemplate(this.dataSource);
-
+        this.datatableMetadataCache = datatableMetadataCache;
     }
 
     @Override
@@ -188,9 +192,21 @@ public class GenericDataServiceImpl implements GenericDataService {
     @Override
     public List<ResultsetColumnHeaderData> fillResultsetColumnHeaders(final String datatable) {
 
+        final List<ResultsetColumnHeaderData> cachedColumnHeaders = this.datatableMetadataCache.getColumnHeaders(datatable);
+        if (cachedColumnHeaders != null) { return cachedColumnHeaders; }
+
+        return this.datatableMetadataCache.putColumnHeaders(datatable,
+                ReadReplicaRouting.onPrimary(() -> retrieveResultsetColumnHeaders(datatable)));
+    }
+
+    private List<ResultsetColumnHeaderData> retrieveResultsetColumnHeaders(final String datatable) {
+
         logger.debug("::3 Was inside the fill ResultSetColumnHeader");
 
         final SqlRowSet columnDefinitions = getDatatableMetaData(datatable);
+        final Map<String, Integer> columnCodeIds = new HashMap<>();
+        final Map<String, String> columnCodeNames = new HashMap<>();
+        retrieveDatatableCodeMappings(datatable, columnCodeIds, columnCodeNames);
 
         final List<ResultsetColumnHeaderData> columnHeaders = new ArrayList<>();
 
@@ -225,13 +241,9 @@ public class GenericDataServiceImpl implements GenericDataService {
                 }
             }
             if (codeName == null) {
-                final SqlRowSet rsValues = getDatatableCodeData(datatable, columnName);
-                Integer codeId = null;
-                while (rsValues.next()) {
-                    codeId = rsValues.getInt("id");
-                    codeName = rsValues.getString("code_name");
-                }
-                columnValues = retreiveColumnValues(codeId);
+                final String columnAlias = datatableAlias(datatable) + "_" + columnName;
+                codeName = columnCodeNames.get(columnAlias);
+                columnValues = retreiveColumnValues(columnCodeIds.get(columnAlias));
 
             }
 
@@ -299,12 +311,24 @@ public class GenericDataServiceImpl implements GenericDataService {
         throw new DatatableNotFoundException(datatable);
     }
 
-    private SqlRowSet getDatatableCodeData(final String datatable, final String columnName) {
+    /**
+     * Reads the code mappings of all columns of the datatable at once, keyed
+     * by column alias (datatable alias and column name).
+     */
+    private void retrieveDatatableCodeMappings(final String datatable, final Map<String, Integer> columnCodeIds,
+            final Map<String, String> columnCodeNames) {
 
-        final String sql = "select mc.id,mc.code_name from m_code mc join x_table_column_code_mappings xcc on xcc.code_id = mc.id where xcc.column_alias_name='"
-                + datatable.toLowerCase().replaceAll("\\s", "_") + "_" + columnName + "'";
-        final SqlRowSet rsValues = this.jdbcTemplate.queryForRowSet(sql);
+        final String sql = "select xcc.column_alias_name, mc.id, mc.code_name from m_code mc join x_table_column_code_mappings xcc on xcc.code_id = mc.id where xcc.column_alias_name like ?";
+        final SqlRowSet rsValues = this.jdbcTemplate.queryForRowSet(sql, datatableAlias(datatable) + "\\_%");
+
+        while (rsValues.next()) {
+            final String columnAlias = rsValues.getString("column_alias_name");
+            columnCodeIds.put(columnAlias, rsValues.getInt("id"));
+            columnCodeNames.put(columnAlias, rsValues.getString("code_name"));
+        }
+    }
 
-        return rsValues;
+    private static String datatableAlias(final String datatable) {
+        return datatable.toLowerCase().replaceAll("\\s", "_");
     }
 }
\ No newline at end of file
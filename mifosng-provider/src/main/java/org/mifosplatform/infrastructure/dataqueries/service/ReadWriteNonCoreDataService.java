@@ -6,11 +6,13 @@
 package org.mifosplatform.infrastructure.dataqueries.service;
 
 import java.util.List;
+import java.util.Map;
 
 import org.mifosplatform.infrastructure.core.api.JsonCommand;
 import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
 import org.mifosplatform.infrastructure.dataqueries.data.DatatableData;
 import org.mifosplatform.infrastructure.dataqueries.data.GenericResultsetData;
+import org.mifosplatform.infrastructure.dataqueries.data.ResultsetColumnHeaderData;
 import org.springframework.security.access.prepost.PreAuthorize;
 
 public interface ReadWriteNonCoreDataService {
@@ -51,6 +53,11 @@ public interface ReadWriteNonCoreDataService {
 
     CommandProcessingResult deleteDatatableEntry(String datatable, Long appTableId, Long datatableId);
 
+    String queryForApplicationTableName(String datatable);
+
+    Map<String, String> getAffectedColumns(List<ResultsetColumnHeaderData> columnHeaders, Map<String, String> queryParams,
+            String keyFieldName);
+
     String getTableName(String Url);
 
     String getDataTableName(String Url);
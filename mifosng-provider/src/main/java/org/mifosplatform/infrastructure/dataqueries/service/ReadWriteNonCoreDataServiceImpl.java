@@ -10,6 +10,7 @@ import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -37,6 +38,7 @@ import org.mifosplatform.infrastructure.core.exception.PlatformServiceUnavailabl
 import org.mifosplatform.infrastructure.core.serialization.DatatableCommandFromApiJsonDeserializer;
 import org.mifosplatform.infrastructure.core.serialization.FromJsonHelper;
 import org.mifosplatform.infrastructure.core.serialization.JsonParserHelper;
+import org.mifosplatform.infrastructure.core.service.ReadReplicaRouting;
 import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
 import org.mifosplatform.infrastructure.dataqueries.api.DataTableApiConstant;
 import org.mifosplatform.infrastructure.dataqueries.data.DataTableValidator;
@@ -100,6 +102,7 @@ public class ReadWriteNonCoreDataServiceImpl implements ReadWriteNonCoreDataServ
     private final ConfigurationDomainService configurationDomainService;
     private final CodeReadPlatformService codeReadPlatformService;
     private final DataTableValidator dataTableValidator;
+    private final DatatableMetadataCache datatableMetadataCache;
 
     // private final GlobalConfigurationWritePlatformServiceJpaRepositoryImpl
     // configurationWriteService;
@@ -108,7 +111,8 @@ public class ReadWriteNonCoreDataServiceImpl implements ReadWriteNonCoreDataServ
     public ReadWriteNonCoreDataServiceImpl(final RoutingDataSource dataSource, final PlatformSecurityContext context,
             final FromJsonHelper fromJsonHelper, final GenericDataService genericDataService,
             final DatatableCommandFromApiJsonDeserializer fromApiJsonDeserializer, final CodeReadPlatformService codeReadPlatformService,
-            final ConfigurationDomainService configurationDomainService, final DataTableValidator dataTableValidator) {
+            final ConfigurationDomainService configurationDomainService, final DataTableValidator dataTableValidator,
+            final DatatableMetadataCache datatableMetadataCache) {
         this.dataSource = dataSource;
         this.jdbcTemplate = new JdbcTemplate(this.dataSource);
         this.context = context;
@@ -119,6 +123,7 @@ public class ReadWriteNonCoreDataServiceImpl implements ReadWriteNonCoreDataServ
         this.codeReadPlatformService = codeReadPlatformService;
         this.configurationDomainService = configurationDomainService;
         this.dataTableValidator = dataTableValidator;
+        this.datatableMetadataCache = datatableMetadataCache;
         // this.configurationWriteService = configurationWriteService;
     }
 
@@ -231,6 +236,7 @@ public class ReadWriteNonCoreDataServiceImpl implements ReadWriteNonCoreDataServ
 
         validateAppTable(applicationTableName);
         assertDataTableExists(dataTableName);
+        this.datatableMetadataCache.invalidate();
 
         final String registerDatatableSql = "insert into x_registered_table (registered_table_name, application_table_name,category) values ('"
                 + dataTableName + "', '" + applicationTableName + "', '" + category + "')";
@@ -329,6 +335,8 @@ public class ReadWriteNonCoreDataServiceImpl implements ReadWriteNonCoreDataServ
 
         final String deleteFromConfigurationSql = "delete from c_configuration where name ='" + datatable + "'";
 
+        this.datatableMetadataCache.invalidate();
+
         String[] sqlArray = new String[4];
         sqlArray[0] = deleteRolePermissionsSql;
         sqlArray[1] = deletePermissionsSql;
@@ -741,19 +749,26 @@ public class ReadWriteNonCoreDataServiceImpl implements ReadWriteNonCoreDataServ
         final String datatableAlias = datatableName.toLowerCase().replaceAll("\\s", "_");
         final String name = (column.has("name")) ? column.get("name").getAsString() : null;
         sqlBuilder = sqlBuilder.append(", DROP COLUMN `" + name + "`");
-        final StringBuilder findFKSql = new StringBuilder();
-        findFKSql.append("SELECT count(*)").append("FROM information_schema.TABLE_CONSTRAINTS i")
-                .append(" WHERE i.CONSTRAINT_TYPE = 'FOREIGN KEY'").append(" AND i.TABLE_SCHEMA = DATABASE()")
-                .append(" AND i.TABLE_NAME = '").append(datatableName).append("' AND i.CONSTRAINT_NAME = 'fk_").append(datatableAlias)
-                .append("_").append(name).append("' ");
-        @SuppressWarnings("deprecation")
-        final int count = this.jdbcTemplate.queryForInt(findFKSql.toString());
-        if (count > 0) {
+        if (retrieveForeignKeyNames(datatableName).contains("fk_" + datatableAlias + "_" + name)) {
             codeMappings.add(datatableAlias + "_" + name);
             constrainBuilder.append(", DROP FOREIGN KEY `fk_").append(datatableAlias).append("_").append(name).append("` ");
         }
     }
 
+    private Set<String> retrieveForeignKeyNames(final String datatableName) {
+        final Set<String> cachedForeignKeyNames = this.datatableMetadataCache.getForeignKeyNames(datatableName);
+        if (cachedForeignKeyNames != null) { return cachedForeignKeyNames; }
+
+        final StringBuilder findFKSql = new StringBuilder();
+        findFKSql.append("SELECT i.CONSTRAINT_NAME ").append("FROM information_schema.TABLE_CONSTRAINTS i")
+                .append(" WHERE i.CONSTRAINT_TYPE = 'FOREIGN KEY'").append(" AND i.TABLE_SCHEMA = DATABASE()")
+                .append(" AND i.TABLE_NAME = ?");
+        final Set<String> foreignKeyNames = new HashSet<>(ReadReplicaRouting.onPrimary(() -> this.jdbcTemplate.queryForList(
+                findFKSql.toString(), String.class, datatableName)));
+        this.datatableMetadataCache.putForeignKeyNames(datatableName, foreignKeyNames);
+        return foreignKeyNames;
+    }
+
     private void registerColumnCodeMapping(final Map<String, Long> codeMappings) {
         if (codeMappings != null && !codeMappings.isEmpty()) {
             final String[] addSqlList = new String[codeMappings.size()];
@@ -823,6 +838,7 @@ public class ReadWriteNonCoreDataServiceImpl implements ReadWriteNonCoreDataServ
             validateDatatableName(datatableName);
 
             final List<ResultsetColumnHeaderData> columnHeaderData = this.genericDataService.fillResultsetColumnHeaders(datatableName);
+            this.datatableMetadataCache.invalidate();
             final Map<String, ResultsetColumnHeaderData> mapColumnNameDefinition = new HashMap<>();
             for (final ResultsetColumnHeaderData columnHeader : columnHeaderData) {
                 mapColumnNameDefinition.put(columnHeader.getColumnName(), columnHeader);
@@ -1307,10 +1323,14 @@ public class ReadWriteNonCoreDataServiceImpl implements ReadWriteNonCoreDataServ
         return resultsetDataRows;
     }
 
-    private String queryForApplicationTableName(final String datatable) {
+    @Override
+    public String queryForApplicationTableName(final String datatable) {
+        final String cachedApplicationTableName = this.datatableMetadataCache.getApplicationTableName(datatable);
+        if (cachedApplicationTableName != null) { return cachedApplicationTableName; }
+
         final String sql = "SELECT application_table_name FROM x_registered_table where registered_table_name = '" + datatable + "'";
 
-        final SqlRowSet rs = this.jdbcTemplate.queryForRowSet(sql);
+        final SqlRowSet rs = ReadReplicaRouting.onPrimary(() -> this.jdbcTemplate.queryForRowSet(sql));
 
         String applicationTableName = null;
         if (rs.next()) {
@@ -1318,6 +1338,7 @@ public class ReadWriteNonCoreDataServiceImpl implements ReadWriteNonCoreDataServ
         } else {
             throw new DatatableNotFoundException(datatable);
         }
+        this.datatableMetadataCache.putApplicationTableName(datatable, applicationTableName);
 
         return applicationTableName;
     }
@@ -1502,6 +1523,7 @@ public class ReadWriteNonCoreDataServiceImpl implements ReadWriteNonCoreDataServ
         throw new PlatformDataIntegrityException("error.msg.invalid.columnName", "Parameter Column Name: " + key + " not found");
     }
 
+    @Override
     public Map<String, String> getAffectedColumns(final List<ResultsetColumnHeaderData> columnHeaders,
             final Map<String, String> queryParams, final String keyFieldName) {
 
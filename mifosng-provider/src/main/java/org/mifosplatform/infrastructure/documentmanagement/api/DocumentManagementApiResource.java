@@ -5,7 +5,9 @@
  */
 package org.mifosplatform.infrastructure.documentmanagement.api;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
@@ -20,10 +22,12 @@ import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.ResponseBuilder;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 
 import org.mifosplatform.infrastructure.core.api.ApiRequestParameterHelper;
@@ -31,6 +35,7 @@ import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
 import org.mifosplatform.infrastructure.core.serialization.ApiRequestJsonSerializationSettings;
 import org.mifosplatform.infrastructure.core.serialization.ToApiJsonSerializer;
 import org.mifosplatform.infrastructure.documentmanagement.command.DocumentCommand;
+import org.mifosplatform.infrastructure.documentmanagement.data.ByteRange;
 import org.mifosplatform.infrastructure.documentmanagement.data.DocumentData;
 import org.mifosplatform.infrastructure.documentmanagement.data.FileData;
 import org.mifosplatform.infrastructure.documentmanagement.service.DocumentReadPlatformService;
@@ -54,6 +59,10 @@ public class DocumentManagementApiResource {
 
     private final String SystemEntityType = "DOCUMENT";
 
+    // not available as Response.Status constants in JAX-RS 1.1
+    private static final int HTTP_PARTIAL_CONTENT = 206;
+    private static final int HTTP_REQUESTED_RANGE_NOT_SATISFIABLE = 416;
+
     private final PlatformSecurityContext context;
     private final DocumentReadPlatformService documentReadPlatformService;
     private final DocumentWritePlatformService documentWritePlatformService;
@@ -169,18 +178,47 @@ public class DocumentManagementApiResource {
     @Consumes({ MediaType.APPLICATION_JSON })
     @Produces({ MediaType.APPLICATION_OCTET_STREAM })
     public Response downloadFile(@PathParam("entityType") final String entityType, @PathParam("entityId") final Long entityId,
-            @PathParam("documentId") final Long documentId) {
+            @PathParam("documentId") final Long documentId, @HeaderParam("Range") final String range) {
 
         this.context.authenticatedUser().validateHasReadPermission(this.SystemEntityType);
 
         final FileData fileData = this.documentReadPlatformService.retrieveFileData(entityType, entityId, documentId);
-        final ResponseBuilder response = Response.ok(fileData.file());
+
+        ResponseBuilder response = null;
+        if (fileData.supportsRanges()) {
+            final long length = fileData.length();
+            final ByteRange byteRange = ByteRange.fromHeader(range, length);
+            if (byteRange == null) {
+                response = Response.ok(streamOf(fileData, 0, length));
+                response.header("Content-Length", length);
+            } else if (byteRange.isSatisfiable()) {
+                response = Response.status(HTTP_PARTIAL_CONTENT).entity(streamOf(fileData, byteRange.start(), byteRange.length()));
+                response.header("Content-Range", byteRange.contentRangeHeader());
+                response.header("Content-Length", byteRange.length());
+            } else {
+                return Response.status(HTTP_REQUESTED_RANGE_NOT_SATISFIABLE).header("Content-Range", byteRange.contentRangeHeader())
+                        .build();
+            }
+            response.header("Accept-Ranges", "bytes");
+        } else {
+            response = Response.ok(fileData.file());
+        }
         response.header("Content-Disposition", "attachment; filename=\"" + fileData.name() + "\"");
         response.header("Content-Type", fileData.contentType());
 
         return response.build();
     }
 
+    private static StreamingOutput streamOf(final FileData fileData, final long offset, final long count) {
+        return new StreamingOutput() {
+
+            @Override
+            public void write(final OutputStream output) throws IOException, WebApplicationException {
+                fileData.writeTo(output, offset, count);
+            }
+        };
+    }
+
     @DELETE
     @Path("{documentId}")
     @Consumes({ MediaType.APPLICATION_JSON })
@@ -9,6 +9,7 @@ import org.mifosplatform.infrastructure.configuration.data.S3CredentialsData;
 import org.mifosplatform.infrastructure.configuration.domain.ConfigurationDomainService;
 import org.mifosplatform.infrastructure.configuration.service.ExternalServicesReadPlatformService;
 import org.mifosplatform.infrastructure.documentmanagement.domain.StorageType;
+import org.mifosplatform.infrastructure.metrics.service.PlatformMetricsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Component;
@@ -18,29 +19,31 @@ public class ContentRepositoryFactory {
 
     private final ApplicationContext applicationContext;
     private final ExternalServicesReadPlatformService externalServicesReadPlatformService;
+    private final PlatformMetricsService metricsService;
 
     @Autowired
     public ContentRepositoryFactory(final ApplicationContext applicationContext,
-            final ExternalServicesReadPlatformService externalServicesReadPlatformService) {
+            final ExternalServicesReadPlatformService externalServicesReadPlatformService, final PlatformMetricsService metricsService) {
         this.applicationContext = applicationContext;
         this.externalServicesReadPlatformService = externalServicesReadPlatformService;
+        this.metricsService = metricsService;
     }
 
     public ContentRepository getRepository() {
         final ConfigurationDomainService configurationDomainServiceJpa = this.applicationContext.getBean("configurationDomainServiceJpa",
                 ConfigurationDomainService.class);
         if (configurationDomainServiceJpa.isAmazonS3Enabled()) { return createS3DocumentStore(); }
-        return new FileSystemContentRepository();
+        return new FileSystemContentRepository(this.metricsService);
     }
 
     public ContentRepository getRepository(final StorageType documentStoreType) {
-        if (documentStoreType == StorageType.FILE_SYSTEM) { return new FileSystemContentRepository(); }
+        if (documentStoreType == StorageType.FILE_SYSTEM) { return new FileSystemContentRepository(this.metricsService); }
         return createS3DocumentStore();
     }
 
     private ContentRepository createS3DocumentStore() {
         final S3CredentialsData s3CredentialsData = this.externalServicesReadPlatformService.getS3Credentials();
         return new S3ContentRepository(s3CredentialsData.getBucketName(), s3CredentialsData.getSecretKey(),
-                s3CredentialsData.getAccessKey());
+                s3CredentialsData.getAccessKey(), s3CredentialsData.getEndpoint(), this.metricsService);
     }
 }
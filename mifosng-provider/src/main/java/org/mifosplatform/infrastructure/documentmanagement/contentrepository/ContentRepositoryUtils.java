@@ -15,7 +15,9 @@ import org.mifosplatform.infrastructure.core.domain.Base64EncodedImage;
 import org.mifosplatform.infrastructure.core.exception.ImageDataURLNotValidException;
 import org.mifosplatform.infrastructure.core.exception.ImageUploadException;
 import org.mifosplatform.infrastructure.core.exception.PlatformApiDataValidationException;
+import org.mifosplatform.infrastructure.documentmanagement.domain.StorageType;
 import org.mifosplatform.infrastructure.documentmanagement.exception.ContentManagementException;
+import org.mifosplatform.infrastructure.metrics.service.PlatformMetricsService;
 
 public class ContentRepositoryUtils {
 
@@ -140,6 +142,17 @@ public class ContentRepositoryUtils {
                 name, fileSize, ContentRepository.MAX_FILE_UPLOAD_SIZE_IN_MB); }
     }
 
+    /**
+     * Records the size and duration of a completed upload, from which the
+     * upload throughput per storage type can be derived
+     */
+    public static void recordUpload(final PlatformMetricsService metricsService, final StorageType storageType, final long bytes,
+            final long durationInMillis) {
+        final String prefix = "documents.upload." + storageType.name().toLowerCase();
+        metricsService.increment(prefix + ".bytes", bytes);
+        metricsService.recordDuration(prefix, durationInMillis);
+    }
+
     public static void validateClientImageNotEmpty(final String imageFileName) {
         final List<ApiParameterError> dataValidationErrors = new ArrayList<>();
         if (imageFileName == null) {
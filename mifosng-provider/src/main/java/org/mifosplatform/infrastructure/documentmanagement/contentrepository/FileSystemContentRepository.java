@@ -10,6 +10,10 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
 
 import org.mifosplatform.infrastructure.core.domain.Base64EncodedImage;
 import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
@@ -19,6 +23,7 @@ import org.mifosplatform.infrastructure.documentmanagement.data.FileData;
 import org.mifosplatform.infrastructure.documentmanagement.data.ImageData;
 import org.mifosplatform.infrastructure.documentmanagement.domain.StorageType;
 import org.mifosplatform.infrastructure.documentmanagement.exception.ContentManagementException;
+import org.mifosplatform.infrastructure.metrics.service.PlatformMetricsService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -30,6 +35,19 @@ public class FileSystemContentRepository implements ContentRepository {
 
     public static final String MIFOSX_BASE_DIR = System.getProperty("user.home") + File.separator + ".mifosx";
 
+    /**
+     * Upper bound on the bytes moved by a single
+     * {@link FileChannel#transferFrom} call; the source is a network stream so
+     * each call returns once the chunk is written or the stream is drained.
+     */
+    private static final long TRANSFER_CHUNK_SIZE = 1024 * 1024;
+
+    private final PlatformMetricsService metricsService;
+
+    public FileSystemContentRepository(final PlatformMetricsService metricsService) {
+        this.metricsService = metricsService;
+    }
+
     @Override
     public String saveFile(final InputStream uploadedInputStream, final DocumentCommand documentCommand) {
         final String fileName = documentCommand.getFileName();
@@ -147,18 +165,18 @@ public class FileSystemContentRepository implements ContentRepository {
     }
 
     private void writeFileToFileSystem(final String fileName, final InputStream uploadedInputStream, final String fileLocation) {
-        try {
-            final OutputStream out = new FileOutputStream(new File(fileLocation));
-            int read = 0;
-            final byte[] bytes = new byte[1024];
-
-            while ((read = uploadedInputStream.read(bytes)) != -1) {
-                out.write(bytes, 0, read);
+        final long startTime = System.currentTimeMillis();
+        final ReadableByteChannel source = Channels.newChannel(uploadedInputStream);
+        try (final FileChannel target = FileChannel.open(new File(fileLocation).toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = 0;
+            long transferred = 0;
+            while ((transferred = target.transferFrom(source, position, TRANSFER_CHUNK_SIZE)) > 0) {
+                position += transferred;
             }
-            out.flush();
-            out.close();
+            ContentRepositoryUtils.recordUpload(this.metricsService, getStorageType(), position, System.currentTimeMillis() - startTime);
         } catch (final IOException ioException) {
             throw new ContentManagementException(fileName, ioException.getMessage());
         }
     }
-}
\ No newline at end of file
+}
@@ -7,8 +7,13 @@ package org.mifosplatform.infrastructure.documentmanagement.contentrepository;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
+import org.apache.commons.lang3.StringUtils;
 import org.mifosplatform.infrastructure.core.domain.Base64EncodedImage;
 import org.mifosplatform.infrastructure.documentmanagement.command.DocumentCommand;
 import org.mifosplatform.infrastructure.documentmanagement.data.DocumentData;
@@ -17,6 +22,7 @@ import org.mifosplatform.infrastructure.documentmanagement.data.ImageData;
 import org.mifosplatform.infrastructure.documentmanagement.domain.StorageType;
 import org.mifosplatform.infrastructure.documentmanagement.exception.ContentManagementException;
 import org.mifosplatform.infrastructure.documentmanagement.exception.DocumentNotFoundException;
+import org.mifosplatform.infrastructure.metrics.service.PlatformMetricsService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -25,23 +31,46 @@ import com.amazonaws.AmazonServiceException;
 import com.amazonaws.auth.BasicAWSCredentials;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.S3ClientOptions;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
 import com.amazonaws.services.s3.model.DeleteObjectRequest;
 import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
 import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
 import com.amazonaws.services.s3.model.PutObjectRequest;
 import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.UploadPartRequest;
 import com.lowagie.text.pdf.codec.Base64;
 
 public class S3ContentRepository implements ContentRepository {
 
     private final static Logger logger = LoggerFactory.getLogger(S3ContentRepository.class);
 
+    /**
+     * S3 rejects multipart parts (other than the last) smaller than 5 MB, so
+     * uploads are streamed in parts of this size and at most one part is held
+     * in memory at a time
+     */
+    private static final int MULTIPART_PART_SIZE = 5 * 1024 * 1024;
+
     private final String s3BucketName;
     private final AmazonS3 s3Client;
+    private final PlatformMetricsService metricsService;
 
-    public S3ContentRepository(final String bucketName, final String secretKey, final String accessKey) {
+    public S3ContentRepository(final String bucketName, final String secretKey, final String accessKey, final String endpoint,
+            final PlatformMetricsService metricsService) {
         this.s3BucketName = bucketName;
-        this.s3Client = new AmazonS3Client(new BasicAWSCredentials(accessKey, secretKey));
+        final AmazonS3Client amazonS3Client = new AmazonS3Client(new BasicAWSCredentials(accessKey, secretKey));
+        if (StringUtils.isNotBlank(endpoint)) {
+            // custom endpoints (e.g. a local S3 compatible store) seldom
+            // support virtual host style bucket addressing
+            amazonS3Client.setEndpoint(endpoint);
+            amazonS3Client.setS3ClientOptions(new S3ClientOptions().withPathStyleAccess(true));
+        }
+        this.s3Client = amazonS3Client;
+        this.metricsService = metricsService;
     }
 
     @Override
@@ -53,7 +82,7 @@ public class S3ContentRepository implements ContentRepository {
                 documentCommand.getParentEntityId());
         final String uploadDocFullPath = uploadDocFolder + File.separator + fileName;
 
-        uploadDocument(fileName, toUpload, uploadDocFullPath);
+        uploadDocument(fileName, toUpload, uploadDocFullPath, documentCommand.getSize());
         return uploadDocFullPath;
     }
 
@@ -72,7 +101,7 @@ public class S3ContentRepository implements ContentRepository {
         final String uploadImageLocation = generateClientImageParentDirectory(resourceId);
         final String fileLocation = uploadImageLocation + File.separator + imageName;
 
-        uploadDocument(imageName, toUploadInputStream, fileLocation);
+        uploadDocument(imageName, toUploadInputStream, fileLocation, fileSize);
         return fileLocation;
     }
 
@@ -80,9 +109,9 @@ public class S3ContentRepository implements ContentRepository {
     public String saveImage(final Base64EncodedImage base64EncodedImage, final Long resourceId, final String imageName) {
         final String uploadImageLocation = generateClientImageParentDirectory(resourceId);
         final String fileLocation = uploadImageLocation + File.separator + imageName + base64EncodedImage.getFileExtension();
-        final InputStream toUploadInputStream = new ByteArrayInputStream(Base64.decode(base64EncodedImage.getBase64EncodedString()));
+        final byte[] image = Base64.decode(base64EncodedImage.getBase64EncodedString());
 
-        uploadDocument(imageName, toUploadInputStream, fileLocation);
+        uploadDocument(imageName, new ByteArrayInputStream(image), fileLocation, Long.valueOf(image.length));
         return fileLocation;
     }
 
@@ -106,17 +135,30 @@ public class S3ContentRepository implements ContentRepository {
 
     @Override
     public FileData fetchFile(final DocumentData documentData) throws DocumentNotFoundException {
-        FileData fileData = null;
         final String fileName = documentData.fileName();
+        final String location = documentData.fileLocation();
         try {
-            logger.info("Downloading an object");
-            final S3Object s3object = this.s3Client.getObject(new GetObjectRequest(this.s3BucketName, documentData.fileLocation()));
-            fileData = new FileData(s3object.getObjectContent(), fileName, documentData.contentType());
+            final ObjectMetadata metadata = this.s3Client.getObjectMetadata(this.s3BucketName, location);
+            final FileData.RangeReader rangeReader = new FileData.RangeReader() {
+
+                @Override
+                public InputStream open(final long offset, final long count) throws IOException {
+                    final GetObjectRequest request = new GetObjectRequest(S3ContentRepository.this.s3BucketName, location);
+                    if (count > 0) {
+                        request.setRange(offset, offset + count - 1);
+                    }
+                    try {
+                        return S3ContentRepository.this.s3Client.getObject(request).getObjectContent();
+                    } catch (final AmazonClientException ace) {
+                        throw new IOException(ace.getMessage(), ace);
+                    }
+                }
+            };
+            return new FileData(rangeReader, metadata.getContentLength(), fileName, documentData.contentType());
         } catch (final AmazonClientException ace) {
             logger.error(ace.getMessage());
             throw new DocumentNotFoundException(documentData.getParentEntityType(), documentData.getParentEntityId(), documentData.getId());
         }
-        return fileData;
     }
 
     @Override
@@ -151,14 +193,89 @@ public class S3ContentRepository implements ContentRepository {
         this.s3Client.deleteObject(new DeleteObjectRequest(this.s3BucketName, location));
     }
 
-    private void uploadDocument(final String filename, final InputStream inputStream, final String s3UploadLocation)
-            throws ContentManagementException {
+    /**
+     * @param contentLength
+     *            the declared length of the content, if known; the buffer is
+     *            sized to it (one byte more, to notice a longer stream) rather
+     *            than to a whole part when it is smaller
+     */
+    private void uploadDocument(final String filename, final InputStream inputStream, final String s3UploadLocation,
+            final Long contentLength) throws ContentManagementException {
+        final long startTime = System.currentTimeMillis();
         try {
             logger.info("Uploading a new object to S3 from a file to " + s3UploadLocation);
-            this.s3Client.putObject(new PutObjectRequest(this.s3BucketName, s3UploadLocation, inputStream, new ObjectMetadata()));
+            final boolean smallerThanAPart = contentLength != null && contentLength >= 0 && contentLength < MULTIPART_PART_SIZE;
+            byte[] buffer = new byte[smallerThanAPart ? contentLength.intValue() + 1 : MULTIPART_PART_SIZE];
+            int read = readFully(inputStream, buffer, 0);
+            if (read == buffer.length && buffer.length < MULTIPART_PART_SIZE) {
+                // the stream is longer than declared
+                buffer = Arrays.copyOf(buffer, MULTIPART_PART_SIZE);
+                read += readFully(inputStream, buffer, read);
+            }
+            long uploadedBytes = read;
+            if (read < MULTIPART_PART_SIZE) {
+                // small enough for a single request with a known length, the
+                // SDK would otherwise buffer the whole stream to compute it
+                putObject(s3UploadLocation, buffer, read);
+            } else {
+                uploadedBytes = uploadInParts(inputStream, s3UploadLocation, buffer, read);
+            }
+            ContentRepositoryUtils.recordUpload(this.metricsService, getStorageType(), uploadedBytes, System.currentTimeMillis()
+                    - startTime);
         } catch (final AmazonClientException ace) {
             final String message = ace.getMessage();
             throw new ContentManagementException(filename, message);
+        } catch (final IOException ioe) {
+            throw new ContentManagementException(filename, ioe.getMessage());
+        }
+    }
+
+    private void putObject(final String s3UploadLocation, final byte[] content, final int length) {
+        final ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(length);
+        this.s3Client.putObject(new PutObjectRequest(this.s3BucketName, s3UploadLocation, new ByteArrayInputStream(content, 0, length),
+                metadata));
+    }
+
+    private long uploadInParts(final InputStream inputStream, final String s3UploadLocation, final byte[] buffer, final int firstPartLength)
+            throws IOException {
+        final String uploadId = this.s3Client.initiateMultipartUpload(
+                new InitiateMultipartUploadRequest(this.s3BucketName, s3UploadLocation)).getUploadId();
+        final List<PartETag> partETags = new ArrayList<>();
+        long uploadedBytes = 0;
+        try {
+            int partNumber = 1;
+            int read = firstPartLength;
+            while (read > 0) {
+                final UploadPartRequest uploadPartRequest = new UploadPartRequest().withBucketName(this.s3BucketName)
+                        .withKey(s3UploadLocation).withUploadId(uploadId).withPartNumber(partNumber++)
+                        .withInputStream(new ByteArrayInputStream(buffer, 0, read)).withPartSize(read);
+                partETags.add(this.s3Client.uploadPart(uploadPartRequest).getPartETag());
+                uploadedBytes += read;
+                read = readFully(inputStream, buffer, 0);
+            }
+            this.s3Client.completeMultipartUpload(new CompleteMultipartUploadRequest(this.s3BucketName, s3UploadLocation, uploadId,
+                    partETags));
+            return uploadedBytes;
+        } catch (final AmazonClientException | IOException e) {
+            this.s3Client.abortMultipartUpload(new AbortMultipartUploadRequest(this.s3BucketName, s3UploadLocation, uploadId));
+            throw e;
+        }
+    }
+
+    /**
+     * Fills the buffer from the offset on, returning fewer bytes than the space
+     * left only at the end of the stream
+     */
+    private static int readFully(final InputStream inputStream, final byte[] buffer, final int offset) throws IOException {
+        int total = 0;
+        while (offset + total < buffer.length) {
+            final int read = inputStream.read(buffer, offset + total, buffer.length - offset - total);
+            if (read == -1) {
+                break;
+            }
+            total += read;
         }
+        return total;
     }
 }
@@ -0,0 +1,84 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.documentmanagement.data;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * A single byte range resolved from an HTTP <code>Range</code> header (RFC
+ * 7233) against the total length of the content.
+ *
+ * Only single ranges are supported; multipart/byteranges requests are served
+ * in full.
+ */
+public class ByteRange {
+
+    private static final String BYTES_UNIT = "bytes=";
+
+    private final long start;
+    private final long end;
+    private final long totalLength;
+
+    private ByteRange(final long start, final long end, final long totalLength) {
+        this.start = start;
+        this.end = end;
+        this.totalLength = totalLength;
+    }
+
+    /**
+     * @return the resolved range, <code>null</code> when the header is absent
+     *         or not a single byte range (the whole content should be
+     *         served), or a range for which {@link #isSatisfiable()} is false
+     */
+    public static ByteRange fromHeader(final String rangeHeader, final long totalLength) {
+        if (StringUtils.isBlank(rangeHeader) || !rangeHeader.startsWith(BYTES_UNIT)) { return null; }
+        final String spec = rangeHeader.substring(BYTES_UNIT.length()).trim();
+        if (spec.contains(",")) { return null; }
+
+        final int dash = spec.indexOf('-');
+        if (dash < 0) { return null; }
+        final String first = spec.substring(0, dash).trim();
+        final String last = spec.substring(dash + 1).trim();
+
+        try {
+            if (first.isEmpty()) {
+                // suffix range, e.g. bytes=-500 for the final 500 bytes
+                if (last.isEmpty()) { return null; }
+                final long suffixLength = Long.parseLong(last);
+                if (suffixLength <= 0 || totalLength == 0) { return unsatisfiable(totalLength); }
+                return new ByteRange(Math.max(0, totalLength - suffixLength), totalLength - 1, totalLength);
+            }
+            final long start = Long.parseLong(first);
+            long end = last.isEmpty() ? totalLength - 1 : Long.parseLong(last);
+            if (start >= totalLength || end < start) { return unsatisfiable(totalLength); }
+            end = Math.min(end, totalLength - 1);
+            return new ByteRange(start, end, totalLength);
+        } catch (final NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static ByteRange unsatisfiable(final long totalLength) {
+        return new ByteRange(-1, -1, totalLength);
+    }
+
+    public boolean isSatisfiable() {
+        return this.start >= 0;
+    }
+
+    public long start() {
+        return this.start;
+    }
+
+    public long length() {
+        return this.end - this.start + 1;
+    }
+
+    public String contentRangeHeader() {
+        if (!isSatisfiable()) { return "bytes */" + this.totalLength; }
+        return "bytes " + this.start + "-" + this.end + "/" + this.totalLength;
+    }
+}
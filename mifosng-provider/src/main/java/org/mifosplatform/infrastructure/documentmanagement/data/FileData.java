@@ -8,7 +8,13 @@ package org.mifosplatform.infrastructure.documentmanagement.data;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,16 +23,31 @@ public class FileData {
 
     private static final Logger logger = LoggerFactory.getLogger(FileData.class);
 
+    private static final int STREAM_COPY_BUFFER_SIZE = 64 * 1024;
+
     private final File file;
     private final String fileName;
     private final String contentType;
     private final InputStream inputStream;
+    private final Long length;
+    private final RangeReader rangeReader;
+
+    /**
+     * Opens a stream over a byte range of content held in a remote store,
+     * without fetching the rest of the object.
+     */
+    public interface RangeReader {
+
+        InputStream open(long offset, long count) throws IOException;
+    }
 
     public FileData(final File file, final String fileName, final String contentType) {
         this.file = file;
         this.fileName = fileName;
         this.contentType = contentType;
         this.inputStream = null;
+        this.length = file.exists() ? file.length() : null;
+        this.rangeReader = null;
     }
 
     public FileData(final InputStream inputStream, final String fileName, final String contentType) {
@@ -34,6 +55,17 @@ public class FileData {
         this.inputStream = inputStream;
         this.fileName = fileName;
         this.contentType = contentType;
+        this.length = null;
+        this.rangeReader = null;
+    }
+
+    public FileData(final RangeReader rangeReader, final Long length, final String fileName, final String contentType) {
+        this.file = null;
+        this.inputStream = null;
+        this.fileName = fileName;
+        this.contentType = contentType;
+        this.length = length;
+        this.rangeReader = rangeReader;
     }
 
     public String contentType() {
@@ -44,13 +76,82 @@ public class FileData {
         return this.fileName;
     }
 
+    /**
+     * @return the size of the content in bytes, or null when the content is
+     *         an opaque stream of unknown length
+     */
+    public Long length() {
+        return this.length;
+    }
+
+    public boolean supportsRanges() {
+        return this.length != null && (this.file != null || this.rangeReader != null);
+    }
+
     public InputStream file() {
         try {
-            if (this.inputStream == null) { return new FileInputStream(this.file); }
-            return this.inputStream;
+            if (this.inputStream != null) { return this.inputStream; }
+            if (this.rangeReader != null) { return this.rangeReader.open(0, this.length); }
+            return new FileInputStream(this.file);
         } catch (final FileNotFoundException e) {
             logger.error(e.toString());
             return null;
+        } catch (final IOException e) {
+            logger.error(e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Writes <code>count</code> bytes starting at <code>offset</code> to the
+     * given stream. File system content is transferred through a
+     * {@link FileChannel} so the bytes never pass through a heap buffer.
+     */
+    public void writeTo(final OutputStream out, final long offset, final long count) throws IOException {
+        if (this.file != null) {
+            try (final FileChannel channel = FileChannel.open(this.file.toPath(), StandardOpenOption.READ)) {
+                final WritableByteChannel target = Channels.newChannel(out);
+                long position = offset;
+                long remaining = count;
+                while (remaining > 0) {
+                    final long transferred = channel.transferTo(position, remaining, target);
+                    if (transferred <= 0) {
+                        break;
+                    }
+                    position += transferred;
+                    remaining -= transferred;
+                }
+            }
+        } else if (this.rangeReader != null) {
+            try (final InputStream in = this.rangeReader.open(offset, count)) {
+                copy(in, out, count);
+            }
+        } else {
+            try (final InputStream in = this.inputStream) {
+                long skipped = 0;
+                while (skipped < offset) {
+                    final long skip = in.skip(offset - skipped);
+                    if (skip <= 0) {
+                        break;
+                    }
+                    skipped += skip;
+                }
+                copy(in, out, count);
+            }
+        }
+        out.flush();
+    }
+
+    private static void copy(final InputStream in, final OutputStream out, final long count) throws IOException {
+        final byte[] buffer = new byte[STREAM_COPY_BUFFER_SIZE];
+        long remaining = count;
+        while (remaining > 0) {
+            final int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read == -1) {
+                break;
+            }
+            out.write(buffer, 0, read);
+            remaining -= read;
         }
     }
 }
@@ -5,9 +5,30 @@
  */
 package org.mifosplatform.infrastructure.jobs.exception;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 public class JobExecutionException extends Exception {
 
+    private final List<String> failures;
+
     public JobExecutionException(final String msg) {
         super(msg);
+        this.failures = Collections.emptyList();
+    }
+
+    /**
+     * @param failures
+     *            one entry per failed account, recorded in the job's run
+     *            history in place of the stack trace
+     */
+    public JobExecutionException(final String msg, final List<String> failures) {
+        super(msg);
+        this.failures = Collections.unmodifiableList(new ArrayList<>(failures));
+    }
+
+    public List<String> getFailures() {
+        return this.failures;
     }
 }
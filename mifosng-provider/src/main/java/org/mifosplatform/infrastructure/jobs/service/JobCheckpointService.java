@@ -0,0 +1,26 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.jobs.service;
+
+import org.joda.time.LocalDate;
+
+/**
+ * Records how far a job that works through accounts in id order got on a
+ * business date, so that a run that was interrupted resumes after the last
+ * account it completed rather than starting over.
+ */
+public interface JobCheckpointService {
+
+    /**
+     * @return the id to resume after, or zero when the job has no checkpoint
+     *         for the business date
+     */
+    Long retrieveLastProcessedId(JobName jobName, LocalDate businessDate);
+
+    void saveCheckpoint(JobName jobName, LocalDate businessDate, Long lastProcessedId);
+
+    void clearCheckpoint(JobName jobName);
+}
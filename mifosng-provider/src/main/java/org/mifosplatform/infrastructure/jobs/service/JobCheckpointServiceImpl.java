@@ -0,0 +1,47 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.jobs.service;
+
+import java.util.Date;
+import java.util.List;
+
+import org.joda.time.LocalDate;
+import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+@Service
+public class JobCheckpointServiceImpl implements JobCheckpointService {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public JobCheckpointServiceImpl(final RoutingDataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    public Long retrieveLastProcessedId(final JobName jobName, final LocalDate businessDate) {
+        final List<Long> lastProcessedIds = this.jdbcTemplate.queryForList(
+                "select last_processed_id from job_checkpoint where job_name = ? and business_date = ?", Long.class, jobName.toString(),
+                businessDate.toDate());
+        return lastProcessedIds.isEmpty() ? Long.valueOf(0) : lastProcessedIds.get(0);
+    }
+
+    @Override
+    public void saveCheckpoint(final JobName jobName, final LocalDate businessDate, final Long lastProcessedId) {
+        this.jdbcTemplate.update("insert into job_checkpoint (job_name, business_date, last_processed_id, lastmodified_date) "
+                + "values (?, ?, ?, ?) on duplicate key update business_date = values(business_date), "
+                + "last_processed_id = values(last_processed_id), lastmodified_date = values(lastmodified_date)", jobName.toString(),
+                businessDate.toDate(), lastProcessedId, new Date());
+    }
+
+    @Override
+    public void clearCheckpoint(final JobName jobName) {
+        this.jdbcTemplate.update("delete from job_checkpoint where job_name = ?", jobName.toString());
+    }
+}
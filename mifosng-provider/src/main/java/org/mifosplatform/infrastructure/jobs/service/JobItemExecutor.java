@@ -0,0 +1,231 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.jobs.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+
+import org.mifosplatform.infrastructure.core.data.ApiParameterError;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.exception.AbstractPlatformDomainRuleException;
+import org.mifosplatform.infrastructure.core.exception.PlatformApiDataValidationException;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.infrastructure.metrics.service.DataAccessProfiler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Runs the items of a batch job (typically account ids) on a shared pool of
+ * worker threads, each item in its own transaction, so that one failing
+ * account neither rolls back nor holds up the others.
+ *
+ * Workers run with the tenant and security context of the calling job thread.
+ * Progress is logged as items complete and failures are collected per item
+ * for the job to report. Each item is a {@link DataAccessProfiler} scope, so
+ * queries repeated per item are reported as such.
+ */
+@Component
+public class JobItemExecutor {
+
+    private final static Logger logger = LoggerFactory.getLogger(JobItemExecutor.class);
+
+    private static final int MAX_WORKERS = 8;
+
+    public interface ItemWork<T> {
+
+        void process(T item);
+    }
+
+    private final TransactionTemplate transactionTemplate;
+    private final DataAccessProfiler dataAccessProfiler;
+    private final int workers;
+    private final ExecutorService executorService;
+
+    @Autowired
+    public JobItemExecutor(final JpaTransactionManager transactionManager, final DataAccessProfiler dataAccessProfiler) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.dataAccessProfiler = dataAccessProfiler;
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.workers = Math.max(2, Math.min(MAX_WORKERS, Runtime.getRuntime().availableProcessors()));
+        this.executorService = Executors.newFixedThreadPool(this.workers,
+                new ThreadFactoryBuilder().setNameFormat("job-worker-%d").setDaemon(true).build());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.executorService.shutdownNow();
+    }
+
+    public int getWorkers() {
+        return this.workers;
+    }
+
+    /**
+     * Processes the items, each in a new transaction, and waits for all of
+     * them to complete.
+     *
+     * Must not be called from a worker, as the calling thread blocks until
+     * the items are processed.
+     */
+    public <T> JobItemResult<T> execute(final String jobDescription, final Collection<T> items, final ItemWork<T> work) {
+        return execute(jobDescription, items, work, true);
+    }
+
+    /**
+     * As {@link #execute(String, Collection, ItemWork)}, for work that
+     * demarcates its own transactions, such as an item made up of several
+     * independent transfers.
+     */
+    public <T> JobItemResult<T> executeNonTransactional(final String jobDescription, final Collection<T> items, final ItemWork<T> work) {
+        return execute(jobDescription, items, work, false);
+    }
+
+    private <T> JobItemResult<T> execute(final String jobDescription, final Collection<T> items, final ItemWork<T> work,
+            final boolean transactional) {
+        final JobItemResult<T> result = new JobItemResult<>();
+        if (items.isEmpty()) { return result; }
+
+        final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+        final SecurityContext securityContext = SecurityContextHolder.getContext();
+        final int total = items.size();
+        final int progressInterval = Math.max(1, total / 10);
+        final AtomicInteger completed = new AtomicInteger();
+
+        final List<Future<?>> futures = new ArrayList<>(total);
+        for (final T item : items) {
+            futures.add(this.executorService.submit(new Runnable() {
+
+                @Override
+                public void run() {
+                    ThreadLocalContextUtil.setTenant(tenant);
+                    SecurityContextHolder.setContext(securityContext);
+                    JobItemExecutor.this.dataAccessProfiler.beginScope();
+                    try {
+                        if (transactional) {
+                            JobItemExecutor.this.transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+
+                                @Override
+                                protected void doInTransactionWithoutResult(@SuppressWarnings("unused") final TransactionStatus status) {
+                                    work.process(item);
+                                }
+                            });
+                        } else {
+                            work.process(item);
+                        }
+                        result.processed(item);
+                    } catch (final RuntimeException e) {
+                        final String message = failureMessage(e);
+                        logger.error(jobDescription + " failed for " + item + " with message " + message, e);
+                        result.failed(item, message);
+                    } finally {
+                        JobItemExecutor.this.dataAccessProfiler.endScope();
+                        SecurityContextHolder.clearContext();
+                        ThreadLocalContextUtil.clearTenant();
+                    }
+                    final int done = completed.incrementAndGet();
+                    if (done % progressInterval == 0 || done == total) {
+                        logger.info(tenant.getTenantIdentifier() + ": " + jobDescription + " " + done + "/" + total + " processed, "
+                                + result.getFailures().size() + " failed");
+                    }
+                }
+            }));
+        }
+
+        for (final Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                for (final Future<?> pending : futures) {
+                    pending.cancel(true);
+                }
+                throw new IllegalStateException(jobDescription + " interrupted", e);
+            } catch (final ExecutionException e) {
+                // failures are collected by the worker
+            }
+        }
+        return result;
+    }
+
+    private static String failureMessage(final RuntimeException e) {
+        if (e instanceof PlatformApiDataValidationException) {
+            final StringBuilder sb = new StringBuilder();
+            for (final ApiParameterError error : ((PlatformApiDataValidationException) e).getErrors()) {
+                if (sb.length() > 0) {
+                    sb.append(", ");
+                }
+                sb.append(error.getDeveloperMessage());
+            }
+            return sb.toString();
+        }
+        if (e instanceof AbstractPlatformDomainRuleException) { return ((AbstractPlatformDomainRuleException) e).getDefaultUserMessage(); }
+        final Throwable realCause = e.getCause() == null ? e : e.getCause();
+        return realCause.getMessage();
+    }
+
+    /**
+     * Outcome of {@link JobItemExecutor#execute}; safe to update from
+     * several workers.
+     */
+    public static final class JobItemResult<T> {
+
+        private final AtomicInteger processed = new AtomicInteger();
+        private final Map<T, String> failures = new LinkedHashMap<>();
+
+        void processed(@SuppressWarnings("unused") final T item) {
+            this.processed.incrementAndGet();
+        }
+
+        synchronized void failed(final T item, final String message) {
+            this.failures.put(item, message);
+        }
+
+        public int getProcessed() {
+            return this.processed.get();
+        }
+
+        public synchronized Map<T, String> getFailures() {
+            return new LinkedHashMap<>(this.failures);
+        }
+
+        public boolean hasFailures() {
+            return !getFailures().isEmpty();
+        }
+
+        /**
+         * @return one line per failed item, for
+         *         {@link org.mifosplatform.infrastructure.jobs.exception.JobExecutionException#getFailures()}
+         */
+        public List<String> failureLines(final String description) {
+            final List<String> lines = new ArrayList<>();
+            for (final Map.Entry<T, String> failure : getFailures().entrySet()) {
+                lines.add(description + " failed for account:" + failure.getKey() + " with message " + failure.getValue());
+            }
+            return lines;
+        }
+    }
+}
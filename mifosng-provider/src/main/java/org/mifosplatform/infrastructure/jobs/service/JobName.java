@@ -32,7 +32,9 @@ public enum JobName {
     PAYMENT_REMINDER_SMS_NOTIFICATION("Payment Reminder SMS Notification"),
     EXPIRED_LOAN_PAYMENT_REMINDER_EMAIL_NOTIFICATION("Expired Loans Payment Reminder Email Notification"),
     EXPIRED_LOAN_PAYMENT_REMINDER_SMS_NOTIFICATION("Expired Loans Payment Reminder SMS Notification"),
-    CREATE_NEW_FINANCIALYEAR("Create New Financial Year");
+    CREATE_NEW_FINANCIALYEAR("Create New Financial Year"),
+    ARCHIVE_AUDIT_ENTRIES("Archive Audit Entries"),
+    UPDATE_MEETING_DATE_INDEX("Update Meeting Date Index");
 
     private final String name;
 
@@ -6,10 +6,13 @@
 package org.mifosplatform.infrastructure.jobs.service;
 
 import java.util.Date;
+import java.util.List;
 
+import org.apache.commons.lang.StringUtils;
 import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
 import org.mifosplatform.infrastructure.jobs.domain.ScheduledJobDetail;
 import org.mifosplatform.infrastructure.jobs.domain.ScheduledJobRunHistory;
+import org.mifosplatform.infrastructure.metrics.service.PlatformMetricsService;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
 import org.quartz.JobKey;
@@ -32,10 +35,12 @@ public class SchedulerJobListener implements JobListener {
     private final String name = SchedulerServiceConstants.DEFAULT_LISTENER_NAME;
 
     private final SchedularWritePlatformService schedularService;
+    private final PlatformMetricsService metricsService;
 
     @Autowired
-    public SchedulerJobListener(final SchedularWritePlatformService schedularService) {
+    public SchedulerJobListener(final SchedularWritePlatformService schedularService, final PlatformMetricsService metricsService) {
         this.schedularService = schedularService;
+        this.metricsService = metricsService;
     }
 
     @Override
@@ -77,6 +82,13 @@ public class SchedulerJobListener implements JobListener {
                         .append(element.getLineNumber()).append(")");
             }
             errorLog = sb.toString();
+            if (throwable instanceof org.mifosplatform.infrastructure.jobs.exception.JobExecutionException) {
+                final List<String> failures = ((org.mifosplatform.infrastructure.jobs.exception.JobExecutionException) throwable)
+                        .getFailures();
+                if (!failures.isEmpty()) {
+                    errorLog = StringUtils.join(failures, "\n");
+                }
+            }
 
         }
         String triggerType = SchedulerServiceConstants.TRIGGER_TYPE_CRON;
@@ -97,6 +109,11 @@ public class SchedulerJobListener implements JobListener {
 
         this.schedularService.saveOrUpdate(scheduledJobDetails, runHistory);
 
+        this.metricsService.recordDuration("job." + scheduledJobDetails.getJobName(), context.getJobRunTime());
+        if (jobException != null) {
+            this.metricsService.increment("job." + scheduledJobDetails.getJobName() + ".failed");
+        }
+
     }
 
     private Throwable getCauseFromException(final Throwable exception) {
@@ -0,0 +1,125 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.metrics.api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriInfo;
+
+import org.apache.commons.lang.StringUtils;
+import org.mifosplatform.infrastructure.core.api.ApiRequestParameterHelper;
+import org.mifosplatform.infrastructure.core.data.ApiParameterError;
+import org.mifosplatform.infrastructure.core.data.DataValidatorBuilder;
+import org.mifosplatform.infrastructure.core.exception.PlatformApiDataValidationException;
+import org.mifosplatform.infrastructure.core.exception.UnrecognizedQueryParamException;
+import org.mifosplatform.infrastructure.core.serialization.ApiRequestJsonSerializationSettings;
+import org.mifosplatform.infrastructure.core.serialization.ToApiJsonSerializer;
+import org.mifosplatform.infrastructure.metrics.data.DataAccessProfileData;
+import org.mifosplatform.infrastructure.metrics.data.QueryProfileData;
+import org.mifosplatform.infrastructure.metrics.service.DataAccessProfiler;
+import org.mifosplatform.infrastructure.security.exception.NoAuthorizationException;
+import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+/**
+ * Top SQL queries of the tenant by time, executions, slow executions or
+ * repetitions within a request or job item, and switching the data access
+ * profiler of this node on and off for the tenant.
+ */
+@Path("/dataaccessprofile")
+@Consumes({ MediaType.APPLICATION_JSON })
+@Produces({ MediaType.APPLICATION_JSON })
+@Component
+@Scope("singleton")
+public class DataAccessProfileApiResource {
+
+    private static final String COMMAND = "command";
+    private static final String COMMAND_ENABLE = "enable";
+    private static final String COMMAND_DISABLE = "disable";
+    private static final String COMMAND_RESET = "reset";
+
+    private final Set<String> RESPONSE_DATA_PARAMETERS = new HashSet<>(Arrays.asList("enabled", "slowQueryThresholdMillis",
+            "repeatedQueryThreshold", "queries"));
+    private final String resourceNameForPermissions = "DATAACCESSPROFILE";
+
+    private final PlatformSecurityContext context;
+    private final DataAccessProfiler dataAccessProfiler;
+    private final ToApiJsonSerializer<DataAccessProfileData> toApiJsonSerializer;
+    private final ApiRequestParameterHelper apiRequestParameterHelper;
+
+    @Autowired
+    public DataAccessProfileApiResource(final PlatformSecurityContext context, final DataAccessProfiler dataAccessProfiler,
+            final ToApiJsonSerializer<DataAccessProfileData> toApiJsonSerializer,
+            final ApiRequestParameterHelper apiRequestParameterHelper) {
+        this.context = context;
+        this.dataAccessProfiler = dataAccessProfiler;
+        this.toApiJsonSerializer = toApiJsonSerializer;
+        this.apiRequestParameterHelper = apiRequestParameterHelper;
+    }
+
+    @GET
+    public String retrieveProfile(@Context final UriInfo uriInfo, @QueryParam("orderBy") final String orderBy,
+            @QueryParam("limit") @DefaultValue("20") final Integer limit) {
+
+        this.context.authenticatedUser().validateHasReadPermission(this.resourceNameForPermissions);
+
+        final List<ApiParameterError> dataValidationErrors = new ArrayList<>();
+        new DataValidatorBuilder(dataValidationErrors).resource("dataaccessprofile").parameter("limit").value(limit).notNull()
+                .integerZeroOrGreater();
+        if (!dataValidationErrors.isEmpty()) { throw new PlatformApiDataValidationException("validation.msg.validation.errors.exist",
+                "Validation errors exist.", dataValidationErrors); }
+
+        final Collection<QueryProfileData> queries = this.dataAccessProfiler.retrieveTopQueries(orderBy, limit);
+        final DataAccessProfileData profile = new DataAccessProfileData(this.dataAccessProfiler.isEnabled(),
+                DataAccessProfiler.SLOW_QUERY_THRESHOLD_MILLIS, DataAccessProfiler.REPEATED_QUERY_THRESHOLD, queries);
+
+        final ApiRequestJsonSerializationSettings settings = this.apiRequestParameterHelper.process(uriInfo.getQueryParameters());
+        return this.toApiJsonSerializer.serialize(settings, profile, this.RESPONSE_DATA_PARAMETERS);
+    }
+
+    @POST
+    public Response changeProfilerStatus(@QueryParam(COMMAND) final String commandParam) {
+
+        final boolean hasNotPermission = this.context.authenticatedUser().hasNotPermissionForAnyOf("ALL_FUNCTIONS",
+                "UPDATE_" + this.resourceNameForPermissions);
+        if (hasNotPermission) {
+            final String authorizationMessage = "User has no authority to update data access profiling";
+            throw new NoAuthorizationException(authorizationMessage);
+        }
+
+        if (is(commandParam, COMMAND_ENABLE)) {
+            this.dataAccessProfiler.enable();
+        } else if (is(commandParam, COMMAND_DISABLE)) {
+            this.dataAccessProfiler.disable();
+        } else if (is(commandParam, COMMAND_RESET)) {
+            this.dataAccessProfiler.reset();
+        } else {
+            throw new UnrecognizedQueryParamException(COMMAND, commandParam, COMMAND_ENABLE, COMMAND_DISABLE, COMMAND_RESET);
+        }
+        return Response.status(202).build();
+    }
+
+    private boolean is(final String commandParam, final String commandValue) {
+        return StringUtils.isNotBlank(commandParam) && commandParam.trim().equalsIgnoreCase(commandValue);
+    }
+}
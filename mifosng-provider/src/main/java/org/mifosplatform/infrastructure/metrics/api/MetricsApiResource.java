@@ -0,0 +1,88 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.metrics.api;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriInfo;
+
+import org.mifosplatform.infrastructure.core.api.ApiRequestParameterHelper;
+import org.mifosplatform.infrastructure.core.serialization.ApiRequestJsonSerializationSettings;
+import org.mifosplatform.infrastructure.core.serialization.DefaultToApiJsonSerializer;
+import org.mifosplatform.infrastructure.metrics.data.PlatformMetricData;
+import org.mifosplatform.infrastructure.metrics.serialization.PlatformMetricsPrometheusSerializer;
+import org.mifosplatform.infrastructure.metrics.service.PlatformMetricsService;
+import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+/**
+ * Metrics of the tenant (API endpoint latencies and per-request statement,
+ * entity load and allocation counts, command handler and job timings, cache
+ * and connection pool metrics) together with the global ones, as JSON or, for
+ * scraping, in Prometheus text format.
+ */
+@Path("/metrics")
+@Consumes({ MediaType.APPLICATION_JSON })
+@Produces({ MediaType.APPLICATION_JSON })
+@Component
+@Scope("singleton")
+public class MetricsApiResource {
+
+    private final Set<String> RESPONSE_DATA_PARAMETERS = new HashSet<>(Arrays.asList("scope", "name", "type", "count", "sum", "max",
+            "p50", "p95", "p99"));
+    private final String resourceNameForPermissions = "METRICS";
+
+    private final PlatformSecurityContext context;
+    private final PlatformMetricsService metricsService;
+    private final DefaultToApiJsonSerializer<PlatformMetricData> toApiJsonSerializer;
+    private final PlatformMetricsPrometheusSerializer prometheusSerializer;
+    private final ApiRequestParameterHelper apiRequestParameterHelper;
+
+    @Autowired
+    public MetricsApiResource(final PlatformSecurityContext context, final PlatformMetricsService metricsService,
+            final DefaultToApiJsonSerializer<PlatformMetricData> toApiJsonSerializer,
+            final PlatformMetricsPrometheusSerializer prometheusSerializer, final ApiRequestParameterHelper apiRequestParameterHelper) {
+        this.context = context;
+        this.metricsService = metricsService;
+        this.toApiJsonSerializer = toApiJsonSerializer;
+        this.prometheusSerializer = prometheusSerializer;
+        this.apiRequestParameterHelper = apiRequestParameterHelper;
+    }
+
+    @GET
+    public String retrieveAll(@Context final UriInfo uriInfo) {
+
+        this.context.authenticatedUser().validateHasReadPermission(this.resourceNameForPermissions);
+
+        final Collection<PlatformMetricData> metrics = this.metricsService.retrieveMetrics();
+
+        final ApiRequestJsonSerializationSettings settings = this.apiRequestParameterHelper.process(uriInfo.getQueryParameters());
+        return this.toApiJsonSerializer.serialize(settings, metrics, this.RESPONSE_DATA_PARAMETERS);
+    }
+
+    @GET
+    @Path("prometheus")
+    @Produces({ MediaType.TEXT_PLAIN })
+    public Response retrievePrometheus() {
+
+        this.context.authenticatedUser().validateHasReadPermission(this.resourceNameForPermissions);
+
+        final String text = this.prometheusSerializer.serialize(this.metricsService.retrieveMetrics());
+        return Response.ok(text).type(PlatformMetricsPrometheusSerializer.CONTENT_TYPE).build();
+    }
+}
@@ -0,0 +1,32 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.metrics.data;
+
+import java.util.Collection;
+
+/**
+ * Whether data access profiling is on, its thresholds and the top queries of
+ * the tenant.
+ */
+public class DataAccessProfileData {
+
+    @SuppressWarnings("unused")
+    private final boolean enabled;
+    @SuppressWarnings("unused")
+    private final long slowQueryThresholdMillis;
+    @SuppressWarnings("unused")
+    private final int repeatedQueryThreshold;
+    @SuppressWarnings("unused")
+    private final Collection<QueryProfileData> queries;
+
+    public DataAccessProfileData(final boolean enabled, final long slowQueryThresholdMillis, final int repeatedQueryThreshold,
+            final Collection<QueryProfileData> queries) {
+        this.enabled = enabled;
+        this.slowQueryThresholdMillis = slowQueryThresholdMillis;
+        this.repeatedQueryThreshold = repeatedQueryThreshold;
+        this.queries = queries;
+    }
+}
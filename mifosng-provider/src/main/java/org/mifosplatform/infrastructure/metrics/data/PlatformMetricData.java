@@ -0,0 +1,103 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.metrics.data;
+
+import org.mifosplatform.infrastructure.metrics.domain.PlatformHistogram;
+
+/**
+ * Immutable snapshot of a counter, timer or distribution.
+ */
+public class PlatformMetricData {
+
+    public static final String COUNTER = "counter";
+    public static final String TIMER = "timer";
+    public static final String DISTRIBUTION = "distribution";
+
+    private final String scope;
+    private final String name;
+    private final String type;
+    private final long count;
+    private final Long sum;
+    private final Long max;
+    private final Long p50;
+    private final Long p95;
+    private final Long p99;
+    private final long[] upperBounds;
+    private final long[] bucketCounts;
+
+    public static PlatformMetricData counter(final String scope, final String name, final long count) {
+        return new PlatformMetricData(scope, name, COUNTER, count, null, null, null, null, null, null, null);
+    }
+
+    public static PlatformMetricData histogram(final String scope, final String name, final String type,
+            final PlatformHistogram histogram) {
+        return new PlatformMetricData(scope, name, type, histogram.count(), histogram.sum(), histogram.max(), histogram.percentile(0.5),
+                histogram.percentile(0.95), histogram.percentile(0.99), histogram.upperBounds(), histogram.bucketCounts());
+    }
+
+    private PlatformMetricData(final String scope, final String name, final String type, final long count, final Long sum,
+            final Long max, final Long p50, final Long p95, final Long p99, final long[] upperBounds, final long[] bucketCounts) {
+        this.scope = scope;
+        this.name = name;
+        this.type = type;
+        this.count = count;
+        this.sum = sum;
+        this.max = max;
+        this.p50 = p50;
+        this.p95 = p95;
+        this.p99 = p99;
+        this.upperBounds = upperBounds;
+        this.bucketCounts = bucketCounts;
+    }
+
+    public String getScope() {
+        return this.scope;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public String getType() {
+        return this.type;
+    }
+
+    public boolean isCounter() {
+        return COUNTER.equals(this.type);
+    }
+
+    public long getCount() {
+        return this.count;
+    }
+
+    public Long getSum() {
+        return this.sum;
+    }
+
+    public Long getMax() {
+        return this.max;
+    }
+
+    public Long getP50() {
+        return this.p50;
+    }
+
+    public Long getP95() {
+        return this.p95;
+    }
+
+    public Long getP99() {
+        return this.p99;
+    }
+
+    public long[] getUpperBounds() {
+        return this.upperBounds;
+    }
+
+    public long[] getBucketCounts() {
+        return this.bucketCounts;
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.metrics.data;
+
+import java.util.concurrent.TimeUnit;
+
+import org.mifosplatform.infrastructure.metrics.domain.QueryProfile;
+
+/**
+ * Immutable snapshot of a {@link QueryProfile}.
+ */
+public class QueryProfileData {
+
+    private final String caller;
+    private final String query;
+    private final long executions;
+    private final long totalMillis;
+    private final long averageMillis;
+    private final long maxMillis;
+    private final long slowExecutions;
+    private final long repeatedScopes;
+    private final long maxRepetitions;
+
+    public static QueryProfileData from(final QueryProfile profile) {
+        final long executions = profile.executions();
+        final long totalNanos = profile.totalNanos();
+        final long averageNanos = executions == 0 ? 0 : totalNanos / executions;
+        return new QueryProfileData(profile.caller(), profile.query(), executions, TimeUnit.NANOSECONDS.toMillis(totalNanos),
+                TimeUnit.NANOSECONDS.toMillis(averageNanos), TimeUnit.NANOSECONDS.toMillis(profile.maxNanos()), profile.slowExecutions(),
+                profile.repeatedScopes(), profile.maxRepetitions());
+    }
+
+    private QueryProfileData(final String caller, final String query, final long executions, final long totalMillis,
+            final long averageMillis, final long maxMillis, final long slowExecutions, final long repeatedScopes,
+            final long maxRepetitions) {
+        this.caller = caller;
+        this.query = query;
+        this.executions = executions;
+        this.totalMillis = totalMillis;
+        this.averageMillis = averageMillis;
+        this.maxMillis = maxMillis;
+        this.slowExecutions = slowExecutions;
+        this.repeatedScopes = repeatedScopes;
+        this.maxRepetitions = maxRepetitions;
+    }
+
+    public String getCaller() {
+        return this.caller;
+    }
+
+    public String getQuery() {
+        return this.query;
+    }
+
+    public long getExecutions() {
+        return this.executions;
+    }
+
+    public long getTotalMillis() {
+        return this.totalMillis;
+    }
+
+    public long getAverageMillis() {
+        return this.averageMillis;
+    }
+
+    public long getMaxMillis() {
+        return this.maxMillis;
+    }
+
+    public long getSlowExecutions() {
+        return this.slowExecutions;
+    }
+
+    public long getRepeatedScopes() {
+        return this.repeatedScopes;
+    }
+
+    public long getMaxRepetitions() {
+        return this.maxRepetitions;
+    }
+}
@@ -0,0 +1,24 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.metrics.domain;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monotonically increasing counter (e.g. bytes uploaded, cache hits).
+ */
+public class PlatformCounter {
+
+    private final LongAdder count = new LongAdder();
+
+    public void increment(final long delta) {
+        this.count.add(delta);
+    }
+
+    public long count() {
+        return this.count.sum();
+    }
+}
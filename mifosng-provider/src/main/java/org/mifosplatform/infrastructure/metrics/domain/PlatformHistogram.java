@@ -0,0 +1,105 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.metrics.domain;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distribution of recorded values over fixed buckets, from which count, sum,
+ * maximum and approximate percentiles are read without keeping the values.
+ *
+ * Bucket i counts the values greater than upper bound i - 1 and at most upper
+ * bound i; a last bucket counts the values above the highest bound. A
+ * percentile is the upper bound of the bucket it falls in (the maximum for the
+ * last bucket), so it is never under-estimated.
+ */
+public class PlatformHistogram {
+
+    /**
+     * Bucket bounds for durations in milliseconds.
+     */
+    public static final long[] DURATION_BUCKETS = { 1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000, 60000 };
+
+    /**
+     * Bucket bounds for counts, e.g. statements per request.
+     */
+    public static final long[] COUNT_BUCKETS = { 0, 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 20000, 50000, 100000 };
+
+    private final long[] upperBounds;
+    private final LongAdder[] buckets;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+    public PlatformHistogram(final long[] upperBounds) {
+        this.upperBounds = upperBounds.clone();
+        this.buckets = new LongAdder[upperBounds.length + 1];
+        for (int i = 0; i < this.buckets.length; i++) {
+            this.buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(final long value) {
+        int bucket = 0;
+        while (bucket < this.upperBounds.length && value > this.upperBounds[bucket]) {
+            bucket++;
+        }
+        this.buckets[bucket].increment();
+        this.count.increment();
+        this.sum.add(value);
+        this.max.accumulate(value);
+    }
+
+    public long count() {
+        return this.count.sum();
+    }
+
+    public long sum() {
+        return this.sum.sum();
+    }
+
+    public long max() {
+        return this.max.get();
+    }
+
+    public long[] upperBounds() {
+        return this.upperBounds.clone();
+    }
+
+    /**
+     * @return the number of values in each bucket, the last one being the
+     *         values above the highest bound
+     */
+    public long[] bucketCounts() {
+        final long[] counts = new long[this.buckets.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = this.buckets[i].sum();
+        }
+        return counts;
+    }
+
+    /**
+     * @param quantile
+     *            between 0 and 1, e.g. 0.95
+     */
+    public long percentile(final double quantile) {
+        final long[] counts = bucketCounts();
+        long total = 0;
+        for (final long bucketCount : counts) {
+            total += bucketCount;
+        }
+        if (total == 0) { return 0; }
+
+        final long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < this.upperBounds.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) { return Math.min(this.upperBounds[i], max()); }
+        }
+        return max();
+    }
+}
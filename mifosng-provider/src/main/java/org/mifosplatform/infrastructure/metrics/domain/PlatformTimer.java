@@ -0,0 +1,45 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.metrics.domain;
+
+/**
+ * Records the number of timed operations along with their total and maximum
+ * duration in milliseconds, and their distribution for percentiles.
+ */
+public class PlatformTimer {
+
+    private final PlatformHistogram histogram = new PlatformHistogram(PlatformHistogram.DURATION_BUCKETS);
+
+    public void record(final long durationInMillis) {
+        this.histogram.record(durationInMillis);
+    }
+
+    public long count() {
+        return this.histogram.count();
+    }
+
+    public long totalMillis() {
+        return this.histogram.sum();
+    }
+
+    public long maxMillis() {
+        return this.histogram.max();
+    }
+
+    public long meanMillis() {
+        final long count = count();
+        if (count == 0) { return 0; }
+        return totalMillis() / count;
+    }
+
+    public long percentileMillis(final double quantile) {
+        return this.histogram.percentile(quantile);
+    }
+
+    public PlatformHistogram histogram() {
+        return this.histogram;
+    }
+}
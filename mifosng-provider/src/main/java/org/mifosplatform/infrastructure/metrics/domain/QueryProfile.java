@@ -0,0 +1,81 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.metrics.domain;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Executions of one query shape issued from one service method: how often and
+ * how long it ran, how often it was slow and how often it was repeated within
+ * a single request or job item (an N+1 pattern).
+ */
+public class QueryProfile {
+
+    private final String caller;
+    private final String query;
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+    private final LongAdder slowExecutions = new LongAdder();
+    private final LongAdder repeatedScopes = new LongAdder();
+    private final LongAccumulator maxRepetitions = new LongAccumulator(Math::max, 0L);
+
+    public QueryProfile(final String caller, final String query) {
+        this.caller = caller;
+        this.query = query;
+    }
+
+    public void executed(final long nanos, final boolean slow) {
+        this.executions.increment();
+        this.totalNanos.add(nanos);
+        this.maxNanos.accumulate(nanos);
+        if (slow) {
+            this.slowExecutions.increment();
+        }
+    }
+
+    /**
+     * Records a request or job item that executed the query the given number
+     * of times.
+     */
+    public void repeated(final long repetitions) {
+        this.repeatedScopes.increment();
+        this.maxRepetitions.accumulate(repetitions);
+    }
+
+    public String caller() {
+        return this.caller;
+    }
+
+    public String query() {
+        return this.query;
+    }
+
+    public long executions() {
+        return this.executions.sum();
+    }
+
+    public long totalNanos() {
+        return this.totalNanos.sum();
+    }
+
+    public long maxNanos() {
+        return this.maxNanos.get();
+    }
+
+    public long slowExecutions() {
+        return this.slowExecutions.sum();
+    }
+
+    public long repeatedScopes() {
+        return this.repeatedScopes.sum();
+    }
+
+    public long maxRepetitions() {
+        return this.maxRepetitions.get();
+    }
+}
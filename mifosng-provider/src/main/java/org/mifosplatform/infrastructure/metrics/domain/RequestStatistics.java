@@ -0,0 +1,84 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.metrics.domain;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Counts what the API request on the current thread costs: the JDBC statements
+ * it prepares, the entities JPA loads for it and the bytes it allocates (where
+ * the JVM can measure them per thread).
+ */
+public final class RequestStatistics {
+
+    private static final ThreadLocal<RequestStatistics> current = new ThreadLocal<>();
+
+    private long statements;
+    private long entityLoads;
+    private final long allocatedBytesAtStart;
+
+    private RequestStatistics() {
+        this.allocatedBytesAtStart = allocatedBytes();
+    }
+
+    public static void begin() {
+        current.set(new RequestStatistics());
+    }
+
+    /**
+     * @return the statistics of the request on this thread, which are no
+     *         longer collected, or null if none were
+     */
+    public static RequestStatistics end() {
+        final RequestStatistics statistics = current.get();
+        current.remove();
+        return statistics;
+    }
+
+    public static boolean isActive() {
+        return current.get() != null;
+    }
+
+    public static void statementPrepared() {
+        final RequestStatistics statistics = current.get();
+        if (statistics != null) {
+            statistics.statements++;
+        }
+    }
+
+    public static void entityLoaded() {
+        final RequestStatistics statistics = current.get();
+        if (statistics != null) {
+            statistics.entityLoads++;
+        }
+    }
+
+    public long statements() {
+        return this.statements;
+    }
+
+    public long entityLoads() {
+        return this.entityLoads;
+    }
+
+    /**
+     * @return the kilobytes allocated by the thread since the request began,
+     *         or -1 if the JVM does not measure allocations per thread
+     */
+    public long allocatedKilobytes() {
+        if (this.allocatedBytesAtStart < 0) { return -1; }
+        return (allocatedBytes() - this.allocatedBytesAtStart) / 1024;
+    }
+
+    private static long allocatedBytes() {
+        final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (!(threadMXBean instanceof com.sun.management.ThreadMXBean)) { return -1; }
+        final com.sun.management.ThreadMXBean allocationMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        if (!allocationMXBean.isThreadAllocatedMemoryEnabled()) { return -1; }
+        return allocationMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
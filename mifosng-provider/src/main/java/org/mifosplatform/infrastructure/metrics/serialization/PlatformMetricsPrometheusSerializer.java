@@ -0,0 +1,116 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.metrics.serialization;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.mifosplatform.infrastructure.metrics.data.PlatformMetricData;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes metrics in the Prometheus text exposition format (version 0.0.4).
+ * Counters become <code>mifos_&lt;name&gt;_total</code>; timers and
+ * distributions become histograms with cumulative <code>le</code> buckets, in
+ * milliseconds for timers. The tenant a metric belongs to is the
+ * <code>tenant</code> label.
+ *
+ * Request metrics (<code>api.GET /loans/{id}</code>,
+ * <code>api.GET /loans/{id}.statements</code>, ...) share one family per
+ * measure, the endpoint being the <code>endpoint</code> label, so that the
+ * number of families does not grow with the number of endpoints.
+ */
+@Component
+public class PlatformMetricsPrometheusSerializer {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4";
+
+    private static final String API_METRIC_PREFIX = "api.";
+    private static final String[] API_METRIC_MEASURES = { ".statements", ".entityLoads", ".allocatedKB" };
+
+    public String serialize(final Collection<PlatformMetricData> metrics) {
+        final Map<String, List<String>> samplesByFamily = new LinkedHashMap<>();
+        final Map<String, String> typeByFamily = new LinkedHashMap<>();
+
+        for (final PlatformMetricData metric : metrics) {
+            String name = metric.getName();
+            String labels = "tenant=\"" + escape(metric.getScope()) + "\"";
+            if (name.startsWith(API_METRIC_PREFIX)) {
+                String endpoint = name.substring(API_METRIC_PREFIX.length());
+                String measure = ".request";
+                for (final String apiMeasure : API_METRIC_MEASURES) {
+                    if (endpoint.endsWith(apiMeasure)) {
+                        endpoint = endpoint.substring(0, endpoint.length() - apiMeasure.length());
+                        measure = apiMeasure;
+                        break;
+                    }
+                }
+                name = "api" + measure;
+                labels += ",endpoint=\"" + escape(endpoint) + "\"";
+            }
+
+            if (metric.isCounter()) {
+                final String family = familyName(name) + "_total";
+                typeByFamily.put(family, "counter");
+                samples(samplesByFamily, family).add(family + "{" + labels + "} " + metric.getCount());
+            } else {
+                String family = familyName(name);
+                if (PlatformMetricData.TIMER.equals(metric.getType())) {
+                    family += "_milliseconds";
+                }
+                typeByFamily.put(family, "histogram");
+                final List<String> samples = samples(samplesByFamily, family);
+                final long[] upperBounds = metric.getUpperBounds();
+                final long[] bucketCounts = metric.getBucketCounts();
+                // the total is taken from the same snapshot as the buckets, the
+                // last bucket holding the values above the highest bound
+                long cumulativeCount = 0;
+                for (int i = 0; i < bucketCounts.length; i++) {
+                    cumulativeCount += bucketCounts[i];
+                    if (i < upperBounds.length) {
+                        samples.add(family + "_bucket{" + labels + ",le=\"" + upperBounds[i] + "\"} " + cumulativeCount);
+                    }
+                }
+                samples.add(family + "_bucket{" + labels + ",le=\"+Inf\"} " + cumulativeCount);
+                samples.add(family + "_sum{" + labels + "} " + metric.getSum());
+                samples.add(family + "_count{" + labels + "} " + cumulativeCount);
+            }
+        }
+
+        final StringBuilder text = new StringBuilder();
+        for (final Map.Entry<String, List<String>> family : samplesByFamily.entrySet()) {
+            text.append("# TYPE ").append(family.getKey()).append(' ').append(typeByFamily.get(family.getKey())).append('\n');
+            for (final String sample : family.getValue()) {
+                text.append(sample).append('\n');
+            }
+        }
+        return text.toString();
+    }
+
+    private static List<String> samples(final Map<String, List<String>> samplesByFamily, final String family) {
+        List<String> samples = samplesByFamily.get(family);
+        if (samples == null) {
+            samples = new ArrayList<>();
+            samplesByFamily.put(family, samples);
+        }
+        return samples;
+    }
+
+    /*
+     * metric names such as "job.Apply Annual Fee" become "mifos_job_apply_annual_fee"
+     */
+    private static String familyName(final String metric) {
+        final String name = metric.toLowerCase().replaceAll("[^a-z0-9_]+", "_").replaceAll("^_+|_+$", "");
+        return "mifos_" + name;
+    }
+
+    private static String escape(final String labelValue) {
+        return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,255 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.metrics.service;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.exception.UnrecognizedQueryParamException;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.infrastructure.metrics.data.QueryProfileData;
+import org.mifosplatform.infrastructure.metrics.domain.QueryProfile;
+import org.mifosplatform.infrastructure.metrics.domain.QueryShape;
+import org.springframework.stereotype.Component;
+
+/**
+ * Profiles the SQL the platform executes for the tenants it is switched on
+ * for.
+ *
+ * Each statement is attributed to the service method that issued it and to
+ * its {@link QueryShape}. Statements slower than
+ * {@link #SLOW_QUERY_THRESHOLD_MILLIS} are counted as slow, and a shape
+ * executed {@link #REPEATED_QUERY_THRESHOLD} or more times within one scope
+ * (an API request or a job item) is counted as repeated, the usual sign of an
+ * N+1 pattern.
+ *
+ * While switched off for every tenant, connections are handed out unwrapped
+ * and the cost is a check of an empty set per connection.
+ */
+@Component
+public class DataAccessProfiler {
+
+    /**
+     * Same as the default threshold of the pools' SlowQueryReport interceptor.
+     */
+    public static final long SLOW_QUERY_THRESHOLD_MILLIS = 1000;
+    public static final int REPEATED_QUERY_THRESHOLD = 10;
+
+    public static final String ORDER_BY_TOTAL_TIME = "totalTime";
+    public static final String ORDER_BY_MAX_TIME = "maxTime";
+    public static final String ORDER_BY_EXECUTIONS = "executions";
+    public static final String ORDER_BY_SLOW = "slowExecutions";
+    public static final String ORDER_BY_REPEATED = "repeatedScopes";
+
+    private static final int MAX_QUERIES_PER_TENANT = 1000;
+    private static final String GLOBAL_SCOPE = "global";
+    private static final String UNKNOWN_CALLER = "unknown";
+    private static final String[] IGNORED_CALLER_PREFIXES = { "org.mifosplatform.infrastructure.metrics.",
+            "org.mifosplatform.infrastructure.core.service.RoutingDataSource" };
+
+    private static final ThreadLocal<Map<QueryProfile, int[]>> scope = new ThreadLocal<>();
+
+    private final ConcurrentMap<String, ConcurrentMap<String, QueryProfile>> queriesByTenant = new ConcurrentHashMap<>();
+    private final Set<String> enabledTenants = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @return whether profiling is switched on for the current tenant
+     */
+    public boolean isEnabled() {
+        return !this.enabledTenants.isEmpty() && this.enabledTenants.contains(currentTenant());
+    }
+
+    /**
+     * Switches profiling on for the current tenant.
+     */
+    public void enable() {
+        this.enabledTenants.add(currentTenant());
+    }
+
+    public void disable() {
+        this.enabledTenants.remove(currentTenant());
+    }
+
+    /**
+     * Discards the profile of the current tenant.
+     */
+    public void reset() {
+        this.queriesByTenant.remove(currentTenant());
+    }
+
+    /**
+     * Starts counting repetitions for the request or job item on this thread.
+     */
+    public void beginScope() {
+        if (isEnabled()) {
+            scope.set(new IdentityHashMap<QueryProfile, int[]>());
+        }
+    }
+
+    public void endScope() {
+        final Map<QueryProfile, int[]> executions = scope.get();
+        if (executions == null) { return; }
+        scope.remove();
+        for (final Map.Entry<QueryProfile, int[]> entry : executions.entrySet()) {
+            final int repetitions = entry.getValue()[0];
+            if (repetitions >= REPEATED_QUERY_THRESHOLD) {
+                entry.getKey().repeated(repetitions);
+            }
+        }
+    }
+
+    /**
+     * @return the connection, timing the statements created on it if
+     *         profiling is switched on for the current tenant
+     */
+    public Connection profile(final Connection connection) {
+        if (!isEnabled()) { return connection; }
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class },
+                (proxy, method, args) -> {
+                    final Object result = invoke(connection, method, args);
+                    if (result instanceof Statement) {
+                        final String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                        return profile((Statement) result, method.getReturnType(), sql);
+                    }
+                    return result;
+                });
+    }
+
+    /*
+     * prepared and callable statements are executed with the SQL they were
+     * created with, plain statements with the SQL passed to execute
+     */
+    private Statement profile(final Statement statement, final Class<?> statementType, final String preparedSql) {
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[] { statementType },
+                (proxy, method, args) -> {
+                    String sql = preparedSql;
+                    if (sql == null && args != null && args.length > 0 && args[0] instanceof String) {
+                        sql = (String) args[0];
+                    }
+                    if (sql == null || !method.getName().startsWith("execute")) { return invoke(statement, method, args); }
+
+                    final long startTime = System.nanoTime();
+                    try {
+                        return invoke(statement, method, args);
+                    } finally {
+                        executed(sql, System.nanoTime() - startTime);
+                    }
+                });
+    }
+
+    private static Object invoke(final Object target, final Method method, final Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (final InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private void executed(final String sql, final long nanos) {
+        final String caller = caller();
+        final String query = QueryShape.of(sql);
+        final ConcurrentMap<String, QueryProfile> queries = this.queriesByTenant.computeIfAbsent(currentTenant(),
+                k -> new ConcurrentHashMap<String, QueryProfile>());
+
+        final String key = caller + '\n' + query;
+        QueryProfile profile = queries.get(key);
+        if (profile == null) {
+            if (queries.size() >= MAX_QUERIES_PER_TENANT) { return; }
+            profile = queries.computeIfAbsent(key, k -> new QueryProfile(caller, query));
+        }
+        profile.executed(nanos, nanos >= TimeUnit.MILLISECONDS.toNanos(SLOW_QUERY_THRESHOLD_MILLIS));
+
+        final Map<QueryProfile, int[]> executions = scope.get();
+        if (executions != null) {
+            executions.computeIfAbsent(profile, k -> new int[1])[0]++;
+        }
+    }
+
+    /*
+     * the innermost platform service on the stack, or failing that the
+     * innermost platform class, e.g. a domain entity whose lazy collection is
+     * being loaded
+     */
+    private static String caller() {
+        String firstPlatformFrame = null;
+        for (final StackTraceElement frame : Thread.currentThread().getStackTrace()) {
+            final String className = frame.getClassName();
+            if (!className.startsWith("org.mifosplatform.") || className.contains("$$") || isIgnoredCaller(className)) {
+                continue;
+            }
+            String simpleName = className.substring(className.lastIndexOf('.') + 1);
+            if (simpleName.indexOf('$') > 0) {
+                simpleName = simpleName.substring(0, simpleName.indexOf('$'));
+            }
+            final String caller = simpleName + "." + frame.getMethodName();
+            if (simpleName.contains("Service")) { return caller; }
+            if (firstPlatformFrame == null) {
+                firstPlatformFrame = caller;
+            }
+        }
+        return firstPlatformFrame == null ? UNKNOWN_CALLER : firstPlatformFrame;
+    }
+
+    private static boolean isIgnoredCaller(final String className) {
+        for (final String prefix : IGNORED_CALLER_PREFIXES) {
+            if (className.startsWith(prefix)) { return true; }
+        }
+        return false;
+    }
+
+    /**
+     * @return the top queries of the current tenant, ordered by one of the
+     *         ORDER_BY_ values, descending
+     */
+    public Collection<QueryProfileData> retrieveTopQueries(final String orderBy, final int limit) {
+        final Comparator<QueryProfileData> comparator = comparator(orderBy);
+        final List<QueryProfileData> queries = new ArrayList<>();
+        final ConcurrentMap<String, QueryProfile> profiles = this.queriesByTenant.get(currentTenant());
+        if (profiles != null) {
+            for (final QueryProfile profile : profiles.values()) {
+                queries.add(QueryProfileData.from(profile));
+            }
+        }
+        queries.sort(comparator.reversed());
+        return queries.size() > limit ? new ArrayList<>(queries.subList(0, limit)) : queries;
+    }
+
+    private static Comparator<QueryProfileData> comparator(final String orderBy) {
+        if (orderBy == null || ORDER_BY_TOTAL_TIME.equalsIgnoreCase(orderBy)) {
+            return Comparator.comparingLong(QueryProfileData::getTotalMillis);
+        } else if (ORDER_BY_MAX_TIME.equalsIgnoreCase(orderBy)) {
+            return Comparator.comparingLong(QueryProfileData::getMaxMillis);
+        } else if (ORDER_BY_EXECUTIONS.equalsIgnoreCase(orderBy)) {
+            return Comparator.comparingLong(QueryProfileData::getExecutions);
+        } else if (ORDER_BY_SLOW.equalsIgnoreCase(orderBy)) {
+            return Comparator.comparingLong(QueryProfileData::getSlowExecutions);
+        } else if (ORDER_BY_REPEATED.equalsIgnoreCase(orderBy)) {
+            return Comparator.comparingLong(QueryProfileData::getRepeatedScopes).thenComparingLong(QueryProfileData::getMaxRepetitions);
+        }
+        throw new UnrecognizedQueryParamException("orderBy", orderBy, ORDER_BY_TOTAL_TIME, ORDER_BY_MAX_TIME, ORDER_BY_EXECUTIONS,
+                ORDER_BY_SLOW, ORDER_BY_REPEATED);
+    }
+
+    private static String currentTenant() {
+        final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+        if (tenant == null) { return GLOBAL_SCOPE; }
+        return tenant.getTenantIdentifier();
+    }
+}
@@ -0,0 +1,30 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.metrics.service;
+
+import java.io.Serializable;
+
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.type.Type;
+import org.mifosplatform.infrastructure.metrics.domain.RequestStatistics;
+
+/**
+ * Hibernate interceptor (registered in persistence.xml) counting the entities
+ * loaded for the current API request. Hibernate's own statistics are kept per
+ * session factory, not per request.
+ */
+public class EntityLoadCountingInterceptor extends EmptyInterceptor {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public boolean onLoad(@SuppressWarnings("unused") final Object entity, @SuppressWarnings("unused") final Serializable id,
+            @SuppressWarnings("unused") final Object[] state, @SuppressWarnings("unused") final String[] propertyNames,
+            @SuppressWarnings("unused") final Type[] types) {
+        RequestStatistics.entityLoaded();
+        return false;
+    }
+}
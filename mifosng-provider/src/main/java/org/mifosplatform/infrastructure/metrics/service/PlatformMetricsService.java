@@ -0,0 +1,35 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.metrics.service;
+
+import java.util.Collection;
+
+import org.mifosplatform.infrastructure.metrics.data.PlatformMetricData;
+
+/**
+ * In-process registry of counters and timers. Metrics are kept per tenant,
+ * using the tenant bound to the current thread (or a global bucket when no
+ * tenant is bound, e.g. during startup).
+ */
+public interface PlatformMetricsService {
+
+    void increment(String metric);
+
+    void increment(String metric, long delta);
+
+    void recordDuration(String metric, long durationInMillis);
+
+    /**
+     * Records a value of a distribution of counts, e.g. the number of SQL
+     * statements of a request.
+     */
+    void recordValue(String metric, long value);
+
+    /**
+     * @return the metrics of the current tenant and the global ones
+     */
+    Collection<PlatformMetricData> retrieveMetrics();
+}
@@ -0,0 +1,126 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.metrics.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.infrastructure.metrics.data.PlatformMetricData;
+import org.mifosplatform.infrastructure.metrics.domain.PlatformCounter;
+import org.mifosplatform.infrastructure.metrics.domain.PlatformHistogram;
+import org.mifosplatform.infrastructure.metrics.domain.PlatformTimer;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps at most {@value #MAX_METRICS_PER_SCOPE} metrics of each kind per
+ * scope; values of further metrics are dropped and counted as
+ * {@value #DROPPED_METRIC}.
+ */
+@Service
+public class PlatformMetricsServiceImpl implements PlatformMetricsService {
+
+    public static final String GLOBAL_SCOPE = "global";
+    static final int MAX_METRICS_PER_SCOPE = 2000;
+    static final String DROPPED_METRIC = "metrics.dropped";
+
+    private final ConcurrentMap<String, ConcurrentMap<String, PlatformCounter>> countersByTenant = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ConcurrentMap<String, PlatformTimer>> timersByTenant = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ConcurrentMap<String, PlatformHistogram>> distributionsByTenant = new ConcurrentHashMap<>();
+
+    @Override
+    public void increment(final String metric) {
+        increment(metric, 1);
+    }
+
+    @Override
+    public void increment(final String metric, final long delta) {
+        final PlatformCounter counter = metric(counters(currentScope()), metric, PlatformCounter::new);
+        if (counter != null) {
+            counter.increment(delta);
+        }
+    }
+
+    @Override
+    public void recordDuration(final String metric, final long durationInMillis) {
+        final PlatformTimer timer = metric(timers(currentScope()), metric, PlatformTimer::new);
+        if (timer != null) {
+            timer.record(durationInMillis);
+        }
+    }
+
+    @Override
+    public void recordValue(final String metric, final long value) {
+        final PlatformHistogram distribution = metric(distributions(currentScope()), metric,
+                () -> new PlatformHistogram(PlatformHistogram.COUNT_BUCKETS));
+        if (distribution != null) {
+            distribution.record(value);
+        }
+    }
+
+    /**
+     * @return the metric, or null if it is not registered yet and the scope
+     *         holds as many as it may
+     */
+    private <M> M metric(final ConcurrentMap<String, M> metrics, final String metric, final Supplier<M> factory) {
+        final M existing = metrics.get(metric);
+        if (existing != null) { return existing; }
+        if (metrics.size() >= MAX_METRICS_PER_SCOPE) {
+            counters(currentScope()).computeIfAbsent(DROPPED_METRIC, k -> new PlatformCounter()).increment(1);
+            return null;
+        }
+        return metrics.computeIfAbsent(metric, k -> factory.get());
+    }
+
+    @Override
+    public Collection<PlatformMetricData> retrieveMetrics() {
+        final List<PlatformMetricData> metrics = new ArrayList<>();
+        final String scope = currentScope();
+        addMetrics(scope, metrics);
+        if (!GLOBAL_SCOPE.equals(scope)) {
+            addMetrics(GLOBAL_SCOPE, metrics);
+        }
+        return metrics;
+    }
+
+    private void addMetrics(final String scope, final List<PlatformMetricData> metrics) {
+        for (final Map.Entry<String, PlatformCounter> counter : new TreeMap<>(counters(scope)).entrySet()) {
+            metrics.add(PlatformMetricData.counter(scope, counter.getKey(), counter.getValue().count()));
+        }
+        for (final Map.Entry<String, PlatformTimer> timer : new TreeMap<>(timers(scope)).entrySet()) {
+            metrics.add(PlatformMetricData.histogram(scope, timer.getKey(), PlatformMetricData.TIMER, timer.getValue().histogram()));
+        }
+        for (final Map.Entry<String, PlatformHistogram> distribution : new TreeMap<>(distributions(scope)).entrySet()) {
+            metrics.add(PlatformMetricData.histogram(scope, distribution.getKey(), PlatformMetricData.DISTRIBUTION,
+                    distribution.getValue()));
+        }
+    }
+
+    private ConcurrentMap<String, PlatformCounter> counters(final String scope) {
+        return this.countersByTenant.computeIfAbsent(scope, k -> new ConcurrentHashMap<String, PlatformCounter>());
+    }
+
+    private ConcurrentMap<String, PlatformTimer> timers(final String scope) {
+        return this.timersByTenant.computeIfAbsent(scope, k -> new ConcurrentHashMap<String, PlatformTimer>());
+    }
+
+    private ConcurrentMap<String, PlatformHistogram> distributions(final String scope) {
+        return this.distributionsByTenant.computeIfAbsent(scope, k -> new ConcurrentHashMap<String, PlatformHistogram>());
+    }
+
+    private static String currentScope() {
+        final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+        if (tenant == null) { return GLOBAL_SCOPE; }
+        return tenant.getTenantIdentifier();
+    }
+}
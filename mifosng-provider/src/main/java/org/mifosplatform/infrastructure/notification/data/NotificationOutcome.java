@@ -0,0 +1,51 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.notification.data;
+
+/**
+ * Result of one attempt to send a {@link QueuedNotification}.
+ */
+public class NotificationOutcome {
+
+    private final QueuedNotification notification;
+    private final boolean sent;
+    private final String messageId;
+    /**
+     * gateway status of a sent message, or the error of a failed attempt
+     */
+    private final String status;
+
+    public static NotificationOutcome sent(final QueuedNotification notification, final String messageId, final String status) {
+        return new NotificationOutcome(notification, true, messageId, status);
+    }
+
+    public static NotificationOutcome failed(final QueuedNotification notification, final String error) {
+        return new NotificationOutcome(notification, false, null, error);
+    }
+
+    private NotificationOutcome(final QueuedNotification notification, final boolean sent, final String messageId, final String status) {
+        this.notification = notification;
+        this.sent = sent;
+        this.messageId = messageId;
+        this.status = status;
+    }
+
+    public QueuedNotification getNotification() {
+        return this.notification;
+    }
+
+    public boolean isSent() {
+        return this.sent;
+    }
+
+    public String getMessageId() {
+        return this.messageId;
+    }
+
+    public String getStatus() {
+        return this.status;
+    }
+}
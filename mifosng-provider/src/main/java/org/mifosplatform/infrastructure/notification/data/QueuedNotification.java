@@ -0,0 +1,89 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.notification.data;
+
+import org.mifosplatform.infrastructure.notification.domain.NotificationType;
+
+/**
+ * Immutable data object for a notification waiting in
+ * <code>notification_queue</code>.
+ */
+public class QueuedNotification {
+
+    private final Long id;
+    private final NotificationType type;
+    private final String recipient;
+    private final String recipientName;
+    private final String subject;
+    private final String message;
+    private final String entityName;
+    private final Long entityId;
+    private final int attempts;
+
+    public static QueuedNotification sms(final String recipient, final String message, final String entityName, final Long entityId) {
+        return new QueuedNotification(null, NotificationType.SMS, recipient, null, null, message, entityName, entityId, 0);
+    }
+
+    public static QueuedNotification email(final String recipient, final String recipientName, final String subject,
+            final String message, final String entityName, final Long entityId) {
+        return new QueuedNotification(null, NotificationType.EMAIL, recipient, recipientName, subject, message, entityName, entityId, 0);
+    }
+
+    public static QueuedNotification instance(final Long id, final NotificationType type, final String recipient,
+            final String recipientName, final String subject, final String message, final String entityName, final Long entityId,
+            final int attempts) {
+        return new QueuedNotification(id, type, recipient, recipientName, subject, message, entityName, entityId, attempts);
+    }
+
+    private QueuedNotification(final Long id, final NotificationType type, final String recipient, final String recipientName,
+            final String subject, final String message, final String entityName, final Long entityId, final int attempts) {
+        this.id = id;
+        this.type = type;
+        this.recipient = recipient;
+        this.recipientName = recipientName;
+        this.subject = subject;
+        this.message = message;
+        this.entityName = entityName;
+        this.entityId = entityId;
+        this.attempts = attempts;
+    }
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public NotificationType getType() {
+        return this.type;
+    }
+
+    public String getRecipient() {
+        return this.recipient;
+    }
+
+    public String getRecipientName() {
+        return this.recipientName;
+    }
+
+    public String getSubject() {
+        return this.subject;
+    }
+
+    public String getMessage() {
+        return this.message;
+    }
+
+    public String getEntityName() {
+        return this.entityName;
+    }
+
+    public Long getEntityId() {
+        return this.entityId;
+    }
+
+    public int getAttempts() {
+        return this.attempts;
+    }
+}
@@ -0,0 +1,26 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.notification.domain;
+
+/**
+ * Status of a notification in <code>notification_queue</code>.
+ */
+public enum NotificationStatus {
+
+    PENDING(100), //
+    SENT(200), //
+    FAILED(300);
+
+    private final Integer value;
+
+    private NotificationStatus(final Integer value) {
+        this.value = value;
+    }
+
+    public Integer getValue() {
+        return this.value;
+    }
+}
@@ -0,0 +1,22 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.notification.gateway;
+
+import org.mifosplatform.infrastructure.notification.data.NotificationOutcome;
+import org.mifosplatform.infrastructure.notification.data.QueuedNotification;
+
+/**
+ * Delivers notifications of the current tenant to an external service.
+ * Implementations are called concurrently by the dispatch workers.
+ */
+public interface NotificationGateway {
+
+    /**
+     * @return the outcome of the attempt; errors of the external service are
+     *         reported as a failed outcome rather than thrown
+     */
+    NotificationOutcome send(QueuedNotification notification);
+}
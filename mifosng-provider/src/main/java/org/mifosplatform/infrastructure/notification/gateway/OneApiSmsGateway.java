@@ -0,0 +1,96 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.notification.gateway;
+
+import java.util.concurrent.TimeUnit;
+
+import oneapi.client.impl.SMSClient;
+import oneapi.config.Configuration;
+import oneapi.model.SMSRequest;
+import oneapi.model.SendMessageResult;
+import oneapi.model.SendMessageResultItem;
+
+import org.mifosplatform.infrastructure.configuration.data.SmsCredentialsData;
+import org.mifosplatform.infrastructure.configuration.service.ExternalServicesReadPlatformService;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.infrastructure.notification.data.NotificationOutcome;
+import org.mifosplatform.infrastructure.notification.data.QueuedNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Sends SMS notifications through the OneAPI client, with one client per
+ * tenant configured from the tenant's SMS external service settings. The
+ * settings are read again once the client is
+ * {@value #CLIENT_EXPIRY_IN_MINUTES} minutes old, so changes to them are
+ * picked up.
+ */
+@Component
+public class OneApiSmsGateway implements NotificationGateway {
+
+    private static final Logger logger = LoggerFactory.getLogger(OneApiSmsGateway.class);
+
+    private static final long CLIENT_EXPIRY_IN_MINUTES = 5;
+
+    private final ExternalServicesReadPlatformService externalServicesReadPlatformService;
+    private final Cache<String, TenantSmsClient> clients = CacheBuilder.newBuilder()
+            .expireAfterWrite(CLIENT_EXPIRY_IN_MINUTES, TimeUnit.MINUTES).build();
+
+    @Autowired
+    public OneApiSmsGateway(final ExternalServicesReadPlatformService externalServicesReadPlatformService) {
+        this.externalServicesReadPlatformService = externalServicesReadPlatformService;
+    }
+
+    @Override
+    public NotificationOutcome send(final QueuedNotification notification) {
+        final TenantSmsClient client = client();
+        final String to = client.credentials.isDebug() ? client.credentials.getDebugPhone() : notification.getRecipient();
+
+        final SMSRequest smsRequest = new SMSRequest(client.credentials.getSenderAddress(), notification.getMessage(), to);
+        smsRequest.setSenderName(client.credentials.getSenderName());
+        final String notifyUrl = client.credentials.getNotifyUrl();
+        if (notifyUrl != null && !"".equals(notifyUrl.trim())) {
+            smsRequest.setNotifyURL(notifyUrl);
+        }
+
+        try {
+            final SendMessageResult result = client.smsClient.getSMSMessagingClient().sendSMS(smsRequest);
+            final SendMessageResultItem item = result.getSendMessageResults()[0];
+            return NotificationOutcome.sent(notification, item.getMessageId(), item.getMessageStatus());
+        } catch (final RuntimeException e) {
+            logger.error("SMS notification to " + to + " failed", e);
+            return NotificationOutcome.failed(notification, e.toString());
+        }
+    }
+
+    private TenantSmsClient client() {
+        final String tenantIdentifier = ThreadLocalContextUtil.getTenant().getTenantIdentifier();
+        TenantSmsClient client = this.clients.getIfPresent(tenantIdentifier);
+        if (client == null) {
+            final SmsCredentialsData credentials = this.externalServicesReadPlatformService.getSmsCredentials();
+            client = new TenantSmsClient(credentials, new SMSClient(new Configuration(credentials.getAuthUsername(),
+                    credentials.getAuthPassword())));
+            this.clients.put(tenantIdentifier, client);
+        }
+        return client;
+    }
+
+    private static final class TenantSmsClient {
+
+        private final SmsCredentialsData credentials;
+        private final SMSClient smsClient;
+
+        TenantSmsClient(final SmsCredentialsData credentials, final SMSClient smsClient) {
+            this.credentials = credentials;
+            this.smsClient = smsClient;
+        }
+    }
+}
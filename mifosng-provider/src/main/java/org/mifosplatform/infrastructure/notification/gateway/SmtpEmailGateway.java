@@ -0,0 +1,85 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.notification.gateway;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.mail.DefaultAuthenticator;
+import org.apache.commons.mail.Email;
+import org.apache.commons.mail.EmailException;
+import org.apache.commons.mail.SimpleEmail;
+import org.mifosplatform.infrastructure.configuration.data.EmailCredentialsData;
+import org.mifosplatform.infrastructure.configuration.service.ExternalServicesReadPlatformService;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.infrastructure.notification.data.NotificationOutcome;
+import org.mifosplatform.infrastructure.notification.data.QueuedNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Sends email notifications over SMTP using the tenant's email external
+ * service settings, which are read again once they are
+ * {@value #CREDENTIALS_EXPIRY_IN_MINUTES} minutes old so changes to them are
+ * picked up.
+ */
+@Component
+public class SmtpEmailGateway implements NotificationGateway {
+
+    private static final Logger logger = LoggerFactory.getLogger(SmtpEmailGateway.class);
+
+    // recommended socket timeout - 5 min https://support.google.com/mail/answer/13287?hl=en
+    private static final int SOCKET_TIMEOUT_IN_MILLIS = 300000;
+    private static final long CREDENTIALS_EXPIRY_IN_MINUTES = 5;
+
+    private final ExternalServicesReadPlatformService externalServicesReadPlatformService;
+    private final Cache<String, EmailCredentialsData> credentials = CacheBuilder.newBuilder()
+            .expireAfterWrite(CREDENTIALS_EXPIRY_IN_MINUTES, TimeUnit.MINUTES).build();
+
+    @Autowired
+    public SmtpEmailGateway(final ExternalServicesReadPlatformService externalServicesReadPlatformService) {
+        this.externalServicesReadPlatformService = externalServicesReadPlatformService;
+    }
+
+    @Override
+    public NotificationOutcome send(final QueuedNotification notification) {
+        final EmailCredentialsData credentials = credentials();
+        try {
+            final Email email = new SimpleEmail();
+            email.setAuthenticator(new DefaultAuthenticator(credentials.getAuthUsername(), credentials.getAuthPassword()));
+            email.setDebug(credentials.isDebug());
+            email.setHostName(credentials.getHost());
+            email.setStartTLSEnabled(credentials.isStartTls());
+            if (credentials.getSmtpPort() > 0) {
+                email.setSmtpPort(credentials.getSmtpPort());
+            }
+            email.setSocketTimeout(SOCKET_TIMEOUT_IN_MILLIS);
+            email.setFrom(credentials.getAuthUsername(), credentials.getSenderName());
+            email.setSubject(notification.getSubject());
+            email.setMsg(notification.getMessage());
+            email.addTo(notification.getRecipient(), notification.getRecipientName());
+            return NotificationOutcome.sent(notification, email.send(), "");
+        } catch (final EmailException e) {
+            logger.error("Email notification to " + notification.getRecipient() + " failed", e);
+            final String errorMessage = e.getCause() != null && e.getCause().toString() != null ? e.getCause().toString() : e.toString();
+            return NotificationOutcome.failed(notification, errorMessage);
+        }
+    }
+
+    private EmailCredentialsData credentials() {
+        final String tenantIdentifier = ThreadLocalContextUtil.getTenant().getTenantIdentifier();
+        EmailCredentialsData tenantCredentials = this.credentials.getIfPresent(tenantIdentifier);
+        if (tenantCredentials == null) {
+            tenantCredentials = this.externalServicesReadPlatformService.getEmailCredentials();
+            this.credentials.put(tenantIdentifier, tenantCredentials);
+        }
+        return tenantCredentials;
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.notification.gateway;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.mifosplatform.infrastructure.notification.data.NotificationOutcome;
+import org.mifosplatform.infrastructure.notification.data.QueuedNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Gateway for test environments, used for every channel when the
+ * <code>notification-stub-gateway</code> configuration is enabled. Messages
+ * are logged and kept in memory instead of being sent.
+ */
+@Component
+public class StubNotificationGateway implements NotificationGateway {
+
+    private static final Logger logger = LoggerFactory.getLogger(StubNotificationGateway.class);
+
+    private static final int MAX_RECORDED_MESSAGES = 1000;
+
+    private final AtomicLong messageIds = new AtomicLong();
+    private final List<QueuedNotification> sentMessages = new ArrayList<>();
+
+    @Override
+    public NotificationOutcome send(final QueuedNotification notification) {
+        final String messageId = "stub-" + this.messageIds.incrementAndGet();
+        synchronized (this.sentMessages) {
+            if (this.sentMessages.size() == MAX_RECORDED_MESSAGES) {
+                this.sentMessages.remove(0);
+            }
+            this.sentMessages.add(notification);
+        }
+        logger.info("Stub " + notification.getType() + " notification " + messageId + " to " + notification.getRecipient() + ": "
+                + notification.getMessage());
+        return NotificationOutcome.sent(notification, messageId, "DeliveredToTerminal");
+    }
+
+    /**
+     * @return the most recent messages, oldest first
+     */
+    public List<QueuedNotification> getSentMessages() {
+        synchronized (this.sentMessages) {
+            return new ArrayList<>(this.sentMessages);
+        }
+    }
+
+    public void clear() {
+        synchronized (this.sentMessages) {
+            this.sentMessages.clear();
+        }
+    }
+}
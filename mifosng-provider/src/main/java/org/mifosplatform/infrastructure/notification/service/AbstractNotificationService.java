@@ -4,7 +4,8 @@ import org.joda.time.LocalDate;
 import org.mifosplatform.infrastructure.configuration.domain.GlobalConfigurationProperty;
 import org.mifosplatform.infrastructure.configuration.domain.GlobalConfigurationRepository;
 import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
-import org.mifosplatform.infrastructure.notification.domain.NotificationLogRepository;
+import org.mifosplatform.infrastructure.notification.data.QueuedNotification;
+import org.mifosplatform.infrastructure.notification.domain.NotificationType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.jdbc.core.ColumnMapRowMapper;
@@ -26,7 +27,9 @@ public abstract class AbstractNotificationService implements NotificationService
 
     protected final JdbcTemplate jdbcTemplate;
 
-    protected final NotificationLogRepository notificationLogRepository;
+    protected final NotificationQueueService notificationQueueService;
+
+    protected final NotificationDispatcher notificationDispatcher;
 
     protected final GlobalConfigurationRepository globalConfigurationRepository;
 
@@ -34,7 +37,6 @@ public abstract class AbstractNotificationService implements NotificationService
 
     protected static final String queryFollowUpOfficers = "SELECT MAX(n.id) AS note_id, n.createdByUserName AS username,u.email, u.firstname, u.lastname FROM notes n, m_appuser u WHERE n.createdByUserName=u.username AND (SELECT COUNT(id) FROM notification_log WHERE id=n.notification_id)=0 AND n.followUpDate = CURRENT_DATE() GROUP BY email, firstname, lastname";
     protected static final String queryFollowUpClients = "SELECT l.client_id, c.firstname, c.lastname, c.account_no, ifnull(c.external_id,'') file_no, c.mobile_no FROM notes n, m_loan l, m_client c WHERE n.loan_id=l.id AND l.client_id=c.id AND n.followUpDate = CURRENT_DATE() AND n.createdByUserName = ?";
-    protected static final String updateNotes = "UPDATE notes SET notification_id=? WHERE followUpDate = CURRENT_DATE() AND createdByUserName = ?";
     protected static final String queryPaymentReminderClients = "SELECT lrs.id AS loan_repayment_schedule_id, c.firstname, c.lastname, c.mobile_no FROM m_loan_repayment_schedule lrs, m_loan l, m_client c WHERE lrs.loan_id = l.id AND l.client_id = c.id AND l.loan_status_id IN (800, 900) AND lrs.principal_amount > 0 AND (SELECT count(entity_id) FROM notification_log WHERE entity_name='m_loan_repayment_schedule' AND entity_id=lrs.id)=0 AND lrs.duedate = DATE_ADD(CURDATE(), INTERVAL ? DAY)";
     protected static final String queryExpiredLoans = "SELECT " +
             "l.id AS loan_id, " +
@@ -57,10 +59,11 @@ public abstract class AbstractNotificationService implements NotificationService
 
     protected static final String CONFIG_NOTIFICATION_LPI_PAYMENT_REMINDER_DAYS = "notification-lpi-payment-reminder-days";
 
-    protected AbstractNotificationService(final RoutingDataSource dataSource, final NotificationLogRepository notificationLogRepository, final GlobalConfigurationRepository globalConfigurationRepository) {
+    protected AbstractNotificationService(final RoutingDataSource dataSource, final NotificationQueueService notificationQueueService, final NotificationDispatcher notificationDispatcher, final GlobalConfigurationRepository globalConfigurationRepository) {
         this.dataSource = dataSource;
         this.jdbcTemplate = new JdbcTemplate(dataSource);
-        this.notificationLogRepository = notificationLogRepository;
+        this.notificationQueueService = notificationQueueService;
+        this.notificationDispatcher = notificationDispatcher;
         this.globalConfigurationRepository = globalConfigurationRepository;
     }
 
@@ -104,4 +107,13 @@ public abstract class AbstractNotificationService implements NotificationService
     protected GlobalConfigurationProperty getGlobalConfiguration(String name) {
         return globalConfigurationRepository.findOneByName(name);
     }
+
+    /**
+     * Queues the notifications and starts sending them in the background.
+     */
+    protected void queue(NotificationType type, List<QueuedNotification> notifications) {
+        int queued = notificationQueueService.enqueue(notifications);
+        logger.info("{} of {} {} notifications queued", queued, notifications.size(), type);
+        notificationDispatcher.dispatch(type);
+    }
 }
@@ -0,0 +1,358 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.notification.service;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+
+import org.mifosplatform.infrastructure.configuration.domain.GlobalConfigurationProperty;
+import org.mifosplatform.infrastructure.configuration.domain.GlobalConfigurationRepository;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.infrastructure.metrics.service.PlatformMetricsService;
+import org.mifosplatform.infrastructure.notification.data.NotificationOutcome;
+import org.mifosplatform.infrastructure.notification.data.QueuedNotification;
+import org.mifosplatform.infrastructure.notification.domain.NotificationType;
+import org.mifosplatform.infrastructure.notification.gateway.NotificationGateway;
+import org.mifosplatform.infrastructure.notification.gateway.OneApiSmsGateway;
+import org.mifosplatform.infrastructure.notification.gateway.SmtpEmailGateway;
+import org.mifosplatform.infrastructure.notification.gateway.StubNotificationGateway;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Sends the queued notifications of a tenant in the background.
+ *
+ * Each tenant and channel is drained by one coordinator at a time, which
+ * hands notifications to a shared pool of dispatch workers at no more than
+ * the channel's configured rate. Coordinators never wait, for a permit or for
+ * the workers, so a busy or rate limited tenant does not hold up the others. Failed notifications are retried with
+ * back off until the configured number of attempts; a drain is scheduled
+ * for when the next retry falls due.
+ *
+ * Sent and failed notifications are counted per channel in the platform
+ * metrics (<code>notification.sms.sent</code>,
+ * <code>notification.sms.failed</code> and the
+ * <code>notification.sms.send</code> timer, likewise for email).
+ */
+@Component
+public class NotificationDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+    private static final int DISPATCH_WORKERS = 4;
+    private static final int BATCH_SIZE = 100;
+    private static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    static final String CONFIG_MAX_ATTEMPTS = "notification-max-attempts";
+    static final String CONFIG_STUB_GATEWAY = "notification-stub-gateway";
+
+    private final NotificationQueueService notificationQueueService;
+    private final GlobalConfigurationRepository globalConfigurationRepository;
+    private final PlatformMetricsService metricsService;
+    private final OneApiSmsGateway smsGateway;
+    private final SmtpEmailGateway emailGateway;
+    private final StubNotificationGateway stubGateway;
+    private final ScheduledExecutorService coordinators;
+    private final ExecutorService workers;
+    private final Map<String, Channel> channels = new ConcurrentHashMap<>();
+
+    @Autowired
+    public NotificationDispatcher(final NotificationQueueService notificationQueueService,
+            final GlobalConfigurationRepository globalConfigurationRepository, final PlatformMetricsService metricsService,
+            final OneApiSmsGateway smsGateway, final SmtpEmailGateway emailGateway, final StubNotificationGateway stubGateway) {
+        this.notificationQueueService = notificationQueueService;
+        this.globalConfigurationRepository = globalConfigurationRepository;
+        this.metricsService = metricsService;
+        this.smsGateway = smsGateway;
+        this.emailGateway = emailGateway;
+        this.stubGateway = stubGateway;
+        this.coordinators = Executors.newScheduledThreadPool(NotificationType.values().length, new ThreadFactoryBuilder()
+                .setNameFormat("notification-coordinator-%d").setDaemon(true).build());
+        this.workers = Executors.newFixedThreadPool(DISPATCH_WORKERS, new ThreadFactoryBuilder()
+                .setNameFormat("notification-dispatch-%d").setDaemon(true).build());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.coordinators.shutdownNow();
+        this.workers.shutdownNow();
+    }
+
+    /**
+     * Starts sending the due notifications of the type for the current
+     * tenant, and returns without waiting for them to be sent.
+     */
+    public void dispatch(final NotificationType type) {
+        scheduleDrain(channel(ThreadLocalContextUtil.getTenant(), type), 0);
+    }
+
+    private void schedule(final Channel channel, final Runnable task, final long delayInMillis) {
+        this.coordinators.schedule(new Runnable() {
+
+            @Override
+            public void run() {
+                ThreadLocalContextUtil.setTenant(channel.tenant);
+                try {
+                    task.run();
+                } catch (final RuntimeException e) {
+                    logger.error(channel.tenant.getTenantIdentifier() + ": " + channel.type + " notification dispatch failed", e);
+                    channel.reset();
+                    finish(channel);
+                } finally {
+                    ThreadLocalContextUtil.clearTenant();
+                }
+            }
+        }, delayInMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void drain(final Channel channel) {
+        if (!channel.draining.compareAndSet(false, true)) {
+            channel.requested.set(true);
+            return;
+        }
+        channel.requested.set(false);
+        nextBatch(channel);
+    }
+
+    /*
+     * records the outcomes of the batch just sent, if any, and starts sending
+     * the next one
+     */
+    private void nextBatch(final Channel channel) {
+        if (!channel.outcomes.isEmpty()) {
+            final List<NotificationOutcome> outcomes;
+            synchronized (channel.outcomes) {
+                outcomes = new ArrayList<>(channel.outcomes);
+                channel.outcomes.clear();
+            }
+            this.notificationQueueService.recordOutcomes(outcomes, channel.maxAttempts);
+        }
+
+        final List<QueuedNotification> due = this.notificationQueueService.retrieveDue(channel.type, BATCH_SIZE);
+        if (due.isEmpty()) {
+            finish(channel);
+            return;
+        }
+        channel.startBatch(due, gateway(channel.type), maxAttempts());
+        submit(channel);
+    }
+
+    /*
+     * hands the batch to the workers as fast as the channel's rate allows; a
+     * coordinator never waits for a permit, but comes back when the next one
+     * should be available, so other tenants are not held up
+     */
+    private void submit(final Channel channel) {
+        final RateLimiter rateLimiter = channel.rateLimiter();
+        QueuedNotification notification;
+        while ((notification = channel.unsent.peek()) != null) {
+            if (rateLimiter != null && !rateLimiter.tryAcquire()) {
+                schedule(channel, new Runnable() {
+
+                    @Override
+                    public void run() {
+                        submit(channel);
+                    }
+                }, (long) Math.ceil(1000 / rateLimiter.getRate()));
+                return;
+            }
+            channel.unsent.poll();
+            channel.inFlight.incrementAndGet();
+            send(channel, notification);
+        }
+        release(channel);
+    }
+
+    private void send(final Channel channel, final QueuedNotification notification) {
+        final String metric = "notification." + channel.type.name().toLowerCase();
+        this.workers.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                ThreadLocalContextUtil.setTenant(channel.tenant);
+                NotificationOutcome outcome;
+                try {
+                    final long start = System.currentTimeMillis();
+                    outcome = channel.gateway.send(notification);
+                    NotificationDispatcher.this.metricsService.recordDuration(metric + ".send", System.currentTimeMillis() - start);
+                } catch (final RuntimeException e) {
+                    logger.error(channel.type + " notification " + notification.getId() + " failed", e);
+                    outcome = NotificationOutcome.failed(notification, e.toString());
+                } finally {
+                    ThreadLocalContextUtil.clearTenant();
+                }
+                NotificationDispatcher.this.metricsService.increment(metric + (outcome.isSent() ? ".sent" : ".failed"));
+                channel.completed(outcome);
+                release(channel);
+            }
+        });
+    }
+
+    /*
+     * the coordinator holds one count of inFlight until the whole batch is
+     * submitted, so whoever completes the batch last moves on to the next
+     */
+    private void release(final Channel channel) {
+        if (channel.inFlight.decrementAndGet() > 0) { return; }
+        schedule(channel, new Runnable() {
+
+            @Override
+            public void run() {
+                nextBatch(channel);
+            }
+        }, 0);
+    }
+
+    private void finish(final Channel channel) {
+        final MifosPlatformTenant tenant = channel.tenant;
+        if (channel.sent + channel.failed > 0) {
+            logger.info(tenant.getTenantIdentifier() + ": " + channel.sent + " " + channel.type + " notifications sent, "
+                    + channel.failed + " failed");
+        }
+        channel.sent = 0;
+        channel.failed = 0;
+        try {
+            final Date nextAttempt = this.notificationQueueService.retrieveNextAttemptTime(channel.type);
+            if (nextAttempt != null) {
+                scheduleDrain(channel, Math.max(0, nextAttempt.getTime() - System.currentTimeMillis()));
+            }
+        } catch (final RuntimeException e) {
+            logger.error(tenant.getTenantIdentifier() + ": " + channel.type + " notification retries could not be scheduled", e);
+        }
+        channel.draining.set(false);
+        // dispatch requested while draining
+        if (channel.requested.get()) {
+            scheduleDrain(channel, 0);
+        }
+    }
+
+    private void scheduleDrain(final Channel channel, final long delayInMillis) {
+        schedule(channel, new Runnable() {
+
+            @Override
+            public void run() {
+                drain(channel);
+            }
+        }, delayInMillis);
+    }
+
+    private int maxAttempts() {
+        final GlobalConfigurationProperty maxAttemptsConfiguration = configuration(CONFIG_MAX_ATTEMPTS);
+        return maxAttemptsConfiguration != null && maxAttemptsConfiguration.isEnabled() && maxAttemptsConfiguration.getValue() != null
+                ? maxAttemptsConfiguration.getValue().intValue() : DEFAULT_MAX_ATTEMPTS;
+    }
+
+    private NotificationGateway gateway(final NotificationType type) {
+        final GlobalConfigurationProperty stub = configuration(CONFIG_STUB_GATEWAY);
+        if (stub != null && stub.isEnabled()) { return this.stubGateway; }
+        return type == NotificationType.SMS ? this.smsGateway : this.emailGateway;
+    }
+
+    private GlobalConfigurationProperty configuration(final String name) {
+        return this.globalConfigurationRepository.findOneByName(name);
+    }
+
+    private Channel channel(final MifosPlatformTenant tenant, final NotificationType type) {
+        final String key = tenant.getTenantIdentifier() + ":" + type;
+        Channel channel = this.channels.get(key);
+        if (channel == null) {
+            this.channels.putIfAbsent(key, new Channel(tenant, type));
+            channel = this.channels.get(key);
+        }
+        return channel;
+    }
+
+    /**
+     * Dispatch state of one tenant and notification type. Only one drain of
+     * a channel runs at a time, and its steps run one after the other.
+     */
+    private final class Channel {
+
+        private final MifosPlatformTenant tenant;
+        private final NotificationType type;
+        private final String rateConfiguration;
+        private final AtomicBoolean draining = new AtomicBoolean(false);
+        private final AtomicBoolean requested = new AtomicBoolean(false);
+        private final Queue<QueuedNotification> unsent = new ConcurrentLinkedQueue<>();
+        private final List<NotificationOutcome> outcomes = new ArrayList<>();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private volatile NotificationGateway gateway;
+        private volatile int maxAttempts;
+        private volatile int sent;
+        private volatile int failed;
+        private RateLimiter rateLimiter;
+
+        Channel(final MifosPlatformTenant tenant, final NotificationType type) {
+            this.tenant = tenant;
+            this.type = type;
+            this.rateConfiguration = "notification-" + type.name().toLowerCase() + "-max-per-second";
+        }
+
+        void startBatch(final List<QueuedNotification> due, final NotificationGateway batchGateway, final int batchMaxAttempts) {
+            this.gateway = batchGateway;
+            this.maxAttempts = batchMaxAttempts;
+            this.unsent.addAll(due);
+            this.inFlight.set(1);
+        }
+
+        void completed(final NotificationOutcome outcome) {
+            synchronized (this.outcomes) {
+                this.outcomes.add(outcome);
+                if (outcome.isSent()) {
+                    this.sent++;
+                } else {
+                    this.failed++;
+                }
+            }
+        }
+
+        /*
+         * notifications not sent are left in the queue and picked up by the
+         * next drain
+         */
+        void reset() {
+            this.unsent.clear();
+            synchronized (this.outcomes) {
+                this.outcomes.clear();
+            }
+        }
+
+        /**
+         * @return the limiter for the configured rate, or null when the rate
+         *         is not limited; only called by the draining coordinator
+         */
+        RateLimiter rateLimiter() {
+            final GlobalConfigurationProperty rate = configuration(this.rateConfiguration);
+            if (rate == null || !rate.isEnabled() || rate.getValue() == null || rate.getValue() <= 0) {
+                this.rateLimiter = null;
+            } else if (this.rateLimiter == null) {
+                this.rateLimiter = RateLimiter.create(rate.getValue());
+            } else if (this.rateLimiter.getRate() != rate.getValue()) {
+                this.rateLimiter.setRate(rate.getValue());
+            }
+            return this.rateLimiter;
+        }
+    }
+}
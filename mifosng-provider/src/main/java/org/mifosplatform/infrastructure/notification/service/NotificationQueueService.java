@@ -0,0 +1,46 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.notification.service;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import org.mifosplatform.infrastructure.notification.data.NotificationOutcome;
+import org.mifosplatform.infrastructure.notification.data.QueuedNotification;
+import org.mifosplatform.infrastructure.notification.domain.NotificationType;
+
+/**
+ * Persists notifications of the current tenant in
+ * <code>notification_queue</code> until they are sent, or given up after
+ * the configured number of attempts, and records the outcome in
+ * <code>notification_log</code>.
+ */
+public interface NotificationQueueService {
+
+    /**
+     * Queues the notifications, skipping any whose entity already has a
+     * pending notification of the same type.
+     *
+     * @return the number of notifications queued
+     */
+    int enqueue(Collection<QueuedNotification> notifications);
+
+    List<QueuedNotification> retrieveDue(NotificationType type, int maxNotifications);
+
+    /**
+     * @return the earliest time a pending notification of the type is due,
+     *         or null when none is pending
+     */
+    Date retrieveNextAttemptTime(NotificationType type);
+
+    /**
+     * Marks sent notifications as such, schedules failed ones for another
+     * attempt or gives them up after maxAttempts, and logs sent and given up
+     * notifications with one batch insert.
+     */
+    void recordOutcomes(Collection<NotificationOutcome> outcomes, int maxAttempts);
+}
@@ -0,0 +1,164 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.notification.service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.commons.lang.StringUtils;
+import org.joda.time.DateTime;
+import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
+import org.mifosplatform.infrastructure.notification.data.NotificationOutcome;
+import org.mifosplatform.infrastructure.notification.data.QueuedNotification;
+import org.mifosplatform.infrastructure.notification.domain.NotificationStatus;
+import org.mifosplatform.infrastructure.notification.domain.NotificationType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+public class NotificationQueueServiceImpl implements NotificationQueueService {
+
+    private static final int MAX_ERROR_LENGTH = 255;
+    private static final int MAX_BACKOFF_DOUBLINGS = 10;
+
+    private static final String ENQUEUE_SQL = "insert into notification_queue (type, recipient, recipient_name, subject, message, "
+            + "entity_name, entity_id, status_enum, attempts, next_attempt_at, created_date) "
+            + "select ?, ?, ?, ?, ?, ?, ?, ?, 0, ?, ? from dual where not exists (select 1 from notification_queue q "
+            + "where q.type = ? and q.entity_name = ? and q.entity_id = ? and q.status_enum = ?)";
+
+    private static final String LOG_SQL = "insert into notification_log (type, recipient, entity_name, entity_id, sent_at, sent, "
+            + "sms_error, message_id) values (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String NOTE_NOTIFICATION_SQL = "update notes n, notes src, notification_log l set n.notification_id = l.id "
+            + "where src.id = ? and l.entity_name = 'm_note' and l.entity_id = src.id and l.sent = 1 "
+            + "and n.followUpDate = CURRENT_DATE() and n.createdByUserName = src.createdByUserName";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public NotificationQueueServiceImpl(final RoutingDataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Transactional
+    @Override
+    public int enqueue(final Collection<QueuedNotification> notifications) {
+        if (notifications.isEmpty()) { return 0; }
+
+        final Timestamp now = new Timestamp(System.currentTimeMillis());
+        final Integer pending = NotificationStatus.PENDING.getValue();
+        final List<Object[]> batch = new ArrayList<>(notifications.size());
+        for (final QueuedNotification notification : notifications) {
+            batch.add(new Object[] { notification.getType().name(), notification.getRecipient(), notification.getRecipientName(),
+                    notification.getSubject(), notification.getMessage(), notification.getEntityName(), notification.getEntityId(),
+                    pending, now, now, notification.getType().name(), notification.getEntityName(), notification.getEntityId(), pending });
+        }
+        int queued = 0;
+        for (final int updated : this.jdbcTemplate.batchUpdate(ENQUEUE_SQL, batch)) {
+            // drivers may report SUCCESS_NO_INFO (-2) for batched statements
+            queued += updated == 0 ? 0 : 1;
+        }
+        return queued;
+    }
+
+    @Override
+    public List<QueuedNotification> retrieveDue(final NotificationType type, final int maxNotifications) {
+        final QueuedNotificationMapper rm = new QueuedNotificationMapper();
+        final String sql = "select " + rm.schema() + " where q.status_enum = ? and q.type = ? and q.next_attempt_at <= ? "
+                + "order by q.id limit ?";
+        return this.jdbcTemplate.query(sql, rm, NotificationStatus.PENDING.getValue(), type.name(),
+                new Timestamp(System.currentTimeMillis()), maxNotifications);
+    }
+
+    @Override
+    public Date retrieveNextAttemptTime(final NotificationType type) {
+        return this.jdbcTemplate.queryForObject(
+                "select min(q.next_attempt_at) from notification_queue q where q.status_enum = ? and q.type = ?", Timestamp.class,
+                NotificationStatus.PENDING.getValue(), type.name());
+    }
+
+    @Transactional
+    @Override
+    public void recordOutcomes(final Collection<NotificationOutcome> outcomes, final int maxAttempts) {
+        final Timestamp now = new Timestamp(System.currentTimeMillis());
+        final List<Object[]> sent = new ArrayList<>();
+        final List<Object[]> retries = new ArrayList<>();
+        final List<Object[]> failed = new ArrayList<>();
+        final List<Object[]> logs = new ArrayList<>();
+        final List<Object[]> notes = new ArrayList<>();
+
+        for (final NotificationOutcome outcome : outcomes) {
+            final QueuedNotification notification = outcome.getNotification();
+            final String status = StringUtils.abbreviate(outcome.getStatus(), MAX_ERROR_LENGTH);
+            final int attempts = notification.getAttempts() + 1;
+            if (!outcome.isSent() && attempts < maxAttempts) {
+                // back off exponentially from one minute
+                final int backoffInMinutes = 1 << Math.min(attempts - 1, MAX_BACKOFF_DOUBLINGS);
+                final Timestamp nextAttempt = new Timestamp(new DateTime(now.getTime()).plusMinutes(backoffInMinutes).getMillis());
+                retries.add(new Object[] { attempts, nextAttempt, status, notification.getId() });
+                continue;
+            }
+
+            if (outcome.isSent()) {
+                sent.add(new Object[] { attempts, notification.getId() });
+                if ("m_note".equals(notification.getEntityName())) {
+                    notes.add(new Object[] { notification.getEntityId() });
+                }
+            } else {
+                failed.add(new Object[] { attempts, status, notification.getId() });
+            }
+            logs.add(new Object[] { notification.getType().name(), notification.getRecipient(), notification.getEntityName(),
+                    notification.getEntityId(), now, outcome.isSent(), status, outcome.getMessageId() });
+        }
+
+        if (!sent.isEmpty()) {
+            this.jdbcTemplate.batchUpdate("update notification_queue set status_enum = " + NotificationStatus.SENT.getValue()
+                    + ", attempts = ?, last_error = null where id = ?", sent);
+        }
+        if (!retries.isEmpty()) {
+            this.jdbcTemplate.batchUpdate("update notification_queue set attempts = ?, next_attempt_at = ?, last_error = ? where id = ?",
+                    retries);
+        }
+        if (!failed.isEmpty()) {
+            this.jdbcTemplate.batchUpdate("update notification_queue set status_enum = " + NotificationStatus.FAILED.getValue()
+                    + ", attempts = ?, last_error = ? where id = ?", failed);
+        }
+        if (!logs.isEmpty()) {
+            this.jdbcTemplate.batchUpdate(LOG_SQL, logs);
+        }
+        if (!notes.isEmpty()) {
+            this.jdbcTemplate.batchUpdate(NOTE_NOTIFICATION_SQL, notes);
+        }
+    }
+
+    private static final class QueuedNotificationMapper implements RowMapper<QueuedNotification> {
+
+        public String schema() {
+            return " q.id as id, q.type as type, q.recipient as recipient, q.recipient_name as recipientName, q.subject as subject, "
+                    + "q.message as message, q.entity_name as entityName, q.entity_id as entityId, q.attempts as attempts "
+                    + "from notification_queue q";
+        }
+
+        @Override
+        public QueuedNotification mapRow(final ResultSet rs, @SuppressWarnings("unused") final int rowNum) throws SQLException {
+            Long entityId = rs.getLong("entityId");
+            if (rs.wasNull()) {
+                entityId = null;
+            }
+            return QueuedNotification.instance(rs.getLong("id"), NotificationType.valueOf(rs.getString("type")),
+                    rs.getString("recipient"), rs.getString("recipientName"), rs.getString("subject"), rs.getString("message"),
+                    rs.getString("entityName"), entityId, rs.getInt("attempts"));
+        }
+    }
+}
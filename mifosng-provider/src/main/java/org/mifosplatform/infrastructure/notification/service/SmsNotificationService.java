@@ -1,20 +1,12 @@
 package org.mifosplatform.infrastructure.notification.service;
 
-import oneapi.client.impl.SMSClient;
-import oneapi.config.Configuration;
-import oneapi.model.SMSRequest;
-import oneapi.model.SendMessageResult;
-import oneapi.model.SendMessageResultItem;
 import org.joda.time.DateTime;
-import org.mifosplatform.infrastructure.configuration.data.SmsCredentialsData;
 import org.mifosplatform.infrastructure.configuration.domain.GlobalConfigurationProperty;
 import org.mifosplatform.infrastructure.configuration.domain.GlobalConfigurationRepository;
-import org.mifosplatform.infrastructure.configuration.service.ExternalServicesReadPlatformService;
 import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
 import org.mifosplatform.infrastructure.jobs.annotation.CronTarget;
 import org.mifosplatform.infrastructure.jobs.service.JobName;
-import org.mifosplatform.infrastructure.notification.domain.NotificationLog;
-import org.mifosplatform.infrastructure.notification.domain.NotificationLogRepository;
+import org.mifosplatform.infrastructure.notification.data.QueuedNotification;
 import org.mifosplatform.infrastructure.notification.domain.NotificationType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,86 +16,45 @@ import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
-import java.util.Date;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicBoolean;
 
 @Service
 public class SmsNotificationService extends AbstractNotificationService {
     private static final Logger logger = LoggerFactory.getLogger(SmsNotificationService.class);
 
-    private final ExternalServicesReadPlatformService externalServicesReadPlatformService;
-    private String senderName = "FINEM";
-    private String senderAddress = "";
-    private String notifyUrl = null;
-    private Long outboundMaxPerDay;
-    private boolean debug = false;
-    private String debugPhone = null;
-
-    private SMSClient smsClient;
-
-    private AtomicBoolean running = new AtomicBoolean(false);
-
     @Autowired
-    public SmsNotificationService(final RoutingDataSource dataSource, final NotificationLogRepository notificationLogRepository, final ExternalServicesReadPlatformService externalServicesReadPlatformService, final GlobalConfigurationRepository globalConfigurationRepository) {
-        super(dataSource, notificationLogRepository, globalConfigurationRepository);
-
-        this.externalServicesReadPlatformService = externalServicesReadPlatformService;
+    public SmsNotificationService(final RoutingDataSource dataSource, final NotificationQueueService notificationQueueService, final NotificationDispatcher notificationDispatcher, final GlobalConfigurationRepository globalConfigurationRepository) {
+        super(dataSource, notificationQueueService, notificationDispatcher, globalConfigurationRepository);
     }
 
     @Override
     @CronTarget(jobName = JobName.PAYMENT_REMINDER_SMS_NOTIFICATION)
     public void notifyPaymentReminders() {
-        if (!running.get()) {
-            running.set(true);
-            String template = "Dear %s. Your loan repayment is due on %s. Pls pay to FINEM (U) LTD,A/C:3100009566 Centenary Bank and deliver voucher to FINEM office.Tks";
-
-            configure();
-
-            GlobalConfigurationProperty daysInAdvance = getGlobalConfiguration(CONFIG_NOTIFICATION_PAYMENT_REMINDER_DAYS_IN_ADVANCE);
+        String template = "Dear %s. Your loan repayment is due on %s. Pls pay to FINEM (U) LTD,A/C:3100009566 Centenary Bank and deliver voucher to FINEM office.Tks";
 
-            DateTime now = new DateTime();
-            DateTime dueDate = now.plusDays(daysInAdvance.getValue().intValue());
+        GlobalConfigurationProperty daysInAdvance = getGlobalConfiguration(CONFIG_NOTIFICATION_PAYMENT_REMINDER_DAYS_IN_ADVANCE);
 
-            List<Map<String, Object>> clients = getPaymentReminderClients(daysInAdvance.getValue().intValue());
+        DateTime now = new DateTime();
+        DateTime dueDate = now.plusDays(daysInAdvance.getValue().intValue());
 
-            logger.info("=============== SMS JOB - clients:{} - date:{} - id:{} - days:{}", clients, dueDate, daysInAdvance.getId(), daysInAdvance.getValue());
+        List<Map<String, Object>> clients = getPaymentReminderClients(daysInAdvance.getValue().intValue());
 
-            for (Map<String, Object> client : clients) {
-                boolean sent = false;
-                SendMessageResult result = null;
+        logger.info("=============== SMS JOB - clients:{} - date:{} - id:{} - days:{}", clients.size(), dueDate, daysInAdvance.getId(), daysInAdvance.getValue());
 
-                String mobileNo = normalize(client.get("mobile_no").toString());
-                Long loanRepaymentScheduleId = (Long) client.get("loan_repayment_schedule_id");
+        List<QueuedNotification> notifications = new ArrayList<>(clients.size());
+        for (Map<String, Object> client : clients) {
+            String mobileNo = normalize(client.get("mobile_no").toString());
+            Long loanRepaymentScheduleId = (Long) client.get("loan_repayment_schedule_id");
 
-                StringBuilder message = new StringBuilder();
-                message.append(String.format(template, client.get("firstname"), df.format(dueDate.toDate())));
+            String message = String.format(template, client.get("firstname"), df.format(dueDate.toDate()));
 
-                try {
-                    logger.info("=============== SMS DESTINATION: {} - {} - {} - {}", mobileNo, dueDate, daysInAdvance.getId(), daysInAdvance.getValue());
-                    result = send(mobileNo, message.toString());
-                    sent = true;
-                } catch (Exception e) {
-                    logger.error(e.toString(), e);
-                }
-
-                if (result != null) {
-                    SendMessageResultItem item = result.getSendMessageResults()[0];
-
-                    notificationLogRepository.save(new NotificationLog(NotificationType.SMS, mobileNo, new Date(), sent, "m_loan_repayment_schedule", loanRepaymentScheduleId, item.getMessageStatus(), item.getMessageId()));
-
-                    logger.info("############### SMS notification sent: {}", sent);
-                } else {
-                    logger.warn("############### SMS notification not sent: {} ({})", mobileNo, sent);
-                }
-            }
-
-            running.set(false);
-        } else {
-            logger.warn("############### SMS notification job is already running!");
+            notifications.add(QueuedNotification.sms(mobileNo, message, "m_loan_repayment_schedule", loanRepaymentScheduleId));
         }
+
+        queue(NotificationType.SMS, notifications);
     }
 
     @Override
@@ -113,9 +64,7 @@ public class SmsNotificationService extends AbstractNotificationService {
     }
 
     private String normalize(String mobileNo) {
-        if (debug) {
-            return debugPhone;
-        } else if (mobileNo.startsWith("0")) {
+        if (mobileNo.startsWith("0")) {
             return "256" + mobileNo.substring(1);
         } else if (mobileNo.startsWith("+")) {
             return mobileNo.substring(1);
@@ -127,91 +76,40 @@ public class SmsNotificationService extends AbstractNotificationService {
     @Override
     @CronTarget(jobName = JobName.EXPIRED_LOAN_PAYMENT_REMINDER_SMS_NOTIFICATION)
     public void notifyExpiredLoanPaymentReminders() {
-        if (!running.get()) {
-            running.set(true);
-
-            String template = "Dear %s, Please be reminded that your loan is overdue. We expect deposit of %s %s plus potential recovery cost on Finem (U) Ltd. Centenary Bank A/C: 3100009566";
+        String template = "Dear %s, Please be reminded that your loan is overdue. We expect deposit of %s %s plus potential recovery cost on Finem (U) Ltd. Centenary Bank A/C: 3100009566";
 
-            configure();
+        GlobalConfigurationProperty daysAfter = getGlobalConfiguration(CONFIG_NOTIFICATION_LPI_PAYMENT_REMINDER_DAYS);
 
-            GlobalConfigurationProperty daysAfter = getGlobalConfiguration(CONFIG_NOTIFICATION_LPI_PAYMENT_REMINDER_DAYS);
+        DateTime now = new DateTime();
+        DateTime dueDate = now.plusDays(daysAfter.getValue().intValue());
 
-            DateTime now = new DateTime();
-            DateTime dueDate = now.plusDays(daysAfter.getValue().intValue());
+        List<Map<String, Object>> clients = getExpiredLoanPaymentReminderClients(daysAfter.getValue().intValue());
 
-            List<Map<String, Object>> clients = getExpiredLoanPaymentReminderClients(daysAfter.getValue().intValue());
+        logger.info("=============== SMS JOB - clients:{} - date:{} - id:{} - days:{}", clients.size(), dueDate, daysAfter.getId(), daysAfter.getValue());
 
-            logger.info("=============== SMS JOB - clients:{} - date:{} - id:{} - days:{}", clients, dueDate, daysAfter.getId(), daysAfter.getValue());
-//            Map<String, Object> client = clients.get(0);
-            for (Map<String, Object> client : clients) {
-                boolean sent = false;
-                SendMessageResult result = null;
+        DecimalFormat df = new DecimalFormat("#,###.##", new DecimalFormatSymbols(Locale.US));
 
-                String mobileNo = normalize(client.get("mobile_no").toString());
-                Long loanId = (Long) client.get("loan_id");
+        df.setMaximumFractionDigits(2);
 
-                StringBuilder message = new StringBuilder();
-                BigDecimal amount = (BigDecimal) client.get("amount");
-                amount = amount.setScale(2, BigDecimal.ROUND_DOWN);
+        df.setMinimumFractionDigits(0);
 
-                DecimalFormat df = new DecimalFormat("#,###.##", new DecimalFormatSymbols(Locale.US));
+        df.setGroupingUsed(true);
 
-                df.setMaximumFractionDigits(2);
+        List<QueuedNotification> notifications = new ArrayList<>(clients.size());
+        for (Map<String, Object> client : clients) {
+            String mobileNo = normalize(client.get("mobile_no").toString());
+            Long loanId = (Long) client.get("loan_id");
 
-                df.setMinimumFractionDigits(0);
+            BigDecimal amount = (BigDecimal) client.get("amount");
+            amount = amount.setScale(2, BigDecimal.ROUND_DOWN);
 
-                df.setGroupingUsed(true);
+            String amountStr = df.format(amount);
 
-                String amountStr = df.format(amount);
+            String message = String.format(template, client.get("firstname"), client.get("currencyDisplaySymbol"), amountStr);
 
-                message.append(String.format(template, client.get("firstname"), client.get("currencyDisplaySymbol"), amountStr));
-
-                try {
-                    logger.info("=============== SMS DESTINATION: {} - {} - {} - {}", mobileNo, dueDate, daysAfter.getId(), daysAfter.getValue());
-                    result = send(mobileNo, message.toString());
-                    sent = true;
-                } catch (Exception e) {
-                    logger.error(e.toString(), e);
-                }
-
-                if (result != null) {
-                    SendMessageResultItem item = result.getSendMessageResults()[0];
-
-                    notificationLogRepository.save(new NotificationLog(NotificationType.SMS, mobileNo, new Date(), sent, "m_loan", loanId, item.getMessageStatus(), item.getMessageId()));
-
-                    logger.info("############### SMS notification sent: {}", sent);
-                } else {
-                    logger.warn("############### SMS notification not sent: {} ({})", mobileNo, sent);
-                }
-            }
-
-            running.set(false);
-        } else {
-            logger.warn("############### SMS notification job is already running!");
+            notifications.add(QueuedNotification.sms(mobileNo, message, "m_loan", loanId));
         }
-    }
 
-    protected SendMessageResult send(String to, String message) {
-        SMSRequest smsRequest = new SMSRequest(senderAddress, message, to);
-        //smsRequest.setClientCorrelator(clientId);
-        smsRequest.setSenderName(senderName);
-        if (notifyUrl != null && !"".equals(notifyUrl.trim())) {
-            smsRequest.setNotifyURL(notifyUrl); // TODO: implement this
-        }
-
-        return smsClient.getSMSMessagingClient().sendSMS(smsRequest);
-    }
-
-    protected void configure() {
-        if (smsClient == null) {
-            SmsCredentialsData credentials = externalServicesReadPlatformService.getSmsCredentials();
-            this.senderName = credentials.getSenderName();
-            this.senderAddress = credentials.getSenderAddress();
-            this.notifyUrl = credentials.getNotifyUrl();
-            this.outboundMaxPerDay = credentials.getOutboundMaxPerDay();
-            this.debug = credentials.isDebug();
-            this.debugPhone = credentials.getDebugPhone();
-            this.smsClient = new SMSClient(new Configuration(credentials.getAuthUsername(), credentials.getAuthPassword()));
-        }
+        queue(NotificationType.SMS, notifications);
     }
 }
@@ -21,14 +21,20 @@ import org.mifosplatform.infrastructure.configuration.domain.ConfigurationDomain
 import org.mifosplatform.infrastructure.core.data.MutableHttpServletRequest;
 import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
 import org.mifosplatform.infrastructure.core.serialization.ToApiJsonSerializer;
+import org.mifosplatform.infrastructure.core.service.ReadReplicaRouting;
 import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.infrastructure.metrics.domain.RequestStatistics;
+import org.mifosplatform.infrastructure.metrics.service.DataAccessProfiler;
+import org.mifosplatform.infrastructure.metrics.service.PlatformMetricsService;
 import org.mifosplatform.infrastructure.security.data.PlatformRequestLog;
 import org.mifosplatform.infrastructure.security.exception.InvalidTenantIdentiferException;
 import org.mifosplatform.infrastructure.security.service.BasicAuthTenantDetailsService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
@@ -59,6 +65,9 @@ public class TenantAwareBasicAuthenticationFilter extends BasicAuthenticationFil
     private final ToApiJsonSerializer<PlatformRequestLog> toApiJsonSerializer;
     private final ConfigurationDomainService configurationDomainService;
     private final CacheWritePlatformService cacheWritePlatformService;
+    private final ReadReplicaRouting readReplicaRouting;
+    private final PlatformMetricsService metricsService;
+    private final DataAccessProfiler dataAccessProfiler;
 
     private final String tenantRequestHeader = "X-Mifos-Platform-TenantId";
     private final boolean exceptionIfHeaderMissing = true;
@@ -67,12 +76,16 @@ public class TenantAwareBasicAuthenticationFilter extends BasicAuthenticationFil
     public TenantAwareBasicAuthenticationFilter(final AuthenticationManager authenticationManager,
             final AuthenticationEntryPoint authenticationEntryPoint, final BasicAuthTenantDetailsService basicAuthTenantDetailsService,
             final ToApiJsonSerializer<PlatformRequestLog> toApiJsonSerializer, final ConfigurationDomainService configurationDomainService,
-            final CacheWritePlatformService cacheWritePlatformService) {
+            final CacheWritePlatformService cacheWritePlatformService, final ReadReplicaRouting readReplicaRouting,
+            final PlatformMetricsService metricsService, final DataAccessProfiler dataAccessProfiler) {
         super(authenticationManager, authenticationEntryPoint);
         this.basicAuthTenantDetailsService = basicAuthTenantDetailsService;
         this.toApiJsonSerializer = toApiJsonSerializer;
         this.configurationDomainService = configurationDomainService;
         this.cacheWritePlatformService = cacheWritePlatformService;
+        this.readReplicaRouting = readReplicaRouting;
+        this.metricsService = metricsService;
+        this.dataAccessProfiler = dataAccessProfiler;
     }
 
     @Override
@@ -83,6 +96,7 @@ public class TenantAwareBasicAuthenticationFilter extends BasicAuthenticationFil
 
         final StopWatch task = new StopWatch();
         task.start();
+        boolean tenantResolved = false;
 
         try {
 
@@ -104,6 +118,9 @@ public class TenantAwareBasicAuthenticationFilter extends BasicAuthenticationFil
                 final MifosPlatformTenant tenant = this.basicAuthTenantDetailsService.loadTenantById(tenantIdentifier);
 
                 ThreadLocalContextUtil.setTenant(tenant);
+                tenantResolved = true;
+                RequestStatistics.begin();
+                this.dataAccessProfiler.beginScope();
                 String authToken = request.getHeader("Authorization");
 
                 String queryAuthToken = request.getParameter("token");
@@ -120,13 +137,18 @@ public class TenantAwareBasicAuthenticationFilter extends BasicAuthenticationFil
                     ThreadLocalContextUtil.setAuthToken(authToken);
                 }
 
+                this.readReplicaRouting.beginRequest(request.getMethod(), request.getPathInfo(), request.getParameter("command"));
+
                 if (!firstRequestProcessed) {
                 	final String baseUrl = request.getRequestURL().toString().replace(request.getPathInfo(), "/");
                 	System.setProperty("baseUrl", baseUrl);
                 	
                     final boolean ehcacheEnabled = this.configurationDomainService.isEhcacheEnabled();
+                    final boolean distributedCacheEnabled = this.configurationDomainService.isDistributedCacheEnabled();
                     if (ehcacheEnabled) {
                         this.cacheWritePlatformService.switchToCache(CacheType.SINGLE_NODE);
+                    } else if (distributedCacheEnabled) {
+                        this.cacheWritePlatformService.switchToCache(CacheType.MULTI_NODE);
                     } else {
                         this.cacheWritePlatformService.switchToCache(CacheType.NO_CACHE);
                     }
@@ -142,9 +164,42 @@ public class TenantAwareBasicAuthenticationFilter extends BasicAuthenticationFil
             response.addHeader("WWW-Authenticate", "Basic realm=\"" + "Mifos Platform API" + "\"");
             response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
         } finally {
+            this.readReplicaRouting.endRequest();
             task.stop();
+            final RequestStatistics statistics = RequestStatistics.end();
+            this.dataAccessProfiler.endScope();
+            if (tenantResolved && isAuthenticated() && response.getStatus() != HttpServletResponse.SC_NOT_FOUND) {
+                recordRequestMetrics(request, task.getTime(), statistics);
+            }
             final PlatformRequestLog log = PlatformRequestLog.from(task, request);
             logger.info(this.toApiJsonSerializer.serialize(log));
         }
     }
+
+    /*
+     * only requests of authenticated users for existing resources are
+     * recorded, so arbitrary paths cannot add metrics
+     */
+    private static boolean isAuthenticated() {
+        final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() && !(authentication instanceof AnonymousAuthenticationToken);
+    }
+
+    /*
+     * metrics are kept per endpoint, numeric path segments (resource ids)
+     * being folded into {id}
+     */
+    private void recordRequestMetrics(final HttpServletRequest request, final long timeInMillis, final RequestStatistics statistics) {
+        final String path = request.getPathInfo() == null ? "" : request.getPathInfo().replaceAll("/\\d+(?=/|$)", "/{id}");
+        final String endpoint = "api." + request.getMethod() + " " + path;
+        this.metricsService.recordDuration(endpoint, timeInMillis);
+        if (statistics != null) {
+            this.metricsService.recordValue(endpoint + ".statements", statistics.statements());
+            this.metricsService.recordValue(endpoint + ".entityLoads", statistics.entityLoads());
+            final long allocatedKilobytes = statistics.allocatedKilobytes();
+            if (allocatedKilobytes >= 0) {
+                this.metricsService.recordValue(endpoint + ".allocatedKB", allocatedKilobytes);
+            }
+        }
+    }
 }
\ No newline at end of file
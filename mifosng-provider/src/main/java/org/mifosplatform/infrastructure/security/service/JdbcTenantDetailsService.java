@@ -44,7 +44,9 @@ public class JdbcTenantDetailsService implements TenantDetailsService {
                 .append(" pool_log_abandoned as logAbandoned, pool_abandon_when_percentage_full as abandonedWhenPercentageFull, pool_test_on_borrow as testOnBorrow,  ")//
                 .append(" pool_max_active as poolMaxActive, pool_min_idle as poolMinIdle, pool_max_idle as poolMaxIdle, ")//
                 .append(" pool_suspect_timeout as poolSuspectTimeout, pool_time_between_eviction_runs_millis as poolTimeBetweenEvictionRunsMillis, ")//
-                .append(" pool_min_evictable_idle_time_millis as poolMinEvictableIdleTimeMillis ")//
+                .append(" pool_min_evictable_idle_time_millis as poolMinEvictableIdleTimeMillis, ")//
+                .append(" readonly_schema_server as readOnlySchemaServer, readonly_schema_server_port as readOnlySchemaServerPort, ")//
+                .append(" readonly_schema_username as readOnlySchemaUsername, readonly_schema_password as readOnlySchemaPassword ")//
                 .append(" from tenants t");//
 
         public String schema() {
@@ -77,11 +79,16 @@ public class JdbcTenantDetailsService implements TenantDetailsService {
             final int suspectTimeout = rs.getInt("poolSuspectTimeout");
             final int timeBetweenEvictionRunsMillis = rs.getInt("poolTimeBetweenEvictionRunsMillis");
             final int minEvictableIdleTimeMillis = rs.getInt("poolMinEvictableIdleTimeMillis");
+            final String readOnlySchemaServer = rs.getString("readOnlySchemaServer");
+            final String readOnlySchemaServerPort = rs.getString("readOnlySchemaServerPort");
+            final String readOnlySchemaUsername = rs.getString("readOnlySchemaUsername");
+            final String readOnlySchemaPassword = rs.getString("readOnlySchemaPassword");
 
             return new MifosPlatformTenant(id, tenantIdentifier, name, schemaName, schemaServer, schemaServerPort, schemaUsername,
                     schemaPassword, timezoneId, autoUpdateEnabled, initialSize, testOnBorrow, validationInterval, removeAbandoned,
                     removeAbandonedTimeout, logAbandoned, abandonWhenPercentageFull, maxActive, minIdle, maxIdle, suspectTimeout,
-                    timeBetweenEvictionRunsMillis, minEvictableIdleTimeMillis);
+                    timeBetweenEvictionRunsMillis, minEvictableIdleTimeMillis, readOnlySchemaServer, readOnlySchemaServerPort,
+                    readOnlySchemaUsername, readOnlySchemaPassword);
         }
     }
 
@@ -31,6 +31,7 @@ import org.mifosplatform.organisation.office.exception.OfficeNotFoundException;
 import org.mifosplatform.organisation.workingdays.domain.WorkingDays;
 import org.mifosplatform.organisation.workingdays.domain.WorkingDaysRepositoryWrapper;
 import org.mifosplatform.organisation.workingdays.service.WorkingDaysUtil;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.service.LoanScheduleCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -53,12 +54,14 @@ public class HolidayWritePlatformServiceJpaRepositoryImpl implements HolidayWrit
     private final PlatformSecurityContext context;
     private final OfficeRepository officeRepository;
     private final FromJsonHelper fromApiJsonHelper;
+    private final LoanScheduleCache loanScheduleCache;
 
     @Autowired
     public HolidayWritePlatformServiceJpaRepositoryImpl(final HolidayDataValidator fromApiJsonDeserializer,
             final HolidayRepositoryWrapper holidayRepository, final PlatformSecurityContext context,
             final OfficeRepository officeRepository, final FromJsonHelper fromApiJsonHelper,
-            final WorkingDaysRepositoryWrapper daysRepositoryWrapper, final ConfigurationDomainService configurationDomainService) {
+            final WorkingDaysRepositoryWrapper daysRepositoryWrapper, final ConfigurationDomainService configurationDomainService,
+            final LoanScheduleCache loanScheduleCache) {
         this.fromApiJsonDeserializer = fromApiJsonDeserializer;
         this.holidayRepository = holidayRepository;
         this.context = context;
@@ -66,6 +69,7 @@ public class HolidayWritePlatformServiceJpaRepositoryImpl implements HolidayWrit
         this.fromApiJsonHelper = fromApiJsonHelper;
         this.daysRepositoryWrapper = daysRepositoryWrapper;
         this.configurationDomainService = configurationDomainService;
+        this.loanScheduleCache = loanScheduleCache;
     }
 
     @Transactional
@@ -113,6 +117,7 @@ public class HolidayWritePlatformServiceJpaRepositoryImpl implements HolidayWrit
             }
 
             this.holidayRepository.saveAndFlush(holiday);
+            this.loanScheduleCache.invalidate();
 
             return new CommandProcessingResultBuilder().withEntityId(holiday.getId()).with(changes).build();
         } catch (final DataIntegrityViolationException dve) {
@@ -129,6 +134,7 @@ public class HolidayWritePlatformServiceJpaRepositoryImpl implements HolidayWrit
 
         holiday.activate();
         this.holidayRepository.saveAndFlush(holiday);
+        this.loanScheduleCache.invalidate();
         return new CommandProcessingResultBuilder().withEntityId(holiday.getId()).build();
     }
 
@@ -139,6 +145,7 @@ public class HolidayWritePlatformServiceJpaRepositoryImpl implements HolidayWrit
         final Holiday holiday = this.holidayRepository.findOneWithNotFoundDetection(holidayId);
         holiday.delete();
         this.holidayRepository.saveAndFlush(holiday);
+        this.loanScheduleCache.invalidate();
         return new CommandProcessingResultBuilder().withEntityId(holidayId).build();
     }
 
@@ -0,0 +1,181 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.organisation.office.service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.lang.StringUtils;
+import org.mifosplatform.infrastructure.cache.service.CacheInvalidationLog;
+import org.mifosplatform.infrastructure.core.service.ReadReplicaRouting;
+import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Holds the office tree of each tenant, loaded from m_office_closure, so that
+ * the offices a user can see (the user's office and every office below it)
+ * are resolved in memory and data scoping is an <code>office_id in (...)</code>
+ * criteria rather than a <code>hierarchy like '.1.4.%'</code> match joined
+ * through m_office.
+ *
+ * The tree is loaded on first use. Creating or moving an office invalidates
+ * the tenant's tree, on the other nodes too through the
+ * {@link CacheInvalidationLog}, and an office the tree does not know reloads
+ * it.
+ */
+@Component
+public class OfficeHierarchyCache {
+
+    private static final String CACHE_NAME = "officeHierarchy";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CacheInvalidationLog invalidationLog;
+    private final ConcurrentMap<String, OfficeTree> treesByTenant = new ConcurrentHashMap<>();
+
+    @Autowired
+    public OfficeHierarchyCache(final RoutingDataSource dataSource, final CacheInvalidationLog invalidationLog) {
+        this(new JdbcTemplate(dataSource), invalidationLog);
+    }
+
+    OfficeHierarchyCache(final JdbcTemplate jdbcTemplate, final CacheInvalidationLog invalidationLog) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.invalidationLog = invalidationLog;
+        this.invalidationLog.addListener(new CacheInvalidationLog.Listener() {
+
+            @Override
+            public void invalidated(final String cacheName, @SuppressWarnings("unused") final String key, final String tenantIdentifier) {
+                if (CACHE_NAME.equals(cacheName) && tenantIdentifier != null) {
+                    OfficeHierarchyCache.this.treesByTenant.remove(tenantIdentifier);
+                }
+            }
+        });
+    }
+
+    /**
+     * @return the ids of the office and of all offices below it, or an empty
+     *         set if there is no such office
+     */
+    public Set<Long> officeIdsInHierarchyOf(final Long officeId) {
+        OfficeTree tree = tree();
+        if (!tree.contains(officeId)) {
+            this.treesByTenant.remove(currentTenant());
+            tree = tree();
+        }
+        return tree.officeIdsInHierarchyOf(officeId);
+    }
+
+    /**
+     * @return true if the office is the given office or below it
+     */
+    public boolean isInHierarchyOf(final Long ancestorOfficeId, final Long officeId) {
+        return officeIdsInHierarchyOf(ancestorOfficeId).contains(officeId);
+    }
+
+    /**
+     * @return criteria matching rows where any of the office id columns is an
+     *         office in the hierarchy of the office; for the head office, any
+     *         office
+     */
+    public String sqlOfficeCriteria(final Long officeId, final String... officeIdColumns) {
+        final Set<Long> officeIds = officeIdsInHierarchyOf(officeId);
+        final boolean headOffice = officeId.equals(tree().rootOfficeId);
+        final List<String> criteria = new ArrayList<>();
+        for (final String officeIdColumn : officeIdColumns) {
+            if (headOffice) {
+                criteria.add(officeIdColumn + " is not null");
+            } else if (!officeIds.isEmpty()) {
+                criteria.add(officeIdColumn + " in (" + StringUtils.join(officeIds, ',') + ")");
+            }
+        }
+        if (criteria.isEmpty()) { return "1 = 0"; }
+        return "(" + StringUtils.join(criteria, " or ") + ")";
+    }
+
+    /**
+     * Discards the current tenant's tree, and again once the current
+     * transaction completes so that a tree read concurrently from the old
+     * hierarchy is not left behind. Other nodes discard theirs once it
+     * completes.
+     */
+    public void invalidate() {
+        final String tenantIdentifier = currentTenant();
+        this.treesByTenant.remove(tenantIdentifier);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+                @Override
+                public void afterCompletion(@SuppressWarnings("unused") final int status) {
+                    OfficeHierarchyCache.this.treesByTenant.remove(tenantIdentifier);
+                }
+            });
+        }
+        this.invalidationLog.publish(CACHE_NAME, null, tenantIdentifier);
+    }
+
+    private OfficeTree tree() {
+        return this.treesByTenant.computeIfAbsent(currentTenant(), k -> ReadReplicaRouting.onPrimary(this::load));
+    }
+
+    private OfficeTree load() {
+        final Map<Long, Set<Long>> descendants = new HashMap<>();
+        this.jdbcTemplate.query("select ancestor_id, descendant_id from m_office_closure", new RowCallbackHandler() {
+
+            @Override
+            public void processRow(final ResultSet rs) throws SQLException {
+                final Long ancestorId = rs.getLong("ancestor_id");
+                Set<Long> officeIds = descendants.get(ancestorId);
+                if (officeIds == null) {
+                    officeIds = new HashSet<>();
+                    descendants.put(ancestorId, officeIds);
+                }
+                officeIds.add(rs.getLong("descendant_id"));
+            }
+        });
+        final Long rootOfficeId = this.jdbcTemplate.queryForObject("select min(id) from m_office where parent_id is null", Long.class);
+        return new OfficeTree(rootOfficeId, descendants);
+    }
+
+    private static String currentTenant() {
+        return ThreadLocalContextUtil.getTenant().getTenantIdentifier();
+    }
+
+    private static final class OfficeTree {
+
+        private final Long rootOfficeId;
+        private final Map<Long, Set<Long>> officeIdsInHierarchy = new HashMap<>();
+
+        OfficeTree(final Long rootOfficeId, final Map<Long, Set<Long>> descendants) {
+            this.rootOfficeId = rootOfficeId;
+            for (final Map.Entry<Long, Set<Long>> entry : descendants.entrySet()) {
+                this.officeIdsInHierarchy.put(entry.getKey(), Collections.unmodifiableSet(entry.getValue()));
+            }
+        }
+
+        boolean contains(final Long officeId) {
+            return this.officeIdsInHierarchy.containsKey(officeId);
+        }
+
+        Set<Long> officeIdsInHierarchyOf(final Long officeId) {
+            final Set<Long> officeIds = this.officeIdsInHierarchy.get(officeId);
+            return officeIds == null ? Collections.<Long> emptySet() : officeIds;
+        }
+    }
+}
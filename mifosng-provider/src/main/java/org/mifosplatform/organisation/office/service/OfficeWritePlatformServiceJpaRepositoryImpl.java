@@ -11,6 +11,7 @@ import org.mifosplatform.infrastructure.core.api.JsonCommand;
 import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
 import org.mifosplatform.infrastructure.core.data.CommandProcessingResultBuilder;
 import org.mifosplatform.infrastructure.core.exception.PlatformDataIntegrityException;
+import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
 import org.mifosplatform.infrastructure.security.exception.NoAuthorizationException;
 import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext;
 import org.mifosplatform.organisation.monetary.domain.ApplicationCurrency;
@@ -31,6 +32,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Caching;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -45,19 +47,24 @@ public class OfficeWritePlatformServiceJpaRepositoryImpl implements OfficeWriteP
     private final OfficeRepository officeRepository;
     private final OfficeTransactionRepository officeTransactionRepository;
     private final ApplicationCurrencyRepositoryWrapper applicationCurrencyRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final OfficeHierarchyCache officeHierarchyCache;
 
     @Autowired
     public OfficeWritePlatformServiceJpaRepositoryImpl(final PlatformSecurityContext context,
             final OfficeCommandFromApiJsonDeserializer fromApiJsonDeserializer,
             final OfficeTransactionCommandFromApiJsonDeserializer moneyTransferCommandFromApiJsonDeserializer,
             final OfficeRepository officeRepository, final OfficeTransactionRepository officeMonetaryTransferRepository,
-            final ApplicationCurrencyRepositoryWrapper applicationCurrencyRepository) {
+            final ApplicationCurrencyRepositoryWrapper applicationCurrencyRepository, final RoutingDataSource dataSource,
+            final OfficeHierarchyCache officeHierarchyCache) {
         this.context = context;
         this.fromApiJsonDeserializer = fromApiJsonDeserializer;
         this.moneyTransferCommandFromApiJsonDeserializer = moneyTransferCommandFromApiJsonDeserializer;
         this.officeRepository = officeRepository;
         this.officeTransactionRepository = officeMonetaryTransferRepository;
         this.applicationCurrencyRepository = applicationCurrencyRepository;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.officeHierarchyCache = officeHierarchyCache;
     }
 
     @Transactional
@@ -87,6 +94,9 @@ public class OfficeWritePlatformServiceJpaRepositoryImpl implements OfficeWriteP
 
             this.officeRepository.save(office);
 
+            addToOfficeClosure(office.getId(), parent.getId());
+            this.officeHierarchyCache.invalidate();
+
             return new CommandProcessingResultBuilder() //
                     .withCommandId(command.commandId()) //
                     .withEntityId(office.getId()) //
@@ -120,8 +130,13 @@ public class OfficeWritePlatformServiceJpaRepositoryImpl implements OfficeWriteP
 
             final Map<String, Object> changes = office.update(command);
 
+            final String previousHierarchy = office.getHierarchy();
             if (changes.containsKey("parentId")) {
                 final Office parent = validateUserPriviledgeOnOfficeAndRetrieve(currentUser, parentId);
+                if (!office.identifiedBy(parentId) && this.officeHierarchyCache.isInHierarchyOf(officeId, parentId)) {
+                    throw new PlatformDataIntegrityException("error.msg.office.parent.is.descendant",
+                            "Office cannot be moved under an office below it", "parentId", parentId);
+                }
                 office.update(parent);
             }
 
@@ -129,6 +144,11 @@ public class OfficeWritePlatformServiceJpaRepositoryImpl implements OfficeWriteP
                 this.officeRepository.saveAndFlush(office);
             }
 
+            if (changes.containsKey("parentId")) {
+                moveInOfficeClosure(officeId, parentId, previousHierarchy, office.getHierarchy());
+                this.officeHierarchyCache.invalidate();
+            }
+
             return new CommandProcessingResultBuilder() //
                     .withCommandId(command.commandId()) //
                     .withEntityId(office.getId()) //
@@ -197,6 +217,31 @@ public class OfficeWritePlatformServiceJpaRepositoryImpl implements OfficeWriteP
                 .build();
     }
 
+    private void addToOfficeClosure(final Long officeId, final Long parentId) {
+        this.jdbcTemplate.update("insert into m_office_closure (ancestor_id, descendant_id, depth) "
+                + "select oc.ancestor_id, ?, oc.depth + 1 from m_office_closure oc where oc.descendant_id = ?", officeId, parentId);
+        this.jdbcTemplate.update("insert into m_office_closure (ancestor_id, descendant_id, depth) values (?, ?, 0)", officeId, officeId);
+    }
+
+    /*
+     * detaches the subtree of the office from its former ancestors, attaches it
+     * to the ancestors of its new parent, and rewrites the hierarchy of the
+     * offices below it, which moved with it
+     */
+    private void moveInOfficeClosure(final Long officeId, final Long parentId, final String previousHierarchy, final String hierarchy) {
+        this.jdbcTemplate.update("delete oc from m_office_closure oc "
+                + "join m_office_closure subtree on subtree.descendant_id = oc.descendant_id and subtree.ancestor_id = ? "
+                + "left join m_office_closure inside on inside.ancestor_id = ? and inside.descendant_id = oc.ancestor_id "
+                + "where inside.ancestor_id is null", officeId, officeId);
+        this.jdbcTemplate.update("insert into m_office_closure (ancestor_id, descendant_id, depth) "
+                + "select supertree.ancestor_id, subtree.descendant_id, supertree.depth + subtree.depth + 1 "
+                + "from m_office_closure supertree join m_office_closure subtree "
+                + "where supertree.descendant_id = ? and subtree.ancestor_id = ?", parentId, officeId);
+
+        this.jdbcTemplate.update("update m_office set hierarchy = concat(?, substring(hierarchy, ?)) where hierarchy like ? and id <> ?",
+                hierarchy, previousHierarchy.length() + 1, previousHierarchy + "%", officeId);
+    }
+
     /*
      * Guaranteed to throw an exception no matter what the data integrity issue
      * is.
@@ -6,6 +6,8 @@
 package org.mifosplatform.organisation.staff.domain;
 
 import org.apache.commons.lang.StringUtils;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.joda.time.LocalDate;
 import org.mifosplatform.accounting.glaccount.domain.GLAccount;
 import org.mifosplatform.infrastructure.codes.domain.CodeValue;
@@ -25,6 +27,8 @@ import java.util.Map;
 @Table(name = "m_staff", uniqueConstraints = {@UniqueConstraint(columnNames = {"display_name"}, name = "display_name"),
         @UniqueConstraint(columnNames = {"external_id"}, name = "external_id_UNIQUE"),
         @UniqueConstraint(columnNames = {"mobile_no"}, name = "mobile_no_UNIQUE")})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Staff extends AbstractPersistable<Long> {
 
     @Column(name = "firstname", length = 50)
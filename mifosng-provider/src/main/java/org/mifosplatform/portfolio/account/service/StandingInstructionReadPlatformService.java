@@ -6,6 +6,7 @@
 package org.mifosplatform.portfolio.account.service;
 
 import java.util.Collection;
+import java.util.Map;
 
 import org.mifosplatform.infrastructure.core.service.Page;
 import org.mifosplatform.portfolio.account.data.StandingInstructionDTO;
@@ -25,4 +26,9 @@ public interface StandingInstructionReadPlatformService {
 
     StandingInstructionDuesData retriveLoanDuesData(Long loanId);
 
+    /**
+     * @return the dues of each loan with installments due, keyed by loan id
+     */
+    Map<Long, StandingInstructionDuesData> retriveLoanDuesData(Collection<Long> loanIds);
+
 }
\ No newline at end of file
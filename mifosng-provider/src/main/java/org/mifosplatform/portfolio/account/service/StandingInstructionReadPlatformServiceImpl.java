@@ -18,8 +18,11 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import org.apache.commons.lang.StringUtils;
 import org.joda.time.LocalDate;
 import org.joda.time.MonthDay;
 import org.mifosplatform.infrastructure.core.data.EnumOptionData;
@@ -50,6 +53,7 @@ import org.mifosplatform.infrastructure.core.service.SearchParameters;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
@@ -346,6 +350,23 @@ public class StandingInstructionReadPlatformServiceImpl implements StandingInstr
         return this.jdbcTemplate.queryForObject(sql, rm, new Object[] { loanId });
     }
 
+    @Override
+    public Map<Long, StandingInstructionDuesData> retriveLoanDuesData(final Collection<Long> loanIds) {
+        final Map<Long, StandingInstructionDuesData> duesByLoanId = new HashMap<>();
+        if (loanIds.isEmpty()) { return duesByLoanId; }
+        final StandingInstructionLoanDuesMapper rm = new StandingInstructionLoanDuesMapper();
+        final String sql = "select ml.id as loanId, " + rm.schema() + " where ml.id in (" + StringUtils.repeat("?", ",", loanIds.size())
+                + ") and ls.duedate <= CURRENT_DATE() and ls.completed_derived <> 1 group by ml.id";
+        this.jdbcTemplate.query(sql, new RowCallbackHandler() {
+
+            @Override
+            public void processRow(final ResultSet rs) throws SQLException {
+                duesByLoanId.put(rs.getLong("loanId"), rm.mapRow(rs, 0));
+            }
+        }, loanIds.toArray());
+        return duesByLoanId;
+    }
+
     private static final class StandingInstructionMapper implements RowMapper<StandingInstructionData> {
 
         private final String schemaSql;
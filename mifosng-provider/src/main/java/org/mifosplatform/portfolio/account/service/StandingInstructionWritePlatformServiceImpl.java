@@ -11,9 +11,15 @@ import static org.mifosplatform.portfolio.account.AccountDetailConstants.toAccou
 import static org.mifosplatform.portfolio.account.api.StandingInstructionApiConstants.statusParamName;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.joda.time.LocalDate;
 import org.mifosplatform.infrastructure.core.api.JsonCommand;
@@ -25,6 +31,9 @@ import org.mifosplatform.infrastructure.core.exception.PlatformDataIntegrityExce
 import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
 import org.mifosplatform.infrastructure.jobs.annotation.CronTarget;
 import org.mifosplatform.infrastructure.jobs.exception.JobExecutionException;
+import org.mifosplatform.infrastructure.jobs.service.JobItemExecutor;
+import org.mifosplatform.infrastructure.jobs.service.JobItemExecutor.ItemWork;
+import org.mifosplatform.infrastructure.jobs.service.JobItemExecutor.JobItemResult;
 import org.mifosplatform.infrastructure.jobs.service.JobName;
 import org.mifosplatform.portfolio.account.PortfolioAccountType;
 import org.mifosplatform.portfolio.account.api.StandingInstructionApiConstants;
@@ -66,6 +75,10 @@ public class StandingInstructionWritePlatformServiceImpl implements StandingInst
     private final StandingInstructionReadPlatformService standingInstructionReadPlatformService;
     private final AccountTransfersWritePlatformService accountTransfersWritePlatformService;
     private final JdbcTemplate jdbcTemplate;
+    private final JobItemExecutor jobItemExecutor;
+
+    private static final String HISTORY_INSERT_SQL = "INSERT INTO `m_account_transfer_standing_instructions_history` "
+            + "(`standing_instruction_id`, `status`, `amount`,`execution_time`, `error_log`) VALUES (?, ?, ?, ?, ?)";
 
     @Autowired
     public StandingInstructionWritePlatformServiceImpl(final StandingInstructionDataValidator standingInstructionDataValidator,
@@ -73,7 +86,8 @@ public class StandingInstructionWritePlatformServiceImpl implements StandingInst
             final AccountTransferDetailRepository accountTransferDetailRepository,
             final StandingInstructionRepository standingInstructionRepository,
             final StandingInstructionReadPlatformService standingInstructionReadPlatformService,
-            final AccountTransfersWritePlatformService accountTransfersWritePlatformService, final RoutingDataSource dataSource) {
+            final AccountTransfersWritePlatformService accountTransfersWritePlatformService, final RoutingDataSource dataSource,
+            final JobItemExecutor jobItemExecutor) {
         this.standingInstructionDataValidator = standingInstructionDataValidator;
         this.standingInstructionAssembler = standingInstructionAssembler;
         this.accountTransferDetailRepository = accountTransferDetailRepository;
@@ -81,6 +95,7 @@ public class StandingInstructionWritePlatformServiceImpl implements StandingInst
         this.standingInstructionReadPlatformService = standingInstructionReadPlatformService;
         this.accountTransfersWritePlatformService = accountTransfersWritePlatformService;
         this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jobItemExecutor = jobItemExecutor;
     }
 
     @Transactional
@@ -179,70 +194,189 @@ public class StandingInstructionWritePlatformServiceImpl implements StandingInst
     public void executeStandingInstructions() throws JobExecutionException {
         Collection<StandingInstructionData> instructionDatas = this.standingInstructionReadPlatformService
                 .retrieveAll(StandingInstructionStatus.ACTIVE.getValue());
-        final StringBuilder sb = new StringBuilder();
-        for (StandingInstructionData data : instructionDatas) {
-            boolean isDueForTransfer = false;
-            AccountTransferRecurrenceType recurrenceType = data.recurrenceType();
-            StandingInstructionType instructionType = data.instructionType();
-            LocalDate transactionDate = new LocalDate();
-            if (recurrenceType.isPeriodicRecurrence()) {
-                final ScheduledDateGenerator scheduledDateGenerator = new DefaultScheduledDateGenerator();
-                PeriodFrequencyType frequencyType = data.recurrenceFrequency();
-                LocalDate startDate = data.validFrom();
-                if (frequencyType.isMonthly()) {
-                    startDate = startDate.withDayOfMonth(data.recurrenceOnDay());
-                    if (startDate.isBefore(data.validFrom())) {
-                        startDate = startDate.plusMonths(1);
-                    }
-                } else if (frequencyType.isYearly()) {
-                    startDate = startDate.withDayOfMonth(data.recurrenceOnDay()).withMonthOfYear(data.recurrenceOnMonth());
-                    if (startDate.isBefore(data.validFrom())) {
-                        startDate = startDate.plusYears(1);
-                    }
-                }
-                isDueForTransfer = scheduledDateGenerator.isDateFallsInSchedule(frequencyType, data.recurrenceInterval(), startDate,
-                        transactionDate);
+        final LocalDate transactionDate = new LocalDate();
 
+        // periodic recurrences are evaluated in memory, then the dues of all
+        // loans they may pay are fetched at once
+        final Map<Long, Boolean> periodicallyDue = new HashMap<>();
+        final Set<Long> loanIds = new HashSet<>();
+        for (final StandingInstructionData data : instructionDatas) {
+            final boolean isDueForTransfer = isPeriodicallyDue(data, transactionDate);
+            periodicallyDue.put(data.getId(), isDueForTransfer);
+            if (isLoanDuesRequired(data, isDueForTransfer)) {
+                loanIds.add(data.toAccount().accountId());
             }
+        }
+        final Map<Long, StandingInstructionDuesData> loanDues = this.standingInstructionReadPlatformService.retriveLoanDuesData(loanIds);
+
+        final List<DueStandingInstruction> dueInstructions = new ArrayList<>();
+        for (final StandingInstructionData data : instructionDatas) {
+            boolean isDueForTransfer = periodicallyDue.get(data.getId());
             BigDecimal transactionAmount = data.amount();
-            if (data.toAccountType().isLoanAccount()
-                    && (recurrenceType.isDuesRecurrence() || (isDueForTransfer && instructionType.isDuesAmoutTransfer()))) {
-                StandingInstructionDuesData standingInstructionDuesData = this.standingInstructionReadPlatformService
-                        .retriveLoanDuesData(data.toAccount().accountId());
+            BigDecimal loanDueAmount = null;
+            if (isLoanDuesRequired(data, isDueForTransfer)) {
+                final StandingInstructionDuesData standingInstructionDuesData = loanDues.get(data.toAccount().accountId());
+                if (standingInstructionDuesData != null) {
+                    loanDueAmount = standingInstructionDuesData.totalDueAmount();
+                }
                 if (data.instructionType().isDuesAmoutTransfer()) {
-                    transactionAmount = standingInstructionDuesData.totalDueAmount();
+                    transactionAmount = standingInstructionDuesData == null ? null : standingInstructionDuesData.totalDueAmount();
                 }
-                if (recurrenceType.isDuesRecurrence()) {
-                    isDueForTransfer = new LocalDate().equals(standingInstructionDuesData.dueDate());
+                if (data.recurrenceType().isDuesRecurrence()) {
+                    isDueForTransfer = standingInstructionDuesData != null && transactionDate.equals(standingInstructionDuesData.dueDate());
                 }
             }
 
             if (isDueForTransfer && transactionAmount != null && transactionAmount.compareTo(BigDecimal.ZERO) > 0) {
-                final AccountTransferDetails accountTransferDetails = this.accountTransferDetailRepository.findOne(data.accountDetailId());
-                final SavingsAccount fromSavingsAccount = null;
-                final boolean isRegularTransaction = true;
-                final boolean isExceptionForBalanceCheck = false;
-                accountTransferDetails.accountTransferStandingInstruction().updateLatsRunDate(transactionDate.toDate());
-                AccountTransferDTO accountTransferDTO = new AccountTransferDTO(transactionDate, transactionAmount, data.fromAccountType(),
-                        data.toAccountType(), data.fromAccount().accountId(), data.toAccount().accountId(), data.name()
-                                + " Standing instruction trasfer ", null, null, null, null, data.toTransferType(), null, null, data
-                                .transferType().getValue(), accountTransferDetails, null, null, null, null, fromSavingsAccount,
-                        isRegularTransaction, isExceptionForBalanceCheck);
-                transferAmount(sb, accountTransferDTO, data.getId());
+                dueInstructions.add(new DueStandingInstruction(data, transactionAmount, loanDueAmount));
             }
         }
+
+        final StringBuffer sb = new StringBuffer();
+        final JobItemResult<List<DueStandingInstruction>> result = this.jobItemExecutor.executeNonTransactional(
+                "Execute standing instructions", groupByConnectedAccounts(dueInstructions), new ItemWork<List<DueStandingInstruction>>() {
+
+                    @Override
+                    public void process(final List<DueStandingInstruction> connectedInstructions) {
+                        final Map<Long, BigDecimal> paidToLoans = new HashMap<>();
+                        final List<Object[]> historyRows = new ArrayList<>(connectedInstructions.size());
+                        try {
+                            for (final DueStandingInstruction dueInstruction : connectedInstructions) {
+                                executeStandingInstruction(dueInstruction, transactionDate, sb, paidToLoans, historyRows);
+                            }
+                        } finally {
+                            if (!historyRows.isEmpty()) {
+                                StandingInstructionWritePlatformServiceImpl.this.jdbcTemplate.batchUpdate(HISTORY_INSERT_SQL, historyRows);
+                            }
+                        }
+                    }
+                });
+
+        for (final String failure : result.getFailures().values()) {
+            sb.append("Exception while executing standing instructions ").append(failure).append("--------");
+        }
         if (sb.length() > 0) { throw new JobExecutionException(sb.toString()); }
 
     }
 
+    /**
+     * Instructions whose accounts are connected through transfers, such as two
+     * paying into the same loan or one from A to B and one from B to C, are
+     * grouped to run in priority order on one worker, as the accounts are not
+     * versioned and concurrent transfers could lose updates. Unconnected
+     * groups run in parallel.
+     */
+    private static Collection<List<DueStandingInstruction>> groupByConnectedAccounts(final List<DueStandingInstruction> dueInstructions) {
+        final Map<String, String> connectedAccounts = new HashMap<>();
+        for (final DueStandingInstruction dueInstruction : dueInstructions) {
+            final String fromRoot = rootAccountOf(connectedAccounts, dueInstruction.fromAccount());
+            final String toRoot = rootAccountOf(connectedAccounts, dueInstruction.toAccount());
+            if (!fromRoot.equals(toRoot)) {
+                connectedAccounts.put(toRoot, fromRoot);
+            }
+        }
+
+        final Map<String, List<DueStandingInstruction>> groups = new LinkedHashMap<>();
+        for (final DueStandingInstruction dueInstruction : dueInstructions) {
+            final String root = rootAccountOf(connectedAccounts, dueInstruction.fromAccount());
+            List<DueStandingInstruction> group = groups.get(root);
+            if (group == null) {
+                group = new ArrayList<>();
+                groups.put(root, group);
+            }
+            group.add(dueInstruction);
+        }
+        return groups.values();
+    }
+
+    private static String rootAccountOf(final Map<String, String> connectedAccounts, final String account) {
+        String root = account;
+        String parent = connectedAccounts.get(root);
+        while (parent != null) {
+            root = parent;
+            parent = connectedAccounts.get(root);
+        }
+        if (!root.equals(account)) {
+            connectedAccounts.put(account, root);
+        }
+        return root;
+    }
+
+    private static boolean isPeriodicallyDue(final StandingInstructionData data, final LocalDate transactionDate) {
+        boolean isDueForTransfer = false;
+        if (data.recurrenceType().isPeriodicRecurrence()) {
+            final ScheduledDateGenerator scheduledDateGenerator = new DefaultScheduledDateGenerator();
+            PeriodFrequencyType frequencyType = data.recurrenceFrequency();
+            LocalDate startDate = data.validFrom();
+            if (frequencyType.isMonthly()) {
+                startDate = startDate.withDayOfMonth(data.recurrenceOnDay());
+                if (startDate.isBefore(data.validFrom())) {
+                    startDate = startDate.plusMonths(1);
+                }
+            } else if (frequencyType.isYearly()) {
+                startDate = startDate.withDayOfMonth(data.recurrenceOnDay()).withMonthOfYear(data.recurrenceOnMonth());
+                if (startDate.isBefore(data.validFrom())) {
+                    startDate = startDate.plusYears(1);
+                }
+            }
+            isDueForTransfer = scheduledDateGenerator.isDateFallsInSchedule(frequencyType, data.recurrenceInterval(), startDate,
+                    transactionDate);
+        }
+        return isDueForTransfer;
+    }
+
+    private static boolean isLoanDuesRequired(final StandingInstructionData data, final boolean isDueForTransfer) {
+        final AccountTransferRecurrenceType recurrenceType = data.recurrenceType();
+        final StandingInstructionType instructionType = data.instructionType();
+        return data.toAccountType().isLoanAccount()
+                && (recurrenceType.isDuesRecurrence() || (isDueForTransfer && instructionType.isDuesAmoutTransfer()));
+    }
+
+    /**
+     * The loan dues are read once for all instructions, so what earlier
+     * instructions of the group paid into the loan is taken off them: a dues
+     * amount transfer pays what is left, and a dues recurrence is no longer
+     * due once the dues are paid.
+     */
+    private void executeStandingInstruction(final DueStandingInstruction dueInstruction, final LocalDate transactionDate,
+            final StringBuffer sb, final Map<Long, BigDecimal> paidToLoans, final List<Object[]> historyRows) {
+        final StandingInstructionData data = dueInstruction.data;
+        final Long toAccountId = data.toAccount().accountId();
+        BigDecimal transactionAmount = dueInstruction.transactionAmount;
+        if (dueInstruction.loanDueAmount != null) {
+            final BigDecimal paid = paidToLoans.containsKey(toAccountId) ? paidToLoans.get(toAccountId) : BigDecimal.ZERO;
+            final BigDecimal remainingDueAmount = dueInstruction.loanDueAmount.subtract(paid);
+            if (remainingDueAmount.compareTo(BigDecimal.ZERO) <= 0) { return; }
+            if (data.instructionType().isDuesAmoutTransfer()) {
+                transactionAmount = remainingDueAmount;
+            }
+        }
+
+        final AccountTransferDetails accountTransferDetails = this.accountTransferDetailRepository.findOne(data.accountDetailId());
+        final SavingsAccount fromSavingsAccount = null;
+        final boolean isRegularTransaction = true;
+        final boolean isExceptionForBalanceCheck = false;
+        accountTransferDetails.accountTransferStandingInstruction().updateLatsRunDate(transactionDate.toDate());
+        AccountTransferDTO accountTransferDTO = new AccountTransferDTO(transactionDate, transactionAmount,
+                data.fromAccountType(), data.toAccountType(), data.fromAccount().accountId(), data.toAccount().accountId(), data.name()
+                        + " Standing instruction trasfer ", null, null, null, null, data.toTransferType(), null, null, data
+                        .transferType().getValue(), accountTransferDetails, null, null, null, null, fromSavingsAccount,
+                isRegularTransaction, isExceptionForBalanceCheck);
+        final Object[] historyRow = transferAmount(sb, accountTransferDTO, data.getId());
+        historyRows.add(historyRow);
+        if (data.toAccountType().isLoanAccount() && "success".equals(historyRow[1])) {
+            paidToLoans.put(toAccountId, paidToLoans.containsKey(toAccountId) ? paidToLoans.get(toAccountId).add(transactionAmount)
+                    : transactionAmount);
+        }
+    }
+
     /**
      * @param sb
      * @param accountTransferDTO
+     * @return the history row of the transfer
      */
-    private void transferAmount(final StringBuilder sb, final AccountTransferDTO accountTransferDTO, final Long instructionId) {
+    private Object[] transferAmount(final StringBuffer sb, final AccountTransferDTO accountTransferDTO, final Long instructionId) {
         StringBuffer errorLog = new StringBuffer();
-        StringBuffer updateQuery = new StringBuffer(
-                "INSERT INTO `m_account_transfer_standing_instructions_history` (`standing_instruction_id`, `status`, `amount`,`execution_time`, `error_log`) VALUES (");
         try {
             this.accountTransfersWritePlatformService.transferFunds(accountTransferDTO);
         } catch (final PlatformApiDataValidationException e) {
@@ -267,16 +401,32 @@ public class StandingInstructionWritePlatformServiceImpl implements StandingInst
             errorLog.append("Exception while trasfering funds " + e.getMessage());
 
         }
-        updateQuery.append(instructionId).append(",");
-        if (errorLog.length() > 0) {
-            updateQuery.append("'failed'").append(",");
-        } else {
-            updateQuery.append("'success'").append(",");
+        final String status = errorLog.length() > 0 ? "failed" : "success";
+        return new Object[] { instructionId, status, accountTransferDTO.getTransactionAmount(), new Date(), errorLog.toString() };
+    }
+
+    private static final class DueStandingInstruction {
+
+        private final StandingInstructionData data;
+        private final BigDecimal transactionAmount;
+        /**
+         * the loan's dues when the job started, for instructions that depend
+         * on them
+         */
+        private final BigDecimal loanDueAmount;
+
+        DueStandingInstruction(final StandingInstructionData data, final BigDecimal transactionAmount, final BigDecimal loanDueAmount) {
+            this.data = data;
+            this.transactionAmount = transactionAmount;
+            this.loanDueAmount = loanDueAmount;
+        }
+
+        String fromAccount() {
+            return this.data.fromAccountType().getValue() + ":" + this.data.fromAccount().accountId();
         }
-        updateQuery.append(accountTransferDTO.getTransactionAmount().doubleValue());
-        updateQuery.append(", now(),");
-        updateQuery.append("'").append(errorLog.toString()).append("')");
-        this.jdbcTemplate.update(updateQuery.toString());
 
+        String toAccount() {
+            return this.data.toAccountType().getValue() + ":" + this.data.toAccount().accountId();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,23 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.calendar.service;
+
+import org.mifosplatform.portfolio.calendar.domain.Calendar;
+
+public interface CalendarMeetingDateIndexService {
+
+    /**
+     * Re-materialises the meeting dates of the calendar, if it is the
+     * calendar of a center or group, for the current window.
+     */
+    void indexMeetingDates(Calendar calendar);
+
+    /**
+     * Drops the meeting dates that have left the window and indexes the
+     * calendars whose window is about to run out.
+     */
+    void updateMeetingDateIndex();
+}
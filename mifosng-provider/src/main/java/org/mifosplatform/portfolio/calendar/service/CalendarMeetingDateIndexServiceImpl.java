@@ -0,0 +1,169 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.calendar.service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.joda.time.LocalDate;
+import org.mifosplatform.infrastructure.core.domain.JdbcSupport;
+import org.mifosplatform.infrastructure.core.service.DateUtils;
+import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.infrastructure.jobs.annotation.CronTarget;
+import org.mifosplatform.infrastructure.jobs.service.JobName;
+import org.mifosplatform.portfolio.calendar.domain.Calendar;
+import org.mifosplatform.portfolio.calendar.domain.CalendarEntityType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Maintains m_calendar_meeting_date, the meeting dates of center and group
+ * calendars from {@value #DAYS_BEFORE} days before to {@value #DAYS_AFTER}
+ * days after the current date, so that "who meets on this date" lookups are
+ * an indexed query instead of a recurrence rule evaluation per calendar.
+ *
+ * The window each calendar is indexed for is kept in
+ * m_calendar_meeting_date_range; dates outside it are left to the recurrence
+ * rule. Only the calendar is indexed, the office and staff of a center are
+ * joined in when looking up, so reassignments need no maintenance.
+ */
+@Service
+public class CalendarMeetingDateIndexServiceImpl implements CalendarMeetingDateIndexService {
+
+    private final static Logger logger = LoggerFactory.getLogger(CalendarMeetingDateIndexServiceImpl.class);
+
+    private static final int DAYS_BEFORE = 90;
+    private static final int DAYS_AFTER = 365;
+    // calendars are indexed again once their window ends within this many
+    // days, so that the job does not index every calendar every day
+    private static final int DAYS_BEFORE_WINDOW_RUNS_OUT = 30;
+
+    private static final String INDEXED_CALENDARS_CRITERIA = "exists (select 1 from m_calendar_instance ci where ci.calendar_id = c.id "
+            + "and ci.entity_type_enum in (" + CalendarEntityType.GROUPS.getValue() + ", " + CalendarEntityType.CENTERS.getValue() + "))";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public CalendarMeetingDateIndexServiceImpl(final RoutingDataSource dataSource, final TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Override
+    public void indexMeetingDates(final Calendar calendar) {
+        final boolean indexed = this.jdbcTemplate.queryForObject("select count(*) from m_calendar c where c.id = ? and "
+                + INDEXED_CALENDARS_CRITERIA, Integer.class, calendar.getId()) > 0;
+        if (indexed) {
+            final LocalDate today = DateUtils.getLocalDateOfTenant();
+            index(new IndexedCalendar(calendar.getId(), calendar.getStartDateLocalDate(), calendar.getEndDateLocalDate(),
+                    calendar.getRecurrence()), today.minusDays(DAYS_BEFORE), today.plusDays(DAYS_AFTER));
+        }
+    }
+
+    @Override
+    @CronTarget(jobName = JobName.UPDATE_MEETING_DATE_INDEX)
+    public void updateMeetingDateIndex() {
+        final LocalDate today = DateUtils.getLocalDateOfTenant();
+        final LocalDate fromDate = today.minusDays(DAYS_BEFORE);
+        final LocalDate toDate = today.plusDays(DAYS_AFTER);
+
+        final int expired = this.jdbcTemplate.update("delete from m_calendar_meeting_date where meeting_date < ?", fromDate.toDate());
+        this.jdbcTemplate.update("update m_calendar_meeting_date_range set from_date = ? where from_date < ?", fromDate.toDate(),
+                fromDate.toDate());
+
+        final String sql = "select c.id as id, c.start_date as startDate, c.end_date as endDate, c.recurrence as recurrence "
+                + "from m_calendar c where " + INDEXED_CALENDARS_CRITERIA + " and not exists (select 1 from "
+                + "m_calendar_meeting_date_range r where r.calendar_id = c.id and r.to_date >= ?)";
+        final List<IndexedCalendar> calendars = this.jdbcTemplate.query(sql, new IndexedCalendarMapper(),
+                toDate.minusDays(DAYS_BEFORE_WINDOW_RUNS_OUT).toDate());
+        for (final IndexedCalendar calendar : calendars) {
+            this.transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+
+                @Override
+                protected void doInTransactionWithoutResult(@SuppressWarnings("unused") final TransactionStatus status) {
+                    index(calendar, fromDate, toDate);
+                }
+            });
+        }
+
+        logger.info(ThreadLocalContextUtil.getTenant().getName() + ": meeting dates of " + calendars.size() + " calendars indexed, "
+                + expired + " past meeting dates removed");
+    }
+
+    private void index(final IndexedCalendar calendar, final LocalDate fromDate, final LocalDate toDate) {
+        this.jdbcTemplate.update("delete from m_calendar_meeting_date where calendar_id = ?", calendar.id);
+
+        final List<Object[]> meetingDates = new ArrayList<>();
+        for (final LocalDate meetingDate : calendar.meetingDates(fromDate, toDate)) {
+            meetingDates.add(new Object[] { calendar.id, meetingDate.toDate() });
+        }
+        if (!meetingDates.isEmpty()) {
+            this.jdbcTemplate.batchUpdate("insert into m_calendar_meeting_date (calendar_id, meeting_date) values (?, ?)", meetingDates);
+        }
+
+        this.jdbcTemplate.update("insert into m_calendar_meeting_date_range (calendar_id, from_date, to_date) values (?, ?, ?) "
+                + "on duplicate key update from_date = values(from_date), to_date = values(to_date)", calendar.id, fromDate.toDate(),
+                toDate.toDate());
+    }
+
+    private static final class IndexedCalendar {
+
+        private final Long id;
+        private final LocalDate startDate;
+        private final LocalDate endDate;
+        private final String recurrence;
+
+        IndexedCalendar(final Long id, final LocalDate startDate, final LocalDate endDate, final String recurrence) {
+            this.id = id;
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.recurrence = recurrence;
+        }
+
+        /**
+         * @return the meeting dates from fromDate to toDate (inclusive), as
+         *         {@link org.mifosplatform.portfolio.calendar.data.CalendarData#isValidRecurringDate(LocalDate)}
+         *         decides them
+         */
+        Collection<LocalDate> meetingDates(final LocalDate fromDate, final LocalDate toDate) {
+            LocalDate periodStartDate = fromDate;
+            if (this.startDate != null && this.startDate.isAfter(periodStartDate)) {
+                periodStartDate = this.startDate;
+            }
+            LocalDate periodEndDate = toDate;
+            if (this.endDate != null && this.endDate.isBefore(periodEndDate)) {
+                periodEndDate = this.endDate;
+            }
+            if (this.startDate == null || this.recurrence == null || periodEndDate.isBefore(periodStartDate)) { return new ArrayList<>(); }
+
+            final int noLimit = -1;
+            final Collection<LocalDate> meetingDates = CalendarUtils.getRecurringDates(this.recurrence, this.startDate, periodStartDate,
+                    periodEndDate.plusDays(1), noLimit);
+            return meetingDates == null ? new ArrayList<LocalDate>() : meetingDates;
+        }
+    }
+
+    private static final class IndexedCalendarMapper implements RowMapper<IndexedCalendar> {
+
+        @Override
+        public IndexedCalendar mapRow(final ResultSet rs, @SuppressWarnings("unused") final int rowNum) throws SQLException {
+            return new IndexedCalendar(rs.getLong("id"), JdbcSupport.getLocalDate(rs, "startDate"), JdbcSupport.getLocalDate(rs,
+                    "endDate"), rs.getString("recurrence"));
+        }
+    }
+}
@@ -5,9 +5,7 @@
  */
 package org.mifosplatform.portfolio.calendar.service;
 
-import java.text.DateFormat;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
@@ -43,29 +41,9 @@ public class CalendarUtils {
     }
 
     public static LocalDate getNextRecurringDate(final String recurringRule, final LocalDate seedDate, final LocalDate startDate) {
-        final Recur recur = CalendarUtils.getICalRecur(recurringRule);
-        if (recur == null) { return null; }
-        return getNextRecurringDate(recur, seedDate, startDate);
-    }
-
-    private static LocalDate getNextRecurringDate(final Recur recur, final LocalDate seedDate, final LocalDate startDate) {
-        final DateTime periodStart = new DateTime(startDate.toDate());
-        final Date seed = convertToiCal4JCompatibleDate(seedDate);
-        final Date nextRecDate = recur.getNextDate(seed, periodStart);
-        return nextRecDate == null ? null : new LocalDate(nextRecDate);
-    }
-
-    private static Date convertToiCal4JCompatibleDate(final LocalDate inputDate) {
-        // Date format in iCal4J is hard coded
-        Date formattedDate = null;
-        final DateFormat df = new SimpleDateFormat("yyyy-MM-dd");
-        final String seedDateStr = df.format(inputDate.toDateTimeAtStartOfDay().toDate());
-        try {
-            formattedDate = new Date(seedDateStr, "yyyy-MM-dd");
-        } catch (final ParseException e) {
-            e.printStackTrace();
-        }
-        return formattedDate;
+        final RecurrenceRule rule = RecurrenceRule.of(recurringRule);
+        if (rule == null) { return null; }
+        return rule.getNextDate(seedDate, startDate);
     }
 
     public static Collection<LocalDate> getRecurringDates(final String recurringRule, final LocalDate seedDate, final LocalDate endDate) {
@@ -91,55 +69,26 @@ public class CalendarUtils {
     public static Collection<LocalDate> getRecurringDates(final String recurringRule, final LocalDate seedDate,
             final LocalDate periodStartDate, final LocalDate periodEndDate, final int maxCount) {
 
-        final Recur recur = CalendarUtils.getICalRecur(recurringRule);
-
-        return getRecurringDates(recur, seedDate, periodStartDate, periodEndDate, maxCount);
-    }
-
-    private static Collection<LocalDate> getRecurringDates(final Recur recur, final LocalDate seedDate, final LocalDate periodStartDate,
-            final LocalDate periodEndDate, final int maxCount) {
-        if (recur == null) { return null; }
-        final Date seed = convertToiCal4JCompatibleDate(seedDate);
-        final DateTime periodStart = new DateTime(periodStartDate.toDate());
-        final DateTime periodEnd = new DateTime(periodEndDate.toDate());
-
-        final Value value = new Value(Value.DATE.getValue());
-        final DateList recurringDates = recur.getDates(seed, periodStart, periodEnd, value, maxCount);
-        return convertToLocalDateList(recurringDates);
-    }
-
-    private static Collection<LocalDate> convertToLocalDateList(final DateList dates) {
-
-        final Collection<LocalDate> recurringDates = new ArrayList<>();
-
-        for (@SuppressWarnings("rawtypes")
-        final Iterator iterator = dates.iterator(); iterator.hasNext();) {
-            final Date date = (Date) iterator.next();
-            recurringDates.add(new LocalDate(date));
-        }
-
-        return recurringDates;
+        final RecurrenceRule rule = RecurrenceRule.of(recurringRule);
+        if (rule == null) { return null; }
+        return rule.getDates(seedDate, periodStartDate, periodEndDate, maxCount);
     }
 
+    /**
+     * @return a copy of the parsed rule, or null if the rule is not valid
+     */
     public static Recur getICalRecur(final String recurringRule) {
+        final RecurrenceRule rule = RecurrenceRule.of(recurringRule);
+        return rule == null ? null : rule.copyOfRecur();
+    }
 
-        // Construct RRule
-        try {
-            final RRule rrule = new RRule(recurringRule);
-            rrule.validate();
-
-            final Recur recur = rrule.getRecur();
-
-            return recur;
-        } catch (final ParseException e) {
-            // TODO Auto-generated catch block
-            e.printStackTrace();
-        } catch (final ValidationException e) {
-            // TODO Auto-generated catch block
-            e.printStackTrace();
-        }
-
-        return null;
+    /**
+     * @return the parsed rule, shared and so not to be modified, or null if
+     *         the rule is not valid
+     */
+    private static Recur getSharedICalRecur(final String recurringRule) {
+        final RecurrenceRule rule = RecurrenceRule.of(recurringRule);
+        return rule == null ? null : rule.recur();
     }
 
     public static String getRRuleReadable(final LocalDate startDate, final String recurringRule) {
@@ -218,15 +167,22 @@ public class CalendarUtils {
 
     public static boolean isValidRedurringDate(final String recurringRule, final LocalDate seedDate, final LocalDate date) {
 
-        final Recur recur = CalendarUtils.getICalRecur(recurringRule);
-        if (recur == null) { return false; }
+        final RecurrenceRule rule = RecurrenceRule.of(recurringRule);
+        if (rule == null) { return false; }
 
-        return isValidRecurringDate(recur, seedDate, date);
+        return isValidRecurringDate(rule, seedDate, date);
     }
 
     public static boolean isValidRecurringDate(final Recur recur, final LocalDate seedDate, final LocalDate date) {
 
-        final Collection<LocalDate> recurDate = getRecurringDates(recur, seedDate, date, date.plusDays(1), 1);
+        final DateList recurDate = recur.getDates(RecurrenceRule.toICal4JDate(seedDate), new DateTime(date.toDate()), new DateTime(date
+                .plusDays(1).toDate()), new Value(Value.DATE.getValue()), 1);
+        return (recurDate == null || recurDate.isEmpty()) ? false : true;
+    }
+
+    private static boolean isValidRecurringDate(final RecurrenceRule rule, final LocalDate seedDate, final LocalDate date) {
+
+        final Collection<LocalDate> recurDate = rule.getDates(seedDate, date, date.plusDays(1), 1);
         return (recurDate == null || recurDate.isEmpty()) ? false : true;
     }
 
@@ -258,7 +214,7 @@ public class CalendarUtils {
     }
 
     public static PeriodFrequencyType getMeetingPeriodFrequencyType(final String recurringRule) {
-        final Recur recur = CalendarUtils.getICalRecur(recurringRule);
+        final Recur recur = getSharedICalRecur(recurringRule);
         PeriodFrequencyType meetingFrequencyType = PeriodFrequencyType.INVALID;
         if (recur.getFrequency().equals(Recur.DAILY)) {
             meetingFrequencyType = PeriodFrequencyType.DAYS;
@@ -287,17 +243,17 @@ public class CalendarUtils {
     }
 
     public static int getInterval(final String recurringRule) {
-        final Recur recur = CalendarUtils.getICalRecur(recurringRule);
+        final Recur recur = getSharedICalRecur(recurringRule);
         return recur.getInterval();
     }
 
     public static CalendarFrequencyType getFrequency(final String recurringRule) {
-        final Recur recur = CalendarUtils.getICalRecur(recurringRule);
+        final Recur recur = getSharedICalRecur(recurringRule);
         return CalendarFrequencyType.fromString(recur.getFrequency());
     }
 
     public static CalendarWeekDaysType getRepeatsOnDay(final String recurringRule) {
-        final Recur recur = CalendarUtils.getICalRecur(recurringRule);
+        final Recur recur = getSharedICalRecur(recurringRule);
         final WeekDayList weekDays = recur.getDayList();
         if (weekDays.isEmpty()) return CalendarWeekDaysType.INVALID;
         // supports only one day
@@ -307,8 +263,8 @@ public class CalendarUtils {
 
     public static LocalDate getFirstRepaymentMeetingDate(final Calendar calendar, final LocalDate disbursementDate,
             final Integer loanRepaymentInterval, final String frequency) {
-        final Recur recur = CalendarUtils.getICalRecur(calendar.getRecurrence());
-        if (recur == null) { return null; }
+        final RecurrenceRule rule = RecurrenceRule.of(calendar.getRecurrence());
+        if (rule == null) { return null; }
         LocalDate startDate = disbursementDate;
         final LocalDate seedDate = calendar.getStartDateLocalDate();
         if (isValidRedurringDate(calendar.getRecurrence(), seedDate, startDate)) {
@@ -320,38 +276,35 @@ public class CalendarUtils {
         // where as for loan product with fortnightly frequency interval is 2
         // to generate currect set of meeting dates reset interval same as loan
         // repayment interval.
-        recur.setInterval(loanRepaymentInterval);
-
+        //
         // Recurring dates should follow loanRepayment frequency.
         // e.g.
         // daily meeting frequency should support all loan products with any
         // frequency type.
         // to generate currect set of meeting dates reset frequency same as loan
         // repayment frequency.
-        if (recur.getFrequency().equals(Recur.DAILY)) {
-            recur.setFrequency(frequency);
-        }
+        final RecurrenceRule repaymentRule = repaymentRule(rule, loanRepaymentInterval, frequency);
 
-        final LocalDate firstRepaymentDate = getNextRecurringDate(recur, seedDate, startDate);
+        final LocalDate firstRepaymentDate = repaymentRule.getNextDate(seedDate, startDate);
 
         return firstRepaymentDate;
     }
 
     public static LocalDate getNewRepaymentMeetingDate(final String recurringRule, final LocalDate seedDate,
             final LocalDate oldRepaymentDate, final Integer loanRepaymentInterval, final String frequency, final WorkingDays workingDays) {
-        final Recur recur = CalendarUtils.getICalRecur(recurringRule);
-        if (recur == null) { return null; }
-        if (isValidRecurringDate(recur, seedDate, oldRepaymentDate)) { return oldRepaymentDate; }
+        final RecurrenceRule rule = RecurrenceRule.of(recurringRule);
+        if (rule == null) { return null; }
+        if (isValidRecurringDate(rule, seedDate, oldRepaymentDate)) { return oldRepaymentDate; }
         return getNextRepaymentMeetingDate(recurringRule, seedDate, oldRepaymentDate, loanRepaymentInterval, frequency, workingDays);
     }
 
     public static LocalDate getNextRepaymentMeetingDate(final String recurringRule, final LocalDate seedDate,
             final LocalDate repaymentDate, final Integer loanRepaymentInterval, final String frequency, final WorkingDays workingDays) {
 
-        final Recur recur = CalendarUtils.getICalRecur(recurringRule);
-        if (recur == null) { return null; }
+        final RecurrenceRule rule = RecurrenceRule.of(recurringRule);
+        if (rule == null) { return null; }
         LocalDate tmpDate = repaymentDate;
-        if (isValidRecurringDate(recur, seedDate, repaymentDate)) {
+        if (isValidRecurringDate(rule, seedDate, repaymentDate)) {
             tmpDate = repaymentDate.plusDays(1);
         }
         /*
@@ -360,38 +313,39 @@ public class CalendarUtils {
          * e.g. The weekly meeting will have interval of 1, if the loan product
          * with fortnightly frequency will have interval of 2, to generate right
          * set of meeting dates reset interval same as loan repayment interval.
-         */
-        recur.setInterval(loanRepaymentInterval);
-
-        /*
+         *
          * Recurring dates should follow loanRepayment frequency. //e.g. daily
          * meeting frequency should support all loan products with any type of
          * frequency. to generate right set of meeting dates reset frequency
          * same as loan repayment frequency.
          */
-        if (recur.getFrequency().equals(Recur.DAILY)) {
-            recur.setFrequency(frequency);
-        }
+        final RecurrenceRule repaymentRule = repaymentRule(rule, loanRepaymentInterval, frequency);
 
-        LocalDate newRepaymentDate = getNextRecurringDate(recur, seedDate, tmpDate);
-        final LocalDate nextRepaymentDate = getNextRecurringDate(recur, seedDate, newRepaymentDate);
+        LocalDate newRepaymentDate = repaymentRule.getNextDate(seedDate, tmpDate);
+        final LocalDate nextRepaymentDate = repaymentRule.getNextDate(seedDate, newRepaymentDate);
 
         newRepaymentDate = WorkingDaysUtil.getOffSetDateIfNonWorkingDay(newRepaymentDate, nextRepaymentDate, workingDays);
 
         return newRepaymentDate;
     }
 
+    private static RecurrenceRule repaymentRule(final RecurrenceRule meetingRule, final Integer loanRepaymentInterval,
+            final String frequency) {
+        final String repaymentFrequency = meetingRule.isDaily() ? frequency : meetingRule.recur().getFrequency();
+        return meetingRule.withIntervalAndFrequency(loanRepaymentInterval, repaymentFrequency);
+    }
+
     public static boolean isFrequencySame(final String oldRRule, final String newRRule) {
-        final Recur oldRecur = getICalRecur(oldRRule);
-        final Recur newRecur = getICalRecur(newRRule);
+        final Recur oldRecur = getSharedICalRecur(oldRRule);
+        final Recur newRecur = getSharedICalRecur(newRRule);
 
         if (oldRecur == null || oldRecur.getFrequency() == null || newRecur == null || newRecur.getFrequency() == null) { return false; }
         return oldRecur.getFrequency().equals(newRecur.getFrequency());
     }
 
     public static boolean isIntervalSame(final String oldRRule, final String newRRule) {
-        final Recur oldRecur = getICalRecur(oldRRule);
-        final Recur newRecur = getICalRecur(newRRule);
+        final Recur oldRecur = getSharedICalRecur(oldRRule);
+        final Recur newRecur = getSharedICalRecur(newRRule);
 
         if (oldRecur == null || oldRecur.getFrequency() == null || newRecur == null || newRecur.getFrequency() == null) { return false; }
         return (oldRecur.getInterval() == newRecur.getInterval());
@@ -449,10 +403,11 @@ public class CalendarUtils {
 
     public static LocalDate getRecentEligibleMeetingDate(final String recurringRule, final LocalDate seedDate) {
         LocalDate currentDate = DateUtils.getLocalDateOfTenant();
-        final Recur recur = CalendarUtils.getICalRecur(recurringRule);
-        if (recur == null) { return null; }
+        final RecurrenceRule rule = RecurrenceRule.of(recurringRule);
+        if (rule == null) { return null; }
+        final Recur recur = rule.recur();
 
-        if (isValidRecurringDate(recur, seedDate, currentDate)) { return currentDate; }
+        if (isValidRecurringDate(rule, seedDate, currentDate)) { return currentDate; }
 
         if (recur.getFrequency().equals(Recur.DAILY)) {
             currentDate = currentDate.plusDays(recur.getInterval());
@@ -464,12 +419,12 @@ public class CalendarUtils {
             currentDate = currentDate.plusYears(recur.getInterval());
         }
 
-        return getNextRecurringDate(recur, seedDate, currentDate);
+        return rule.getNextDate(seedDate, currentDate);
     }
 
     public static LocalDate getNextScheduleDate(final Calendar calendar, final LocalDate startDate) {
-        final Recur recur = CalendarUtils.getICalRecur(calendar.getRecurrence());
-        if (recur == null) { return null; }
+        final RecurrenceRule rule = RecurrenceRule.of(calendar.getRecurrence());
+        if (rule == null) { return null; }
         LocalDate date = startDate;
         final LocalDate seedDate = calendar.getStartDateLocalDate();
         /**
@@ -477,7 +432,7 @@ public class CalendarUtils {
          * date = date.plusDays(1); }
          **/
 
-        final LocalDate scheduleDate = getNextRecurringDate(recur, seedDate, date);
+        final LocalDate scheduleDate = rule.getNextDate(seedDate, date);
 
         return scheduleDate;
     }
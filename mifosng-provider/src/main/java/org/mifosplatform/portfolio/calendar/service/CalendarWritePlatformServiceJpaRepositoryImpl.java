@@ -41,6 +41,7 @@ import org.mifosplatform.portfolio.group.domain.GroupRepositoryWrapper;
 import org.mifosplatform.portfolio.loanaccount.domain.Loan;
 import org.mifosplatform.portfolio.loanaccount.domain.LoanRepository;
 import org.mifosplatform.portfolio.loanaccount.domain.LoanStatus;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.service.LoanScheduleCache;
 import org.mifosplatform.portfolio.loanaccount.service.LoanWritePlatformService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -58,6 +59,8 @@ public class CalendarWritePlatformServiceJpaRepositoryImpl implements CalendarWr
     private final GroupRepositoryWrapper groupRepository;
     private final LoanRepository loanRepository;
     private final ClientRepositoryWrapper clientRepository;
+    private final LoanScheduleCache loanScheduleCache;
+    private final CalendarMeetingDateIndexService calendarMeetingDateIndexService;
 
     @Autowired
     public CalendarWritePlatformServiceJpaRepositoryImpl(final CalendarRepository calendarRepository,
@@ -65,7 +68,8 @@ public class CalendarWritePlatformServiceJpaRepositoryImpl implements CalendarWr
             final CalendarCommandFromApiJsonDeserializer fromApiJsonDeserializer,
             final CalendarInstanceRepository calendarInstanceRepository, final LoanWritePlatformService loanWritePlatformService,
             final ConfigurationDomainService configurationDomainService, final GroupRepositoryWrapper groupRepository,
-            final LoanRepository loanRepository, final ClientRepositoryWrapper clientRepository) {
+            final LoanRepository loanRepository, final ClientRepositoryWrapper clientRepository,
+            final LoanScheduleCache loanScheduleCache, final CalendarMeetingDateIndexService calendarMeetingDateIndexService) {
         this.calendarRepository = calendarRepository;
         this.calendarHistoryRepository = calendarHistoryRepository;
         this.fromApiJsonDeserializer = fromApiJsonDeserializer;
@@ -75,6 +79,8 @@ public class CalendarWritePlatformServiceJpaRepositoryImpl implements CalendarWr
         this.groupRepository = groupRepository;
         this.loanRepository = loanRepository;
         this.clientRepository = clientRepository;
+        this.loanScheduleCache = loanScheduleCache;
+        this.calendarMeetingDateIndexService = calendarMeetingDateIndexService;
     }
 
     @Override
@@ -142,6 +148,7 @@ public class CalendarWritePlatformServiceJpaRepositoryImpl implements CalendarWr
 
         final CalendarInstance newCalendarInstance = CalendarInstance.from(newCalendar, entityId, entityTypeId);
         this.calendarInstanceRepository.save(newCalendarInstance);
+        this.calendarMeetingDateIndexService.indexMeetingDates(newCalendar);
 
         return new CommandProcessingResultBuilder() //
                 .withCommandId(command.commandId()) //
@@ -241,6 +248,8 @@ public class CalendarWritePlatformServiceJpaRepositoryImpl implements CalendarWr
             }
 
             this.calendarRepository.saveAndFlush(calendarForUpdate);
+            this.loanScheduleCache.invalidate();
+            this.calendarMeetingDateIndexService.indexMeetingDates(calendarForUpdate);
 
             if (this.configurationDomainService.isRescheduleFutureRepaymentsEnabled() && calendarForUpdate.isRepeating()) {
                 // fetch all loan calendar instances associated with modifying
@@ -270,6 +279,7 @@ public class CalendarWritePlatformServiceJpaRepositoryImpl implements CalendarWr
         if (calendarForDelete == null) { throw new CalendarNotFoundException(calendarId); }
 
         this.calendarRepository.delete(calendarForDelete);
+        this.loanScheduleCache.invalidate();
         return new CommandProcessingResultBuilder() //
                 .withCommandId(null) //
                 .withEntityId(calendarId) //
@@ -284,6 +294,7 @@ public class CalendarWritePlatformServiceJpaRepositoryImpl implements CalendarWr
 
         final CalendarInstance newCalendarInstance = new CalendarInstance(calendarForUpdate, entityId, entityTypeId);
         this.calendarInstanceRepository.save(newCalendarInstance);
+        this.calendarMeetingDateIndexService.indexMeetingDates(calendarForUpdate);
 
         return new CommandProcessingResultBuilder() //
                 .withCommandId(null) //
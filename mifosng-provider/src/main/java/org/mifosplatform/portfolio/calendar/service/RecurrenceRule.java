@@ -0,0 +1,294 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.calendar.service;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import net.fortuna.ical4j.model.Date;
+import net.fortuna.ical4j.model.DateList;
+import net.fortuna.ical4j.model.DateTime;
+import net.fortuna.ical4j.model.Recur;
+import net.fortuna.ical4j.model.ValidationException;
+import net.fortuna.ical4j.model.WeekDay;
+import net.fortuna.ical4j.model.parameter.Value;
+import net.fortuna.ical4j.model.property.RRule;
+
+import org.joda.time.Days;
+import org.joda.time.LocalDate;
+import org.mifosplatform.portfolio.calendar.service.CalendarUtils.DayNameEnum;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * A parsed and validated recurrence rule (RRULE), cached by rule string.
+ *
+ * The occurrences of the rule shapes calendars are created with (daily,
+ * weekly on a day and monthly on the start date's or given days of the
+ * month, every INTERVAL periods) are calculated on Joda dates. Any other rule,
+ * and weekly rules whose week start would matter, are delegated to ical4j and
+ * give the same dates as before.
+ */
+final class RecurrenceRule {
+
+    static {
+        System.setProperty("net.fortuna.ical4j.timezone.date.floating", "true");
+    }
+
+    private final static Logger logger = LoggerFactory.getLogger(RecurrenceRule.class);
+
+    private static final int MAX_CACHED_RULES = 1000;
+    private static final int LAST_DAY_IN_EVERY_MONTH = 28;
+
+    private static final Cache<String, RecurrenceRule> rules = CacheBuilder.newBuilder().maximumSize(MAX_CACHED_RULES).build();
+
+    private final Recur recur;
+    private final String frequency;
+    private final int interval;
+    private final boolean nativeShape;
+    private final Integer weekDay;
+    private final int[] monthDays;
+    private final ConcurrentMap<String, RecurrenceRule> derivedRules = new ConcurrentHashMap<>();
+
+    /**
+     * @return the rule, or null if it does not parse or validate
+     */
+    static RecurrenceRule of(final String recurringRule) {
+        if (recurringRule == null) { return null; }
+        RecurrenceRule rule = rules.getIfPresent(recurringRule);
+        if (rule == null) {
+            try {
+                final RRule rrule = new RRule(recurringRule);
+                rrule.validate();
+                rule = new RecurrenceRule(rrule.getRecur());
+                rules.put(recurringRule, rule);
+            } catch (final ParseException | ValidationException e) {
+                logger.warn("Invalid recurring rule " + recurringRule, e);
+                return null;
+            }
+        }
+        return rule;
+    }
+
+    private RecurrenceRule(final Recur recur) {
+        this.recur = recur;
+        this.frequency = recur.getFrequency();
+        this.interval = recur.getInterval() < 1 ? 1 : recur.getInterval();
+
+        boolean nativeShape = recur.getCount() < 1 && recur.getUntil() == null && recur.getSecondList().isEmpty()
+                && recur.getMinuteList().isEmpty() && recur.getHourList().isEmpty() && recur.getMonthList().isEmpty()
+                && recur.getYearDayList().isEmpty() && recur.getWeekNoList().isEmpty() && recur.getSetPosList().isEmpty();
+        Integer weekDay = null;
+        int[] monthDays = new int[0];
+        if (Recur.DAILY.equals(this.frequency)) {
+            nativeShape = nativeShape && recur.getDayList().isEmpty() && recur.getMonthDayList().isEmpty();
+        } else if (Recur.WEEKLY.equals(this.frequency)) {
+            nativeShape = nativeShape && recur.getMonthDayList().isEmpty() && recur.getDayList().size() <= 1;
+            if (nativeShape && !recur.getDayList().isEmpty()) {
+                final WeekDay day = (WeekDay) recur.getDayList().get(0);
+                nativeShape = day.getOffset() == 0;
+                weekDay = DayNameEnum.from(day.getDay()).getValue();
+            }
+        } else if (Recur.MONTHLY.equals(this.frequency)) {
+            nativeShape = nativeShape && recur.getDayList().isEmpty();
+            monthDays = new int[recur.getMonthDayList().size()];
+            for (int i = 0; i < monthDays.length; i++) {
+                monthDays[i] = (Integer) recur.getMonthDayList().get(i);
+                nativeShape = nativeShape && monthDays[i] >= 1 && monthDays[i] <= LAST_DAY_IN_EVERY_MONTH;
+            }
+            Arrays.sort(monthDays);
+        } else {
+            nativeShape = false;
+        }
+        this.nativeShape = nativeShape;
+        this.weekDay = weekDay;
+        this.monthDays = monthDays;
+    }
+
+    /**
+     * @return the parsed rule, shared by all users of the rule and so not to
+     *         be modified
+     */
+    Recur recur() {
+        return this.recur;
+    }
+
+    /**
+     * @return a copy of the parsed rule that the caller may modify
+     */
+    Recur copyOfRecur() {
+        try {
+            return new Recur(this.recur.toString());
+        } catch (final ParseException e) {
+            throw new IllegalStateException("Recurring rule " + this.recur + " does not parse", e);
+        }
+    }
+
+    boolean isDaily() {
+        return Recur.DAILY.equals(this.frequency);
+    }
+
+    /**
+     * @return this rule with its interval and frequency replaced, as when
+     *         loan repayments follow a meeting calendar
+     */
+    RecurrenceRule withIntervalAndFrequency(final int interval, final String frequency) {
+        final String key = interval + ":" + frequency;
+        RecurrenceRule derived = this.derivedRules.get(key);
+        if (derived == null) {
+            final Recur copy = copyOfRecur();
+            copy.setInterval(interval);
+            copy.setFrequency(frequency);
+            derived = new RecurrenceRule(copy);
+            this.derivedRules.putIfAbsent(key, derived);
+        }
+        return derived;
+    }
+
+    /**
+     * @return the first occurrence after startDate, as
+     *         {@link Recur#getNextDate(Date, Date)}
+     */
+    LocalDate getNextDate(final LocalDate seedDate, final LocalDate startDate) {
+        if (!isNative(seedDate)) {
+            final Date nextDate = this.recur.getNextDate(toICal4JDate(seedDate), new DateTime(startDate.toDate()));
+            return nextDate == null ? null : new LocalDate(nextDate);
+        }
+
+        final Occurrences occurrences = new Occurrences(seedDate, startDate);
+        while (true) {
+            for (final LocalDate occurrence : occurrences.next()) {
+                if (occurrence.isAfter(startDate)) { return occurrence; }
+            }
+        }
+    }
+
+    /**
+     * @return the occurrences from periodStartDate up to (excluding)
+     *         periodEndDate, as
+     *         {@link Recur#getDates(Date, Date, Date, Value, int)}: whole
+     *         periods are added until there are maxCount dates
+     */
+    Collection<LocalDate> getDates(final LocalDate seedDate, final LocalDate periodStartDate, final LocalDate periodEndDate,
+            final int maxCount) {
+        if (!isNative(seedDate)) {
+            final DateList dates = this.recur.getDates(toICal4JDate(seedDate), new DateTime(periodStartDate.toDate()), new DateTime(
+                    periodEndDate.toDate()), new Value(Value.DATE.getValue()), maxCount);
+            final Collection<LocalDate> recurringDates = new ArrayList<>(dates.size());
+            for (@SuppressWarnings("rawtypes")
+            final Iterator iterator = dates.iterator(); iterator.hasNext();) {
+                recurringDates.add(new LocalDate(iterator.next()));
+            }
+            return recurringDates;
+        }
+
+        final Collection<LocalDate> dates = new ArrayList<>();
+        final Occurrences occurrences = new Occurrences(seedDate, periodStartDate);
+        while (maxCount < 0 || dates.size() < maxCount) {
+            boolean periodEndReached = false;
+            for (final LocalDate occurrence : occurrences.next()) {
+                if (!occurrence.isBefore(periodEndDate)) {
+                    periodEndReached = true;
+                } else if (!occurrence.isBefore(periodStartDate)) {
+                    dates.add(occurrence);
+                }
+            }
+            if (periodEndReached) {
+                break;
+            }
+        }
+        return dates;
+    }
+
+    /**
+     * Weekly rules on a day other than the seed's, every two or more weeks,
+     * depend on the week start and are left to ical4j, as are monthly rules
+     * on a seed day that some months do not have.
+     */
+    private boolean isNative(final LocalDate seedDate) {
+        if (!this.nativeShape) { return false; }
+        if (this.weekDay != null) { return this.interval == 1 || seedDate.getDayOfWeek() == this.weekDay; }
+        if (Recur.MONTHLY.equals(this.frequency) && this.monthDays.length == 0) {
+            return seedDate.getDayOfMonth() <= LAST_DAY_IN_EVERY_MONTH;
+        }
+        return true;
+    }
+
+    static Date toICal4JDate(final LocalDate date) {
+        // an ical4j date is the start of the day in the default time zone
+        // (floating dates)
+        return new Date(date.toDate());
+    }
+
+    /**
+     * Iterates the occurrences on or after the seed date, one period at a
+     * time, skipping the periods that end before the start date.
+     */
+    private final class Occurrences {
+
+        private final LocalDate seedDate;
+        private int period;
+
+        Occurrences(final LocalDate seedDate, final LocalDate startDate) {
+            this.seedDate = seedDate;
+            this.period = firstPeriodEndingOnOrAfter(startDate);
+        }
+
+        private int firstPeriodEndingOnOrAfter(final LocalDate startDate) {
+            if (!startDate.isAfter(this.seedDate)) { return 0; }
+            int periods = 0;
+            if (Recur.MONTHLY.equals(RecurrenceRule.this.frequency)) {
+                periods = (startDate.getYear() - this.seedDate.getYear()) * 12 + startDate.getMonthOfYear()
+                        - this.seedDate.getMonthOfYear();
+            } else {
+                final int daysPerPeriod = Recur.WEEKLY.equals(RecurrenceRule.this.frequency) ? 7 : 1;
+                periods = Days.daysBetween(firstOccurrence(), startDate).getDays() / daysPerPeriod;
+            }
+            // one period less, so that no occurrence on or after the start
+            // date is skipped
+            return Math.max(0, periods / RecurrenceRule.this.interval - 1);
+        }
+
+        private LocalDate firstOccurrence() {
+            if (RecurrenceRule.this.weekDay == null) { return this.seedDate; }
+            return this.seedDate.plusDays((RecurrenceRule.this.weekDay - this.seedDate.getDayOfWeek() + 7) % 7);
+        }
+
+        /**
+         * @return the occurrences of the next period on or after the seed
+         *         date, in date order
+         */
+        List<LocalDate> next() {
+            final int periods = this.period++ * RecurrenceRule.this.interval;
+            final List<LocalDate> occurrences = new ArrayList<>(Math.max(1, RecurrenceRule.this.monthDays.length));
+            if (Recur.DAILY.equals(RecurrenceRule.this.frequency)) {
+                occurrences.add(this.seedDate.plusDays(periods));
+            } else if (Recur.WEEKLY.equals(RecurrenceRule.this.frequency)) {
+                occurrences.add(firstOccurrence().plusWeeks(periods));
+            } else if (RecurrenceRule.this.monthDays.length == 0) {
+                occurrences.add(this.seedDate.plusMonths(periods));
+            } else {
+                final LocalDate month = this.seedDate.withDayOfMonth(1).plusMonths(periods);
+                for (final int monthDay : RecurrenceRule.this.monthDays) {
+                    final LocalDate occurrence = month.withDayOfMonth(monthDay);
+                    if (!occurrence.isBefore(this.seedDate)) {
+                        occurrences.add(occurrence);
+                    }
+                }
+            }
+            return occurrences;
+        }
+    }
+}
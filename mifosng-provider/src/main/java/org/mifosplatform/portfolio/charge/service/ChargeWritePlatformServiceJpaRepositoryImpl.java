@@ -25,6 +25,7 @@ import org.mifosplatform.portfolio.charge.exception.ChargeCannotBeDeletedExcepti
 import org.mifosplatform.portfolio.charge.exception.ChargeCannotBeUpdatedException;
 import org.mifosplatform.portfolio.charge.exception.ChargeNotFoundException;
 import org.mifosplatform.portfolio.charge.serialization.ChargeDefinitionCommandFromApiJsonDeserializer;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.service.LoanScheduleCache;
 import org.mifosplatform.portfolio.loanproduct.domain.LoanProduct;
 import org.mifosplatform.portfolio.loanproduct.domain.LoanProductRepository;
 import org.slf4j.Logger;
@@ -47,12 +48,13 @@ public class ChargeWritePlatformServiceJpaRepositoryImpl implements ChargeWriteP
     private final ChargeRepository chargeRepository;
     private final LoanProductRepository loanProductRepository;
     private final MifosEntityAccessUtil mifosEntityAccessUtil;
+    private final LoanScheduleCache loanScheduleCache;
 
     @Autowired
     public ChargeWritePlatformServiceJpaRepositoryImpl(final PlatformSecurityContext context,
     		final ChargeDefinitionCommandFromApiJsonDeserializer fromApiJsonDeserializer,
             final ChargeRepository chargeRepository, final LoanProductRepository loanProductRepository, final RoutingDataSource dataSource,
-            final MifosEntityAccessUtil mifosEntityAccessUtil
+            final MifosEntityAccessUtil mifosEntityAccessUtil, final LoanScheduleCache loanScheduleCache
             ) {
     	this.context = context;
         this.fromApiJsonDeserializer = fromApiJsonDeserializer;
@@ -61,6 +63,7 @@ public class ChargeWritePlatformServiceJpaRepositoryImpl implements ChargeWriteP
         this.chargeRepository = chargeRepository;
         this.loanProductRepository = loanProductRepository;
         this.mifosEntityAccessUtil = mifosEntityAccessUtil;
+        this.loanScheduleCache = loanScheduleCache;
     }
 
     @Transactional
@@ -123,6 +126,7 @@ public class ChargeWritePlatformServiceJpaRepositoryImpl implements ChargeWriteP
             if (!changes.isEmpty()) {
 
                 this.chargeRepository.save(chargeForUpdate);
+                this.loanScheduleCache.invalidate();
             }
 
             return new CommandProcessingResultBuilder().withCommandId(command.commandId()).withEntityId(chargeId).with(changes).build();
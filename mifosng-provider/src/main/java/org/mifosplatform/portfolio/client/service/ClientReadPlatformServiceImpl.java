@@ -23,6 +23,7 @@ import org.mifosplatform.infrastructure.core.service.PaginationHelper;
 import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
 import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext;
 import org.mifosplatform.organisation.office.data.OfficeData;
+import org.mifosplatform.organisation.office.service.OfficeHierarchyCache;
 import org.mifosplatform.organisation.office.service.OfficeReadPlatformService;
 import org.mifosplatform.organisation.staff.data.StaffData;
 import org.mifosplatform.organisation.staff.service.StaffReadPlatformService;
@@ -53,6 +54,7 @@ public class ClientReadPlatformServiceImpl implements ClientReadPlatformService
     private final StaffReadPlatformService staffReadPlatformService;
     private final CodeValueReadPlatformService codeValueReadPlatformService;
     private final SavingsProductReadPlatformService savingsProductReadPlatformService;
+    private final OfficeHierarchyCache officeHierarchyCache;
     // data mappers
     private final PaginationHelper<ClientData> paginationHelper = new PaginationHelper<>();
     private final ClientMapper clientMapper = new ClientMapper();
@@ -64,13 +66,23 @@ public class ClientReadPlatformServiceImpl implements ClientReadPlatformService
     public ClientReadPlatformServiceImpl(final PlatformSecurityContext context, final RoutingDataSource dataSource,
             final OfficeReadPlatformService officeReadPlatformService, final StaffReadPlatformService staffReadPlatformService,
             final CodeValueReadPlatformService codeValueReadPlatformService,
-            final SavingsProductReadPlatformService savingsProductReadPlatformService) {
+            final SavingsProductReadPlatformService savingsProductReadPlatformService, final OfficeHierarchyCache officeHierarchyCache) {
         this.context = context;
         this.officeReadPlatformService = officeReadPlatformService;
         this.jdbcTemplate = new JdbcTemplate(dataSource);
         this.staffReadPlatformService = staffReadPlatformService;
         this.codeValueReadPlatformService = codeValueReadPlatformService;
         this.savingsProductReadPlatformService = savingsProductReadPlatformService;
+        this.officeHierarchyCache = officeHierarchyCache;
+    }
+
+    /*
+     * clients of the offices in the user's office hierarchy, and clients
+     * being transferred to one of them
+     */
+    private String officeScopeCriteria() {
+        final Long officeId = this.context.authenticatedUser().getOffice().getId();
+        return this.officeHierarchyCache.sqlOfficeCriteria(officeId, "o.id", "transferToOffice.id");
     }
 
     @Override
@@ -111,9 +123,6 @@ public class ClientReadPlatformServiceImpl implements ClientReadPlatformService
     @Override
     public Page<ClientData> retrieveAll(final SearchParameters searchParameters) {
 
-        final String userOfficeHierarchy = this.context.officeHierarchy();
-        final String underHierarchySearchString = userOfficeHierarchy + "%";
-
         // if (searchParameters.isScopedByOfficeHierarchy()) {
         // this.context.validateAccessRights(searchParameters.getHierarchy());
         // underHierarchySearchString = searchParameters.getHierarchy() + "%";
@@ -122,7 +131,7 @@ public class ClientReadPlatformServiceImpl implements ClientReadPlatformService
         final StringBuilder sqlBuilder = new StringBuilder(200);
         sqlBuilder.append("select SQL_CALC_FOUND_ROWS ");
         sqlBuilder.append(this.clientMapper.schema());
-        sqlBuilder.append(" where (o.hierarchy like ? or transferToOffice.hierarchy like ?) ");
+        sqlBuilder.append(" where ").append(officeScopeCriteria()).append(' ');
 
         final String extraCriteria = buildSqlStringFromClientCriteria(searchParameters);
 
@@ -146,8 +155,8 @@ public class ClientReadPlatformServiceImpl implements ClientReadPlatformService
         }
 
         final String sqlCountRows = "SELECT FOUND_ROWS()";
-        return this.paginationHelper.fetchPage(this.jdbcTemplate, sqlCountRows, sqlBuilder.toString(), new Object[] {
-                underHierarchySearchString, underHierarchySearchString }, this.clientMapper);
+        return this.paginationHelper.fetchPage(this.jdbcTemplate, sqlCountRows, sqlBuilder.toString(), new Object[] {},
+                this.clientMapper);
     }
 
     private String buildSqlStringFromClientCriteria(final SearchParameters searchParameters) {
@@ -201,13 +210,8 @@ public class ClientReadPlatformServiceImpl implements ClientReadPlatformService
     @Override
     public ClientData retrieveOne(final Long clientId) {
         try {
-            final String hierarchy = this.context.officeHierarchy();
-            final String hierarchySearchString = hierarchy + "%";
-
-            final String sql = "select " + this.clientMapper.schema()
-                    + " where ( o.hierarchy like ? or transferToOffice.hierarchy like ?) and c.id = ?";
-            final ClientData clientData = this.jdbcTemplate.queryForObject(sql, this.clientMapper, new Object[] { hierarchySearchString,
-                    hierarchySearchString, clientId });
+            final String sql = "select " + this.clientMapper.schema() + " where " + officeScopeCriteria() + " and c.id = ?";
+            final ClientData clientData = this.jdbcTemplate.queryForObject(sql, this.clientMapper, new Object[] { clientId });
 
             final String clientGroupsSql = "select " + this.clientGroupsMapper.parentGroupsSchema();
 
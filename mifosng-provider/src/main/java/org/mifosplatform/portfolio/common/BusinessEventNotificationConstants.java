@@ -13,7 +13,8 @@ public class BusinessEventNotificationConstants {
     public static enum BUSINESS_EVENTS {
         LOAN_APPROVED("loan_approved"), LOAN_UNDO_APPROVAL("loan_undo_approval"), LOAN_UNDO_DISBURSAL("loan_undo_disbursal"), LOAN_UNDO_TRANSACTION(
                 "loan_undo_transaction"), LOAN_MAKE_REPAYMENT("loan_repayment_transaction"), LOAN_WRITTEN_OFF("loan_writtenoff"), LOAN_UNDO_WRITTEN_OFF(
-                "loan_undo_writtenoff");
+                "loan_undo_writtenoff"), LOAN_MARKED_AS_NPA("loan_marked_as_npa"), LOAN_UNMARKED_AS_NPA(
+                "loan_unmarked_as_npa");
 
         private final String value;
 
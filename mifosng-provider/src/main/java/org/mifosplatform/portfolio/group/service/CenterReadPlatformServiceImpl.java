@@ -12,7 +12,9 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.lang.StringUtils;
@@ -512,44 +514,51 @@ public class CenterReadPlatformServiceImpl implements CenterReadPlatformService
     public Collection<StaffCenterData> retriveAllCentersByMeetingDate(final Long officeId, final Date meetingDate, final Long staffId) {
         validateForGenerateCollectionSheet(staffId);
         final CenterCalendarDataMapper centerCalendarMapper = new CenterCalendarDataMapper();
-        String sql = centerCalendarMapper.schema();
-        Collection<CenterData> centerDataArray = null;
-
+        final String staffCriteria = staffId != null ? " and g.staff_id=? " : "";
+
+        // centers whose calendar is indexed for the date meet on it if the
+        // date is in the index, the others (date outside the indexed window)
+        // are evaluated from their recurrence rule
+        final String indexedWindow = " exists (select 1 from m_calendar_meeting_date_range r where r.calendar_id = c.id "
+                + "and ? between r.from_date and r.to_date) ";
+        final String indexedSql = centerCalendarMapper.schema() + staffCriteria + " and" + indexedWindow
+                + " and exists (select 1 from m_calendar_meeting_date md where md.calendar_id = c.id and md.meeting_date = ?) ";
+        final String notIndexedSql = centerCalendarMapper.schema() + staffCriteria + " and not" + indexedWindow;
+
+        final List<Object> indexedParams = new ArrayList<>();
+        final List<Object> notIndexedParams = new ArrayList<>();
+        indexedParams.add(officeId);
+        notIndexedParams.add(officeId);
         if (staffId != null) {
-            sql += " and g.staff_id=? ";
-            centerDataArray = this.jdbcTemplate.query(sql, centerCalendarMapper, new Object[] { officeId, staffId });
-        } else {
-            centerDataArray = this.jdbcTemplate.query(sql, centerCalendarMapper, new Object[] { officeId });
-        }
-
-        Collection<StaffCenterData> staffCenterDataArray = new ArrayList<>();
-        Boolean flag = false;
-        for (CenterData centerData : centerDataArray) {
-            if (centerData.getCollectionMeetingCalendar().isValidRecurringDate(new LocalDate(meetingDate))) {
-                if (staffCenterDataArray.size() <= 0) {
-                    Collection<CenterData> meetingFallCenter = new ArrayList<>();
-                    meetingFallCenter.add(centerData);
-                    staffCenterDataArray.add(StaffCenterData.instance(centerData.staffId(), centerData.getStaffName(), meetingFallCenter));
-                } else {
-                    for (StaffCenterData staffCenterData : staffCenterDataArray) {
-                        flag = false;
-                        if (staffCenterData.getStaffId().equals(centerData.staffId())) {
-                            staffCenterData.getMeetingFallCenters().add(centerData);
-                            flag = true;
-                            break;
-                        }
-                    }
-                    if (!flag) {
-                        Collection<CenterData> meetingFallCenter = new ArrayList<>();
-                        meetingFallCenter.add(centerData);
-                        staffCenterDataArray.add(StaffCenterData.instance(centerData.staffId(), centerData.getStaffName(),
-                                meetingFallCenter));
-                    }
-                }
+            indexedParams.add(staffId);
+            notIndexedParams.add(staffId);
+        }
+        final LocalDate meetingLocalDate = new LocalDate(meetingDate);
+        indexedParams.add(meetingLocalDate.toDate());
+        indexedParams.add(meetingLocalDate.toDate());
+        notIndexedParams.add(meetingLocalDate.toDate());
+
+        final Collection<CenterData> meetingFallCenters = new ArrayList<>(this.jdbcTemplate.query(indexedSql, centerCalendarMapper,
+                indexedParams.toArray()));
+        for (final CenterData centerData : this.jdbcTemplate.query(notIndexedSql, centerCalendarMapper, notIndexedParams.toArray())) {
+            if (centerData.getCollectionMeetingCalendar().isValidRecurringDate(meetingLocalDate)) {
+                meetingFallCenters.add(centerData);
+            }
+        }
 
+        final Map<Long, StaffCenterData> staffCenterDataByStaff = new LinkedHashMap<>();
+        for (final CenterData centerData : meetingFallCenters) {
+            final StaffCenterData staffCenterData = staffCenterDataByStaff.get(centerData.staffId());
+            if (staffCenterData == null) {
+                final Collection<CenterData> meetingFallCenter = new ArrayList<>();
+                meetingFallCenter.add(centerData);
+                staffCenterDataByStaff.put(centerData.staffId(),
+                        StaffCenterData.instance(centerData.staffId(), centerData.getStaffName(), meetingFallCenter));
+            } else {
+                staffCenterData.getMeetingFallCenters().add(centerData);
             }
         }
-        return staffCenterDataArray;
+        return new ArrayList<>(staffCenterDataByStaff.values());
     }
 
     public void validateForGenerateCollectionSheet(final Long staffId) {
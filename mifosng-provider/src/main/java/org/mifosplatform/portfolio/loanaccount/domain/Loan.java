@@ -2768,8 +2768,11 @@ public class Loan extends AbstractPersistable<Long> {
 
         if (isTransactionChronologicallyLatest && adjustedTransaction == null
                 && (!reprocess || !this.repaymentScheduleDetail().isInterestRecalculationEnabled())) {
+            // append only: allocate against the current installment state
+            // rather than replaying every transaction since disbursement
             loanRepaymentScheduleTransactionProcessor.handleTransaction(loanTransaction, getCurrency(), this.repaymentScheduleInstallments,
                     charges());
+            loanTransaction.adjustInterestComponent(getCurrency());
             reprocess = false;
             if (this.repaymentScheduleDetail().isInterestRecalculationEnabled()) {
                 if (currentInstallment == null || currentInstallment.isNotFullyPaidOff()) {
@@ -2951,16 +2954,23 @@ public class Loan extends AbstractPersistable<Long> {
         this.actualMaturityDate = transactionDate.toDate();
     }
 
+    /**
+     * A transaction is the latest when a full replay would process it after
+     * every existing transaction. Transactions on the same date are replayed
+     * in the order they were added, waivers first (see
+     * {@link LoanTransactionComparator}), so a same day transaction still
+     * qualifies unless it is a waiver following a non waiver. Accruals are not
+     * allocated against the schedule and are ignored.
+     */
     private boolean isChronologicallyLatestRepaymentOrWaiver(final LoanTransaction loanTransaction,
             final List<LoanTransaction> loanTransactions) {
 
         boolean isChronologicallyLatestRepaymentOrWaiver = true;
 
-        final LocalDate currentTransactionDate = loanTransaction.getTransactionDate();
+        final LoanTransactionComparator transactionComparator = new LoanTransactionComparator();
         for (final LoanTransaction previousTransaction : loanTransactions) {
-            if (!previousTransaction.isDisbursement() && previousTransaction.isNotReversed()) {
-                if (currentTransactionDate.isBefore(previousTransaction.getTransactionDate())
-                        || currentTransactionDate.isEqual(previousTransaction.getTransactionDate())) {
+            if (!previousTransaction.isDisbursement() && previousTransaction.isNotReversed() && !previousTransaction.isAccrual()) {
+                if (transactionComparator.compare(loanTransaction, previousTransaction) < 0) {
                     isChronologicallyLatestRepaymentOrWaiver = false;
                     break;
                 }
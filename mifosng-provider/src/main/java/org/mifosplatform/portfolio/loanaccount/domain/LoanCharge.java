@@ -128,6 +128,19 @@ public class LoanCharge extends AbstractPersistable<Long> {
     public static LoanCharge createNewFromJson(final Loan loan, final Charge chargeDefinition, final JsonCommand command,
             final LocalDate dueDate) {
         final BigDecimal amount = command.bigDecimalValueOfParameterNamed("amount");
+        final BigDecimal principal = command.hasParameter("principal") ? command.bigDecimalValueOfParameterNamed("principal") : null;
+        final BigDecimal interest = command.hasParameter("interest") ? command.bigDecimalValueOfParameterNamed("interest") : null;
+        final BigDecimal fee = command.hasParameter("fee") ? command.bigDecimalValueOfParameterNamed("fee") : null;
+        return createNew(loan, chargeDefinition, amount, principal, interest, fee, dueDate);
+    }
+
+    /**
+     * Creates a charge, such as an overdue penalty, whose percentage is
+     * applied to the given outstanding amounts rather than to the loan's
+     * totals; a <code>null</code> amount falls back to the loan's.
+     */
+    public static LoanCharge createNew(final Loan loan, final Charge chargeDefinition, final BigDecimal amount, final BigDecimal principal,
+            final BigDecimal interest, final BigDecimal fee, final LocalDate dueDate) {
 
         final ChargeTimeType chargeTime = null;
         final ChargeCalculationType chargeCalculation = null;
@@ -135,32 +148,29 @@ public class LoanCharge extends AbstractPersistable<Long> {
         BigDecimal amountPercentageAppliedTo = BigDecimal.ZERO;
         switch (ChargeCalculationType.fromInt(chargeDefinition.getChargeCalculation())) {
             case PERCENT_OF_AMOUNT:
-                if (command.hasParameter("principal")) {
-                    amountPercentageAppliedTo = command.bigDecimalValueOfParameterNamed("principal");
+                if (principal != null) {
+                    amountPercentageAppliedTo = principal;
                 } else {
                     amountPercentageAppliedTo = loan.getPrincpal().getAmount();
                 }
             break;
             case PERCENT_OF_AMOUNT_AND_INTEREST:
-                if (command.hasParameter("principal") && command.hasParameter("interest")) {
-                    amountPercentageAppliedTo = command.bigDecimalValueOfParameterNamed("principal").add(
-                            command.bigDecimalValueOfParameterNamed("interest"));
+                if (principal != null && interest != null) {
+                    amountPercentageAppliedTo = principal.add(interest);
                 } else {
                     amountPercentageAppliedTo = loan.getPrincpal().getAmount().add(loan.getTotalInterest());
                 }
             break;
             case PERCENT_OF_INTEREST:
-                if (command.hasParameter("interest")) {
-                    amountPercentageAppliedTo = command.bigDecimalValueOfParameterNamed("interest");
+                if (interest != null) {
+                    amountPercentageAppliedTo = interest;
                 } else {
                     amountPercentageAppliedTo = loan.getTotalInterest();
                 }
             break;
             case PERCENT_OF_TOTAL_OUTSTANDING:
-                if (command.hasParameter("principal") && command.hasParameter("interest") && command.hasParameter("fee")) {
-                    amountPercentageAppliedTo = command.bigDecimalValueOfParameterNamed("principal")
-                            .add(command.bigDecimalValueOfParameterNamed("interest"))
-                            .add(command.bigDecimalValueOfParameterNamed("fee"));
+                if (principal != null && interest != null && fee != null) {
+                    amountPercentageAppliedTo = principal.add(interest).add(fee);
                 } else {
 					LoanRepaymentScheduleInstallment total = loan.getTotalOutstandingOnLoan();
 					MonetaryCurrency currency = loan.getCurrency();
@@ -7,6 +7,9 @@ package org.mifosplatform.portfolio.loanaccount.loanschedule.data;
 
 import java.math.BigDecimal;
 
+import org.joda.time.LocalDate;
+import org.joda.time.format.DateTimeFormat;
+
 public class OverdueLoanScheduleData {
 
     private final Long loanId;
@@ -63,6 +66,22 @@ public class OverdueLoanScheduleData {
     public Integer getPeriodNumber() {
         return this.periodNumber;
     }
+
+    public BigDecimal getPrincipalOverdue() {
+        return this.principalOverdue;
+    }
+
+    public BigDecimal getInterestOverdue() {
+        return this.interestOverdue;
+    }
+
+    public BigDecimal getFeeOverdue() {
+        return this.feeOverdue;
+    }
+
+    public LocalDate dueDate() {
+        return DateTimeFormat.forPattern(this.dateFormat).parseLocalDate(this.dueDate);
+    }
     
     @Override
     public String toString() {
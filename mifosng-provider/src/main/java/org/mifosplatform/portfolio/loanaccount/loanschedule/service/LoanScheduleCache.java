@@ -0,0 +1,145 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount.loanschedule.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.mifosplatform.infrastructure.cache.service.CacheInvalidationLog;
+import org.mifosplatform.infrastructure.core.service.DateUtils;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.infrastructure.metrics.service.PlatformMetricsService;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.domain.LoanScheduleModel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * Holds recently calculated loan schedules (the
+ * <code>calculateLoanSchedule</code> preview) so that repeated requests for
+ * the same terms do not regenerate the schedule.
+ *
+ * Entries are kept per tenant, bounded in number and keyed on a hash of the
+ * canonical form of the request (object members in name order) together with
+ * the tenant's business date and holiday rescheduling setting. Anything else
+ * the schedule depends on (holidays, working days, products, charges and
+ * meeting calendars) invalidates the tenant's entries when it is changed, on
+ * the other nodes too through the {@link CacheInvalidationLog}.
+ */
+@Component
+public class LoanScheduleCache {
+
+    private static final long MAXIMUM_ENTRIES_PER_TENANT = 500;
+    private static final long EXPIRE_AFTER_WRITE_MINUTES = 30;
+
+    static final String HIT_METRIC = "loanschedule.cache.hit";
+    static final String MISS_METRIC = "loanschedule.cache.miss";
+    static final String GENERATION_METRIC = "loanschedule.generate";
+    private static final String CACHE_NAME = "loanSchedules";
+
+    private final PlatformMetricsService metricsService;
+    private final CacheInvalidationLog invalidationLog;
+    private final ConcurrentMap<String, Cache<String, LoanScheduleModel>> schedulesByTenant = new ConcurrentHashMap<>();
+
+    @Autowired
+    public LoanScheduleCache(final PlatformMetricsService metricsService, final CacheInvalidationLog invalidationLog) {
+        this.metricsService = metricsService;
+        this.invalidationLog = invalidationLog;
+        this.invalidationLog.addListener(new CacheInvalidationLog.Listener() {
+
+            @Override
+            public void invalidated(final String cacheName, @SuppressWarnings("unused") final String key, final String tenantIdentifier) {
+                if (CACHE_NAME.equals(cacheName) && tenantIdentifier != null) {
+                    LoanScheduleCache.this.schedulesByTenant.remove(tenantIdentifier);
+                }
+            }
+        });
+    }
+
+    /**
+     * @return the key under which a schedule calculated from the given
+     *         request is cached
+     */
+    public String keyFor(final JsonElement query, final boolean isHolidayEnabled) {
+        final String canonical = canonicalForm(query).toString() + '|' + DateUtils.getLocalDateOfTenant() + '|' + isHolidayEnabled;
+        return Hashing.sha256().hashString(canonical, StandardCharsets.UTF_8).toString();
+    }
+
+    public LoanScheduleModel get(final String key) {
+        final LoanScheduleModel schedule = schedules(currentTenant()).getIfPresent(key);
+        this.metricsService.increment(schedule == null ? MISS_METRIC : HIT_METRIC);
+        return schedule;
+    }
+
+    public void put(final String key, final LoanScheduleModel schedule, final long generationTimeInMillis) {
+        this.metricsService.recordDuration(GENERATION_METRIC, generationTimeInMillis);
+        schedules(currentTenant()).put(key, schedule);
+    }
+
+    /**
+     * Discards the current tenant's cached schedules. When called within a
+     * transaction the entries are discarded again once it commits, so a
+     * schedule calculated concurrently from the old data is not left behind,
+     * and other nodes discard theirs.
+     */
+    public void invalidate() {
+        final String tenantIdentifier = currentTenant();
+        this.schedulesByTenant.remove(tenantIdentifier);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+                @Override
+                public void afterCommit() {
+                    LoanScheduleCache.this.schedulesByTenant.remove(tenantIdentifier);
+                }
+            });
+        }
+        this.invalidationLog.publish(CACHE_NAME, null, tenantIdentifier);
+    }
+
+    private Cache<String, LoanScheduleModel> schedules(final String tenantIdentifier) {
+        return this.schedulesByTenant.computeIfAbsent(tenantIdentifier, k -> CacheBuilder.newBuilder() //
+                .maximumSize(MAXIMUM_ENTRIES_PER_TENANT) //
+                .expireAfterWrite(EXPIRE_AFTER_WRITE_MINUTES, TimeUnit.MINUTES) //
+                .<String, LoanScheduleModel> build());
+    }
+
+    private static String currentTenant() {
+        return ThreadLocalContextUtil.getTenant().getTenantIdentifier();
+    }
+
+    private static JsonElement canonicalForm(final JsonElement element) {
+        if (element == null || element.isJsonNull() || element.isJsonPrimitive()) { return element; }
+        if (element.isJsonArray()) {
+            final JsonArray canonical = new JsonArray();
+            for (final JsonElement item : element.getAsJsonArray()) {
+                canonical.add(canonicalForm(item));
+            }
+            return canonical;
+        }
+        final Map<String, JsonElement> sorted = new TreeMap<>();
+        for (final Map.Entry<String, JsonElement> member : element.getAsJsonObject().entrySet()) {
+            sorted.put(member.getKey(), canonicalForm(member.getValue()));
+        }
+        final JsonObject canonical = new JsonObject();
+        for (final Map.Entry<String, JsonElement> member : sorted.entrySet()) {
+            canonical.add(member.getKey(), member.getValue());
+        }
+        return canonical;
+    }
+}
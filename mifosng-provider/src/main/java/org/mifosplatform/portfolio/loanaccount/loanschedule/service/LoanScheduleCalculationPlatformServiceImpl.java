@@ -63,6 +63,7 @@ public class LoanScheduleCalculationPlatformServiceImpl implements LoanScheduleC
     private final CalendarInstanceRepository calendarInstanceRepository;
     private final LoanRepaymentScheduleTransactionProcessorFactory loanRepaymentScheduleTransactionProcessorFactory;
     private final ConfigurationDomainService configurationDomainService;
+    private final LoanScheduleCache loanScheduleCache;
 
     @Autowired
     public LoanScheduleCalculationPlatformServiceImpl(final CalculateLoanScheduleQueryFromApiJsonHelper fromApiJsonDeserializer,
@@ -72,7 +73,7 @@ public class LoanScheduleCalculationPlatformServiceImpl implements LoanScheduleC
             final LoanAssembler loanAssembler, final ApplicationCurrencyRepositoryWrapper applicationCurrencyRepository,
             final LoanAccountDomainService accountDomainService, final CalendarInstanceRepository calendarInstanceRepository,
             final LoanRepaymentScheduleTransactionProcessorFactory loanRepaymentScheduleTransactionProcessorFactory,
-            final ConfigurationDomainService configurationDomainService) {
+            final ConfigurationDomainService configurationDomainService, final LoanScheduleCache loanScheduleCache) {
         this.fromApiJsonDeserializer = fromApiJsonDeserializer;
         this.loanScheduleAssembler = loanScheduleAssembler;
         this.fromJsonHelper = fromJsonHelper;
@@ -86,6 +87,7 @@ public class LoanScheduleCalculationPlatformServiceImpl implements LoanScheduleC
         this.calendarInstanceRepository = calendarInstanceRepository;
         this.loanRepaymentScheduleTransactionProcessorFactory = loanRepaymentScheduleTransactionProcessorFactory;
         this.configurationDomainService = configurationDomainService;
+        this.loanScheduleCache = loanScheduleCache;
     }
 
     @Override
@@ -124,7 +126,19 @@ public class LoanScheduleCalculationPlatformServiceImpl implements LoanScheduleC
         }
         if (!dataValidationErrors.isEmpty()) { throw new PlatformApiDataValidationException(dataValidationErrors); }
 
-        return this.loanScheduleAssembler.assembleLoanScheduleFrom(query.parsedJson());
+        // terms derived from the borrower cycle change with the client's
+        // loans, so those schedules are always generated
+        if (loanProduct.useBorrowerCycle()) { return this.loanScheduleAssembler.assembleLoanScheduleFrom(query.parsedJson()); }
+
+        final boolean isHolidayEnabled = this.configurationDomainService.isRescheduleRepaymentsOnHolidaysEnabled();
+        final String cacheKey = this.loanScheduleCache.keyFor(query.parsedJson(), isHolidayEnabled);
+        LoanScheduleModel loanSchedule = this.loanScheduleCache.get(cacheKey);
+        if (loanSchedule == null) {
+            final long startTime = System.currentTimeMillis();
+            loanSchedule = this.loanScheduleAssembler.assembleLoanScheduleFrom(query.parsedJson());
+            this.loanScheduleCache.put(cacheKey, loanSchedule, System.currentTimeMillis() - startTime);
+        }
+        return loanSchedule;
     }
 
     @Override
@@ -0,0 +1,138 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.lang.StringUtils;
+import org.mifosplatform.infrastructure.configuration.domain.ConfigurationDomainService;
+import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
+import org.mifosplatform.infrastructure.jobs.annotation.CronTarget;
+import org.mifosplatform.infrastructure.jobs.exception.JobExecutionException;
+import org.mifosplatform.infrastructure.jobs.service.JobItemExecutor;
+import org.mifosplatform.infrastructure.jobs.service.JobItemExecutor.ItemWork;
+import org.mifosplatform.infrastructure.jobs.service.JobItemExecutor.JobItemResult;
+import org.mifosplatform.infrastructure.jobs.service.JobName;
+import org.mifosplatform.organisation.holiday.domain.Holiday;
+import org.mifosplatform.organisation.holiday.domain.HolidayRepositoryWrapper;
+import org.mifosplatform.portfolio.loanaccount.domain.Loan;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanRepository;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanStatus;
+import org.mifosplatform.portfolio.loanaccount.exception.LoanNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Moves repayments falling on unprocessed holidays to the holiday's
+ * reschedule date.
+ *
+ * Only loans with an installment due within a holiday are loaded, a page of
+ * loan ids at a time, and each loan is updated in its own transaction by the
+ * {@link JobItemExecutor} workers. A holiday is marked processed once all of
+ * its loans are updated; loans that fail are picked up again by the next
+ * run.
+ */
+@Service
+public class LoanHolidayWritePlatformServiceImpl implements LoanHolidayWritePlatformService {
+
+    private final static Logger logger = LoggerFactory.getLogger(LoanHolidayWritePlatformServiceImpl.class);
+
+    private static final int PAGE_SIZE = 500;
+
+    private static final String LOAN_STATUSES = StringUtils.join(Arrays.asList(LoanStatus.SUBMITTED_AND_PENDING_APPROVAL.getValue(),
+            LoanStatus.APPROVED.getValue(), LoanStatus.ACTIVE_IN_GOOD_STANDING.getValue(), LoanStatus.ACTIVE_IN_BAD_STANDING.getValue()), ',');
+
+    // client and JLG loans belong to the client's office, group loans to the
+    // group's office
+    private static final String LOANS_DUE_IN_HOLIDAY_SQL = "select l.id from m_loan l "
+            + "left join m_client c on c.id = l.client_id left join m_group g on g.id = l.group_id "
+            + "where l.loan_status_id in (" + LOAN_STATUSES + ") and l.id > ? "
+            + "and ((l.client_id is not null and c.office_id in (select ho.office_id from m_holiday_office ho where ho.holiday_id = ?)) "
+            + "or (l.client_id is null and g.office_id in (select ho.office_id from m_holiday_office ho where ho.holiday_id = ?))) "
+            + "and exists (select 1 from m_loan_repayment_schedule rs where rs.loan_id = l.id and rs.duedate between ? and ?) "
+            + "order by l.id limit " + PAGE_SIZE;
+
+    private final ConfigurationDomainService configurationDomainService;
+    private final HolidayRepositoryWrapper holidayRepository;
+    private final LoanRepository loanRepository;
+    private final JobItemExecutor jobItemExecutor;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public LoanHolidayWritePlatformServiceImpl(final ConfigurationDomainService configurationDomainService,
+            final HolidayRepositoryWrapper holidayRepository, final LoanRepository loanRepository, final JobItemExecutor jobItemExecutor,
+            final RoutingDataSource dataSource) {
+        this.configurationDomainService = configurationDomainService;
+        this.holidayRepository = holidayRepository;
+        this.loanRepository = loanRepository;
+        this.jobItemExecutor = jobItemExecutor;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    @CronTarget(jobName = JobName.APPLY_HOLIDAYS_TO_LOANS)
+    public void applyHolidaysToLoans() throws JobExecutionException {
+
+        final boolean isHolidayEnabled = this.configurationDomainService.isRescheduleRepaymentsOnHolidaysEnabled();
+
+        if (!isHolidayEnabled) { return; }
+
+        final List<String> failures = new ArrayList<>();
+        // Get all Holidays which are active and not processed
+        final List<Holiday> holidays = this.holidayRepository.findUnprocessed();
+        for (final Holiday holiday : holidays) {
+            final boolean applied = applyHolidayToLoans(holiday, failures);
+            if (applied) {
+                holiday.processed();
+                this.holidayRepository.save(holiday);
+            }
+        }
+        if (!failures.isEmpty()) { throw new JobExecutionException("Apply holidays to loans failed for " + failures.size() + " loans",
+                failures); }
+    }
+
+    private boolean applyHolidayToLoans(final Holiday holiday, final List<String> failures) {
+        final java.sql.Date fromDate = new java.sql.Date(holiday.getFromDateLocalDate().toDate().getTime());
+        final java.sql.Date toDate = new java.sql.Date(holiday.getToDateLocalDate().toDate().getTime());
+        final String jobDescription = "Apply holiday " + holiday.getId() + " to loans";
+
+        final ItemWork<Long> applyHoliday = new ItemWork<Long>() {
+
+            @Override
+            public void process(final Long loanId) {
+                final Loan loan = LoanHolidayWritePlatformServiceImpl.this.loanRepository.findOne(loanId);
+                if (loan == null) { throw new LoanNotFoundException(loanId); }
+                loan.applyHolidayToRepaymentScheduleDates(holiday);
+                LoanHolidayWritePlatformServiceImpl.this.loanRepository.save(loan);
+            }
+        };
+
+        boolean applied = true;
+        int loans = 0;
+        Long lastLoanId = 0L;
+        List<Long> loanIds = this.jdbcTemplate.queryForList(LOANS_DUE_IN_HOLIDAY_SQL, Long.class, lastLoanId, holiday.getId(),
+                holiday.getId(), fromDate, toDate);
+        while (!loanIds.isEmpty()) {
+            final JobItemResult<Long> result = this.jobItemExecutor.execute(jobDescription, loanIds, applyHoliday);
+            if (result.hasFailures()) {
+                applied = false;
+                failures.addAll(result.failureLines(jobDescription));
+            }
+            loans += loanIds.size();
+            logger.info(jobDescription + ": " + loans + " loans processed");
+
+            lastLoanId = loanIds.get(loanIds.size() - 1);
+            loanIds = this.jdbcTemplate.queryForList(LOANS_DUE_IN_HOLIDAY_SQL, Long.class, lastLoanId, holiday.getId(), holiday.getId(),
+                    fromDate, toDate);
+        }
+        return applied;
+    }
+}
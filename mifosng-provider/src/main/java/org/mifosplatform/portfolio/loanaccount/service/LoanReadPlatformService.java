@@ -76,6 +76,12 @@ public interface LoanReadPlatformService {
      */
     Collection<OverdueLoanScheduleData> retrieveAllLoansWithOverdueInstallments(final Long penaltyWaitPeriod);
 
+    /**
+     * @return the overdue installments of at most <code>maxLoans</code> loans
+     *         with ids above <code>afterLoanId</code>, ordered by loan id
+     */
+    Collection<OverdueLoanScheduleData> retrieveLoansWithOverdueInstallments(Long penaltyWaitPeriod, Long afterLoanId, int maxLoans);
+
     Collection<OverdueLoanScheduleData> retrieveAllLoansWithOverdueMaturityDate();
 
     Integer retriveLoanCounter(Long groupId, Integer loanType, Long productId);
@@ -98,7 +104,12 @@ public interface LoanReadPlatformService {
 
 	Collection<LoanScheduleAccrualData> retrievePeriodicAccrualData(final LocalDate tillDate, final Long loanId);
 
-    Collection<Long> fetchArrearLoans();
+    /**
+     * @return up to maxLoans ids, in ascending order and greater than
+     *         afterLoanId, of the active loans whose interest is to be
+     *         recalculated
+     */
+    Collection<Long> fetchArrearLoans(Long afterLoanId, int maxLoans);
 
     LoanTransactionData retrieveLoanPrePaymentTemplate(Long loanId);
 
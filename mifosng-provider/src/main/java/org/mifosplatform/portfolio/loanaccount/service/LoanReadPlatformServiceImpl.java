@@ -37,6 +37,7 @@ import org.mifosplatform.organisation.monetary.domain.ApplicationCurrency;
 import org.mifosplatform.organisation.monetary.domain.ApplicationCurrencyRepositoryWrapper;
 import org.mifosplatform.organisation.monetary.domain.MonetaryCurrency;
 import org.mifosplatform.organisation.monetary.domain.Money;
+import org.mifosplatform.organisation.office.service.OfficeHierarchyCache;
 import org.mifosplatform.organisation.staff.data.StaffData;
 import org.mifosplatform.organisation.staff.service.StaffReadPlatformService;
 import org.mifosplatform.portfolio.account.data.AccountTransferData;
@@ -128,6 +129,7 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
     private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
     private final DateTimeFormatter formatter = DateTimeFormat.forPattern("yyyy-MM-dd");
     private final LoanScheduleGeneratorFactory loanScheduleFactory;
+    private final OfficeHierarchyCache officeHierarchyCache;
 
     @Autowired
     public LoanReadPlatformServiceImpl(final PlatformSecurityContext context, final LoanRepository loanRepository,
@@ -138,7 +140,7 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
             final FundReadPlatformService fundReadPlatformService, final ChargeReadPlatformService chargeReadPlatformService,
             final CodeValueReadPlatformService codeValueReadPlatformService, final RoutingDataSource dataSource,
             final CalendarReadPlatformService calendarReadPlatformService, final StaffReadPlatformService staffReadPlatformService,
-            final LoanScheduleGeneratorFactory loanScheduleFactory) {
+            final LoanScheduleGeneratorFactory loanScheduleFactory, final OfficeHierarchyCache officeHierarchyCache) {
         this.context = context;
         this.loanRepository = loanRepository;
         this.loanTransactionRepository = loanTransactionRepository;
@@ -155,6 +157,7 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
         this.jdbcTemplate = new JdbcTemplate(dataSource);
         this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
         this.loanScheduleFactory = loanScheduleFactory;
+        this.officeHierarchyCache = officeHierarchyCache;
     }
 
     @Override
@@ -162,8 +165,8 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
 
         try {
             final AppUser currentUser = this.context.authenticatedUser();
-            final String hierarchy = currentUser.getOffice().getHierarchy();
-            final String hierarchySearchString = hierarchy + "%";
+            final String officeCriteria = this.officeHierarchyCache.sqlOfficeCriteria(currentUser.getOffice().getId(), "o.id",
+                    "transferToOffice.id");
 
             final LoanMapper rm = new LoanMapper();
 
@@ -172,10 +175,9 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
             sqlBuilder.append(rm.loanSchema());
             sqlBuilder.append(" join m_office o on (o.id = c.office_id or o.id = g.office_id) ");
             sqlBuilder.append(" left join m_office transferToOffice on transferToOffice.id = c.transfer_to_office_id ");
-            sqlBuilder.append(" where l.id=? and ( o.hierarchy like ? or transferToOffice.hierarchy like ?)");
+            sqlBuilder.append(" where l.id=? and ").append(officeCriteria);
 
-            return this.jdbcTemplate.queryForObject(sqlBuilder.toString(), rm, new Object[] { loanId, hierarchySearchString,
-                    hierarchySearchString });
+            return this.jdbcTemplate.queryForObject(sqlBuilder.toString(), rm, new Object[] { loanId });
         } catch (final EmptyResultDataAccessException e) {
             throw new LoanNotFoundException(loanId);
         }
@@ -224,8 +226,8 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
     public Page<LoanAccountData> retrieveAll(final SearchParameters searchParameters) {
 
         final AppUser currentUser = this.context.authenticatedUser();
-        final String hierarchy = currentUser.getOffice().getHierarchy();
-        final String hierarchySearchString = hierarchy + "%";
+        final String officeCriteria = this.officeHierarchyCache.sqlOfficeCriteria(currentUser.getOffice().getId(), "o.id",
+                "transferToOffice.id");
 
         final StringBuilder sqlBuilder = new StringBuilder(200);
         sqlBuilder.append("select SQL_CALC_FOUND_ROWS ");
@@ -238,12 +240,10 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
         // but that at present is an edge case
         sqlBuilder.append(" join m_office o on o.id = c.office_id");
         sqlBuilder.append(" left join m_office transferToOffice on transferToOffice.id = c.transfer_to_office_id ");
-        sqlBuilder.append(" where ( o.hierarchy like ? or transferToOffice.hierarchy like ?)");
+        sqlBuilder.append(" where ").append(officeCriteria);
 
-        int arrayPos = 2;
+        int arrayPos = 0;
         List<Object> extraCriterias = new ArrayList<>();
-        extraCriterias.add(hierarchySearchString);
-        extraCriterias.add(hierarchySearchString);
 
         String sqlQueryCriteria = searchParameters.getSqlSearch();
         if (StringUtils.isNotBlank(sqlQueryCriteria)) {
@@ -1503,6 +1503,23 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
         return this.jdbcTemplate.query(sql, rm, new Object[] { penaltyWaitPeriod });
     }
 
+    @Override
+    public Collection<OverdueLoanScheduleData> retrieveLoansWithOverdueInstallments(final Long penaltyWaitPeriod, final Long afterLoanId,
+            final int maxLoans) {
+        final MusoniOverdueLoanScheduleMapper rm = new MusoniOverdueLoanScheduleMapper();
+        final String overdueCondition = " DATE_SUB(CURDATE(),INTERVAL ? DAY) > ls.duedate "
+                + " and ls.completed_derived <> 1 and mc.charge_applies_to_enum =1 "
+                + " and mc.charge_time_enum = 9 and ml.loan_status_id IN (300, 800, 900) ";
+        final String sql = "select " + rm.schema()
+                + " join (select distinct ls.loan_id from m_loan_repayment_schedule ls "
+                + " inner join m_loan ml on ml.id = ls.loan_id "
+                + " join m_product_loan_charge plc on plc.product_loan_id = ml.product_id "
+                + " join m_charge mc on mc.id = plc.charge_id "
+                + " where ls.loan_id > ? and " + overdueCondition + " order by ls.loan_id limit ?) page on page.loan_id = ml.id "
+                + " where " + overdueCondition + " order by ls.loan_id, ls.installment";
+        return this.jdbcTemplate.query(sql, rm, new Object[] { afterLoanId, penaltyWaitPeriod, maxLoans, penaltyWaitPeriod });
+    }
+
     @Override
     public Collection<OverdueLoanScheduleData> retrieveAllLoansWithOverdueMaturityDate() {
         final OverdueMaturityDateLoanScheduleMapper rm = new OverdueMaturityDateLoanScheduleMapper();
@@ -1806,23 +1823,26 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
     }
 
     @Override
-    public Collection<Long> fetchArrearLoans() {
+    public Collection<Long> fetchArrearLoans(final Long afterLoanId, final int maxLoans) {
         StringBuilder sqlBuilder = new StringBuilder();
         sqlBuilder.append("SELECT ml.id FROM m_loan ml ");
         sqlBuilder.append(" INNER JOIN m_loan_repayment_schedule mr on mr.loan_id = ml.id ");
         sqlBuilder.append(" LEFT JOIN m_loan_disbursement_detail dd on dd.loan_id=ml.id and dd.disbursedon_date is null ");
         sqlBuilder.append(" WHERE ml.loan_status_id in (:active) ");
+        sqlBuilder.append(" and ml.id > :afterLoanId ");
         sqlBuilder.append(" and ml.interest_recalculation_enabled = 1 ");
         sqlBuilder.append(" and ml.is_npa = 0 ");
         sqlBuilder.append(" and ((");
         sqlBuilder.append(" mr.completed_derived is false ");
         sqlBuilder.append(" and mr.duedate < :duedate )");
         sqlBuilder.append(" or dd.expected_disburse_date < :disburse_date ) ");
-        sqlBuilder.append(" group by ml.id");
+        sqlBuilder.append(" group by ml.id order by ml.id limit :maxLoans");
         try {
             final Collection<Integer> loanStatuses = new ArrayList<>(Arrays.asList(LoanStatus.ACTIVE_IN_GOOD_STANDING.getValue(), LoanStatus.ACTIVE_IN_BAD_STANDING.getValue()));
-            Map<String, Object> paramMap = new HashMap<>(3);
+            Map<String, Object> paramMap = new HashMap<>(5);
             paramMap.put("active", loanStatuses);
+            paramMap.put("afterLoanId", afterLoanId);
+            paramMap.put("maxLoans", maxLoans);
             paramMap.put("duedate", formatter.print(LocalDate.now()));
             paramMap.put("disburse_date", formatter.print(LocalDate.now()));
 
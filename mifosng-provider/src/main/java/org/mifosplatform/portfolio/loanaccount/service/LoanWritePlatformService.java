@@ -64,8 +64,6 @@ public interface LoanWritePlatformService {
     void applyMeetingDateChanges(Calendar calendar, Collection<CalendarInstance> loanCalendarInstances,
             Boolean reschedulebasedOnMeetingDates, LocalDate presentMeetingDate, LocalDate newMeetingDate);
 
-    void applyHolidaysToLoans();
-
     LoanTransaction initiateLoanTransfer(Long accountId, LocalDate transferDate);
 
     LoanTransaction withdrawLoanTransfer(Long accountId, LocalDate transferDate);
@@ -102,7 +100,7 @@ public interface LoanWritePlatformService {
 
     CommandProcessingResult updateDisbursementDateForTranche(Long loanId, Long disbursementId, JsonCommand command);
 
-    void recalculateInterest();
+    void recalculateInterest() throws JobExecutionException;
 
     CommandProcessingResult recoverFromGuarantor(Long loanId);
 
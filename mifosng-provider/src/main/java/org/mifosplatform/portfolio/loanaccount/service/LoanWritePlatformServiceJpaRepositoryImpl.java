@@ -16,6 +16,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang.StringUtils;
 import org.joda.time.LocalDate;
@@ -35,6 +36,10 @@ import org.mifosplatform.infrastructure.core.serialization.FromJsonHelper;
 import org.mifosplatform.infrastructure.core.service.DateUtils;
 import org.mifosplatform.infrastructure.jobs.annotation.CronTarget;
 import org.mifosplatform.infrastructure.jobs.exception.JobExecutionException;
+import org.mifosplatform.infrastructure.jobs.service.JobCheckpointService;
+import org.mifosplatform.infrastructure.jobs.service.JobItemExecutor;
+import org.mifosplatform.infrastructure.jobs.service.JobItemExecutor.ItemWork;
+import org.mifosplatform.infrastructure.jobs.service.JobItemExecutor.JobItemResult;
 import org.mifosplatform.infrastructure.jobs.service.JobName;
 import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext;
 import org.mifosplatform.organisation.holiday.domain.Holiday;
@@ -162,13 +167,14 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
 
-import com.google.gson.JsonElement;
-
 @Service
 public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatformService {
 
     private final static Logger logger = LoggerFactory.getLogger(LoanWritePlatformServiceJpaRepositoryImpl.class);
 
+    private static final int OVERDUE_LOANS_PAGE_SIZE = 500;
+    private static final int INTEREST_RECALCULATION_PAGE_SIZE = 500;
+
     private final PlatformSecurityContext context;
     private final LoanEventApiJsonValidator loanEventApiJsonValidator;
     private final LoanUpdateCommandFromApiJsonDeserializer loanUpdateCommandFromApiJsonDeserializer;
@@ -185,6 +191,8 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
     private final CalendarInstanceRepository calendarInstanceRepository;
     private final PaymentDetailWritePlatformService paymentDetailWritePlatformService;
     private final HolidayRepositoryWrapper holidayRepository;
+    private final JobItemExecutor jobItemExecutor;
+    private final JobCheckpointService jobCheckpointService;
     private final ConfigurationDomainService configurationDomainService;
     private final WorkingDaysRepositoryWrapper workingDaysRepository;
     private final LoanProductReadPlatformService loanProductReadPlatformService;
@@ -231,7 +239,8 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
 													 final LoanApplicationCommandFromApiJsonHelper loanApplicationCommandFromApiJsonHelper,
 													 final AccountAssociationsRepository accountAssociationRepository,
 													 final AccountTransferDetailRepository accountTransferDetailRepository,
-													 final BusinessEventNotifierService businessEventNotifierService, final GuarantorDomainService guarantorDomainService, OverpaymentTransactionMapperRepository overpaymentTransactionMapperRepository, LoanSummaryWrapper loanSummaryWrapper, LoanRepaymentScheduleTransactionProcessorFactory loanRepaymentScheduleTransactionProcessorFactory) {
+													 final BusinessEventNotifierService businessEventNotifierService, final GuarantorDomainService guarantorDomainService, OverpaymentTransactionMapperRepository overpaymentTransactionMapperRepository, LoanSummaryWrapper loanSummaryWrapper, LoanRepaymentScheduleTransactionProcessorFactory loanRepaymentScheduleTransactionProcessorFactory,
+													 final JobItemExecutor jobItemExecutor, final JobCheckpointService jobCheckpointService) {
         this.context = context;
         this.loanEventApiJsonValidator = loanEventApiJsonValidator;
         this.loanAssembler = loanAssembler;
@@ -248,6 +257,8 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
         this.calendarInstanceRepository = calendarInstanceRepository;
         this.paymentDetailWritePlatformService = paymentDetailWritePlatformService;
         this.holidayRepository = holidayRepository;
+        this.jobItemExecutor = jobItemExecutor;
+        this.jobCheckpointService = jobCheckpointService;
         this.configurationDomainService = configurationDomainService;
         this.workingDaysRepository = workingDaysRepository;
         this.loanProductReadPlatformService = loanProductReadPlatformService;
@@ -2265,48 +2276,6 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
         this.loanRepository.save(loansToUpdate);
     }
 
-    @Transactional
-    @Override
-    @CronTarget(jobName = JobName.APPLY_HOLIDAYS_TO_LOANS)
-    public void applyHolidaysToLoans() {
-
-        final boolean isHolidayEnabled = this.configurationDomainService.isRescheduleRepaymentsOnHolidaysEnabled();
-
-        if (!isHolidayEnabled) { return; }
-
-        final Collection<Integer> loanStatuses = new ArrayList<>(Arrays.asList(LoanStatus.SUBMITTED_AND_PENDING_APPROVAL.getValue(),
-                LoanStatus.APPROVED.getValue(), LoanStatus.ACTIVE_IN_GOOD_STANDING.getValue(), LoanStatus.ACTIVE_IN_BAD_STANDING.getValue()));
-        // Get all Holidays which are active and not processed
-        final List<Holiday> holidays = this.holidayRepository.findUnprocessed();
-
-        // Loop through all holidays
-        for (final Holiday holiday : holidays) {
-            // All offices to which holiday is applied
-            final Set<Office> offices = holiday.getOffices();
-            final Collection<Long> officeIds = new ArrayList<>(offices.size());
-            for (final Office office : offices) {
-                officeIds.add(office.getId());
-            }
-
-            // get all loans
-            final List<Loan> loans = new ArrayList<>();
-            // get all individual and jlg loans
-            loans.addAll(this.loanRepository.findByClientOfficeIdsAndLoanStatus(officeIds, loanStatuses));
-            // FIXME: AA optimize to get all client and group loans belongs to a
-            // office id
-            // get all group loans
-            loans.addAll(this.loanRepository.findByGroupOfficeIdsAndLoanStatus(officeIds, loanStatuses));
-
-            for (final Loan loan : loans) {
-                // apply holiday
-                loan.applyHolidayToRepaymentScheduleDates(holiday);
-            }
-            this.loanRepository.save(loans);
-            holiday.processed();
-        }
-        this.holidayRepository.save(holidays);
-    }
-
     private void checkForProductMixRestrictions(final Loan loan) {
 
         final List<Long> activeLoansLoanProductIds;
@@ -2349,52 +2318,48 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
     public void applyChargeForOverdueLoans() throws JobExecutionException {
 
         final Long penaltyWaitPeriodValue = this.configurationDomainService.retrievePenaltyWaitPeriod();
-        final Collection<OverdueLoanScheduleData> overdueLoanScheduledInstallments = this.loanReadPlatformService
-                .retrieveAllLoansWithOverdueInstallments(penaltyWaitPeriodValue);
+        final String jobDescription = "Apply Charges due for overdue loans";
+        final List<String> failures = new ArrayList<>();
+        int loans = 0;
+
+        // a page of loans at a time, each loan in its own transaction
+        Long lastLoanId = 0L;
+        Map<Long, List<OverdueLoanScheduleData>> overdueScheduleData = groupByLoan(this.loanReadPlatformService
+                .retrieveLoansWithOverdueInstallments(penaltyWaitPeriodValue, lastLoanId, OVERDUE_LOANS_PAGE_SIZE));
+        while (!overdueScheduleData.isEmpty()) {
+            final Map<Long, List<OverdueLoanScheduleData>> pageScheduleData = overdueScheduleData;
+            final JobItemResult<Long> result = this.jobItemExecutor.execute(jobDescription, pageScheduleData.keySet(),
+                    new ItemWork<Long>() {
+
+                        @Override
+                        public void process(final Long loanId) {
+                            applyOverdueChargesForLoan(loanId, pageScheduleData.get(loanId));
+                        }
+                    });
+            failures.addAll(result.failureLines(jobDescription));
+            loans += pageScheduleData.size();
 
-        if (!overdueLoanScheduledInstallments.isEmpty()) {
-            final StringBuilder sb = new StringBuilder();
-            final Map<Long, Collection<OverdueLoanScheduleData>> overdueScheduleData = new HashMap<>();
-            for (final OverdueLoanScheduleData overdueInstallment : overdueLoanScheduledInstallments) {
-                if (overdueScheduleData.containsKey(overdueInstallment.getLoanId())) {
-                    overdueScheduleData.get(overdueInstallment.getLoanId()).add(overdueInstallment);
-                } else {
-                    Collection<OverdueLoanScheduleData> loanData = new ArrayList<>();
-                    loanData.add(overdueInstallment);
-                    overdueScheduleData.put(overdueInstallment.getLoanId(), loanData);
-                }
+            for (final Long loanId : pageScheduleData.keySet()) {
+                lastLoanId = loanId;
             }
+            overdueScheduleData = groupByLoan(this.loanReadPlatformService.retrieveLoansWithOverdueInstallments(penaltyWaitPeriodValue,
+                    lastLoanId, OVERDUE_LOANS_PAGE_SIZE));
+        }
+        if (!failures.isEmpty()) { throw new JobExecutionException(jobDescription + " failed for " + failures.size() + " of " + loans
+                + " loans", failures); }
+    }
 
-            for (final Long loanId : overdueScheduleData.keySet()) {
-                try {
-                    applyOverdueChargesForLoan(loanId, overdueScheduleData.get(loanId));
-
-                } catch (final PlatformApiDataValidationException e) {
-                    final List<ApiParameterError> errors = e.getErrors();
-                    for (final ApiParameterError error : errors) {
-                        logger.error("Apply Charges due for overdue loans failed for account:" + loanId + " with message "
-                                + error.getDeveloperMessage());
-                        sb.append("Apply Charges due for overdue loans failed for account:").append(loanId).append(" with message ")
-                                .append(error.getDeveloperMessage());
-                    }
-                } catch (final AbstractPlatformDomainRuleException ex) {
-                    logger.error("Apply Charges due for overdue loans failed for account:" + loanId + " with message "
-                            + ex.getDefaultUserMessage());
-                    sb.append("Apply Charges due for overdue loans failed for account:").append(loanId).append(" with message ")
-                            .append(ex.getDefaultUserMessage());
-                } catch (Exception e) {
-                    Throwable realCause = e;
-                    if (e.getCause() != null) {
-                        realCause = e.getCause();
-                    }
-                    logger.error("Apply Charges due for overdue loans failed for account:" + loanId + " with message "
-                            + realCause.getMessage());
-                    sb.append("Apply Charges due for overdue loans failed for account:").append(loanId).append(" with message ")
-                            .append(realCause.getMessage());
-                }
+    private static Map<Long, List<OverdueLoanScheduleData>> groupByLoan(final Collection<OverdueLoanScheduleData> overdueInstallments) {
+        final Map<Long, List<OverdueLoanScheduleData>> overdueScheduleData = new LinkedHashMap<>();
+        for (final OverdueLoanScheduleData overdueInstallment : overdueInstallments) {
+            List<OverdueLoanScheduleData> loanData = overdueScheduleData.get(overdueInstallment.getLoanId());
+            if (loanData == null) {
+                loanData = new ArrayList<>();
+                overdueScheduleData.put(overdueInstallment.getLoanId(), loanData);
             }
-            if (sb.length() > 0) { throw new JobExecutionException(sb.toString()); }
+            loanData.add(overdueInstallment);
         }
+        return overdueScheduleData;
     }
 
     @Transactional
@@ -2405,12 +2370,8 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
         final List<Long> existingReversedTransactionIds = new ArrayList<>();
         boolean runInterestRecalculation = false;
         for (final OverdueLoanScheduleData overdueInstallment : overdueLoanScheduleDatas) {
-
-            final JsonElement parsedCommand = this.fromApiJsonHelper.parse(overdueInstallment.toString());
-            final JsonCommand command = JsonCommand.from(overdueInstallment.toString(), parsedCommand, this.fromApiJsonHelper, null, null,
-                    null, null, null, loanId, null, null, null, null);
-            LoanOverdueDTO overdueDTO = applyChargeToOverdueLoanInstallment(loanId, overdueInstallment.getChargeId(),
-                    overdueInstallment.getPeriodNumber(), command, loan, existingTransactionIds, existingReversedTransactionIds);
+            LoanOverdueDTO overdueDTO = applyChargeToOverdueLoanInstallment(loanId, overdueInstallment, loan, existingTransactionIds,
+                    existingReversedTransactionIds);
             loan = overdueDTO.getLoan();
             runInterestRecalculation = runInterestRecalculation || overdueDTO.isRunInterestRecalculation();
         }
@@ -2431,15 +2392,18 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
         }
     }
 
-    public LoanOverdueDTO applyChargeToOverdueLoanInstallment(final Long loanId, final Long loanChargeId, final Integer periodNumber,
-            final JsonCommand command, Loan loan, final List<Long> existingTransactionIds, final List<Long> existingReversedTransactionIds) {
+    public LoanOverdueDTO applyChargeToOverdueLoanInstallment(final Long loanId, final OverdueLoanScheduleData overdueInstallment,
+            Loan loan, final List<Long> existingTransactionIds, final List<Long> existingReversedTransactionIds) {
+        final Long loanChargeId = overdueInstallment.getChargeId();
+        final Integer periodNumber = overdueInstallment.getPeriodNumber();
+        final LocalDate dueDate = overdueInstallment.dueDate();
         boolean runInterestRecalculation = false;
         final Charge chargeDefinition = this.chargeRepository.findOneWithNotFoundDetection(loanChargeId);
         Map<Integer, LocalDate> scheduleDates = new HashMap<>();;
         if (chargeDefinition.isOverdueInstallment()) {
-            scheduleDates = getScheduleDatesForOverdueInstallment(loanId, chargeDefinition, command, periodNumber);
+            scheduleDates = getScheduleDatesForOverdueInstallment(loanId, chargeDefinition, dueDate, periodNumber);
         } else if (chargeDefinition.isOverdueMaturityDate()) {
-            scheduleDates = getScheduleDatesForOverdueMaturityDate(loanId, chargeDefinition, command, periodNumber);
+            scheduleDates = getScheduleDatesForOverdueMaturityDate(loanId, chargeDefinition, dueDate, periodNumber);
         }
 
         LoanRepaymentScheduleInstallment installment = null;
@@ -2456,7 +2420,9 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
 
             for (Map.Entry<Integer, LocalDate> entry : scheduleDates.entrySet()) {
 
-                final LoanCharge loanCharge = LoanCharge.createNewFromJson(loan, chargeDefinition, command, entry.getValue());
+                final LoanCharge loanCharge = LoanCharge.createNew(loan, chargeDefinition, overdueInstallment.getAmount(),
+                        overdueInstallment.getPrincipalOverdue(), overdueInstallment.getInterestOverdue(),
+                        overdueInstallment.getFeeOverdue(), entry.getValue());
 
                 LoanOverdueInstallmentCharge overdueInstallmentCharge = new LoanOverdueInstallmentCharge(loanCharge, installment,
                         entry.getKey());
@@ -2470,7 +2436,7 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
         return new LoanOverdueDTO(loan, runInterestRecalculation);
     }
 
-    public Map<Integer, LocalDate> getScheduleDatesForOverdueInstallment(final Long loanId, final Charge chargeDefinition, final JsonCommand command, final Integer periodNumber) {
+    public Map<Integer, LocalDate> getScheduleDatesForOverdueInstallment(final Long loanId, final Charge chargeDefinition, final LocalDate dueDate, final Integer periodNumber) {
         Collection<Integer> frequencyNumbers = loanChargeReadPlatformService.retrieveOverdueInstallmentChargeFrequencyNumber(loanId,
                 chargeDefinition.getId(), periodNumber);
 
@@ -2479,7 +2445,6 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
         Map<Integer, LocalDate> scheduleDates = new HashMap<>();
         final Long penaltyWaitPeriodValue = this.configurationDomainService.retrievePenaltyWaitPeriod();
         final Long penaltyPostingWaitPeriodValue = this.configurationDomainService.retrieveGraceOnPenaltyPostingPeriod();
-        final LocalDate dueDate = command.localDateValueOfParameterNamed("dueDate");
         Long diff = penaltyWaitPeriodValue + 1 - penaltyPostingWaitPeriodValue;
         if (diff < 0) {
             diff = 0L;
@@ -2505,7 +2470,7 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
         return scheduleDates;
     }
 
-    public Map<Integer, LocalDate> getScheduleDatesForOverdueMaturityDate(final Long loanId, final Charge chargeDefinition, final JsonCommand command, final Integer periodNumber) {
+    public Map<Integer, LocalDate> getScheduleDatesForOverdueMaturityDate(final Long loanId, final Charge chargeDefinition, final LocalDate dueDate, final Integer periodNumber) {
         Collection<Integer> frequencyNumbers = loanChargeReadPlatformService.retrieveOverdueInstallmentChargeFrequencyNumber(loanId,
                 chargeDefinition.getId(), periodNumber);
 
@@ -2514,7 +2479,6 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
         Map<Integer, LocalDate> scheduleDates = new HashMap<>();
         final Long penaltyWaitPeriodValue = this.configurationDomainService.retrievePenaltyWaitPeriod();
         final Long penaltyPostingWaitPeriodValue = this.configurationDomainService.retrieveGraceOnPenaltyPostingPeriod();
-        final LocalDate dueDate = command.localDateValueOfParameterNamed("dueDate");
         Long diff = penaltyWaitPeriodValue + 1 - penaltyPostingWaitPeriodValue;
         if (diff < 0) {
             diff = 0L;
@@ -2925,15 +2889,45 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
 
     @Override
     @CronTarget(jobName = JobName.RECALCULATE_INTEREST_FOR_LOAN)
-    public void recalculateInterest() {
-        Collection<Long> loanIds = this.loanReadPlatformService.fetchArrearLoans();
-        for (Long loanId : loanIds) {
-            recalculateInterest(loanId);
+    public void recalculateInterest() throws JobExecutionException {
+        final String jobDescription = "Recalculate interest";
+        final LocalDate businessDate = DateUtils.getLocalDateOfTenant();
+        final InterestRecalculationContext recalculationContext = new InterestRecalculationContext(
+                this.configurationDomainService.isRescheduleRepaymentsOnHolidaysEnabled(), this.workingDaysRepository.findOne(),
+                this.configurationDomainService.retrievePenaltyWaitPeriod());
+        final List<String> failures = new ArrayList<>();
+        int loans = 0;
+
+        // resume after the last page completed by an interrupted run of today
+        Long lastLoanId = this.jobCheckpointService.retrieveLastProcessedId(JobName.RECALCULATE_INTEREST_FOR_LOAN, businessDate);
+        if (lastLoanId > 0) {
+            logger.info(jobDescription + " resuming after loan " + lastLoanId);
+        }
+        Collection<Long> loanIds = this.loanReadPlatformService.fetchArrearLoans(lastLoanId, INTEREST_RECALCULATION_PAGE_SIZE);
+        while (!loanIds.isEmpty()) {
+            final JobItemResult<Long> result = this.jobItemExecutor.execute(jobDescription, loanIds, new ItemWork<Long>() {
+
+                @Override
+                public void process(final Long loanId) {
+                    recalculateInterest(loanId, recalculationContext);
+                }
+            });
+            failures.addAll(result.failureLines(jobDescription));
+            loans += loanIds.size();
+
+            for (final Long loanId : loanIds) {
+                lastLoanId = loanId;
+            }
+            this.jobCheckpointService.saveCheckpoint(JobName.RECALCULATE_INTEREST_FOR_LOAN, businessDate, lastLoanId);
+            loanIds = this.loanReadPlatformService.fetchArrearLoans(lastLoanId, INTEREST_RECALCULATION_PAGE_SIZE);
         }
+        this.jobCheckpointService.clearCheckpoint(JobName.RECALCULATE_INTEREST_FOR_LOAN);
+
+        if (!failures.isEmpty()) { throw new JobExecutionException(jobDescription + " failed for " + failures.size() + " of " + loans
+                + " loans", failures); }
     }
 
-    @Transactional
-    public void recalculateInterest(final long loanId) {
+    private void recalculateInterest(final Long loanId, final InterestRecalculationContext recalculationContext) {
         AppUser currentUser = getAppUserIfPresent();
         Loan loan = this.loanAssembler.assembleFrom(loanId);
         CalendarInstance restCalendarInstance = null;
@@ -2951,17 +2945,16 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
             restCalendarInstance = calendarInstanceRepository.findCalendarInstaneByEntityId(loan.loanInterestRecalculationDetailId(),
                     CalendarEntityType.LOAN_RECALCULATION_DETAIL.getValue());
 
-            final MonetaryCurrency currency = loan.getCurrency();
-            applicationCurrency = this.applicationCurrencyRepository.findOneWithNotFoundDetection(currency);
+            applicationCurrency = recalculationContext.applicationCurrency(loan.getCurrency());
             final CalendarInstance calendarInstance = this.calendarInstanceRepository.findCalendarInstaneByEntityId(loan.getId(),
                     CalendarEntityType.LOANS.getValue());
             calculatedRepaymentsStartingFromDate = this.loanAccountDomainService.getCalculatedRepaymentsStartingFromDate(
                     loan.getDisbursementDate(), loan, calendarInstance);
 
-            isHolidayEnabled = this.configurationDomainService.isRescheduleRepaymentsOnHolidaysEnabled();
-            holidays = this.holidayRepository.findByOfficeIdAndGreaterThanDate(loan.getOfficeId(), loan.getDisbursementDate().toDate());
-            workingDays = this.workingDaysRepository.findOne();
-            overdurPenaltyWaitPeriod = this.configurationDomainService.retrievePenaltyWaitPeriod();
+            isHolidayEnabled = recalculationContext.isHolidayEnabled;
+            holidays = recalculationContext.holidays(loan.getOfficeId(), loan.getDisbursementDate());
+            workingDays = recalculationContext.workingDays;
+            overdurPenaltyWaitPeriod = recalculationContext.penaltyWaitPeriod;
         }
         HolidayDetailDTO holidayDetailDTO = new HolidayDetailDTO(isHolidayEnabled, holidays, workingDays);
         ScheduleGeneratorDTO generatorDTO = new ScheduleGeneratorDTO(loanScheduleFactory, applicationCurrency,
@@ -2983,6 +2976,56 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
         this.loanAccountDomainService.recalculateAccruals(loan);
     }
 
+    /**
+     * Configuration, working days, currencies and office holidays shared by
+     * the loans of one interest recalculation run. Currencies and holidays
+     * are loaded by the first loan that needs them and only read afterwards.
+     */
+    private final class InterestRecalculationContext {
+
+        private final boolean isHolidayEnabled;
+        private final WorkingDays workingDays;
+        private final Long penaltyWaitPeriod;
+        private final Map<String, ApplicationCurrency> applicationCurrencies = new ConcurrentHashMap<>();
+        private final Map<Long, List<Holiday>> officeHolidays = new ConcurrentHashMap<>();
+
+        InterestRecalculationContext(final boolean isHolidayEnabled, final WorkingDays workingDays, final Long penaltyWaitPeriod) {
+            this.isHolidayEnabled = isHolidayEnabled;
+            this.workingDays = workingDays;
+            this.penaltyWaitPeriod = penaltyWaitPeriod;
+        }
+
+        ApplicationCurrency applicationCurrency(final MonetaryCurrency currency) {
+            ApplicationCurrency applicationCurrency = this.applicationCurrencies.get(currency.getCode());
+            if (applicationCurrency == null) {
+                applicationCurrency = LoanWritePlatformServiceJpaRepositoryImpl.this.applicationCurrencyRepository
+                        .findOneWithNotFoundDetection(currency);
+                this.applicationCurrencies.put(currency.getCode(), applicationCurrency);
+            }
+            return applicationCurrency;
+        }
+
+        /**
+         * @return the office holidays that end on or after the disbursement
+         *         date, as {@link HolidayRepositoryWrapper#findByOfficeIdAndGreaterThanDate} would
+         */
+        List<Holiday> holidays(final Long officeId, final LocalDate disbursementDate) {
+            List<Holiday> holidays = this.officeHolidays.get(officeId);
+            if (holidays == null) {
+                holidays = LoanWritePlatformServiceJpaRepositoryImpl.this.holidayRepository.findByOfficeIdAndGreaterThanDate(officeId,
+                        new LocalDate(1900, 1, 1).toDate());
+                this.officeHolidays.put(officeId, holidays);
+            }
+            final List<Holiday> loanHolidays = new ArrayList<>();
+            for (final Holiday holiday : holidays) {
+                if (!holiday.getFromDateLocalDate().isBefore(disbursementDate) || !holiday.getToDateLocalDate().isBefore(disbursementDate)) {
+                    loanHolidays.add(holiday);
+                }
+            }
+            return loanHolidays;
+        }
+    }
+
     @Override
     public CommandProcessingResult recoverFromGuarantor(final Long loanId) {
         final Loan loan = this.loanAssembler.assembleFrom(loanId);
@@ -5,15 +5,20 @@
  */
 package org.mifosplatform.portfolio.loanproduct.domain;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.mifosplatform.portfolio.loanproduct.data.TransactionProcessingStrategyData;
 import org.springframework.data.jpa.domain.AbstractPersistable;
 
 @Entity
 @Table(name = "ref_loan_transaction_processing_strategy")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class LoanTransactionProcessingStrategy extends AbstractPersistable<Long> {
 
     @Column(name = "code", unique = true)
@@ -17,11 +17,11 @@ public interface ScheduledJobRunnerService {
 
     void updateLoanPaidInAdvance();
 
-    void applyAnnualFeeForSavings();
+    void applyAnnualFeeForSavings() throws JobExecutionException;
 
     void applyDueChargesForSavings() throws JobExecutionException;
 
     void updateNPA();
 
-    void updateMaturityDetailsOfDepositAccounts();
+    void updateMaturityDetailsOfDepositAccounts() throws JobExecutionException;
 }
@@ -5,16 +5,25 @@
  */
 package org.mifosplatform.scheduledjobs.service;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
-import org.mifosplatform.infrastructure.core.data.ApiParameterError;
-import org.mifosplatform.infrastructure.core.exception.PlatformApiDataValidationException;
+import org.apache.commons.lang.StringUtils;
+import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
 import org.mifosplatform.infrastructure.core.service.RoutingDataSourceServiceFactory;
 import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
 import org.mifosplatform.infrastructure.jobs.annotation.CronTarget;
 import org.mifosplatform.infrastructure.jobs.exception.JobExecutionException;
+import org.mifosplatform.infrastructure.jobs.service.JobItemExecutor;
+import org.mifosplatform.infrastructure.jobs.service.JobItemExecutor.ItemWork;
+import org.mifosplatform.infrastructure.jobs.service.JobItemExecutor.JobItemResult;
 import org.mifosplatform.infrastructure.jobs.service.JobName;
+import org.mifosplatform.portfolio.common.BusinessEventNotificationConstants.BUSINESS_EVENTS;
+import org.mifosplatform.portfolio.common.service.BusinessEventNotifierService;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanRepository;
 import org.mifosplatform.portfolio.savings.DepositAccountType;
 import org.mifosplatform.portfolio.savings.data.DepositAccountData;
 import org.mifosplatform.portfolio.savings.data.SavingsAccountAnnualFeeData;
@@ -27,30 +36,52 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.google.common.collect.Lists;
 
 @Service(value = "scheduledJobRunnerService")
 public class ScheduledJobRunnerServiceImpl implements ScheduledJobRunnerService {
 
     private final static Logger logger = LoggerFactory.getLogger(ScheduledJobRunnerServiceImpl.class);
 
+    private static final int NPA_CHUNK_SIZE = 1000;
+
     private final RoutingDataSourceServiceFactory dataSourceServiceFactory;
     private final SavingsAccountWritePlatformService savingsAccountWritePlatformService;
     private final SavingsAccountChargeReadPlatformService savingsAccountChargeReadPlatformService;
     private final DepositAccountReadPlatformService depositAccountReadPlatformService;
     private final DepositAccountWritePlatformService depositAccountWritePlatformService;
+    private final LoanRepository loanRepository;
+    private final BusinessEventNotifierService businessEventNotifierService;
+    private final TransactionTemplate transactionTemplate;
+    private final JobItemExecutor jobItemExecutor;
+    /**
+     * takes part in the transactions of the transactionTemplate
+     */
+    private final JdbcTemplate jdbcTemplate;
 
     @Autowired
     public ScheduledJobRunnerServiceImpl(final RoutingDataSourceServiceFactory dataSourceServiceFactory,
             final SavingsAccountWritePlatformService savingsAccountWritePlatformService,
             final SavingsAccountChargeReadPlatformService savingsAccountChargeReadPlatformService,
             final DepositAccountReadPlatformService depositAccountReadPlatformService,
-            final DepositAccountWritePlatformService depositAccountWritePlatformService) {
+            final DepositAccountWritePlatformService depositAccountWritePlatformService, final LoanRepository loanRepository,
+            final BusinessEventNotifierService businessEventNotifierService, final TransactionTemplate transactionTemplate,
+            final JobItemExecutor jobItemExecutor, final RoutingDataSource dataSource) {
         this.dataSourceServiceFactory = dataSourceServiceFactory;
         this.savingsAccountWritePlatformService = savingsAccountWritePlatformService;
         this.savingsAccountChargeReadPlatformService = savingsAccountChargeReadPlatformService;
         this.depositAccountReadPlatformService = depositAccountReadPlatformService;
         this.depositAccountWritePlatformService = depositAccountWritePlatformService;
+        this.loanRepository = loanRepository;
+        this.businessEventNotifierService = businessEventNotifierService;
+        this.transactionTemplate = transactionTemplate;
+        this.jobItemExecutor = jobItemExecutor;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
     }
 
     @Transactional
@@ -236,106 +267,162 @@ public class ScheduledJobRunnerServiceImpl implements ScheduledJobRunnerService
 
     @Override
     @CronTarget(jobName = JobName.APPLY_ANNUAL_FEE_FOR_SAVINGS)
-    public void applyAnnualFeeForSavings() {
-
-        final Collection<SavingsAccountAnnualFeeData> annualFeeData = this.savingsAccountChargeReadPlatformService
-                .retrieveChargesWithAnnualFeeDue();
-
-        for (final SavingsAccountAnnualFeeData savingsAccountReference : annualFeeData) {
-            try {
-                this.savingsAccountWritePlatformService.applyAnnualFee(savingsAccountReference.getId(),
-                        savingsAccountReference.getAccountId());
-            } catch (final PlatformApiDataValidationException e) {
-                final List<ApiParameterError> errors = e.getErrors();
-                for (final ApiParameterError error : errors) {
-                    logger.error("Apply annual fee failed for account:" + savingsAccountReference.getAccountNo() + " with message "
-                            + error.getDeveloperMessage());
+    public void applyAnnualFeeForSavings() throws JobExecutionException {
+        final String jobDescription = "Apply annual fee";
+        final Map<String, List<SavingsAccountAnnualFeeData>> annualFeeData = groupByAccount(this.savingsAccountChargeReadPlatformService
+                .retrieveChargesWithAnnualFeeDue());
+
+        final JobItemResult<String> result = this.jobItemExecutor.execute(jobDescription, annualFeeData.keySet(), new ItemWork<String>() {
+
+            @Override
+            public void process(final String accountNo) {
+                for (final SavingsAccountAnnualFeeData savingsAccountReference : annualFeeData.get(accountNo)) {
+                    ScheduledJobRunnerServiceImpl.this.savingsAccountWritePlatformService.applyAnnualFee(savingsAccountReference.getId(),
+                            savingsAccountReference.getAccountId());
                 }
-            } catch (final Exception ex) {
-                // need to handle this scenario
             }
-        }
+        });
 
-        logger.info(ThreadLocalContextUtil.getTenant().getName() + ": Savings accounts affected by update: " + annualFeeData.size());
+        logger.info(ThreadLocalContextUtil.getTenant().getName() + ": Savings accounts affected by update: " + result.getProcessed());
+        throwIfFailed(jobDescription, result, annualFeeData.size());
     }
 
     @Override
     @CronTarget(jobName = JobName.PAY_DUE_SAVINGS_CHARGES)
     public void applyDueChargesForSavings() throws JobExecutionException {
-        final Collection<SavingsAccountAnnualFeeData> chargesDueData = this.savingsAccountChargeReadPlatformService
-                .retrieveChargesWithDue();
-        final StringBuilder errorMsg = new StringBuilder();
-
-        for (final SavingsAccountAnnualFeeData savingsAccountReference : chargesDueData) {
-            try {
-                this.savingsAccountWritePlatformService.applyChargeDue(savingsAccountReference.getId(),
-                        savingsAccountReference.getAccountId());
-            } catch (final PlatformApiDataValidationException e) {
-                final List<ApiParameterError> errors = e.getErrors();
-                for (final ApiParameterError error : errors) {
-                    logger.error("Apply Charges due for savings failed for account:" + savingsAccountReference.getAccountNo()
-                            + " with message " + error.getDeveloperMessage());
-                    errorMsg.append("Apply Charges due for savings failed for account:").append(savingsAccountReference.getAccountNo())
-                            .append(" with message ").append(error.getDeveloperMessage());
+        final String jobDescription = "Apply Charges due for savings";
+        final Map<String, List<SavingsAccountAnnualFeeData>> chargesDueData = groupByAccount(this.savingsAccountChargeReadPlatformService
+                .retrieveChargesWithDue());
+
+        final JobItemResult<String> result = this.jobItemExecutor.execute(jobDescription, chargesDueData.keySet(), new ItemWork<String>() {
+
+            @Override
+            public void process(final String accountNo) {
+                for (final SavingsAccountAnnualFeeData savingsAccountReference : chargesDueData.get(accountNo)) {
+                    ScheduledJobRunnerServiceImpl.this.savingsAccountWritePlatformService.applyChargeDue(savingsAccountReference.getId(),
+                            savingsAccountReference.getAccountId());
                 }
             }
-        }
+        });
 
-        logger.info(ThreadLocalContextUtil.getTenant().getName() + ": Savings accounts affected by update: " + chargesDueData.size());
+        logger.info(ThreadLocalContextUtil.getTenant().getName() + ": Savings accounts affected by update: " + result.getProcessed());
+        throwIfFailed(jobDescription, result, chargesDueData.size());
+    }
+
+    /**
+     * Groups the due charges by account, so that all charges of an account
+     * are applied by one worker in one transaction on one load of the
+     * account.
+     */
+    private static Map<String, List<SavingsAccountAnnualFeeData>> groupByAccount(final Collection<SavingsAccountAnnualFeeData> charges) {
+        final Map<String, List<SavingsAccountAnnualFeeData>> chargesByAccount = new LinkedHashMap<>();
+        for (final SavingsAccountAnnualFeeData charge : charges) {
+            List<SavingsAccountAnnualFeeData> accountCharges = chargesByAccount.get(charge.getAccountNo());
+            if (accountCharges == null) {
+                accountCharges = new ArrayList<>();
+                chargesByAccount.put(charge.getAccountNo(), accountCharges);
+            }
+            accountCharges.add(charge);
+        }
+        return chargesByAccount;
+    }
 
-        /*
-         * throw exception if any charge payment fails.
-         */
-        if (errorMsg.length() > 0) { throw new JobExecutionException(errorMsg.toString()); }
+    private static void throwIfFailed(final String jobDescription, final JobItemResult<String> result, final int accounts)
+            throws JobExecutionException {
+        if (result.hasFailures()) { throw new JobExecutionException(jobDescription + " failed for " + result.getFailures().size() + " of "
+                + accounts + " accounts", result.failureLines(jobDescription)); }
     }
 
-    @Transactional
+    /**
+     * Flags as NPA the active loans with an installment overdue for longer
+     * than the product's overdue_days_for_npa, and clears the flag of all
+     * other loans.
+     * 
+     * Only the loans whose flag flips are updated, in chunks of
+     * {@value #NPA_CHUNK_SIZE} each in its own transaction, and a
+     * LOAN_MARKED_AS_NPA or LOAN_UNMARKED_AS_NPA business event is notified
+     * for each of them. The loans of a chunk still to flip are locked before
+     * the update, so a loan flipped meanwhile by another run is not notified
+     * twice.
+     */
     @Override
     @CronTarget(jobName = JobName.UPDATE_NPA)
     public void updateNPA() {
 
-        final JdbcTemplate jdbcTemplate = new JdbcTemplate(this.dataSourceServiceFactory.determineDataSourceService().retrieveDataSource());
-
-        jdbcTemplate.update("UPDATE m_loan ml SET ml.is_npa=0");
+        final StringBuilder npaCriteriaBuilder = new StringBuilder(400);
+        npaCriteriaBuilder.append("exists (select 1 from m_loan_repayment_schedule mr ");
+        npaCriteriaBuilder.append("INNER JOIN m_product_loan mpl on mpl.id = ml.product_id AND mpl.overdue_days_for_npa is not null ");
+        npaCriteriaBuilder.append("WHERE mr.loan_id = ml.id and ml.loan_status_id IN (300, 800, 900) and mr.completed_derived is false ");
+        npaCriteriaBuilder.append("and mr.duedate < SUBDATE(CURDATE(),INTERVAL ifnull(mpl.overdue_days_for_npa,0) day))");
+        final String npaCriteria = npaCriteriaBuilder.toString();
 
-        final StringBuilder updateSqlBuilder = new StringBuilder(900);
+        final List<Long> loansBecomingNpa = this.jdbcTemplate.queryForList("select ml.id from m_loan ml where ml.is_npa = 0 and "
+                + npaCriteria + " order by ml.id", Long.class);
+        final List<Long> loansNoLongerNpa = this.jdbcTemplate.queryForList("select ml.id from m_loan ml where ml.is_npa = 1 and not "
+                + npaCriteria + " order by ml.id", Long.class);
 
-        updateSqlBuilder.append("UPDATE m_loan as ml,");
-        updateSqlBuilder.append(" (select loan.id from m_loan_repayment_schedule mr ");
-        updateSqlBuilder
-                .append(" INNER JOIN  m_loan loan on mr.loan_id = loan.id INNER JOIN m_product_loan mpl on mpl.id = loan.product_id AND mpl.overdue_days_for_npa is not null ");
-        updateSqlBuilder.append("WHERE loan.loan_status_id IN (300, 800, 900) and mr.completed_derived is false ");
-        updateSqlBuilder
-                .append(" and mr.duedate < SUBDATE(CURDATE(),INTERVAL  ifnull(mpl.overdue_days_for_npa,0) day) group by loan.id)  as sl ");
-        updateSqlBuilder.append("SET ml.is_npa=1 where ml.id=sl.id");
+        final int marked = updateNpaFlag(this.jdbcTemplate, loansBecomingNpa, true, BUSINESS_EVENTS.LOAN_MARKED_AS_NPA);
+        final int unmarked = updateNpaFlag(this.jdbcTemplate, loansNoLongerNpa, false, BUSINESS_EVENTS.LOAN_UNMARKED_AS_NPA);
 
-        final int result = jdbcTemplate.update(updateSqlBuilder.toString());
+        logger.info(ThreadLocalContextUtil.getTenant().getName() + ": Loans marked as NPA: " + marked + ", loans no longer NPA: "
+                + unmarked);
+    }
 
-        logger.info(ThreadLocalContextUtil.getTenant().getName() + ": Results affected by update: " + result);
+    private int updateNpaFlag(final JdbcTemplate jdbcTemplate, final List<Long> loanIds, final boolean npa,
+            final BUSINESS_EVENTS businessEvent) {
+        int updated = 0;
+        for (final List<Long> chunk : Lists.partition(loanIds, NPA_CHUNK_SIZE)) {
+            updated += this.transactionTemplate.execute(new TransactionCallback<Integer>() {
+
+                @Override
+                public Integer doInTransaction(@SuppressWarnings("unused") final TransactionStatus status) {
+                    final List<Object> chunkParams = new ArrayList<>(chunk.size() + 1);
+                    chunkParams.add(!npa);
+                    chunkParams.addAll(chunk);
+                    final List<Long> flipping = jdbcTemplate.queryForList("select id from m_loan where is_npa = ? and id in ("
+                            + StringUtils.repeat("?", ",", chunk.size()) + ") for update", Long.class, chunkParams.toArray());
+                    if (flipping.isEmpty()) { return 0; }
+
+                    final List<Object> params = new ArrayList<>(flipping.size() + 1);
+                    params.add(npa);
+                    params.addAll(flipping);
+                    final int result = jdbcTemplate.update("UPDATE m_loan SET is_npa = ? where id in ("
+                            + StringUtils.repeat("?", ",", flipping.size()) + ")", params.toArray());
+                    for (final Long loanId : flipping) {
+                        ScheduledJobRunnerServiceImpl.this.businessEventNotifierService.notifyBusinessEventWasExecuted(businessEvent,
+                                ScheduledJobRunnerServiceImpl.this.loanRepository.getOne(loanId));
+                    }
+                    return result;
+                }
+            });
+        }
+        return updated;
     }
 
     @Override
     @CronTarget(jobName = JobName.UPDATE_DEPOSITS_ACCOUNT_MATURITY_DETAILS)
-    public void updateMaturityDetailsOfDepositAccounts() {
-
-        final Collection<DepositAccountData> depositAccounts = this.depositAccountReadPlatformService.retrieveForMaturityUpdate();
-
-        for (final DepositAccountData depositAccount : depositAccounts) {
-            try {
-                final DepositAccountType depositAccountType = DepositAccountType.fromInt(depositAccount.depositType().getId().intValue());
-                this.depositAccountWritePlatformService.updateMaturityDetails(depositAccount.id(), depositAccountType);
-            } catch (final PlatformApiDataValidationException e) {
-                final List<ApiParameterError> errors = e.getErrors();
-                for (final ApiParameterError error : errors) {
-                    logger.error("Update maturity details failed for account:" + depositAccount.accountNo() + " with message "
-                            + error.getDeveloperMessage());
-                }
-            } catch (final Exception ex) {
-                // need to handle this scenario
-            }
+    public void updateMaturityDetailsOfDepositAccounts() throws JobExecutionException {
+        final String jobDescription = "Update maturity details";
+        final Map<String, DepositAccountData> depositAccounts = new LinkedHashMap<>();
+        for (final DepositAccountData depositAccount : this.depositAccountReadPlatformService.retrieveForMaturityUpdate()) {
+            depositAccounts.put(depositAccount.accountNo(), depositAccount);
         }
 
-        logger.info(ThreadLocalContextUtil.getTenant().getName() + ": Deposit accounts affected by update: " + depositAccounts.size());
+        final JobItemResult<String> result = this.jobItemExecutor.execute(jobDescription, depositAccounts.keySet(),
+                new ItemWork<String>() {
+
+                    @Override
+                    public void process(final String accountNo) {
+                        final DepositAccountData depositAccount = depositAccounts.get(accountNo);
+                        final DepositAccountType depositAccountType = DepositAccountType.fromInt(depositAccount.depositType().getId()
+                                .intValue());
+                        ScheduledJobRunnerServiceImpl.this.depositAccountWritePlatformService.updateMaturityDetails(depositAccount.id(),
+                                depositAccountType);
+                    }
+                });
+
+        logger.info(ThreadLocalContextUtil.getTenant().getName() + ": Deposit accounts affected by update: " + result.getProcessed());
+        throwIfFailed(jobDescription, result, depositAccounts.size());
     }
 
 }
\ No newline at end of file
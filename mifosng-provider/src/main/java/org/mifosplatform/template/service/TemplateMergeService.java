@@ -15,89 +15,264 @@ import java.net.Authenticator;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.PasswordAuthentication;
+import java.net.URI;
 import java.net.URL;
 import java.security.KeyManagementException;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.annotation.PreDestroy;
 
 import org.codehaus.jackson.map.ObjectMapper;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.exception.PlatformServiceUnavailableException;
+import org.mifosplatform.infrastructure.core.service.InProcessApiDispatcher;
+import org.mifosplatform.infrastructure.core.service.InProcessApiDispatcher.ApiResponse;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
 import org.mifosplatform.template.domain.Template;
 import org.mifosplatform.template.domain.TemplateFunctions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import com.github.mustachejava.DefaultMustacheFactory;
 import com.github.mustachejava.Mustache;
 import com.github.mustachejava.MustacheFactory;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
+/**
+ * Merges a {@link Template} with its mappers.
+ *
+ * Compiled templates are cached per tenant and template id, and recompiled
+ * when the template text changes. Mappers pointing at our own API are
+ * dispatched in-process through the {@link InProcessApiDispatcher}; mappers
+ * that do not depend on each other are resolved in parallel, by at most
+ * {@value #MAPPER_THREADS} threads shared by all merges. A merge whose
+ * mappers do not fit in the {@value #MAPPER_QUEUE_CAPACITY} waiting ones fails
+ * as unavailable rather than leaving them out.
+ */
 @Service
 public class TemplateMergeService {
 
-//    private final FromJsonHelper fromApiJsonHelper;
-    private Map<String, Object> scopes;
+    private final static Logger logger = LoggerFactory.getLogger(TemplateMergeService.class);
+
+    private static final String BASE_URI = "BASE_URI";
+    private static final long MAPPER_TIMEOUT_IN_SECONDS = 60;
+    private static final int MAPPER_THREADS = 8;
+    private static final int MAPPER_QUEUE_CAPACITY = 500;
+    private static final Pattern MUSTACHE_VARIABLE = Pattern.compile("\\{\\{\\s*[#^/&{]?\\s*([A-Za-z_][A-Za-z0-9_]*)");
+
+    private final InProcessApiDispatcher inProcessApiDispatcher;
+    private final MustacheFactory mustacheFactory = new DefaultMustacheFactory();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Cache<String, CompiledTemplate> compiledTemplates = CacheBuilder.newBuilder().maximumSize(500).build();
+    private final Cache<String, Mustache> compiledMappers = CacheBuilder.newBuilder().maximumSize(1000).build();
+    private final ExecutorService mapperExecutor;
+
+    @Autowired
+    public TemplateMergeService(final InProcessApiDispatcher inProcessApiDispatcher) {
+        this.inProcessApiDispatcher = inProcessApiDispatcher;
+        // mappers are not run on the caller's thread when the queue is full,
+        // as that may be serving a Jersey request itself; the merge fails
+        // instead
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(MAPPER_THREADS, MAPPER_THREADS, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(MAPPER_QUEUE_CAPACITY), new ThreadFactoryBuilder().setDaemon(true)
+                        .setNameFormat("template-mapper-%d").build());
+        executor.allowCoreThreadTimeOut(true);
+        this.mapperExecutor = executor;
+    }
 
-//    @Autowired
-//    public TemplateMergeService(final FromJsonHelper fromApiJsonHelper) {
-//        this.fromApiJsonHelper = fromApiJsonHelper;
-//    }
+    @PreDestroy
+    public void shutdown() {
+        this.mapperExecutor.shutdownNow();
+    }
 
     public String compile(final Template template, final Map<String, Object> scopes) throws MalformedURLException, IOException {
 
-        this.scopes = scopes;
-        this.scopes.put("static", new TemplateFunctions());
+        final Map<String, Object> mergeScopes = new HashMap<>(scopes);
+        mergeScopes.put("static", new TemplateFunctions());
 
-        final MustacheFactory mf = new DefaultMustacheFactory();
-        final Mustache mustache = mf.compile(new StringReader(template.getText()), template.getName());
+        final Mustache mustache = compiledTemplate(template);
 
-        final Map<String, Object> mappers = getCompiledMapFromMappers(template.getMappersAsMap());
-        this.scopes.putAll(mappers);
+        resolveMappers(template.getMappersAsMap(), mergeScopes);
 
         final StringWriter stringWriter = new StringWriter();
-        mustache.execute(stringWriter, this.scopes);
+        mustache.execute(stringWriter, mergeScopes);
 
         return stringWriter.toString();
     }
 
-    private Map<String, Object> getCompiledMapFromMappers(final Map<String, String> data) {
+    private Mustache compiledTemplate(final Template template) {
+        final String text = template.getText();
+        if (template.getId() == null) { return this.mustacheFactory.compile(new StringReader(text), template.getName()); }
 
-        final MustacheFactory mf = new DefaultMustacheFactory();
+        final String key = ThreadLocalContextUtil.getTenant().getTenantIdentifier() + ":" + template.getId();
+        final CompiledTemplate cached = this.compiledTemplates.getIfPresent(key);
+        if (cached != null && cached.text.equals(text)) { return cached.mustache; }
 
-        if (data != null) {
-            for (final Map.Entry<String, String> entry : data.entrySet()) {
+        final Mustache mustache = this.mustacheFactory.compile(new StringReader(text), template.getName());
+        this.compiledTemplates.put(key, new CompiledTemplate(text, mustache));
+        return mustache;
+    }
 
-                final Mustache mappersMustache = mf.compile(new StringReader(entry.getValue()), "");
-                final StringWriter stringWriter = new StringWriter();
+    private Mustache compiledMapper(final String text) {
+        Mustache mustache = this.compiledMappers.getIfPresent(text);
+        if (mustache == null) {
+            mustache = this.mustacheFactory.compile(new StringReader(text), "");
+            this.compiledMappers.put(text, mustache);
+        }
+        return mustache;
+    }
 
-                mappersMustache.execute(stringWriter, this.scopes);
-                String url = stringWriter.toString();
-                if (!url.startsWith("http")) {
-                    url = this.scopes.get("BASE_URI") + url;
+    /**
+     * Resolves the mappers in waves: a mapper whose URL refers to another
+     * mapper waits for it, all other mappers of a wave are fetched in
+     * parallel.
+     */
+    private void resolveMappers(final Map<String, String> mappers, final Map<String, Object> mergeScopes) {
+        if (mappers == null || mappers.isEmpty()) { return; }
+
+        final Map<String, String> pending = new LinkedHashMap<>(mappers);
+        while (!pending.isEmpty()) {
+            final Map<String, String> wave = new LinkedHashMap<>();
+            for (final Map.Entry<String, String> entry : pending.entrySet()) {
+                if (!referencesAny(entry.getValue(), pending.keySet(), entry.getKey())) {
+                    wave.put(entry.getKey(), entry.getValue());
                 }
+            }
+            if (wave.isEmpty()) {
+                // circular references, resolve with whatever is available
+                wave.putAll(pending);
+            }
+
+            final Map<String, Future<Map<String, Object>>> fetches = new LinkedHashMap<>();
+            for (final Map.Entry<String, String> entry : wave.entrySet()) {
+                final String url = urlFor(entry.getValue(), mergeScopes);
+                pending.remove(entry.getKey());
                 try {
-                    this.scopes.put(entry.getKey(), getMapFromUrl(url));
-                } catch (final MalformedURLException e) {
-                    e.printStackTrace();
-                } catch (final IOException e) {
-                    e.printStackTrace();
+                    fetches.put(entry.getKey(), this.mapperExecutor.submit(inCurrentContext(url, mergeScopes.get(BASE_URI))));
+                } catch (final RejectedExecutionException e) {
+                    // a merge missing a mapper would look complete, so it is
+                    // refused as a whole
+                    for (final Future<Map<String, Object>> fetch : fetches.values()) {
+                        fetch.cancel(true);
+                    }
+                    logger.warn("Template mapper " + entry.getKey() + " not resolved, too many mappers are being resolved");
+                    throw new PlatformServiceUnavailableException("error.msg.template.mappers.busy",
+                            "Too many template mappers are being resolved, try again later.", entry.getKey());
+                }
+            }
+            for (final Map.Entry<String, Future<Map<String, Object>>> fetch : fetches.entrySet()) {
+                final Map<String, Object> result = awaitResult(fetch.getKey(), fetch.getValue());
+                if (result != null) {
+                    mergeScopes.put(fetch.getKey(), result);
                 }
             }
         }
-        return this.scopes;
     }
 
-    @SuppressWarnings("unchecked")
-    private Map<String, Object> getMapFromUrl(final String url) throws MalformedURLException, IOException {
+    private static boolean referencesAny(final String mapperText, final Set<String> mapperNames, final String self) {
+        final Set<String> referenced = new HashSet<>();
+        final Matcher matcher = MUSTACHE_VARIABLE.matcher(mapperText);
+        while (matcher.find()) {
+            referenced.add(matcher.group(1));
+        }
+        referenced.remove(self);
+        referenced.retainAll(mapperNames);
+        return !referenced.isEmpty();
+    }
 
-        final HttpURLConnection connection = getConnection(url);
+    private String urlFor(final String mapperText, final Map<String, Object> mergeScopes) {
+        final StringWriter stringWriter = new StringWriter();
+        compiledMapper(mapperText).execute(stringWriter, mergeScopes);
+        String url = stringWriter.toString();
+        if (!url.startsWith("http")) {
+            url = mergeScopes.get(BASE_URI) + url;
+        }
+        return url;
+    }
 
+    private static Map<String, Object> awaitResult(final String mapperName, final Future<Map<String, Object>> fetch) {
+        try {
+            return fetch.get(MAPPER_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fetch.cancel(true);
+        } catch (final TimeoutException e) {
+            logger.warn("Template mapper " + mapperName + " timed out");
+            fetch.cancel(true);
+        } catch (final ExecutionException e) {
+            logger.warn("Template mapper " + mapperName + " could not be resolved", e.getCause());
+        }
+        return null;
+    }
+
+    /**
+     * Binds the caller's tenant and authenticated user to the worker thread
+     * resolving the mapper.
+     */
+    private Callable<Map<String, Object>> inCurrentContext(final String url, final Object baseUri) {
+        final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+        final SecurityContext securityContext = SecurityContextHolder.getContext();
+        return new Callable<Map<String, Object>>() {
+
+            @Override
+            public Map<String, Object> call() throws Exception {
+                ThreadLocalContextUtil.setTenant(tenant);
+                SecurityContextHolder.setContext(securityContext);
+                try {
+                    return getMapFromUrl(url, baseUri);
+                } finally {
+                    SecurityContextHolder.clearContext();
+                    ThreadLocalContextUtil.clearTenant();
+                }
+            }
+        };
+    }
+
+    private Map<String, Object> getMapFromUrl(final String url, final Object baseUri) throws MalformedURLException, IOException {
+        if (baseUri != null && url.startsWith(baseUri.toString()) && this.inProcessApiDispatcher.isAvailable()) {
+            final ApiResponse response = this.inProcessApiDispatcher.get(URI.create(baseUri.toString()), URI.create(url));
+            if (!response.isSuccessful()) { throw new IOException("Server returned HTTP response code: " + response.getStatus()
+                    + " for URL: " + url); }
+            return toMap(response.getContentType(), response.getBody());
+        }
+
+        final HttpURLConnection connection = getConnection(url);
         final String response = getStringFromInputStream(connection.getInputStream());
+        return toMap(connection.getContentType(), response);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> toMap(final String contentType, final String response) throws IOException {
         HashMap<String, Object> result = new HashMap<>();
-        if (connection.getContentType().equals("text/plain")) {
+        if (contentType != null && contentType.startsWith("text/plain")) {
             result.put("src", response);
         } else {
-            result = new ObjectMapper().readValue(response, HashMap.class);
+            result = this.objectMapper.readValue(response, HashMap.class);
         }
         return result;
     }
@@ -164,4 +339,15 @@ public class TemplateMergeService {
 
         return sb.toString();
     }
+
+    private static final class CompiledTemplate {
+
+        private final String text;
+        private final Mustache mustache;
+
+        CompiledTemplate(final String text, final Mustache mustache) {
+            this.text = text;
+            this.mustache = mustache;
+        }
+    }
 }
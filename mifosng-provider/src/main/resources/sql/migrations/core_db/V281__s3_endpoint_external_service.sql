@@ -0,0 +1,2 @@
+/*Optional S3 endpoint override, e.g. for an S3 compatible store; blank means the default AWS endpoint*/
+INSERT IGNORE INTO c_external_service (name) VALUES ('s3_endpoint');
@@ -0,0 +1,44 @@
+/*Archive tier for audit entries: rows older than the retention period are moved here by the 'Archive Audit Entries' job.
+  Partitioned by year of made_on_date (the partitioning column must be part of the primary key, and partitioned tables cannot
+  carry foreign keys) so that audit searches with a date range only touch the relevant partitions*/
+CREATE TABLE `m_portfolio_command_source_archive` (
+  `id` bigint(20) NOT NULL,
+  `action_name` varchar(50) NOT NULL,
+  `entity_name` varchar(50) NOT NULL,
+  `office_id` bigint(20) DEFAULT NULL,
+  `group_id` bigint(20) DEFAULT NULL,
+  `client_id` bigint(20) DEFAULT NULL,
+  `loan_id` bigint(20) DEFAULT NULL,
+  `savings_account_id` bigint(20) DEFAULT NULL,
+  `api_get_url` varchar(100) NOT NULL,
+  `resource_id` bigint(20) DEFAULT NULL,
+  `subresource_id` bigint(20) DEFAULT NULL,
+  `command_as_json` text NOT NULL,
+  `maker_id` bigint(20) NOT NULL,
+  `made_on_date` datetime NOT NULL,
+  `checker_id` bigint(20) DEFAULT NULL,
+  `checked_on_date` datetime DEFAULT NULL,
+  `processing_result_enum` smallint(5) NOT NULL,
+  `product_id` bigint(20) DEFAULT NULL,
+  `transaction_id` varchar(100) DEFAULT NULL,
+  PRIMARY KEY (`id`, `made_on_date`),
+  KEY `made_on_date` (`made_on_date`),
+  KEY `entity_name` (`entity_name`, `resource_id`),
+  KEY `office_id` (`office_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8 ROW_FORMAT=COMPRESSED
+PARTITION BY RANGE (YEAR(`made_on_date`)) (
+  PARTITION p2013 VALUES LESS THAN (2014),
+  PARTITION p2014 VALUES LESS THAN (2015),
+  PARTITION p2015 VALUES LESS THAN (2016),
+  PARTITION p2016 VALUES LESS THAN (2017),
+  PARTITION p2017 VALUES LESS THAN (2018),
+  PARTITION p2018 VALUES LESS THAN (2019),
+  PARTITION p2019 VALUES LESS THAN (2020),
+  PARTITION p2020 VALUES LESS THAN (2021),
+  PARTITION pmax VALUES LESS THAN MAXVALUE
+);
+
+INSERT INTO `c_configuration` (`name`, `value`, `enabled`, `description`)
+VALUES ('audit-retention-months', 12, 1, 'Number of months audit entries are kept in m_portfolio_command_source before the Archive Audit Entries job moves them to the archive table. Archiving is skipped when disabled.');
+
+INSERT INTO `job` (`name`, `display_name`, `cron_expression`, `create_time`, `task_priority`, `group_name`, `previous_run_start_time`, `next_run_time`, `job_key`, `initializing_errorlog`, `is_active`, `currently_running`, `updates_allowed`, `scheduler_group`, `is_misfired`) VALUES ('Archive Audit Entries', 'Archive Audit Entries', '0 0 2 1/1 * ? *', now(), 5, NULL, NULL, NULL, NULL, NULL, 1, 0, 1, 0, 0);
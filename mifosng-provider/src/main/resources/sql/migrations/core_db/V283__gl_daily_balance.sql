@@ -0,0 +1,77 @@
+CREATE TABLE `acc_gl_daily_balance` (
+  `id` BIGINT(20) NOT NULL AUTO_INCREMENT,
+  `office_id` BIGINT(20) NOT NULL,
+  `account_id` BIGINT(20) NOT NULL,
+  `currency_code` VARCHAR(3) NOT NULL,
+  `balance_date` DATE NOT NULL,
+  `debit_amount` DECIMAL(19,6) NOT NULL DEFAULT '0.000000',
+  `credit_amount` DECIMAL(19,6) NOT NULL DEFAULT '0.000000',
+  `closing_balance` DECIMAL(19,6) NOT NULL DEFAULT '0.000000',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `acc_gl_daily_balance_day` (`office_id`, `account_id`, `currency_code`, `balance_date`),
+  KEY `acc_gl_daily_balance_date` (`balance_date`),
+  CONSTRAINT `FK_acc_gl_daily_balance_m_office` FOREIGN KEY (`office_id`) REFERENCES `m_office` (`id`),
+  CONSTRAINT `FK_acc_gl_daily_balance_acc_gl_account` FOREIGN KEY (`account_id`) REFERENCES `acc_gl_account` (`id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+INSERT INTO `acc_gl_daily_balance` (`office_id`, `account_id`, `currency_code`, `balance_date`, `debit_amount`, `credit_amount`)
+SELECT je.office_id, je.account_id, je.currency_code, je.entry_date,
+	SUM(IF(je.type_enum = 2, je.amount, 0)), SUM(IF(je.type_enum = 1, je.amount, 0))
+FROM acc_gl_journal_entry je
+GROUP BY je.office_id, je.account_id, je.currency_code, je.entry_date;
+
+-- closing balances as a running sum per office, account and currency, walking the days in order with a cursor
+DROP PROCEDURE IF EXISTS `backfill_gl_daily_closing_balance`;
+
+DELIMITER //
+
+CREATE PROCEDURE backfill_gl_daily_closing_balance()
+BEGIN
+	DECLARE no_more_rows BOOLEAN DEFAULT FALSE;
+	DECLARE v_id BIGINT(20);
+	DECLARE v_office_id BIGINT(20);
+	DECLARE v_account_id BIGINT(20);
+	DECLARE v_currency_code VARCHAR(3);
+	DECLARE v_debit_amount DECIMAL(19,6);
+	DECLARE v_credit_amount DECIMAL(19,6);
+	DECLARE v_previous_office_id BIGINT(20) DEFAULT NULL;
+	DECLARE v_previous_account_id BIGINT(20) DEFAULT NULL;
+	DECLARE v_previous_currency_code VARCHAR(3) DEFAULT NULL;
+	DECLARE v_closing_balance DECIMAL(19,6) DEFAULT 0;
+	DECLARE balance_cursor CURSOR FOR
+		SELECT `id`, `office_id`, `account_id`, `currency_code`, `debit_amount`, `credit_amount`
+		FROM `acc_gl_daily_balance`
+		ORDER BY `office_id`, `account_id`, `currency_code`, `balance_date`;
+	DECLARE CONTINUE HANDLER FOR NOT FOUND SET no_more_rows := TRUE;
+
+	OPEN balance_cursor;
+
+	balance_loop: LOOP
+		FETCH balance_cursor INTO v_id, v_office_id, v_account_id, v_currency_code, v_debit_amount, v_credit_amount;
+		IF no_more_rows THEN
+			LEAVE balance_loop;
+		END IF;
+
+		IF NOT (v_office_id <=> v_previous_office_id AND v_account_id <=> v_previous_account_id
+				AND v_currency_code <=> v_previous_currency_code) THEN
+			SET v_closing_balance = 0;
+			SET v_previous_office_id = v_office_id;
+			SET v_previous_account_id = v_account_id;
+			SET v_previous_currency_code = v_currency_code;
+		END IF;
+
+		SET v_closing_balance = v_closing_balance + v_debit_amount - v_credit_amount;
+		UPDATE `acc_gl_daily_balance` SET `closing_balance` = v_closing_balance WHERE `id` = v_id;
+	END LOOP balance_loop;
+
+	CLOSE balance_cursor;
+END;
+
+//
+DELIMITER ;
+
+CALL backfill_gl_daily_closing_balance();
+
+DROP PROCEDURE IF EXISTS `backfill_gl_daily_closing_balance`;
+
+INSERT INTO `m_permission` (`grouping`, `code`, `entity_name`, `action_name`, `can_maker_checker`) VALUES ('accounting', 'REBUILDDAILYBALANCE_JOURNALENTRY', 'JOURNALENTRY', 'REBUILDDAILYBALANCE', 0);
@@ -0,0 +1,9 @@
+CREATE TABLE `job_checkpoint` (
+  `id` BIGINT(20) NOT NULL AUTO_INCREMENT,
+  `job_name` VARCHAR(50) NOT NULL,
+  `business_date` DATE NOT NULL,
+  `last_processed_id` BIGINT(20) NOT NULL,
+  `lastmodified_date` DATETIME NOT NULL,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `job_checkpoint_job_name` (`job_name`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
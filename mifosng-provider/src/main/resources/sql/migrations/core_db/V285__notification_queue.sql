@@ -0,0 +1,27 @@
+CREATE TABLE `notification_queue` (
+  `id` BIGINT(20) NOT NULL AUTO_INCREMENT,
+  `type` VARCHAR(100) NOT NULL,
+  `recipient` VARCHAR(255) NOT NULL,
+  `recipient_name` VARCHAR(255) NULL DEFAULT NULL,
+  `subject` VARCHAR(255) NULL DEFAULT NULL,
+  `message` TEXT NOT NULL,
+  `entity_name` VARCHAR(255) NULL DEFAULT NULL,
+  `entity_id` BIGINT(20) NULL DEFAULT NULL,
+  `status_enum` SMALLINT(5) NOT NULL,
+  `attempts` INT(11) NOT NULL DEFAULT '0',
+  `next_attempt_at` DATETIME NOT NULL,
+  `last_error` VARCHAR(255) NULL DEFAULT NULL,
+  `created_date` DATETIME NOT NULL,
+  PRIMARY KEY (`id`),
+  KEY `notification_queue_due` (`status_enum`, `type`, `next_attempt_at`),
+  KEY `notification_queue_entity` (`entity_name`, `entity_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+INSERT INTO `c_configuration` (`name`, `value`, `enabled`, `description`)
+VALUES ('notification-sms-max-per-second', 10, 1, 'Maximum number of SMS notifications sent to the gateway per second. Unlimited when disabled.');
+INSERT INTO `c_configuration` (`name`, `value`, `enabled`, `description`)
+VALUES ('notification-email-max-per-second', 5, 1, 'Maximum number of email notifications sent to the mail server per second. Unlimited when disabled.');
+INSERT INTO `c_configuration` (`name`, `value`, `enabled`, `description`)
+VALUES ('notification-max-attempts', 3, 1, 'Number of times a notification is sent before it is given up as failed. Retries back off exponentially from one minute.');
+INSERT INTO `c_configuration` (`name`, `value`, `enabled`, `description`)
+VALUES ('notification-stub-gateway', NULL, 0, 'When enabled, notifications are recorded in memory and logged instead of being sent. For test environments only.');
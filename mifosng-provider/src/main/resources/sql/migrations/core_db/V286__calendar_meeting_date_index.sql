@@ -0,0 +1,21 @@
+/*Meeting dates of center and group calendars, materialised for a rolling window by the 'Update Meeting Date Index' job and
+  whenever a calendar is created or updated. m_calendar_meeting_date_range records the window each calendar is indexed for:
+  inside it the index is complete, outside it meeting dates are still evaluated from the recurrence rule*/
+CREATE TABLE `m_calendar_meeting_date` (
+  `calendar_id` bigint(20) NOT NULL,
+  `meeting_date` date NOT NULL,
+  PRIMARY KEY (`calendar_id`, `meeting_date`),
+  KEY `meeting_date` (`meeting_date`, `calendar_id`),
+  CONSTRAINT `FK_m_calendar_meeting_date_calendar` FOREIGN KEY (`calendar_id`) REFERENCES `m_calendar` (`id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE `m_calendar_meeting_date_range` (
+  `calendar_id` bigint(20) NOT NULL,
+  `from_date` date NOT NULL,
+  `to_date` date NOT NULL,
+  PRIMARY KEY (`calendar_id`),
+  KEY `to_date` (`to_date`),
+  CONSTRAINT `FK_m_calendar_meeting_date_range_calendar` FOREIGN KEY (`calendar_id`) REFERENCES `m_calendar` (`id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+INSERT INTO `job` (`name`, `display_name`, `cron_expression`, `create_time`, `task_priority`, `group_name`, `previous_run_start_time`, `next_run_time`, `job_key`, `initializing_errorlog`, `is_active`, `currently_running`, `updates_allowed`, `scheduler_group`, `is_misfired`) VALUES ('Update Meeting Date Index', 'Update Meeting Date Index', '0 30 0 1/1 * ? *', now(), 5, NULL, NULL, NULL, NULL, NULL, 1, 0, 1, 0, 0);
@@ -0,0 +1,17 @@
+/*Closure of the office tree: one row for every office and each office at or above it, depth being the number of levels between
+  them (0 for the office itself). Maintained when an office is created or moved, so that the offices under a user's office are an
+  indexed lookup instead of a match on m_office.hierarchy*/
+CREATE TABLE `m_office_closure` (
+  `ancestor_id` bigint(20) NOT NULL,
+  `descendant_id` bigint(20) NOT NULL,
+  `depth` int(11) NOT NULL,
+  PRIMARY KEY (`ancestor_id`, `descendant_id`),
+  KEY `descendant_id` (`descendant_id`),
+  CONSTRAINT `FK_m_office_closure_ancestor` FOREIGN KEY (`ancestor_id`) REFERENCES `m_office` (`id`),
+  CONSTRAINT `FK_m_office_closure_descendant` FOREIGN KEY (`descendant_id`) REFERENCES `m_office` (`id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+INSERT INTO `m_office_closure` (`ancestor_id`, `descendant_id`, `depth`)
+SELECT a.id, d.id, (LENGTH(d.hierarchy) - LENGTH(REPLACE(d.hierarchy, '.', ''))) - (LENGTH(a.hierarchy) - LENGTH(REPLACE(a.hierarchy, '.', '')))
+FROM m_office a
+JOIN m_office d ON d.hierarchy LIKE CONCAT(a.hierarchy, '%');
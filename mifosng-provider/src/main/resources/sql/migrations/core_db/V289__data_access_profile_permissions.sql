@@ -0,0 +1 @@
+INSERT INTO `m_permission` (`grouping`, `code`, `entity_name`, `action_name`, `can_maker_checker`) VALUES ('configuration', 'READ_DATAACCESSPROFILE', 'DATAACCESSPROFILE', 'READ', 0), ('configuration', 'UPDATE_DATAACCESSPROFILE', 'DATAACCESSPROFILE', 'UPDATE', 0);
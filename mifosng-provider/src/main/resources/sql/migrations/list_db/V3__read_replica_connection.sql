@@ -0,0 +1,7 @@
+/*Optional read replica of the tenant database. Read-only API requests (reports, search, audits, collection sheets) of a tenant
+  with a replica take their connections from it; username and password default to those of the primary schema*/
+ALTER TABLE `tenants`
+  ADD COLUMN `readonly_schema_server` varchar(100) NULL DEFAULT NULL,
+  ADD COLUMN `readonly_schema_server_port` varchar(10) NULL DEFAULT NULL,
+  ADD COLUMN `readonly_schema_username` varchar(100) NULL DEFAULT NULL,
+  ADD COLUMN `readonly_schema_password` varchar(100) NULL DEFAULT NULL;
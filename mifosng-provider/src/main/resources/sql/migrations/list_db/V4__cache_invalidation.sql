@@ -0,0 +1,12 @@
+/*Cache invalidations published by the nodes of a multi node deployment, polled by the other nodes; rows are purged once
+  every node has had time to read them*/
+CREATE TABLE `cache_invalidation` (
+  `id` BIGINT(20) NOT NULL AUTO_INCREMENT,
+  `node_id` VARCHAR(36) NOT NULL,
+  `cache_name` VARCHAR(200) NOT NULL,
+  `cache_key` VARCHAR(500) NULL DEFAULT NULL,
+  `tenant_identifier` VARCHAR(100) NULL DEFAULT NULL,
+  `created_date` DATETIME NOT NULL,
+  PRIMARY KEY (`id`),
+  INDEX `cache_invalidation_created_date` (`created_date`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
@@ -0,0 +1,103 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.accounting.journalentry.service;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.anyVararg;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mifosplatform.accounting.journalentry.data.GLAccountBalanceData;
+import org.mifosplatform.infrastructure.security.exception.NoAuthorizationException;
+import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext;
+import org.mifosplatform.organisation.office.domain.Office;
+import org.mifosplatform.organisation.office.domain.OfficeRepositoryWrapper;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+public class GLDailyBalanceReadPlatformServiceImplTest {
+
+    private static final Long OFFICE_ID = 4L;
+    private static final Date AS_ON = new Date(1422662400000L);
+    private static final Date FROM = new Date(1420070400000L);
+
+    private JdbcTemplate jdbcTemplate;
+    private PlatformSecurityContext context;
+    private GLDailyBalanceReadPlatformServiceImpl readService;
+    private String sql;
+    private Object[] params;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        this.jdbcTemplate = mock(JdbcTemplate.class);
+        this.context = mock(PlatformSecurityContext.class);
+        final Office office = mock(Office.class);
+        when(office.getHierarchy()).thenReturn(".1.4.");
+        final OfficeRepositoryWrapper officeRepository = mock(OfficeRepositoryWrapper.class);
+        when(officeRepository.findOneWithNotFoundDetection(OFFICE_ID)).thenReturn(office);
+
+        when(this.jdbcTemplate.query(anyString(), any(RowMapper.class), anyVararg())).thenAnswer(new Answer<List<GLAccountBalanceData>>() {
+
+            @Override
+            public List<GLAccountBalanceData> answer(final InvocationOnMock invocation) {
+                final Object[] arguments = invocation.getArguments();
+                GLDailyBalanceReadPlatformServiceImplTest.this.sql = (String) arguments[0];
+                GLDailyBalanceReadPlatformServiceImplTest.this.params = Arrays.copyOfRange(arguments, 2, arguments.length);
+                return Collections.emptyList();
+            }
+        });
+        this.readService = new GLDailyBalanceReadPlatformServiceImpl(this.jdbcTemplate, this.context, officeRepository);
+    }
+
+    @Test(expected = NoAuthorizationException.class)
+    public void officeOutsideTheUsersHierarchyIsRefused() {
+        doThrow(new NoAuthorizationException("outside")).when(this.context).validateAccessRights(".1.4.");
+
+        try {
+            this.readService.retrieveBalances(OFFICE_ID, true, AS_ON, null, null);
+        } finally {
+            verifyZeroInteractions(this.jdbcTemplate);
+        }
+    }
+
+    @Test
+    public void subOfficesAreMatchedByHierarchy() {
+        this.readService.retrieveBalances(OFFICE_ID, true, AS_ON, FROM, null);
+
+        assertTrue(this.sql.contains("o.hierarchy like"));
+        assertFalse(this.sql.contains("b.currency_code = ?"));
+        assertArrayEquals(new Object[] { sqlDate(FROM), sqlDate(FROM), sqlDate(AS_ON), OFFICE_ID, sqlDate(AS_ON) }, this.params);
+    }
+
+    @Test
+    public void singleOfficeAndCurrencyAreFiltered() {
+        this.readService.retrieveBalances(OFFICE_ID, false, AS_ON, null, "USD");
+
+        assertTrue(this.sql.contains("o.id = ?"));
+        assertTrue(this.sql.contains("b.currency_code = ?"));
+        assertArrayEquals(new Object[] { sqlDate(AS_ON), sqlDate(AS_ON), sqlDate(AS_ON), OFFICE_ID, sqlDate(AS_ON), "USD" }, this.params);
+    }
+
+    private static java.sql.Date sqlDate(final Date date) {
+        return new java.sql.Date(date.getTime());
+    }
+}
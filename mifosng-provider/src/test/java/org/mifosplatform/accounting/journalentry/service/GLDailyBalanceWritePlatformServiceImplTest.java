@@ -0,0 +1,95 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.accounting.journalentry.service;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyVararg;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mifosplatform.accounting.glaccount.domain.GLAccount;
+import org.mifosplatform.accounting.journalentry.domain.JournalEntry;
+import org.mifosplatform.organisation.office.domain.Office;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class GLDailyBalanceWritePlatformServiceImplTest {
+
+    private static final String UPDATE_DAY = "update acc_gl_daily_balance set debit_amount";
+    private static final String PREVIOUS_CLOSING_BALANCE = "select closing_balance from acc_gl_daily_balance";
+    private static final String INSERT_DAY = "insert into acc_gl_daily_balance";
+    private static final String CARRY_FORWARD = "update acc_gl_daily_balance set closing_balance = closing_balance + ?";
+
+    private JdbcTemplate jdbcTemplate;
+    private GLDailyBalanceWritePlatformServiceImpl writeService;
+
+    @Before
+    public void setUp() {
+        this.jdbcTemplate = mock(JdbcTemplate.class);
+        this.writeService = new GLDailyBalanceWritePlatformServiceImpl(this.jdbcTemplate);
+    }
+
+    @Test
+    public void postingToANewDayStartsFromThePreviousClosingBalance() {
+        when(this.jdbcTemplate.queryForList(startsWith(PREVIOUS_CLOSING_BALANCE), eq(BigDecimal.class), anyVararg())).thenReturn(
+                Collections.singletonList(new BigDecimal("50")));
+
+        this.writeService.recordPostings(Arrays.asList(entry(true, "100"), entry(false, "30")));
+
+        verify(this.jdbcTemplate).update(startsWith(INSERT_DAY), eq(1L), eq(2L), eq("USD"), any(Date.class), eq(new BigDecimal("100")),
+                eq(new BigDecimal("30")), eq(new BigDecimal("120")));
+        verify(this.jdbcTemplate).update(startsWith(CARRY_FORWARD), eq(new BigDecimal("70")), eq(1L), eq(2L), eq("USD"),
+                any(Date.class));
+    }
+
+    @Test
+    public void postingToAnExistingDayIsAddedAndCarriedForward() {
+        when(this.jdbcTemplate.update(startsWith(UPDATE_DAY), anyVararg())).thenReturn(1);
+
+        this.writeService.recordPostings(Collections.singletonList(entry(true, "100")));
+
+        verify(this.jdbcTemplate, never()).update(startsWith(INSERT_DAY), anyVararg());
+        verify(this.jdbcTemplate).update(startsWith(CARRY_FORWARD), eq(new BigDecimal("100")), eq(1L), eq(2L), eq("USD"),
+                any(Date.class));
+    }
+
+    @Test
+    public void removalTakesTheMovementBackOut() {
+        when(this.jdbcTemplate.update(startsWith(UPDATE_DAY), anyVararg())).thenReturn(1);
+
+        this.writeService.recordRemovals(Collections.singletonList(entry(true, "100")));
+
+        verify(this.jdbcTemplate).update(startsWith(UPDATE_DAY), eq(new BigDecimal("-100")), eq(BigDecimal.ZERO),
+                eq(new BigDecimal("-100")), eq(1L), eq(2L), eq("USD"), any(Date.class));
+        verify(this.jdbcTemplate).update(startsWith(CARRY_FORWARD), eq(new BigDecimal("-100")), eq(1L), eq(2L), eq("USD"),
+                any(Date.class));
+    }
+
+    private static JournalEntry entry(final boolean debit, final String amount) {
+        final Office office = mock(Office.class);
+        when(office.getId()).thenReturn(1L);
+        final GLAccount account = mock(GLAccount.class);
+        when(account.getId()).thenReturn(2L);
+        final JournalEntry entry = mock(JournalEntry.class);
+        when(entry.getOffice()).thenReturn(office);
+        when(entry.getGlAccount()).thenReturn(account);
+        when(entry.getCurrencyCode()).thenReturn("USD");
+        when(entry.getTransactionDate()).thenReturn(new java.util.Date(1420070400000L));
+        when(entry.getAmount()).thenReturn(new BigDecimal(amount));
+        when(entry.isDebitEntry()).thenReturn(debit);
+        return entry;
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.commands.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class AuditSourceTest {
+
+    @Test
+    public void undatedSearchHasNoDateRange() {
+        assertEquals("", AuditReadPlatformServiceImpl.dateRangeCriteria(null, " "));
+    }
+
+    @Test
+    public void searchWithOnlyAnUpperBoundIsRangeLimited() {
+        assertEquals(" where made_on_date <= '2015-01-31'", AuditReadPlatformServiceImpl.dateRangeCriteria(null, "2015-01-31"));
+    }
+
+    @Test
+    public void searchWithBothBoundsIsRangeLimited() {
+        assertEquals(" where made_on_date >= '2015-01-01' and made_on_date <= '2015-01-31'",
+                AuditReadPlatformServiceImpl.dateRangeCriteria("2015-01-01", "2015-01-31"));
+    }
+
+    @Test
+    public void hotTableIsReadAloneWhenNothingIsArchivedInRange() {
+        assertEquals("m_portfolio_command_source", AuditReadPlatformServiceImpl.auditSource(" where made_on_date >= '2015-01-01'", false));
+    }
+
+    @Test
+    public void bothTablesAreReadWhenArchivedEntriesAreInRange() {
+        final String source = AuditReadPlatformServiceImpl.auditSource(" where made_on_date <= '2015-01-31'", true);
+
+        assertTrue(source.contains(" from m_portfolio_command_source where made_on_date <= '2015-01-31'"));
+        assertTrue(source.contains(" union all "));
+        assertTrue(source.contains(" from m_portfolio_command_source_archive where made_on_date <= '2015-01-31'"));
+    }
+
+    @Test
+    public void undatedSearchReadsOnlyTheHotTable() {
+        assertEquals("m_portfolio_command_source",
+                AuditReadPlatformServiceImpl.auditSource(AuditReadPlatformServiceImpl.dateRangeCriteria(null, null), true));
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.commands.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
+
+public class CommandSourceAuditWriterTest {
+
+    private final Object[] first = new Object[] { "CREATE", "CLIENT" };
+    private final Object[] second = new Object[] { "UPDATE", "CLIENT" };
+
+    private JdbcTemplate jdbcTemplate;
+    private MifosPlatformTenant tenant;
+    private CommandSourceAuditWriter writer;
+    private int transactions;
+
+    @Before
+    public void setUp() {
+        this.jdbcTemplate = mock(JdbcTemplate.class);
+        this.tenant = mock(MifosPlatformTenant.class);
+        when(this.tenant.getTenantIdentifier()).thenReturn("default");
+        this.writer = new CommandSourceAuditWriter(this.jdbcTemplate, new TransactionOperations() {
+
+            @Override
+            public <T> T execute(final TransactionCallback<T> action) {
+                CommandSourceAuditWriterTest.this.transactions++;
+                return action.doInTransaction(mock(TransactionStatus.class));
+            }
+        });
+    }
+
+    @Test
+    public void queuedEntriesAreWrittenAsOneBatch() {
+        this.writer.append(this.tenant, this.first);
+        this.writer.append(this.tenant, this.second);
+
+        this.writer.flush();
+
+        verify(this.jdbcTemplate).batchUpdate(anyString(), anyListOf(Object[].class));
+        verify(this.jdbcTemplate, never()).update(anyString(), eq("CREATE"), eq("CLIENT"));
+        assertEquals(1, this.transactions);
+        assertEquals(0, this.writer.pendingCount());
+    }
+
+    @Test
+    public void failedBatchIsWrittenRowByRow() {
+        when(this.jdbcTemplate.batchUpdate(anyString(), anyListOf(Object[].class))).thenThrow(
+                new DataIntegrityViolationException("batch"));
+        this.writer.append(this.tenant, this.first);
+        this.writer.append(this.tenant, this.second);
+
+        this.writer.flush();
+
+        verify(this.jdbcTemplate).update(anyString(), eq("CREATE"), eq("CLIENT"));
+        verify(this.jdbcTemplate).update(anyString(), eq("UPDATE"), eq("CLIENT"));
+        assertEquals(0, this.writer.pendingCount());
+    }
+
+    @Test
+    public void rowsThatStillFailAreQueuedAgainAndRetried() {
+        when(this.jdbcTemplate.batchUpdate(anyString(), anyListOf(Object[].class))).thenThrow(
+                new DataAccessResourceFailureException("down"));
+        when(this.jdbcTemplate.update(anyString(), eq("CREATE"), eq("CLIENT"))).thenThrow(new DataAccessResourceFailureException("down"))
+                .thenReturn(1);
+        this.writer.append(this.tenant, this.first);
+        this.writer.append(this.tenant, this.second);
+
+        this.writer.flush();
+        assertEquals(1, this.writer.pendingCount());
+
+        this.writer.flush();
+        assertEquals(0, this.writer.pendingCount());
+        verify(this.jdbcTemplate, times(2)).update(anyString(), eq("CREATE"), eq("CLIENT"));
+        verify(this.jdbcTemplate, times(1)).update(anyString(), eq("UPDATE"), eq("CLIENT"));
+    }
+
+    @Test
+    public void entryThatKeepsFailingIsDroppedAfterTheLastAttempt() {
+        when(this.jdbcTemplate.batchUpdate(anyString(), anyListOf(Object[].class))).thenThrow(
+                new DataIntegrityViolationException("batch"));
+        when(this.jdbcTemplate.update(anyString(), eq("CREATE"), eq("CLIENT"))).thenThrow(new DataIntegrityViolationException("row"));
+        this.writer.append(this.tenant, this.first);
+
+        int flushes = 0;
+        while (this.writer.pendingCount() > 0 || flushes == 0) {
+            this.writer.flush();
+            flushes++;
+            assertTrue(flushes < 100);
+        }
+
+        assertEquals(10, flushes);
+        verify(this.jdbcTemplate, times(10)).update(anyString(), eq("CREATE"), eq("CLIENT"));
+    }
+}
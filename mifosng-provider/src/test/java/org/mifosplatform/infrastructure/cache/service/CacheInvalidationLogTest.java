@@ -0,0 +1,162 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.cache.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mifosplatform.infrastructure.metrics.service.PlatformMetricsService;
+import org.mockito.Matchers;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+/**
+ * Two nodes sharing an in memory stand-in for the cache_invalidation table.
+ */
+public class CacheInvalidationLogTest {
+
+    private final TreeMap<Long, String[]> table = new TreeMap<>();
+
+    private CacheInvalidationLog node1;
+    private CacheInvalidationLog node2;
+    private final List<String> receivedByNode1 = new ArrayList<>();
+    private final List<String> receivedByNode2 = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        doAnswer(new Answer<Integer>() {
+
+            @Override
+            public Integer answer(final InvocationOnMock invocation) {
+                final Object[] args = invocation.getArguments();
+                if (!((String) args[0]).startsWith("insert")) { return 0; }
+                insert(nextId(), (String) args[1], (String) args[2], (String) args[3], (String) args[4]);
+                return 1;
+            }
+        }).when(jdbcTemplate).update(anyString(), Matchers.<Object> anyVararg());
+        doAnswer(new Answer<Void>() {
+
+            @Override
+            public Void answer(final InvocationOnMock invocation) throws Exception {
+                final RowCallbackHandler handler = (RowCallbackHandler) invocation.getArguments()[1];
+                final long fromId = (Long) invocation.getArguments()[2];
+                for (final Long id : CacheInvalidationLogTest.this.table.tailMap(fromId, false).keySet()) {
+                    handler.processRow(row(id));
+                }
+                return null;
+            }
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), Matchers.<Object> anyVararg());
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenAnswer(new Answer<Long>() {
+
+            @Override
+            public Long answer(@SuppressWarnings("unused") final InvocationOnMock invocation) {
+                return CacheInvalidationLogTest.this.table.isEmpty() ? 0L : CacheInvalidationLogTest.this.table.lastKey();
+            }
+        });
+
+        final PlatformMetricsService metricsService = mock(PlatformMetricsService.class);
+        this.node1 = new CacheInvalidationLog(jdbcTemplate, metricsService);
+        this.node2 = new CacheInvalidationLog(jdbcTemplate, metricsService);
+        this.node1.addListener(recordingInto(this.receivedByNode1));
+        this.node2.addListener(recordingInto(this.receivedByNode2));
+    }
+
+    @Test
+    public void invalidationsLoggedBeforeTheFirstPollAreNotDispatched() {
+        insert(1L, "another-node", "offices", "key", null);
+
+        this.node1.poll();
+        this.node1.poll();
+
+        assertEquals(0, this.receivedByNode1.size());
+    }
+
+    @Test
+    public void publishedInvalidationIsDispatchedToOtherNodesOnly() {
+        this.node1.poll();
+        this.node2.poll();
+
+        this.node1.publish("offices", "default_offices", null);
+        this.node1.publish("officeHierarchy", null, "default");
+        this.node1.poll();
+        this.node2.poll();
+
+        assertEquals(0, this.receivedByNode1.size());
+        assertEquals(2, this.receivedByNode2.size());
+        assertEquals("offices|default_offices|null", this.receivedByNode2.get(0));
+        assertEquals("officeHierarchy|null|default", this.receivedByNode2.get(1));
+    }
+
+    @Test
+    public void invalidationIsDispatchedOnce() {
+        this.node2.poll();
+        this.node1.publish("offices", null, null);
+
+        this.node2.poll();
+        this.node2.poll();
+
+        assertEquals(1, this.receivedByNode2.size());
+    }
+
+    @Test
+    public void invalidationCommittedAfterOneWithAHigherIdIsNotMissed() {
+        insert(10L, "another-node", "charges", null, null);
+        this.node2.poll();
+
+        insert(12L, "another-node", "funds", null, null);
+        this.node2.poll();
+        insert(11L, "another-node", "codes", null, null);
+        this.node2.poll();
+
+        assertEquals(2, this.receivedByNode2.size());
+        assertEquals("funds|null|null", this.receivedByNode2.get(0));
+        assertEquals("codes|null|null", this.receivedByNode2.get(1));
+    }
+
+    private long nextId() {
+        return this.table.isEmpty() ? 1L : this.table.lastKey() + 1;
+    }
+
+    private void insert(final Long id, final String nodeId, final String cacheName, final String key, final String tenantIdentifier) {
+        this.table.put(id, new String[] { nodeId, cacheName, key, tenantIdentifier });
+    }
+
+    private ResultSet row(final Long id) throws Exception {
+        final String[] columns = this.table.get(id);
+        final ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("id")).thenReturn(id);
+        when(rs.getString("node_id")).thenReturn(columns[0]);
+        when(rs.getString("cache_name")).thenReturn(columns[1]);
+        when(rs.getString("cache_key")).thenReturn(columns[2]);
+        when(rs.getString("tenant_identifier")).thenReturn(columns[3]);
+        return rs;
+    }
+
+    private static CacheInvalidationLog.Listener recordingInto(final List<String> received) {
+        return new CacheInvalidationLog.Listener() {
+
+            @Override
+            public void invalidated(final String cacheName, final String key, final String tenantIdentifier) {
+                received.add(cacheName + "|" + key + "|" + tenantIdentifier);
+            }
+        };
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.cache.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.hibernate.cache.spi.EntityRegion;
+import org.hibernate.cache.spi.access.EntityRegionAccessStrategy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.infrastructure.metrics.service.PlatformMetricsService;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class TenantAwareEntityRegionAccessStrategyTest {
+
+    private static final Long STAFF_ID = 1L;
+
+    /**
+     * the entries of the underlying region, shared by all tenants
+     */
+    private final Map<Object, Object> entries = new HashMap<>();
+
+    private TenantAwareEntityRegionAccessStrategy strategy;
+
+    @Before
+    public void setUp() {
+        final EntityRegionAccessStrategy delegate = mock(EntityRegionAccessStrategy.class);
+        when(delegate.get(any(), anyLong())).thenAnswer(new Answer<Object>() {
+
+            @Override
+            public Object answer(final InvocationOnMock invocation) {
+                return TenantAwareEntityRegionAccessStrategyTest.this.entries.get(invocation.getArguments()[0]);
+            }
+        });
+        when(delegate.putFromLoad(any(), any(), anyLong(), any())).thenAnswer(new Answer<Boolean>() {
+
+            @Override
+            public Boolean answer(final InvocationOnMock invocation) {
+                TenantAwareEntityRegionAccessStrategyTest.this.entries.put(invocation.getArguments()[0], invocation.getArguments()[1]);
+                return true;
+            }
+        });
+        doAnswer(new Answer<Void>() {
+
+            @Override
+            public Void answer(final InvocationOnMock invocation) {
+                TenantAwareEntityRegionAccessStrategyTest.this.entries.remove(invocation.getArguments()[0]);
+                return null;
+            }
+        }).when(delegate).evict(any());
+
+        final EntityRegion region = mock(EntityRegion.class);
+        when(region.getName()).thenReturn("org.mifosplatform.organisation.staff.domain.Staff");
+        final TenantAwareRegionFactory regionFactory = mock(TenantAwareRegionFactory.class);
+        when(regionFactory.isCachingEnabled()).thenReturn(true);
+        when(regionFactory.metricsService()).thenReturn(mock(PlatformMetricsService.class));
+
+        this.strategy = new TenantAwareEntityRegionAccessStrategy(delegate, region, regionFactory);
+    }
+
+    @After
+    public void clearTenant() {
+        ThreadLocalContextUtil.clearTenant();
+    }
+
+    @Test
+    public void entryOfOneTenantIsNotServedToAnother() {
+        bindTenant("tenant1");
+        this.strategy.putFromLoad(STAFF_ID, "staff of tenant1", 0, null);
+
+        bindTenant("tenant2");
+        assertNull(this.strategy.get(STAFF_ID, 0));
+
+        this.strategy.putFromLoad(STAFF_ID, "staff of tenant2", 0, null);
+        assertEquals("staff of tenant2", this.strategy.get(STAFF_ID, 0));
+
+        bindTenant("tenant1");
+        assertEquals("staff of tenant1", this.strategy.get(STAFF_ID, 0));
+    }
+
+    @Test
+    public void evictionOfOneTenantLeavesTheOthersEntry() {
+        bindTenant("tenant1");
+        this.strategy.putFromLoad(STAFF_ID, "staff of tenant1", 0, null);
+        bindTenant("tenant2");
+        this.strategy.putFromLoad(STAFF_ID, "staff of tenant2", 0, null);
+
+        this.strategy.evict(STAFF_ID);
+
+        assertNull(this.strategy.get(STAFF_ID, 0));
+        bindTenant("tenant1");
+        assertEquals("staff of tenant1", this.strategy.get(STAFF_ID, 0));
+    }
+
+    @Test
+    public void nothingIsServedWithoutATenant() {
+        bindTenant("tenant1");
+        this.strategy.putFromLoad(STAFF_ID, "staff of tenant1", 0, null);
+
+        ThreadLocalContextUtil.clearTenant();
+
+        assertNull(this.strategy.get(STAFF_ID, 0));
+    }
+
+    private static void bindTenant(final String tenantIdentifier) {
+        final MifosPlatformTenant tenant = mock(MifosPlatformTenant.class);
+        when(tenant.getTenantIdentifier()).thenReturn(tenantIdentifier);
+        ThreadLocalContextUtil.setTenant(tenant);
+    }
+}
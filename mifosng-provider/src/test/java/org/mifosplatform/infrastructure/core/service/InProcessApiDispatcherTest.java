@@ -0,0 +1,115 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.core.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mifosplatform.infrastructure.core.service.InProcessApiDispatcher.ApiResponse;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.sun.jersey.core.header.OutBoundHeaders;
+import com.sun.jersey.spi.container.ContainerRequest;
+import com.sun.jersey.spi.container.ContainerResponse;
+import com.sun.jersey.spi.container.ContainerResponseWriter;
+import com.sun.jersey.spi.container.WebApplication;
+
+public class InProcessApiDispatcherTest {
+
+    private static final URI BASE_URI = URI.create("https://localhost/mifosng-provider/api/v1/");
+    private static final URI REQUEST_URI = URI.create("https://localhost/mifosng-provider/api/v1/clients/1");
+
+    private InProcessApiDispatcher dispatcher;
+    private WebApplication webApplication;
+    private ContainerRequest handledRequest;
+
+    @Before
+    public void setUp() {
+        this.dispatcher = new InProcessApiDispatcher();
+        this.webApplication = mock(WebApplication.class);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void requestsAreRefusedUntilTheApplicationIsRegistered() throws Exception {
+        assertFalse(this.dispatcher.isAvailable());
+
+        this.dispatcher.get(BASE_URI, REQUEST_URI);
+    }
+
+    @Test
+    public void requestIsHandledByTheApplicationAsAJsonGet() throws Exception {
+        respondWith(200, MediaType.APPLICATION_JSON, "{\"id\": 1}");
+        this.dispatcher.register(this.webApplication);
+
+        this.dispatcher.get(BASE_URI, REQUEST_URI);
+
+        assertTrue(this.dispatcher.isAvailable());
+        assertEquals("GET", this.handledRequest.getMethod());
+        assertEquals(BASE_URI, this.handledRequest.getBaseUri());
+        assertEquals(REQUEST_URI, this.handledRequest.getRequestUri());
+        assertTrue(this.handledRequest.getRequestHeaders().get(HttpHeaders.ACCEPT).contains(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    public void responseStatusContentTypeAndBodyAreCaptured() throws Exception {
+        respondWith(200, MediaType.APPLICATION_JSON, "{\"id\": 1}");
+        this.dispatcher.register(this.webApplication);
+
+        final ApiResponse response = this.dispatcher.get(BASE_URI, REQUEST_URI);
+
+        assertTrue(response.isSuccessful());
+        assertEquals(200, response.getStatus());
+        assertEquals(MediaType.APPLICATION_JSON, response.getContentType());
+        assertEquals("{\"id\": 1}", response.getBody());
+    }
+
+    @Test
+    public void errorStatusIsNotSuccessful() throws Exception {
+        respondWith(404, MediaType.APPLICATION_JSON, "{}");
+        this.dispatcher.register(this.webApplication);
+
+        final ApiResponse response = this.dispatcher.get(BASE_URI, REQUEST_URI);
+
+        assertFalse(response.isSuccessful());
+        assertEquals(404, response.getStatus());
+    }
+
+    private void respondWith(final int status, final String contentType, final String body) throws Exception {
+        final OutBoundHeaders headers = new OutBoundHeaders();
+        headers.putSingle(HttpHeaders.CONTENT_TYPE, contentType);
+        final ContainerResponse response = mock(ContainerResponse.class);
+        when(response.getStatus()).thenReturn(status);
+        when(response.getHttpHeaders()).thenReturn(headers);
+
+        doAnswer(new Answer<Void>() {
+
+            @Override
+            public Void answer(final InvocationOnMock invocation) throws Exception {
+                InProcessApiDispatcherTest.this.handledRequest = (ContainerRequest) invocation.getArguments()[0];
+                final ContainerResponseWriter writer = (ContainerResponseWriter) invocation.getArguments()[1];
+                final OutputStream output = writer.writeStatusAndHeaders(-1, response);
+                output.write(body.getBytes(StandardCharsets.UTF_8));
+                writer.finish();
+                return null;
+            }
+        }).when(this.webApplication).handleRequest(any(ContainerRequest.class), any(ContainerResponseWriter.class));
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.core.service;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.metrics.service.PlatformMetricsService;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class ReadReplicaRoutingTest {
+
+    private ReadReplicaRouting routing;
+    private MifosPlatformTenant tenant;
+
+    @Before
+    public void setUp() {
+        this.routing = new ReadReplicaRouting(mock(PlatformMetricsService.class));
+        this.tenant = mock(MifosPlatformTenant.class);
+        when(this.tenant.getTenantIdentifier()).thenReturn("default");
+        when(this.tenant.hasReadReplica()).thenReturn(true);
+        ThreadLocalContextUtil.setTenant(this.tenant);
+        ThreadLocalContextUtil.setAuthToken("token");
+    }
+
+    @After
+    public void tearDown() {
+        this.routing.endRequest();
+        ThreadLocalContextUtil.clearTenant();
+        ThreadLocalContextUtil.setAuthToken(null);
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    public void readsOfReportingResourcesGoToTheReplica() {
+        this.routing.beginRequest("GET", "/runreports/Client Listing", null);
+
+        assertTrue(this.routing.routeToReadReplica());
+    }
+
+    @Test
+    public void otherRequestsGoToThePrimary() {
+        this.routing.beginRequest("GET", "/loans/1", null);
+        assertFalse(this.routing.routeToReadReplica());
+        this.routing.endRequest();
+
+        this.routing.beginRequest("POST", "/search", null);
+        assertFalse(this.routing.routeToReadReplica());
+    }
+
+    @Test
+    public void tenantsWithoutReplicaUseThePrimary() {
+        when(this.tenant.hasReadReplica()).thenReturn(false);
+
+        this.routing.beginRequest("GET", "/search", null);
+
+        assertFalse(this.routing.routeToReadReplica());
+    }
+
+    @Test
+    public void callerThatHasJustWrittenReadsFromThePrimary() {
+        this.routing.beginRequest("PUT", "/clients/1", null);
+        this.routing.endRequest();
+
+        this.routing.beginRequest("GET", "/search", null);
+
+        assertFalse(this.routing.routeToReadReplica());
+    }
+
+    @Test
+    public void transactionBeingBegunDecidesBeforeItsFlagsArePublished() {
+        this.routing.beginRequest("GET", "/audits", null);
+
+        final Boolean outer = ReadReplicaRouting.beginTransaction(false);
+        assertFalse(this.routing.routeToReadReplica());
+        ReadReplicaRouting.transactionBegun(outer);
+
+        final Boolean outerReadOnly = ReadReplicaRouting.beginTransaction(true);
+        assertTrue(this.routing.routeToReadReplica());
+        ReadReplicaRouting.transactionBegun(outerReadOnly);
+    }
+
+    @Test
+    public void writeTransactionsGoToThePrimary() {
+        this.routing.beginRequest("GET", "/audits", null);
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        assertFalse(this.routing.routeToReadReplica());
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertTrue(this.routing.routeToReadReplica());
+    }
+
+    @Test
+    public void cacheLoadersReadFromThePrimary() {
+        this.routing.beginRequest("GET", "/search", null);
+
+        assertFalse(ReadReplicaRouting.onPrimary(() -> this.routing.routeToReadReplica()));
+        assertTrue(this.routing.routeToReadReplica());
+    }
+}
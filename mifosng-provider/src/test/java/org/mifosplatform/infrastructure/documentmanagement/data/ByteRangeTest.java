@@ -0,0 +1,57 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.documentmanagement.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ByteRangeTest {
+
+    private static final long LENGTH = 1000;
+
+    @Test
+    public void absentOrMultipleRangesServeWholeContent() {
+        assertNull(ByteRange.fromHeader(null, LENGTH));
+        assertNull(ByteRange.fromHeader("items=0-10", LENGTH));
+        assertNull(ByteRange.fromHeader("bytes=0-10,20-30", LENGTH));
+    }
+
+    @Test
+    public void boundedRangeIsResolved() {
+        final ByteRange range = ByteRange.fromHeader("bytes=100-199", LENGTH);
+        assertTrue(range.isSatisfiable());
+        assertEquals(100, range.start());
+        assertEquals(100, range.length());
+        assertEquals("bytes 100-199/1000", range.contentRangeHeader());
+    }
+
+    @Test
+    public void openAndSuffixRangesAreClampedToLength() {
+        assertEquals("bytes 900-999/1000", ByteRange.fromHeader("bytes=900-", LENGTH).contentRangeHeader());
+        assertEquals("bytes 500-999/1000", ByteRange.fromHeader("bytes=500-5000", LENGTH).contentRangeHeader());
+        assertEquals("bytes 750-999/1000", ByteRange.fromHeader("bytes=-250", LENGTH).contentRangeHeader());
+        assertEquals("bytes 0-999/1000", ByteRange.fromHeader("bytes=-5000", LENGTH).contentRangeHeader());
+    }
+
+    @Test
+    public void rangeStartingBeyondContentIsNotSatisfiable() {
+        final ByteRange range = ByteRange.fromHeader("bytes=1000-", LENGTH);
+        assertFalse(range.isSatisfiable());
+        assertEquals("bytes */1000", range.contentRangeHeader());
+    }
+
+    @Test
+    public void anyRangeOfEmptyContentIsNotSatisfiable() {
+        final ByteRange range = ByteRange.fromHeader("bytes=-500", 0);
+        assertFalse(range.isSatisfiable());
+        assertEquals("bytes */0", range.contentRangeHeader());
+        assertFalse(ByteRange.fromHeader("bytes=0-", 0).isSatisfiable());
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.metrics.domain;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class PlatformHistogramTest {
+
+    @Test
+    public void percentilesAreBucketUpperBounds() {
+        final PlatformHistogram histogram = new PlatformHistogram(new long[] { 10, 100, 1000 });
+        for (int i = 1; i <= 90; i++) {
+            histogram.record(5);
+        }
+        for (int i = 1; i <= 9; i++) {
+            histogram.record(50);
+        }
+        histogram.record(700);
+
+        assertEquals(100, histogram.count());
+        assertEquals(90 * 5 + 9 * 50 + 700, histogram.sum());
+        assertEquals(700, histogram.max());
+        assertEquals(10, histogram.percentile(0.5));
+        assertEquals(100, histogram.percentile(0.95));
+        assertEquals(100, histogram.percentile(0.99));
+        assertEquals(700, histogram.percentile(1));
+    }
+
+    @Test
+    public void valuesAboveTheHighestBoundAreCountedInTheLastBucket() {
+        final PlatformHistogram histogram = new PlatformHistogram(new long[] { 10, 100 });
+        histogram.record(10);
+        histogram.record(11);
+        histogram.record(5000);
+
+        assertArrayEquals(new long[] { 1, 1, 1 }, histogram.bucketCounts());
+        assertEquals(5000, histogram.percentile(0.99));
+    }
+
+    @Test
+    public void emptyHistogramHasZeroPercentiles() {
+        assertEquals(0, new PlatformHistogram(PlatformHistogram.DURATION_BUCKETS).percentile(0.95));
+    }
+}
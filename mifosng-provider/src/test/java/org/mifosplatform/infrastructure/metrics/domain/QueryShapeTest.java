@@ -0,0 +1,30 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.metrics.domain;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class QueryShapeTest {
+
+    @Test
+    public void literalsAreReplacedByParameters() {
+        assertEquals("select * from m_loan l where l.id = ? and l.account_no = ? and l.loan_status_id in (?)",
+                QueryShape.of("select * from m_loan l where l.id = 42 and l.account_no = 'AB12' and l.loan_status_id in (300, 600, 700)"));
+    }
+
+    @Test
+    public void identifiersAndWhitespaceAreNormalised() {
+        assertEquals("select m_loan_2.id from m_loan m_loan_2 where m_loan_2.client_id = ?",
+                QueryShape.of("select m_loan_2.id\n  from m_loan m_loan_2\twhere m_loan_2.client_id = ? "));
+    }
+
+    @Test
+    public void sameQueryForDifferentIdsHasOneShape() {
+        assertEquals(QueryShape.of("select * from m_client where id = 1"), QueryShape.of("select * from m_client where id = 2"));
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.metrics.serialization;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.mifosplatform.infrastructure.metrics.data.PlatformMetricData;
+import org.mifosplatform.infrastructure.metrics.domain.PlatformHistogram;
+
+public class PlatformMetricsPrometheusSerializerTest {
+
+    private final PlatformMetricsPrometheusSerializer serializer = new PlatformMetricsPrometheusSerializer();
+
+    @Test
+    public void endpointsShareOneFamilyWithAnEndpointLabel() {
+        final String text = this.serializer.serialize(Arrays.asList(timer("api.GET /loans/{id}", 5),
+                timer("api.GET /loans_{id}", 7), distribution("api.GET /loans/{id}.statements", 3)));
+
+        assertEquals(1, occurrences(text, "# TYPE mifos_api_request_milliseconds histogram"));
+        assertEquals(1, occurrences(text, "# TYPE mifos_api_statements histogram"));
+        assertTrue(text.contains("mifos_api_request_milliseconds_count{tenant=\"default\",endpoint=\"GET /loans/{id}\"} 1"));
+        assertTrue(text.contains("mifos_api_request_milliseconds_count{tenant=\"default\",endpoint=\"GET /loans_{id}\"} 1"));
+        assertTrue(text.contains("mifos_api_statements_count{tenant=\"default\",endpoint=\"GET /loans/{id}\"} 1"));
+    }
+
+    @Test
+    public void otherMetricsKeepTheirOwnFamily() {
+        final String text = this.serializer.serialize(Arrays.asList(PlatformMetricData.counter("default", "cache.invalidations.received",
+                4)));
+
+        assertTrue(text.contains("# TYPE mifos_cache_invalidations_received_total counter\n"));
+        assertTrue(text.contains("mifos_cache_invalidations_received_total{tenant=\"default\"} 4\n"));
+    }
+
+    @Test
+    public void infBucketAndCountAreTheSumOfTheBuckets() {
+        final PlatformHistogram histogram = new PlatformHistogram(new long[] { 10, 100 });
+        histogram.record(5);
+        histogram.record(50);
+        histogram.record(5000);
+
+        final String text = this.serializer.serialize(Arrays.asList(PlatformMetricData.histogram("default", "job.Apply Annual Fee",
+                PlatformMetricData.TIMER, histogram)));
+
+        assertTrue(text.contains("mifos_job_apply_annual_fee_milliseconds_bucket{tenant=\"default\",le=\"10\"} 1\n"));
+        assertTrue(text.contains("mifos_job_apply_annual_fee_milliseconds_bucket{tenant=\"default\",le=\"100\"} 2\n"));
+        assertTrue(text.contains("mifos_job_apply_annual_fee_milliseconds_bucket{tenant=\"default\",le=\"+Inf\"} 3\n"));
+        assertTrue(text.contains("mifos_job_apply_annual_fee_milliseconds_count{tenant=\"default\"} 3\n"));
+    }
+
+    @Test
+    public void labelValuesAreEscaped() {
+        final String text = this.serializer.serialize(Arrays.asList(timer("api.GET /search\"\\", 1)));
+
+        assertTrue(text.contains("endpoint=\"GET /search\\\"\\\\\""));
+    }
+
+    private static PlatformMetricData timer(final String name, final long value) {
+        final PlatformHistogram histogram = new PlatformHistogram(PlatformHistogram.DURATION_BUCKETS);
+        histogram.record(value);
+        return PlatformMetricData.histogram("default", name, PlatformMetricData.TIMER, histogram);
+    }
+
+    private static PlatformMetricData distribution(final String name, final long value) {
+        final PlatformHistogram histogram = new PlatformHistogram(PlatformHistogram.COUNT_BUCKETS);
+        histogram.record(value);
+        return PlatformMetricData.histogram("default", name, PlatformMetricData.DISTRIBUTION, histogram);
+    }
+
+    private static int occurrences(final String text, final String line) {
+        int count = 0;
+        for (int index = text.indexOf(line); index >= 0; index = text.indexOf(line, index + 1)) {
+            count++;
+        }
+        return count;
+    }
+}
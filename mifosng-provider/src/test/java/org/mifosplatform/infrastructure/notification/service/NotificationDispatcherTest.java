@@ -0,0 +1,195 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.notification.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mifosplatform.infrastructure.configuration.domain.GlobalConfigurationProperty;
+import org.mifosplatform.infrastructure.configuration.domain.GlobalConfigurationRepository;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.infrastructure.metrics.service.PlatformMetricsService;
+import org.mifosplatform.infrastructure.notification.data.NotificationOutcome;
+import org.mifosplatform.infrastructure.notification.data.QueuedNotification;
+import org.mifosplatform.infrastructure.notification.domain.NotificationType;
+import org.mifosplatform.infrastructure.notification.gateway.OneApiSmsGateway;
+import org.mifosplatform.infrastructure.notification.gateway.SmtpEmailGateway;
+import org.mifosplatform.infrastructure.notification.gateway.StubNotificationGateway;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class NotificationDispatcherTest {
+
+    private static final String SMS_RATE = "notification-sms-max-per-second";
+    private static final long TIMEOUT_MILLIS = 3000;
+
+    /**
+     * due notifications and recorded outcomes by tenant identifier
+     */
+    private final Map<String, ConcurrentLinkedDeque<QueuedNotification>> queues = new ConcurrentHashMap<>();
+    private final Map<String, List<NotificationOutcome>> outcomes = new ConcurrentHashMap<>();
+    private final Map<String, Long> smsRates = new ConcurrentHashMap<>();
+
+    private StubNotificationGateway stubGateway;
+    private NotificationDispatcher dispatcher;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        final NotificationQueueService queueService = mock(NotificationQueueService.class);
+        when(queueService.retrieveDue(any(NotificationType.class), anyInt())).thenAnswer(new Answer<List<QueuedNotification>>() {
+
+            @Override
+            public List<QueuedNotification> answer(final InvocationOnMock invocation) {
+                final int maxNotifications = (Integer) invocation.getArguments()[1];
+                final ConcurrentLinkedDeque<QueuedNotification> queue = NotificationDispatcherTest.this.queues.get(currentTenant());
+                final List<QueuedNotification> due = new ArrayList<>();
+                while (queue != null && due.size() < maxNotifications && !queue.isEmpty()) {
+                    due.add(queue.poll());
+                }
+                return due;
+            }
+        });
+        doAnswer(new Answer<Void>() {
+
+            @Override
+            public Void answer(final InvocationOnMock invocation) {
+                NotificationDispatcherTest.this.outcomes.get(currentTenant()).addAll(
+                        (Collection<NotificationOutcome>) invocation.getArguments()[0]);
+                return null;
+            }
+        }).when(queueService).recordOutcomes(anyCollectionOf(NotificationOutcome.class), anyInt());
+
+        final GlobalConfigurationRepository configurationRepository = mock(GlobalConfigurationRepository.class);
+        when(configurationRepository.findOneByName(anyString())).thenAnswer(new Answer<GlobalConfigurationProperty>() {
+
+            @Override
+            public GlobalConfigurationProperty answer(final InvocationOnMock invocation) {
+                final String name = (String) invocation.getArguments()[0];
+                if (NotificationDispatcher.CONFIG_STUB_GATEWAY.equals(name)) { return new GlobalConfigurationProperty(name, true, null,
+                        null); }
+                final Long rate = NotificationDispatcherTest.this.smsRates.get(currentTenant());
+                if (SMS_RATE.equals(name) && rate != null) { return new GlobalConfigurationProperty(name, true, rate, null); }
+                return null;
+            }
+        });
+
+        this.stubGateway = new StubNotificationGateway();
+        this.dispatcher = new NotificationDispatcher(queueService, configurationRepository, mock(PlatformMetricsService.class),
+                mock(OneApiSmsGateway.class), mock(SmtpEmailGateway.class), this.stubGateway);
+    }
+
+    @After
+    public void tearDown() {
+        this.dispatcher.shutdown();
+        ThreadLocalContextUtil.clearTenant();
+    }
+
+    @Test
+    public void dueNotificationsAreSentThroughTheStubGateway() {
+        queue("default", 3);
+
+        dispatch("default");
+
+        awaitOutcomes("default", 3);
+        assertEquals(3, this.stubGateway.getSentMessages().size());
+        for (final NotificationOutcome outcome : this.outcomes.get("default")) {
+            assertTrue(outcome.isSent());
+        }
+    }
+
+    @Test
+    public void notificationsBeyondOneBatchAreSent() {
+        queue("default", 250);
+
+        dispatch("default");
+
+        awaitOutcomes("default", 250);
+        assertEquals(250, this.stubGateway.getSentMessages().size());
+    }
+
+    @Test
+    public void rateLimitedTenantsDoNotHoldUpOthers() {
+        // each of the busy tenants takes about 4 seconds at one per second,
+        // more than there are coordinators
+        for (final String tenant : new String[] { "busy1", "busy2", "busy3" }) {
+            this.smsRates.put(tenant, 1L);
+            queue(tenant, 5);
+            dispatch(tenant);
+        }
+        queue("quiet", 3);
+
+        dispatch("quiet");
+
+        awaitOutcomes("quiet", 3);
+        assertTrue(this.outcomes.get("busy1").size() < 5);
+    }
+
+    private void queue(final String tenant, final int count) {
+        final ConcurrentLinkedDeque<QueuedNotification> queue = new ConcurrentLinkedDeque<>();
+        for (int i = 0; i < count; i++) {
+            queue.add(QueuedNotification.instance(Long.valueOf(i), NotificationType.SMS, "+100" + i, null, null, "message " + i,
+                    "loan", Long.valueOf(i), 0));
+        }
+        this.queues.put(tenant, queue);
+        this.outcomes.put(tenant, new CopyOnWriteArrayList<NotificationOutcome>());
+    }
+
+    private void dispatch(final String tenantIdentifier) {
+        final MifosPlatformTenant tenant = mock(MifosPlatformTenant.class);
+        when(tenant.getTenantIdentifier()).thenReturn(tenantIdentifier);
+        ThreadLocalContextUtil.setTenant(tenant);
+        this.dispatcher.dispatch(NotificationType.SMS);
+        ThreadLocalContextUtil.clearTenant();
+    }
+
+    private void awaitOutcomes(final String tenant, final int count) {
+        await(new BooleanSupplier() {
+
+            @Override
+            public boolean getAsBoolean() {
+                return NotificationDispatcherTest.this.outcomes.get(tenant).size() >= count;
+            }
+        });
+        assertEquals(count, this.outcomes.get(tenant).size());
+    }
+
+    private static void await(final BooleanSupplier condition) {
+        final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(10);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static String currentTenant() {
+        return ThreadLocalContextUtil.getTenant().getTenantIdentifier();
+    }
+}
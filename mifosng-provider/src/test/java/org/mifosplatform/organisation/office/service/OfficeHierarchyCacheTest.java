@@ -0,0 +1,164 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.organisation.office.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mifosplatform.infrastructure.cache.service.CacheInvalidationLog;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+public class OfficeHierarchyCacheTest {
+
+    /**
+     * m_office_closure rows, as ancestor and descendant ids
+     */
+    private final List<long[]> closure = new ArrayList<>();
+
+    private CacheInvalidationLog invalidationLog;
+    private OfficeHierarchyCache cache;
+    private int loads;
+
+    @Before
+    public void setUp() throws Exception {
+        final MifosPlatformTenant tenant = mock(MifosPlatformTenant.class);
+        when(tenant.getTenantIdentifier()).thenReturn("default");
+        ThreadLocalContextUtil.setTenant(tenant);
+
+        final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        doAnswer(new Answer<Void>() {
+
+            @Override
+            public Void answer(final InvocationOnMock invocation) throws Exception {
+                OfficeHierarchyCacheTest.this.loads++;
+                final RowCallbackHandler handler = (RowCallbackHandler) invocation.getArguments()[1];
+                for (final long[] row : OfficeHierarchyCacheTest.this.closure) {
+                    final ResultSet rs = mock(ResultSet.class);
+                    when(rs.getLong("ancestor_id")).thenReturn(row[0]);
+                    when(rs.getLong("descendant_id")).thenReturn(row[1]);
+                    handler.processRow(rs);
+                }
+                return null;
+            }
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(1L);
+
+        this.invalidationLog = mock(CacheInvalidationLog.class);
+        this.cache = new OfficeHierarchyCache(jdbcTemplate, this.invalidationLog);
+
+        // head office 1 with branches 2 and 3, office 4 below branch 2
+        office(1, 1);
+        office(2, 1, 2);
+        office(3, 1, 3);
+        office(4, 1, 2, 4);
+    }
+
+    @After
+    public void clearTenant() {
+        ThreadLocalContextUtil.clearTenant();
+    }
+
+    @Test
+    public void officesBelowAnOfficeAreInItsHierarchy() {
+        assertEquals(ids(2, 4), this.cache.officeIdsInHierarchyOf(2L));
+        assertEquals(ids(1, 2, 3, 4), this.cache.officeIdsInHierarchyOf(1L));
+        assertTrue(this.cache.isInHierarchyOf(2L, 4L));
+        assertFalse(this.cache.isInHierarchyOf(3L, 4L));
+        assertEquals(1, this.loads);
+    }
+
+    @Test
+    public void treeIsRebuiltWhenAnOfficeMoves() {
+        assertEquals(ids(2, 4), this.cache.officeIdsInHierarchyOf(2L));
+
+        moveOffice4UnderBranch3();
+        this.cache.invalidate();
+
+        assertEquals(ids(2), this.cache.officeIdsInHierarchyOf(2L));
+        assertEquals(ids(3, 4), this.cache.officeIdsInHierarchyOf(3L));
+        verify(this.invalidationLog).publish(eq("officeHierarchy"), (String) isNull(), eq("default"));
+    }
+
+    @Test
+    public void treeIsRebuiltWhenAnotherNodeMovesAnOffice() {
+        final ArgumentCaptor<CacheInvalidationLog.Listener> listener = ArgumentCaptor.forClass(CacheInvalidationLog.Listener.class);
+        verify(this.invalidationLog).addListener(listener.capture());
+        assertEquals(ids(2, 4), this.cache.officeIdsInHierarchyOf(2L));
+
+        moveOffice4UnderBranch3();
+        listener.getValue().invalidated("officeHierarchy", null, "default");
+
+        assertEquals(ids(3, 4), this.cache.officeIdsInHierarchyOf(3L));
+    }
+
+    @Test
+    public void unknownOfficeReloadsTheTree() {
+        assertEquals(ids(3), this.cache.officeIdsInHierarchyOf(3L));
+
+        office(5, 1, 3, 5);
+
+        assertEquals(ids(5), this.cache.officeIdsInHierarchyOf(5L));
+        assertEquals(ids(3, 5), this.cache.officeIdsInHierarchyOf(3L));
+        assertEquals(2, this.loads);
+    }
+
+    @Test
+    public void criteriaListTheOfficesInHierarchyAndMatchAnyOfficeForTheHeadOffice() {
+        assertEquals("(o.id in (2,4))", this.cache.sqlOfficeCriteria(2L, "o.id"));
+        assertEquals("(o.id in (3) or transferToOffice.id in (3))", this.cache.sqlOfficeCriteria(3L, "o.id", "transferToOffice.id"));
+        assertEquals("(o.id is not null)", this.cache.sqlOfficeCriteria(1L, "o.id"));
+    }
+
+    private void moveOffice4UnderBranch3() {
+        this.closure.clear();
+        office(1, 1);
+        office(2, 1, 2);
+        office(3, 1, 3);
+        office(4, 1, 3, 4);
+    }
+
+    /**
+     * Adds the closure rows of the office, given its ancestors from the head
+     * office down to itself.
+     */
+    private void office(final long... path) {
+        final long officeId = path[path.length - 1];
+        for (final long ancestorId : path) {
+            this.closure.add(new long[] { ancestorId, officeId });
+        }
+    }
+
+    private static HashSet<Long> ids(final long... officeIds) {
+        final HashSet<Long> ids = new HashSet<>();
+        for (final long officeId : officeIds) {
+            ids.add(officeId);
+        }
+        return ids;
+    }
+}
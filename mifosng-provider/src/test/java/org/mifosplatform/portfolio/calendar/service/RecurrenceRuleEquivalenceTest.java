@@ -0,0 +1,109 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.calendar.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import net.fortuna.ical4j.model.Date;
+import net.fortuna.ical4j.model.DateList;
+import net.fortuna.ical4j.model.DateTime;
+import net.fortuna.ical4j.model.Recur;
+import net.fortuna.ical4j.model.parameter.Value;
+
+import org.joda.time.LocalDate;
+import org.junit.Test;
+
+/**
+ * The occurrences calculated on Joda dates must be the ones ical4j gives for
+ * the same rule, seed and period.
+ */
+public class RecurrenceRuleEquivalenceTest {
+
+    private static final String[] RULES = { "FREQ=DAILY", "FREQ=DAILY;INTERVAL=3", "FREQ=WEEKLY;BYDAY=MO",
+            "FREQ=WEEKLY;INTERVAL=1;BYDAY=FR", "FREQ=WEEKLY;INTERVAL=2;BYDAY=TU", "FREQ=MONTHLY", "FREQ=MONTHLY;INTERVAL=2",
+            "FREQ=MONTHLY;BYMONTHDAY=5,20", "FREQ=MONTHLY;INTERVAL=3;BYMONTHDAY=28" };
+
+    private static final LocalDate[] SEEDS = { new LocalDate(2014, 12, 30), new LocalDate(2015, 1, 5), new LocalDate(2015, 1, 6),
+            new LocalDate(2015, 1, 9), new LocalDate(2015, 1, 20), new LocalDate(2015, 1, 31), new LocalDate(2016, 2, 29) };
+
+    @Test
+    public void nextDateMatchesICal4J() {
+        for (final String rrule : RULES) {
+            final RecurrenceRule rule = RecurrenceRule.of(rrule);
+            for (final LocalDate seed : SEEDS) {
+                for (LocalDate start = seed.minusDays(10); start.isBefore(seed.plusMonths(14)); start = start.plusDays(3)) {
+                    assertEquals(rrule + " seed " + seed + " start " + start, iCal4JNextDate(rule.recur(), seed, start),
+                            rule.getNextDate(seed, start));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void datesMatchICal4J() {
+        final int[] maxCounts = { -1, 1, 10 };
+        for (final String rrule : RULES) {
+            final RecurrenceRule rule = RecurrenceRule.of(rrule);
+            for (final LocalDate seed : SEEDS) {
+                for (LocalDate start = seed.minusDays(10); start.isBefore(seed.plusMonths(14)); start = start.plusDays(11)) {
+                    for (final int maxCount : maxCounts) {
+                        final LocalDate end = start.plusMonths(7);
+                        assertEquals(rrule + " seed " + seed + " from " + start + " max " + maxCount,
+                                iCal4JDates(rule.recur(), seed, start, end, maxCount),
+                                new ArrayList<>(rule.getDates(seed, start, end, maxCount)));
+                    }
+                    assertEquals(rrule + " seed " + seed + " on " + start, iCal4JDates(rule.recur(), seed, start, start.plusDays(1), 1),
+                            new ArrayList<>(rule.getDates(seed, start, start.plusDays(1), 1)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void derivedRulesMatchICal4J() {
+        final RecurrenceRule meetingRule = RecurrenceRule.of("FREQ=DAILY");
+        final RecurrenceRule repaymentRule = meetingRule.withIntervalAndFrequency(2, Recur.WEEKLY);
+        assertSame(repaymentRule, meetingRule.withIntervalAndFrequency(2, Recur.WEEKLY));
+        assertEquals(Recur.DAILY, meetingRule.recur().getFrequency());
+
+        final Recur recur = meetingRule.copyOfRecur();
+        recur.setInterval(2);
+        recur.setFrequency(Recur.WEEKLY);
+        final LocalDate seed = new LocalDate(2015, 1, 7);
+        for (LocalDate start = seed; start.isBefore(seed.plusMonths(6)); start = start.plusDays(1)) {
+            assertEquals(iCal4JNextDate(recur, seed, start), repaymentRule.getNextDate(seed, start));
+        }
+    }
+
+    @Test
+    public void rulesAreParsedOnce() {
+        assertSame(RecurrenceRule.of("FREQ=WEEKLY;INTERVAL=1;BYDAY=WE"), RecurrenceRule.of("FREQ=WEEKLY;INTERVAL=1;BYDAY=WE"));
+        assertNotSame(CalendarUtils.getICalRecur("FREQ=WEEKLY;BYDAY=WE"), CalendarUtils.getICalRecur("FREQ=WEEKLY;BYDAY=WE"));
+    }
+
+    private static LocalDate iCal4JNextDate(final Recur recur, final LocalDate seed, final LocalDate start) {
+        final Date nextDate = recur.getNextDate(RecurrenceRule.toICal4JDate(seed), new DateTime(start.toDate()));
+        return nextDate == null ? null : new LocalDate(nextDate);
+    }
+
+    private static List<LocalDate> iCal4JDates(final Recur recur, final LocalDate seed, final LocalDate start, final LocalDate end,
+            final int maxCount) {
+        final DateList dates = recur.getDates(RecurrenceRule.toICal4JDate(seed), new DateTime(start.toDate()), new DateTime(end.toDate()),
+                new Value(Value.DATE.getValue()), maxCount);
+        final List<LocalDate> localDates = new ArrayList<>();
+        for (@SuppressWarnings("rawtypes")
+        final Iterator iterator = dates.iterator(); iterator.hasNext();) {
+            localDates.add(new LocalDate(iterator.next()));
+        }
+        return localDates;
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount;
+
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.joda.time.LocalDate;
+import org.joda.time.LocalDateTime;
+import org.junit.Test;
+import org.mifosplatform.organisation.monetary.domain.MonetaryCurrency;
+import org.mifosplatform.organisation.monetary.domain.Money;
+import org.mifosplatform.organisation.office.domain.Office;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanCharge;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanRepaymentScheduleInstallment;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanTransaction;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.LoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.HeavensFamilyLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.MifosStyleLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.RBILoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.paymentdetail.domain.PaymentDetail;
+import org.mifosplatform.useradministration.domain.AppUser;
+
+/**
+ * Applying repayments one at a time in chronological order (the append only
+ * path in <code>Loan</code>) must leave the schedule and transactions exactly
+ * as a full replay of the same repayments does.
+ */
+public class LoanRepaymentAllocationEquivalenceTest {
+
+    private final LocalDate disbursementDate = new LocalDate(2015, 1, 5);
+    private final MonetaryCurrency usDollars = new MonetaryCurrencyBuilder().withCode("USD").withDigitsAfterDecimal(2).build();
+    private final Set<LoanCharge> noCharges = new HashSet<>();
+
+    @Test
+    public void appendOnlyAllocationMatchesFullReplayForMifosStyle() {
+        assertAppendOnlyAllocationMatchesFullReplay(new MifosStyleLoanRepaymentScheduleTransactionProcessor());
+    }
+
+    @Test
+    public void appendOnlyAllocationMatchesFullReplayForHeavensFamily() {
+        assertAppendOnlyAllocationMatchesFullReplay(new HeavensFamilyLoanRepaymentScheduleTransactionProcessor());
+    }
+
+    @Test
+    public void appendOnlyAllocationMatchesFullReplayForRbi() {
+        assertAppendOnlyAllocationMatchesFullReplay(new RBILoanRepaymentScheduleTransactionProcessor());
+    }
+
+    private void assertAppendOnlyAllocationMatchesFullReplay(final LoanRepaymentScheduleTransactionProcessor processor) {
+        final List<LoanRepaymentScheduleInstallment> replayedInstallments = weeklySchedule(8);
+        final List<LoanTransaction> replayedTransactions = repayments();
+        final LocalDate recalculateChargesFrom = null;
+        processor.handleTransaction(this.disbursementDate, replayedTransactions, this.usDollars, replayedInstallments, this.noCharges,
+                recalculateChargesFrom);
+
+        final List<LoanRepaymentScheduleInstallment> appendedInstallments = weeklySchedule(8);
+        final List<LoanTransaction> appendedTransactions = repayments();
+        for (final LoanTransaction repayment : appendedTransactions) {
+            processor.handleTransaction(repayment, this.usDollars, appendedInstallments, this.noCharges);
+            repayment.adjustInterestComponent(this.usDollars);
+        }
+
+        for (int i = 0; i < replayedInstallments.size(); i++) {
+            final LoanRepaymentScheduleInstallment replayed = replayedInstallments.get(i);
+            final LoanRepaymentScheduleInstallment appended = appendedInstallments.get(i);
+            assertSameAmount(replayed.getPrincipalCompleted(this.usDollars), appended.getPrincipalCompleted(this.usDollars));
+            assertSameAmount(replayed.getInterestPaid(this.usDollars), appended.getInterestPaid(this.usDollars));
+            assertSameAmount(replayed.getTotalOutstanding(this.usDollars), appended.getTotalOutstanding(this.usDollars));
+        }
+        for (int i = 0; i < replayedTransactions.size(); i++) {
+            final LoanTransaction replayed = replayedTransactions.get(i);
+            final LoanTransaction appended = appendedTransactions.get(i);
+            assertSameAmount(replayed.getPrincipalPortion(this.usDollars), appended.getPrincipalPortion(this.usDollars));
+            assertSameAmount(replayed.getInterestPortion(this.usDollars), appended.getInterestPortion(this.usDollars));
+        }
+    }
+
+    private static void assertSameAmount(final Money expected, final Money actual) {
+        assertTrue("expected " + expected + " but was " + actual, expected.isEqualTo(actual));
+    }
+
+    private List<LoanRepaymentScheduleInstallment> weeklySchedule(final int numberOfInstallments) {
+        final List<LoanRepaymentScheduleInstallment> installments = new ArrayList<>();
+        for (int number = 1; number <= numberOfInstallments; number++) {
+            installments.add(new LoanRepaymentScheduleInstallmentBuilder(this.usDollars).withInstallmentNumber(number)
+                    .withDueDate(this.disbursementDate.plusWeeks(number)).withPrincipal("1000.00").withInterest("120.00").build());
+        }
+        return installments;
+    }
+
+    /**
+     * Partial, late, early and same day repayments, in chronological order.
+     */
+    private List<LoanTransaction> repayments() {
+        final List<LoanTransaction> repayments = new ArrayList<>();
+        repayments.add(repayment(this.disbursementDate.plusWeeks(1), "500.00"));
+        repayments.add(repayment(this.disbursementDate.plusWeeks(1), "620.00"));
+        repayments.add(repayment(this.disbursementDate.plusWeeks(3), "1500.00"));
+        repayments.add(repayment(this.disbursementDate.plusWeeks(3).plusDays(2), "1860.00"));
+        repayments.add(repayment(this.disbursementDate.plusWeeks(5), "2000.00"));
+        repayments.add(repayment(this.disbursementDate.plusWeeks(5), "75.50"));
+        return repayments;
+    }
+
+    private LoanTransaction repayment(final LocalDate date, final String amount) {
+        final Office office = null;
+        final PaymentDetail paymentDetail = null;
+        final String externalId = null;
+        final AppUser appUser = null;
+        return LoanTransaction.repayment(office, Money.of(this.usDollars, new BigDecimal(amount)), paymentDetail, date, externalId,
+                new LocalDateTime(), appUser);
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.search.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Test;
+import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext;
+import org.mifosplatform.organisation.office.domain.Office;
+import org.mifosplatform.organisation.office.service.OfficeHierarchyCache;
+import org.mifosplatform.organisation.office.service.OfficeReadPlatformService;
+import org.mifosplatform.portfolio.loanproduct.service.LoanProductReadPlatformService;
+import org.mifosplatform.portfolio.search.data.SearchConditions;
+import org.mifosplatform.useradministration.domain.AppUser;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+public class SearchReadPlatformServiceImplTest {
+
+    private static final String OFFICE_CRITERIA = "(o.id in (2,4))";
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void everyBranchOfTheSearchIsScopedToTheUsersOffices() {
+        final Office office = mock(Office.class);
+        when(office.getId()).thenReturn(2L);
+        final AppUser user = mock(AppUser.class);
+        when(user.getOffice()).thenReturn(office);
+        final PlatformSecurityContext context = mock(PlatformSecurityContext.class);
+        when(context.authenticatedUser()).thenReturn(user);
+        final OfficeHierarchyCache officeHierarchyCache = mock(OfficeHierarchyCache.class);
+        when(officeHierarchyCache.sqlOfficeCriteria(2L, "o.id")).thenReturn(OFFICE_CRITERIA);
+        final NamedParameterJdbcTemplate jdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+
+        final SearchReadPlatformServiceImpl searchService = new SearchReadPlatformServiceImpl(context, jdbcTemplate,
+                mock(LoanProductReadPlatformService.class), mock(OfficeReadPlatformService.class), officeHierarchyCache);
+        searchService.retriveMatchingData(new SearchConditions("Jane", null));
+
+        final ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).query(sql.capture(), any(SqlParameterSource.class), any(RowMapper.class));
+        assertEquals(occurrences(sql.getValue(), "(select "), occurrences(sql.getValue(), "where " + OFFICE_CRITERIA + " and "));
+        assertTrue(occurrences(sql.getValue(), "(select ") > 0);
+        assertFalse(sql.getValue().contains("hierarchy"));
+    }
+
+    private static int occurrences(final String text, final String part) {
+        int count = 0;
+        for (int index = text.indexOf(part); index >= 0; index = text.indexOf(part, index + 1)) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -6,24 +6,40 @@
 package org.mifosplatform.template;
 
 import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 
 import org.joda.time.LocalDate;
+import org.junit.After;
 import org.junit.BeforeClass;
 import org.junit.Ignore;
 import org.junit.Test;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.exception.PlatformServiceUnavailableException;
+import org.mifosplatform.infrastructure.core.service.InProcessApiDispatcher;
+import org.mifosplatform.infrastructure.core.service.InProcessApiDispatcher.ApiResponse;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
 import org.mifosplatform.organisation.monetary.domain.MonetaryCurrency;
 import org.mifosplatform.portfolio.loanaccount.LoanScheduleTestDataHelper;
 import org.mifosplatform.portfolio.loanaccount.MonetaryCurrencyBuilder;
 import org.mifosplatform.portfolio.loanaccount.domain.LoanRepaymentScheduleInstallment;
 import org.mifosplatform.template.domain.Template;
+import org.mifosplatform.template.domain.TemplateMapper;
 import org.mifosplatform.template.service.TemplateMergeService;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 public class TemplateMergeServiceTest {
 
@@ -33,9 +49,7 @@ public class TemplateMergeServiceTest {
 
     @BeforeClass
     public static void init() {
-        tms = new TemplateMergeService(
-//                new FromJsonHelper()
-                );
+        tms = new TemplateMergeService(new InProcessApiDispatcher());
     }
 
     @Ignore
@@ -81,4 +95,123 @@ public class TemplateMergeServiceTest {
         dis.close();
     }
 
+    private static final String BASE_URI = "https://localhost/mifosng-provider/api/v1/";
+
+    @After
+    public void clearTenant() {
+        ThreadLocalContextUtil.clearTenant();
+    }
+
+    @Test
+    public void mapperReferringToAnotherIsResolvedInALaterWave() throws Exception {
+        final Map<String, String> responses = new HashMap<>();
+        responses.put("clients/1", "{\"id\": 7, \"displayName\": \"Jane\"}");
+        responses.put("loans?clientId=7", "{\"totalFilteredRecords\": 2}");
+        responses.put("offices/1", "{\"name\": \"Head Office\"}");
+
+        final String output = merge("{{client.displayName}} of {{office.name}} has {{loans.totalFilteredRecords}} loans", responses,
+                mapper(1, "loans", "loans?clientId={{client.id}}"), mapper(2, "client", "clients/1"), mapper(3, "office", "offices/1"));
+
+        assertEquals("Jane of Head Office has 2 loans", output);
+    }
+
+    @Test
+    public void mappersReferringToEachOtherAreResolvedWithWhatIsAvailable() throws Exception {
+        final Map<String, String> responses = new HashMap<>();
+        responses.put("clients/", "{\"displayName\": \"Jane\"}");
+        responses.put("groups/", "{\"name\": \"Group\"}");
+
+        final String output = merge("{{client.displayName}}, {{group.name}}", responses, mapper(1, "client", "clients/{{group.id}}"),
+                mapper(2, "group", "groups/{{client.groupId}}"));
+
+        assertEquals("Jane, Group", output);
+    }
+
+    @Test
+    public void failedMapperIsLeftOutOfTheMerge() throws Exception {
+        final Map<String, String> responses = new HashMap<>();
+        responses.put("clients/1", "{\"displayName\": \"Jane\"}");
+
+        final String output = merge("{{client.displayName}}{{missing.name}}", responses, mapper(1, "client", "clients/1"),
+                mapper(2, "missing", "unknown/1"));
+
+        assertEquals("Jane", output);
+    }
+
+    @Test(expected = PlatformServiceUnavailableException.class)
+    public void mergeFailsWhenItsMappersCannotAllBeQueued() throws Exception {
+        final MifosPlatformTenant tenant = mock(MifosPlatformTenant.class);
+        when(tenant.getTenantIdentifier()).thenReturn("default");
+        ThreadLocalContextUtil.setTenant(tenant);
+
+        // every mapper blocks, so the threads stay busy and the queue fills up
+        final CountDownLatch release = new CountDownLatch(1);
+        final InProcessApiDispatcher dispatcher = mock(InProcessApiDispatcher.class);
+        when(dispatcher.isAvailable()).thenReturn(true);
+        when(dispatcher.get(any(URI.class), any(URI.class))).thenAnswer(new Answer<ApiResponse>() {
+
+            @Override
+            public ApiResponse answer(@SuppressWarnings("unused") final InvocationOnMock invocation) throws InterruptedException {
+                release.await();
+                return new ApiResponse(200, "application/json", "{}");
+            }
+        });
+
+        final List<TemplateMapper> templateMappers = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            templateMappers.add(mapper(i, "client" + i, "clients/" + i));
+        }
+        final Map<String, Object> scopes = new HashMap<>();
+        scopes.put("BASE_URI", BASE_URI);
+
+        final TemplateMergeService mergeService = new TemplateMergeService(dispatcher);
+        try {
+            mergeService.compile(new Template("TemplateName", "{{client0.id}}", null, null, templateMappers), scopes);
+        } finally {
+            release.countDown();
+            mergeService.shutdown();
+        }
+    }
+
+    /**
+     * Merges the template with mappers answered in-process from the
+     * responses, by path relative to the base URI; other paths are not found.
+     */
+    private static String merge(final String text, final Map<String, String> responses, final TemplateMapper... mappers)
+            throws Exception {
+        final MifosPlatformTenant tenant = mock(MifosPlatformTenant.class);
+        when(tenant.getTenantIdentifier()).thenReturn("default");
+        ThreadLocalContextUtil.setTenant(tenant);
+
+        final InProcessApiDispatcher dispatcher = mock(InProcessApiDispatcher.class);
+        when(dispatcher.isAvailable()).thenReturn(true);
+        when(dispatcher.get(any(URI.class), any(URI.class))).thenAnswer(new Answer<ApiResponse>() {
+
+            @Override
+            public ApiResponse answer(final InvocationOnMock invocation) {
+                final String path = invocation.getArguments()[1].toString().substring(BASE_URI.length());
+                final String body = responses.get(path);
+                if (body == null) { return new ApiResponse(404, "application/json", "{}"); }
+                return new ApiResponse(200, "application/json", body);
+            }
+        });
+
+        final List<TemplateMapper> templateMappers = new ArrayList<>();
+        for (final TemplateMapper mapper : mappers) {
+            templateMappers.add(mapper);
+        }
+        final Map<String, Object> scopes = new HashMap<>();
+        scopes.put("BASE_URI", BASE_URI);
+
+        final TemplateMergeService mergeService = new TemplateMergeService(dispatcher);
+        try {
+            return mergeService.compile(new Template("TemplateName", text, null, null, templateMappers), scopes);
+        } finally {
+            mergeService.shutdown();
+        }
+    }
+
+    private static TemplateMapper mapper(final int order, final String key, final String value) {
+        return new TemplateMapper(order, key, value);
+    }
 }